@@ -0,0 +1,112 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * {@code BenchmarkRepository}는 벤치마크가 사용하는 로컬 저장소와 상태 디렉토리를 준비합니다.
+ *
+ * <p>
+ * 저장소는 {@link SyntheticRepository}로 생성하며 seed가 고정되어 있어 같은 인자로 준비한 저장소는 항상 같은
+ * 커밋 해시를 가집니다. {@code master} 브랜치가 <em>init</em>된 상태 디렉토리를 저장소 옆에 함께 두고 둘 다
+ * 다음 실행에서 재사용합니다. 캐시 위치는 시스템 프로퍼티 {@value #BASE_DIR_PROPERTY}로 바꿀 수 있습니다.
+ */
+final class BenchmarkRepository {
+    static final String BASE_DIR_PROPERTY = "gittravel.bench.dir";
+    static final String BRANCH = SyntheticRepository.BRANCH;
+    static final String PROJECT_NAME = "project";
+
+    private static final String COMPLETE_FILENAME = ".complete";
+    private static final long SEED = 1;
+
+    /** 저장소의 커밋 그래프 모양 */
+    enum Shape {
+        /** 모든 커밋의 부모가 하나 */
+        LINEAR,
+        /** 곁가지 2개가 두 커밋마다 merge */
+        MERGE;
+
+        /** 벤치마크 인자로 받은 이름의 모양 */
+        static Shape of(String name) {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    private final File workTree;
+    private final Path stateDir;
+
+    private BenchmarkRepository(File workTree, Path stateDir) {
+        this.workTree = workTree;
+        this.stateDir = stateDir;
+    }
+
+    /**
+     * {@code commits}개 커밋의 {@code shape} 저장소를 반환합니다. 캐시된 저장소가 없으면 생성합니다.
+     *
+     * @param shape   커밋 그래프 모양
+     * @param commits 커밋 수
+     * @return 생성되거나 캐시된 저장소
+     */
+    static synchronized BenchmarkRepository get(Shape shape, int commits) throws IOException, GitAPIException {
+        Path base = Paths.get(System.getProperty(BASE_DIR_PROPERTY, "target/benchmark-repositories"));
+        SyntheticRepository synthetic = SyntheticRepository.builder()
+            .commits(commits)
+            .seed(SEED)
+            .branches(shape == Shape.MERGE ? 2 : 0, 2)
+            .tree(8, 1)
+            .workTree(true)
+            .cacheDir(base.toAbsolutePath())
+            .build();
+
+        Path directory = synthetic.directory().toPath();
+        BenchmarkRepository repository = new BenchmarkRepository(
+            synthetic.directory(), directory.resolveSibling(directory.getFileName() + "-state"));
+        if (!Files.exists(repository.stateDir.resolve(COMPLETE_FILENAME))) {
+            repository.initialize();
+        }
+        return repository;
+    }
+
+    /** 저장소의 작업 디렉토리 */
+    File workTree() {
+        return workTree;
+    }
+
+    /** {@link #BRANCH}가 초기화된 상태 디렉토리의 {@link TravelLogs} */
+    TravelLogs travelLogs() {
+        return new TravelLogs(stateDir.toString(), PROJECT_NAME);
+    }
+
+    /** 초기화되지 않은 빈 상태 디렉토리의 {@link TravelLogs} */
+    TravelLogs emptyTravelLogs(String name) throws IOException {
+        Path state = stateDir.resolveSibling(stateDir.getFileName() + "-empty-" + name);
+        FileUtils.delete(state.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        return new TravelLogs(state.toString(), PROJECT_NAME);
+    }
+
+    /** 출력을 버리는 세션을 엽니다. */
+    TravelSession openSession(TravelLogs travelLogs) {
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        return TravelSession.open(workTree(), travelLogs, discard, discard);
+    }
+
+    /** 상태 디렉토리에 {@link #BRANCH}를 <em>init</em>합니다. */
+    private void initialize() throws IOException, GitAPIException {
+        FileUtils.delete(stateDir.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        try (TravelSession session = openSession(travelLogs())) {
+            if (0 != new InitCommand().exec(session, CommandLineOptionsParser.parse(Arrays.asList("init")))) {
+                throw new IOException("Cannot initialize benchmark repository : " + workTree);
+            }
+        }
+        Files.createFile(stateDir.resolve(COMPLETE_FILENAME));
+    }
+}
@@ -0,0 +1,58 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <em>travel</em>이 이웃한 커밋으로 checkout하는 경로의 벤치마크입니다. 한 커밋씩 앞뒤로 번갈아 이동합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int commits;
+
+    @Param({ "linear", "merge" })
+    public String shape;
+
+    private TravelSession session;
+    private int step = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        BenchmarkRepository repository = BenchmarkRepository.get(BenchmarkRepository.Shape.of(shape), commits);
+        session = repository.openSession(repository.travelLogs());
+        GitTravels.move(session, "last", false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, GitAPIException {
+        GitTravels.move(session, "last", false);
+        session.close();
+    }
+
+    @Benchmark
+    public void travel() throws IOException, GitAPIException {
+        GitTravels.travel(session, step, false);
+        step = -step;
+    }
+}
@@ -0,0 +1,61 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 초기화되지 않은 브랜치에 <em>init</em>을 수행해 전체 히스토리를 탐색하고 기록하는 벤치마크입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InitBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int commits;
+
+    @Param({ "linear", "merge" })
+    public String shape;
+
+    private final CommandLineOptions init = CommandLineOptionsParser.parse(Arrays.asList("init"));
+    private BenchmarkRepository repository;
+    private TravelSession session;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException, GitAPIException {
+        repository = BenchmarkRepository.get(BenchmarkRepository.Shape.of(shape), commits);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        session = repository.openSession(repository.emptyTravelLogs("init"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public int init() throws GitAPIException {
+        return new InitCommand().exec(session, init);
+    }
+}
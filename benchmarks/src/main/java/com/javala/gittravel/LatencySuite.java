@@ -0,0 +1,343 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.util.FileUtils;
+
+import com.google.common.base.Splitter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * {@code LatencySuite}는 shaded jar를 실제 프로세스로 실행해 커맨드별 지연 시간을 측정하는 end-to-end 벤치마크입니다.
+ *
+ * <p>
+ * JMH 벤치마크로는 보이지 않는 JVM 시작, 저장소 탐색({@code GitTravels.getGitRootDir}), 상태 파일 입출력을 포함해
+ * {@link SyntheticRepository}로 생성한 저장소마다 다음 순서의 커맨드를 {@code --rounds}번 실행합니다.
+ * <pre>
+ * init, travel 1 (x --travels), travel -b 50, move start, move last, here
+ * </pre>
+ * 매 round는 빈 상태 디렉토리에서 시작하며, 커맨드별로 wall time의 p50/p95/p99와 최대 RSS를 JSON 보고서로 기록합니다.
+ * RSS는 Linux의 {@code /proc/<pid>/status}에서 읽으며 다른 OS에서는 -1입니다. jar 옆에 AppCDS archive
+ * ({@code git-travel.jsa})가 있으면 {@code bin/git-travel}처럼 사용합니다.
+ *
+ * <p>
+ * {@code compare}는 두 보고서의 p50, p95를 비교해 baseline보다 {@code --threshold} 비율 이상 느려진 커맨드가 있으면
+ * 실패(종료 코드 1)합니다.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.javala.gittravel.LatencySuite run \
+ *     --jar core/target/git-travel-HEAD-SNAPSHOT-all-deps.jar --commits 1000,100000 --out latency.json
+ * java -cp benchmarks/target/benchmarks.jar com.javala.gittravel.LatencySuite compare \
+ *     --baseline baseline.json --report latency.json --threshold 0.2
+ * </pre>
+ */
+final class LatencySuite {
+    private static final String ARCHIVE_FILENAME = "git-travel.jsa";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private LatencySuite() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            usage();
+        }
+        Map<String, String> options = parseOptions(Arrays.copyOfRange(args, 1, args.length));
+        switch (args[0]) {
+            case "run":
+                Report report = run(options);
+                write(report, Paths.get(option(options, "out", "latency.json")));
+                if (options.containsKey("baseline")) {
+                    System.exit(compare(read(Paths.get(options.get("baseline"))), report, threshold(options)));
+                }
+                break;
+            case "compare":
+                System.exit(compare(
+                    read(Paths.get(required(options, "baseline"))),
+                    read(Paths.get(required(options, "report"))),
+                    threshold(options)));
+                break;
+            default:
+                usage();
+        }
+    }
+
+    private static Report run(Map<String, String> options) throws Exception {
+        Path jar = Paths.get(required(options, "jar")).toAbsolutePath().normalize();
+        Path archive = jar.resolveSibling(ARCHIVE_FILENAME);
+        Path workDir = Paths.get(option(options, "work", "target/latency")).toAbsolutePath();
+        int rounds = Integer.parseInt(option(options, "rounds", "10"));
+        int travels = Integer.parseInt(option(options, "travels", "20"));
+
+        boolean useArchive = Files.isRegularFile(archive) && !options.containsKey("no-archive");
+        List<String> java = new ArrayList<>();
+        java.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (useArchive) {
+            java.add("-XX:SharedArchiveFile=" + archive);
+        }
+        java.add("-jar");
+        java.add(jar.toString());
+
+        Report report = new Report();
+        report.jar = jar.toString();
+        report.archive = useArchive;
+        report.javaVersion = System.getProperty("java.version");
+        report.rounds = rounds;
+        for (String shape : Splitter.on(',').split(option(options, "shapes", "linear,merge"))) {
+            for (String commits : Splitter.on(',').split(option(options, "commits", "1000,100000"))) {
+                SyntheticRepository repository = SyntheticRepository.builder()
+                    .commits(Integer.parseInt(commits))
+                    .branches("merge".equals(shape) ? 2 : 0, 2)
+                    .tree(8, 1)
+                    .workTree(true)
+                    .cacheDir(workDir.resolve("repositories"))
+                    .build();
+                System.out.println("Measuring " + shape + " repository with " + commits + " commits.");
+                report.repositories.add(measure(java, repository, shape, workDir.resolve("home"), rounds, travels));
+            }
+        }
+        return report;
+    }
+
+    private static RepositoryReport measure(
+        List<String> java, SyntheticRepository repository, String shape, Path home, int rounds, int travels
+    ) throws IOException, InterruptedException {
+        List<String[]> sequence = new ArrayList<>();
+        sequence.add(new String[] { "init" });
+        for (int i = 0; i < travels; ++i) {
+            sequence.add(new String[] { "travel", "1" });
+        }
+        sequence.add(new String[] { "travel", "-b", "50" });
+        sequence.add(new String[] { "move", "start" });
+        sequence.add(new String[] { "move", "last" });
+        sequence.add(new String[] { "here" });
+
+        Map<String, List<Sample>> samples = new LinkedHashMap<>();
+        for (int round = 0; round < rounds; ++round) {
+            FileUtils.delete(home.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+            Files.createDirectories(home);
+            for (String[] command : sequence) {
+                List<String> processCommand = new ArrayList<>(java);
+                processCommand.addAll(Arrays.asList(command));
+                Sample sample = execute(processCommand, repository.directory(), home);
+                if (0 != sample.exitCode) {
+                    throw new IOException("Command failed : " + String.join(" ", command));
+                }
+                samples.computeIfAbsent(String.join(" ", command), key -> new ArrayList<>()).add(sample);
+            }
+        }
+
+        RepositoryReport report = new RepositoryReport();
+        report.shape = shape;
+        report.commits = repository.commits();
+        for (Map.Entry<String, List<Sample>> entry : samples.entrySet()) {
+            report.commands.add(CommandReport.of(entry.getKey(), entry.getValue()));
+        }
+        return report;
+    }
+
+    /** 프로세스를 실행해 종료될 때까지의 시간과 최대 RSS를 측정합니다. */
+    private static Sample execute(List<String> command, File directory, Path home)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .directory(directory)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("HOME", home.toString());
+        builder.environment().put("LOCALAPPDATA", home.toString());
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        AtomicLong peakRss = new AtomicLong(-1);
+        Thread sampler = new Thread(() -> samplePeakRss(process, peakRss), "rss-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+        int exitCode = process.waitFor();
+        long elapsed = System.nanoTime() - start;
+        sampler.join();
+        return new Sample(exitCode, elapsed, peakRss.get());
+    }
+
+    /** 프로세스가 끝날 때까지 {@code VmHWM}(최대 RSS, kB)을 읽습니다. */
+    private static void samplePeakRss(Process process, AtomicLong peakRss) {
+        Path status = Paths.get("/proc", Long.toString(process.pid()), "status");
+        while (process.isAlive()) {
+            try {
+                for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                    if (line.startsWith("VmHWM:")) {
+                        long kb = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                        peakRss.accumulateAndGet(kb, Math::max);
+                    }
+                }
+                Thread.sleep(2);
+            } catch (IOException | NumberFormatException e) {
+                // 프로세스가 끝났거나 /proc이 없는 OS입니다.
+                return;
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@code report}의 p50, p95가 {@code baseline}보다 {@code threshold} 비율 이상 느려졌는지 비교합니다.
+     *
+     * @return 느려진 커맨드가 없으면 0, 있으면 1
+     */
+    private static int compare(Report baseline, Report report, double threshold) {
+        Map<String, CommandReport> base = new LinkedHashMap<>();
+        for (RepositoryReport repository : baseline.repositories) {
+            for (CommandReport command : repository.commands) {
+                base.put(repository.key() + " " + command.command, command);
+            }
+        }
+
+        int regressions = 0;
+        for (RepositoryReport repository : report.repositories) {
+            for (CommandReport command : repository.commands) {
+                String key = repository.key() + " " + command.command;
+                CommandReport expected = base.get(key);
+                if (null == expected) {
+                    continue;
+                }
+                boolean regressed = command.p50Millis > expected.p50Millis * (1 + threshold)
+                    || command.p95Millis > expected.p95Millis * (1 + threshold);
+                System.out.println(String.format("%-8s %-40s p50 %8.1f -> %8.1f ms, p95 %8.1f -> %8.1f ms",
+                    regressed ? "SLOWER" : "ok", key,
+                    expected.p50Millis, command.p50Millis, expected.p95Millis, command.p95Millis));
+                regressions += regressed ? 1 : 0;
+            }
+        }
+        if (0 < regressions) {
+            System.out.println(regressions + " command(s) slower than baseline by more than "
+                + Math.round(threshold * 100) + "%.");
+            return 1;
+        }
+        return 0;
+    }
+
+    private static void write(Report report, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            GSON.toJson(report, writer);
+        }
+        System.out.println("Latency report written to " + file);
+    }
+
+    private static Report read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, Report.class);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (!args[i].startsWith("--")) {
+                usage();
+            }
+            String key = args[i].substring(2);
+            boolean flag = i + 1 == args.length || args[i + 1].startsWith("--");
+            options.put(key, flag ? "" : args[++i]);
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    private static String required(Map<String, String> options, String key) {
+        if (!options.containsKey(key)) {
+            usage();
+        }
+        return options.get(key);
+    }
+
+    private static double threshold(Map<String, String> options) {
+        return Double.parseDouble(option(options, "threshold", "0.2"));
+    }
+
+    private static void usage() {
+        System.err.println(String.join(System.lineSeparator(),
+            "Usage : LatencySuite run --jar <shaded jar> [--commits 1000,100000] [--shapes linear,merge]",
+            "                         [--rounds 10] [--travels 20] [--work <dir>] [--out latency.json]",
+            "                         [--no-archive] [--baseline <report> [--threshold 0.2]]",
+            "        LatencySuite compare --baseline <report> --report <report> [--threshold 0.2]"));
+        System.exit(2);
+    }
+
+    /** 프로세스 한 번의 측정 값 */
+    private static final class Sample {
+        private final int exitCode;
+        private final long nanos;
+        private final long peakRssKb;
+
+        private Sample(int exitCode, long nanos, long peakRssKb) {
+            this.exitCode = exitCode;
+            this.nanos = nanos;
+            this.peakRssKb = peakRssKb;
+        }
+    }
+
+    /** JSON 보고서 */
+    private static final class Report {
+        private String jar;
+        private boolean archive;
+        private String javaVersion;
+        private int rounds;
+        private List<RepositoryReport> repositories = new ArrayList<>();
+    }
+
+    private static final class RepositoryReport {
+        private String shape;
+        private int commits;
+        private List<CommandReport> commands = new ArrayList<>();
+
+        private String key() {
+            return shape + "-" + commits;
+        }
+    }
+
+    private static final class CommandReport {
+        private String command;
+        private int samples;
+        private double p50Millis;
+        private double p95Millis;
+        private double p99Millis;
+        private long peakRssKb;
+
+        private static CommandReport of(String command, List<Sample> samples) {
+            long[] nanos = samples.stream().mapToLong(sample -> sample.nanos).sorted().toArray();
+            CommandReport report = new CommandReport();
+            report.command = command;
+            report.samples = nanos.length;
+            report.p50Millis = percentile(nanos, 50);
+            report.p95Millis = percentile(nanos, 95);
+            report.p99Millis = percentile(nanos, 99);
+            report.peakRssKb = samples.stream().mapToLong(sample -> sample.peakRssKb).max().orElse(-1);
+            return report;
+        }
+
+        /** nearest-rank 백분위 수(ms) */
+        private static double percentile(long[] sortedNanos, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedNanos.length);
+            return sortedNanos[Math.max(0, rank - 1)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 브랜치 로그를 읽는 경로의 벤치마크입니다.
+ *
+ * <p>
+ * {@code loadLogs}와 {@code walkLogs}는 이전 {@code GitTravels.getAllLogs}에 해당하며 각각 <em>init</em>으로
+ * 기록된 로그를 여는 경우와 초기화되지 않아 저장소를 탐색하는 경우입니다. {@code headPosition}은 이전
+ * {@code getCurrentHeadIndex}에 해당합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimelineBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int commits;
+
+    @Param({ "linear", "merge" })
+    public String shape;
+
+    private TravelSession session;
+    private TravelSession uninitializedSession;
+    private TravelLogs travelLogs;
+    private ObjectId headCommit;
+    private String middleCommit;
+    private int travelCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GitAPIException {
+        BenchmarkRepository repository = BenchmarkRepository.get(BenchmarkRepository.Shape.of(shape), commits);
+        travelLogs = repository.travelLogs();
+        session = repository.openSession(travelLogs);
+        uninitializedSession = repository.openSession(repository.emptyTravelLogs("timeline"));
+        try (Git git = session.git()) {
+            headCommit = ObjectId.fromString(GitTravels.getHeadCommitHash(git).get());
+        }
+        CommitTimeline timeline = travelLogs.openTimeline(BenchmarkRepository.BRANCH);
+        middleCommit = timeline.get(timeline.size() / 2).name();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+        uninitializedSession.close();
+    }
+
+    @Benchmark
+    public BranchTimeline loadLogs() throws IOException, GitAPIException {
+        return BranchTimeline.load(session);
+    }
+
+    @Benchmark
+    public BranchTimeline walkLogs() throws IOException, GitAPIException {
+        return BranchTimeline.load(uninitializedSession);
+    }
+
+    @Benchmark
+    public int headPosition() throws IOException, GitAPIException {
+        return BranchTimeline.load(session).headPosition(headCommit);
+    }
+
+    @Benchmark
+    public List<String> readCommits() throws IOException {
+        return travelLogs.readCommits(BenchmarkRepository.BRANCH);
+    }
+
+    /** head를 한 커밋씩 앞뒤로 번갈아 옮깁니다. */
+    @Benchmark
+    public void writeHeadToCount() throws IOException {
+        if ((++travelCount & 1) == 0) {
+            travelLogs.writeHeadToCount(1);
+        } else {
+            travelLogs.writeHeadBackToCount(1);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidCommit() throws IOException {
+        return travelLogs.isValidCommit(BenchmarkRepository.BRANCH, middleCommit);
+    }
+}
@@ -0,0 +1,190 @@
+package com.javala.gittravel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * <em>batch</em> 커맨드를 수행하는 클래스입니다.
+ *
+ * <p>
+ * 파일이나 표준 입력에서 한 줄에 하나씩 커맨드를 읽어 한 프로세스 안에서 순서대로 수행합니다. 모든 커맨드는 같은
+ * {@link TravelSession}을 사용하므로 저장소와 {@link TravelLogs}를 한 번만 찾고 엽니다. 각 줄은 {@link Main#processArgs}로
+ * 확인한 후 {@link Main#run}으로 수행하며, 실패한 커맨드가 있어도 다음 줄을 계속 수행합니다.
+ *
+ * <p>
+ * 인자는 공백으로 나누며 작은따옴표와 큰따옴표로 묶거나 '\'로 escape할 수 있습니다. 빈 줄과 '#'으로 시작하는 줄은
+ * 건너뜁니다. 커맨드마다 출력이 끝난 후 {@code [batch] <줄 번호> exit <종료 코드>}를, 마지막에 수행한 커맨드 수와 실패한
+ * 커맨드 수를 출력합니다. 모든 커맨드를 수행한 후의 checkout이 실패하면 {@code [batch] materialize exit 1}을 출력하고
+ * 실패한 커맨드 수에 더합니다.
+ *
+ * <p>
+ * daemon과 같이 <em>travel</em>과 <em>move</em>는 checkout을 미루고, 작업 트리를 보는 다른 커맨드를 수행하기 전과
+ * 모든 커맨드를 수행한 후에 마지막 위치로 한 번만 checkout합니다.
+ *
+ * <p>
+ * Usage) {@code batch [<file>]}
+ */
+final class BatchCommand extends Command {
+    private final InputStream in;
+
+    /** @param in 파일을 지정하지 않았을 때 커맨드를 읽을 스트림 */
+    BatchCommand(InputStream in) {
+        this.in = in;
+    }
+
+    /** batch 커맨드를 수행합니다. */
+    @Override
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        try {
+            if (parameters.batchFile().isPresent()) {
+                try (BufferedReader reader =
+                        Files.newBufferedReader(Paths.get(parameters.batchFile().get()), StandardCharsets.UTF_8)) {
+                    return execAll(session, reader);
+                }
+            }
+            // 표준 입력은 닫지 않습니다.
+            return execAll(session, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            session.err().println(e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int execAll(TravelSession session, BufferedReader reader) throws IOException {
+        int count = 0;
+        int failed = 0;
+        int lineNumber = 0;
+        try {
+            for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+                ++lineNumber;
+                final String command = line.trim();
+                if (command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+
+                int exitCode;
+                try {
+                    exitCode = exec(session, split(command).toArray(new String[0]));
+                } catch (IllegalArgumentException e) {
+                    session.err().println(e.getMessage());
+                    exitCode = 1;
+                }
+                ++count;
+                failed += (0 == exitCode) ? 0 : 1;
+                session.out().println(String.format("[batch] %d exit %d", lineNumber, exitCode));
+                session.out().flush();
+            }
+        } finally {
+            if (!materialize(session)) {
+                ++failed;
+                session.out().println("[batch] materialize exit 1");
+            }
+        }
+        session.out().println(String.format("[batch] %d commands, %d failed", count, failed));
+        return (0 == failed) ? 0 : 1;
+    }
+
+    /** 한 줄의 커맨드를 수행합니다. 실패하면 에러를 출력하고 1을 반환합니다. */
+    private static int exec(TravelSession session, String[] args) {
+        try {
+            final CommandLineOptions parameters = Main.processArgs(args);
+            switch (parameters.commandType()) {
+                case BATCH:
+                case DAEMON:
+                    session.err().println(String.format("'%s' cannot run in batch.", args[0]));
+                    return 1;
+                case TRAVEL:
+                case MOVE:
+                    return Main.run(session.deferringCheckout(), parameters);
+                case HERE:
+                case MATERIALIZE:
+                    return Main.run(session, parameters);
+                default:
+                    if (!materialize(session)) {
+                        return 1;
+                    }
+                    return Main.run(session, parameters);
+            }
+        } catch (UsageException e) {
+            session.err().print(e.getMessage());
+            return 1;
+        } catch (GitAPIException | RuntimeException e) {
+            session.err().println(e.getMessage());
+            return 1;
+        }
+    }
+
+    /** 미루어 둔 checkout을 수행합니다. 실패하면 에러를 출력하고 false를 반환합니다. */
+    private static boolean materialize(TravelSession session) {
+        try {
+            GitTravels.materialize(session);
+            return true;
+        } catch (IOException | GitAPIException e) {
+            session.err().println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 한 줄의 커맨드를 인자로 나눕니다.
+     *
+     * <p>
+     * 공백으로 나누며, 작은따옴표 안은 그대로, 큰따옴표 안은 {@code \"}와 {@code \\}만 escape해서 읽습니다.
+     * 따옴표 밖의 '\'는 다음 문자를 그대로 읽습니다. 예) {@code travel --grep "JIRA-1234 OR hotfix"}
+     *
+     * @param line 커맨드 한 줄
+     * @return     인자 목록
+     * @throws IllegalArgumentException 따옴표가 닫히지 않았거나 줄이 '\'로 끝날 때
+     */
+    static List<String> split(String line) {
+        final List<String> args = new ArrayList<String>();
+        final StringBuilder arg = new StringBuilder();
+        boolean inArg = false;
+        for (int i = 0; i < line.length(); ++i) {
+            final char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    inArg = false;
+                }
+                continue;
+            }
+            inArg = true;
+            if ('\'' == c || '"' == c) {
+                int j = i + 1;
+                for (; j < line.length() && c != line.charAt(j); ++j) {
+                    if ('"' == c && '\\' == line.charAt(j) && j + 1 < line.length()
+                            && ('"' == line.charAt(j + 1) || '\\' == line.charAt(j + 1))) {
+                        ++j;
+                    }
+                    arg.append(line.charAt(j));
+                }
+                if (line.length() == j) {
+                    throw new IllegalArgumentException(String.format("Unterminated quote : %s", line));
+                }
+                i = j;
+            } else if ('\\' == c) {
+                if (line.length() == i + 1) {
+                    throw new IllegalArgumentException(String.format("Trailing escape : %s", line));
+                }
+                arg.append(line.charAt(++i));
+            } else {
+                arg.append(c);
+            }
+        }
+        if (inArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+}
@@ -0,0 +1,329 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * {@code BranchTimeline}은 <em>here</em>, <em>travel</em>, <em>move</em> 커맨드가 탐색하는 브랜치 로그입니다.
+ *
+ * <p>
+ * <em>init</em>으로 초기화된 current branch가 있으면 {@link TravelLogs}에 기록된 {@link CommitTimeline}과
+ * {@link CommitIndex}를 그대로 사용하기 때문에 저장소의 히스토리를 탐색하지 않습니다.
+ * 초기화되지 않았을 때만 저장소의 모든 로그를 탐색해 메모리에 올립니다.
+ *
+ * <p>
+ * <em>init</em>이 기록한 {@link CommitMetadata}가 있으면 커밋 제목도 저장소 대신 메타데이터에서 읽습니다.
+ *
+ * <p>
+ * 커밋의 부모와 자식은 {@link CommitAdjacency}에서, 시간에 따른 position은 {@link CommitTimes}에서,
+ * tag는 {@link CommitTags}에서 찾습니다.
+ * 저장소를 직접 탐색한 로그는 탐색하면서 메모리에 만듭니다. 커밋이 바꾼 경로의 {@link ChangedPathFilters}는
+ * <em>init</em>이 기록한 경우에만 사용합니다. 메시지와 author로 커밋을 찾는 {@link CommitTermIndex}도 마찬가지입니다.
+ *
+ * <p>
+ * first-parent 로그는 <em>init --first-parent</em>로 기록한 경우에만 불러올 수 있습니다.
+ *
+ * <p>
+ * position은 {@link CommitTimeline}과 같이 가장 오래된 커밋이 0입니다.
+ */
+final class BranchTimeline {
+    private final CommitTimeline timeline;
+    private final CommitIndex index;
+    private final CommitMetadata metadata;
+    private final CommitAdjacency adjacency;
+    private final TravelLogs travelLogs;
+    /** {@link TravelLogs}에 기록된 로그 이름, branch 또는 {@link TravelLogs#firstParentLog} */
+    private final String log;
+    /** 축약된 해시를 해석할 때 처음 한 번만 연다. */
+    private CommitPrefixIndex prefixIndex;
+    /** 시간으로 이동할 때 처음 한 번만 연다. */
+    private CommitTimes times;
+    /** tag를 표시하거나 tag로 이동할 때 처음 한 번만 연다. */
+    private CommitTags tags;
+    /** 경로로 이동할 때 처음 한 번만 연다. */
+    private ChangedPathFilters pathFilters;
+    /** 메시지나 author로 이동할 때 처음 한 번만 연다. */
+    private CommitTermIndex termIndex;
+
+    private BranchTimeline(
+        CommitTimeline timeline, CommitIndex index, CommitMetadata metadata, CommitAdjacency adjacency,
+        TravelLogs travelLogs, String log
+    ) {
+        this.timeline = timeline;
+        this.index = index;
+        this.metadata = metadata;
+        this.adjacency = adjacency;
+        this.travelLogs = travelLogs;
+        this.log = log;
+    }
+
+    /**
+     * 현재 프로젝트의 브랜치 로그를 불러옵니다.
+     *
+     * @param session 커맨드를 수행하는 세션
+     * @return current branch가 초기화되어 있으면 기록된 로그, 아니면 저장소를 탐색한 로그
+     * @throws IOException 로그를 읽지 못했을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    static BranchTimeline load(TravelSession session) throws IOException, GitAPIException {
+        return load(session, false);
+    }
+
+    /**
+     * 현재 프로젝트의 브랜치 로그 또는 first-parent 로그를 불러옵니다.
+     *
+     * @param session     커맨드를 수행하는 세션
+     * @param firstParent true이면 current branch의 first-parent 로그를 불러옵니다
+     * @return 기록된 로그, first-parent 로그가 아니고 current branch가 초기화되지 않았으면 저장소를 탐색한 로그
+     * @throws IOException 로그를 읽지 못했거나 first-parent 로그가 기록되지 않았을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    static BranchTimeline load(TravelSession session, boolean firstParent) throws IOException, GitAPIException {
+        try {
+            TravelLogs travelLogs = session.travelLogs();
+            if (travelLogs.existsCurrentBranch()) {
+                String branch = travelLogs.readCurrentBranch();
+                String log = firstParent ? TravelLogs.firstParentLog(branch) : branch;
+                if (travelLogs.isInitialized(log)) {
+                    CommitTimeline timeline = travelLogs.openTimeline(log);
+                    return new BranchTimeline(timeline, travelLogs.openIndex(log, timeline),
+                        travelLogs.openMetadata(log, timeline), travelLogs.openAdjacency(log, timeline),
+                        travelLogs, log);
+                }
+            }
+        } catch (TravelLogsException e) {
+            // 상태 디렉토리를 정할 수 없으면 저장소를 직접 탐색합니다.
+        }
+        if (firstParent) {
+            throw new IOException("First-parent log is not initialized. Run 'init --first-parent' first.");
+        }
+        return walk(session.git());
+    }
+
+    /**
+     * 저장소의 모든 로그를 탐색해 메모리에만 존재하는 로그를 생성합니다.
+     *
+     * <p>
+     * 커밋 해시와 부모만 필요하므로 body를 보관하지 않고 탐색합니다. 그래서 commit-graph가 있으면 커밋 객체를 읽지 않습니다.
+     */
+    private static BranchTimeline walk(Git git) throws IOException {
+        List<RevCommit> commits = new ArrayList<RevCommit>();
+        try (RevWalk walk = new RevWalk(git.getRepository())) {
+            walk.setRetainBody(false);
+            for (Ref ref : git.getRepository().getRefDatabase().getRefs()) {
+                ObjectId id = ref.getPeeledObjectId();
+                if (null == id) {
+                    id = ref.getObjectId();
+                }
+                if (null == id) {
+                    continue;
+                }
+                RevObject object = walk.peel(walk.parseAny(id));
+                if (object instanceof RevCommit) {
+                    walk.markStart((RevCommit) object);
+                }
+            }
+            for (RevCommit commit : walk) {
+                commits.add(commit);
+            }
+        }
+        Collections.reverse(commits);
+        CommitTimeline timeline = CommitTimeline.of(commits);
+        CommitIndex index = CommitIndex.of(timeline);
+
+        int[] offsets = new int[commits.size() + 1];
+        for (int position = 0; position < commits.size(); ++position) {
+            offsets[position + 1] = offsets[position] + commits.get(position).getParentCount();
+        }
+        int[] parents = new int[offsets[commits.size()]];
+        for (int position = 0; position < commits.size(); ++position) {
+            RevCommit commit = commits.get(position);
+            for (int i = 0; i < commit.getParentCount(); ++i) {
+                parents[offsets[position] + i] = index.positionOf(commit.getParent(i));
+            }
+        }
+        long[] commitTimes = new long[commits.size()];
+        for (int position = 0; position < commits.size(); ++position) {
+            commitTimes[position] = commits.get(position).getCommitTime();
+        }
+        BranchTimeline walked = new BranchTimeline(
+            timeline, index, null, CommitAdjacency.of(timeline, offsets, parents), null, null);
+        walked.times = CommitTimes.of(timeline, commitTimes);
+        walked.tags = CommitTags.of(timeline, CommitTags.read(git.getRepository(), index));
+        return walked;
+    }
+
+    /** <em>init</em>으로 기록된 로그이면 true, 저장소를 직접 탐색한 로그이면 false */
+    boolean isInitialized() {
+        return null != travelLogs;
+    }
+
+    /** 로그의 커밋 수 */
+    int size() {
+        return timeline.size();
+    }
+
+    /** {@code position}의 커밋 */
+    ObjectId get(int position) {
+        return timeline.get(position);
+    }
+
+    /** {@code position} 커밋의 제목, 메타데이터가 없으면 null */
+    String subject(int position) {
+        return (null == metadata) ? null : metadata.subject(position);
+    }
+
+    /**
+     * 로그의 부모와 자식 목록을 반환합니다.
+     *
+     * @throws IOException <em>init</em>이 부모와 자식 목록을 기록하지 않았을 때
+     */
+    CommitAdjacency adjacency() throws IOException {
+        if (null == adjacency) {
+            throw new IOException("Parents and children are not recorded. Run 'init' again.");
+        }
+        return adjacency;
+    }
+
+    /**
+     * 축약된 커밋 해시를 해석하는 인덱스를 반환합니다.
+     *
+     * <p>
+     * 기록된 로그는 {@link TravelLogs}의 prefixes 파일을 열고, 저장소를 직접 탐색한 로그는 메모리에 만듭니다.
+     *
+     * @throws IOException 인덱스를 읽지 못했을 때
+     */
+    CommitPrefixIndex prefixIndex() throws IOException {
+        if (null == prefixIndex) {
+            prefixIndex = isInitialized()
+                ? travelLogs.openPrefixIndex(log, timeline)
+                : CommitPrefixIndex.of(timeline);
+        }
+        return prefixIndex;
+    }
+
+    /**
+     * 로그의 커밋 시간을 반환합니다.
+     *
+     * <p>
+     * 기록된 로그는 {@link TravelLogs}의 times 파일을 열고, 저장소를 직접 탐색한 로그는 탐색하면서 읽은 commit time을
+     * 사용합니다. 어느 쪽도 커밋 객체를 다시 읽지 않습니다.
+     *
+     * @throws IOException <em>init</em>이 커밋 시간을 기록하지 않았을 때
+     */
+    CommitTimes times() throws IOException {
+        if (null == times && isInitialized()) {
+            times = travelLogs.openTimes(log, timeline);
+        }
+        if (null == times) {
+            throw new IOException("Commit times are not recorded. Run 'init' again.");
+        }
+        return times;
+    }
+
+    /**
+     * 로그의 커밋을 가리키는 tag 목록을 반환합니다.
+     *
+     * <p>
+     * 기록된 로그는 <em>init</em>이 기록한 tags 파일을 열고, 저장소를 직접 탐색한 로그는 탐색할 때 ref에서 읽습니다.
+     *
+     * @return tag 목록, <em>init</em>이 tag를 기록하지 않았으면 null
+     * @throws IOException tags 파일을 읽지 못했을 때
+     */
+    CommitTags tagsOrNull() throws IOException {
+        if (null == tags && isInitialized()) {
+            tags = travelLogs.openTags(log, timeline);
+        }
+        return tags;
+    }
+
+    /**
+     * 로그의 커밋을 가리키는 tag 목록을 반환합니다.
+     *
+     * @throws IOException <em>init</em>이 tag를 기록하지 않았을 때
+     */
+    CommitTags tags() throws IOException {
+        CommitTags tags = tagsOrNull();
+        if (null == tags) {
+            throw new IOException("Tags are not recorded. Run 'init' again.");
+        }
+        return tags;
+    }
+
+    /**
+     * 로그의 커밋마다 바뀐 경로의 filter를 반환합니다.
+     *
+     * <p>
+     * filter가 없어도 경로로 이동할 수 있지만 모든 커밋을 tree diff로 확인합니다.
+     *
+     * @return filter, <em>init</em>이 기록하지 않았거나 저장소를 직접 탐색한 로그이면 null
+     * @throws IOException blooms 파일을 읽지 못했을 때
+     */
+    ChangedPathFilters pathFiltersOrNull() throws IOException {
+        if (null == pathFilters && isInitialized()) {
+            pathFilters = travelLogs.openPathFilters(log, timeline);
+        }
+        return pathFilters;
+    }
+
+    /**
+     * 로그의 커밋 메시지와 author, committer의 역색인을 반환합니다.
+     *
+     * @throws IOException <em>init</em>이 역색인을 기록하지 않았거나 저장소를 직접 탐색한 로그일 때
+     */
+    CommitTermIndex termIndex() throws IOException {
+        if (null == termIndex && isInitialized()) {
+            termIndex = travelLogs.openTermIndex(log, timeline);
+        }
+        if (null == termIndex) {
+            throw new IOException("Commit messages are not indexed. Run 'init' again.");
+        }
+        return termIndex;
+    }
+
+    /** {@code commit}의 position, 로그에 없으면 -1 */
+    int positionOf(AnyObjectId commit) {
+        return index.positionOf(commit);
+    }
+
+    /**
+     * <em>HEAD</em>의 position을 반환합니다.
+     *
+     * <p>
+     * <em>HEAD</em>가 로그에 없으면 git-travel이 마지막으로 기록한 head의 position을 반환합니다.
+     *
+     * @param headCommit 현재 <em>HEAD</em> 커밋
+     * @return <em>HEAD</em>의 position, 찾을 수 없으면 -1
+     * @throws IOException head를 읽지 못했을 때
+     */
+    int headPosition(AnyObjectId headCommit) throws IOException {
+        int position = index.positionOf(headCommit);
+        if (position < 0 && isInitialized()) {
+            position = travelLogs.readHeadPosition(log);
+        }
+        return position;
+    }
+
+    /**
+     * git-travel의 head를 {@code position}으로 기록합니다. 초기화되지 않은 로그이면 아무것도 하지 않습니다.
+     *
+     * @param position 기록할 position
+     * @throws IOException head를 기록하지 못했을 때
+     */
+    void writeHead(int position) throws IOException {
+        if (isInitialized()) {
+            travelLogs.writeHeadToPosition(log, position);
+        }
+    }
+}
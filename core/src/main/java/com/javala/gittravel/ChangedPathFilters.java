@@ -0,0 +1,481 @@
+package com.javala.gittravel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * {@code ChangedPathFilters}는 {@link CommitTimeline}과 같은 position 순서로 커밋마다 바뀐 경로의 Bloom filter를 기록하는
+ * <em>blooms</em> 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 각 커밋의 filter에는 첫 번째 부모(부모가 없으면 빈 tree)와 비교해 바뀐 파일과 그 상위 디렉토리가 모두 들어 있다.
+ * filter에 없는 경로는 그 커밋에서 바뀌지 않은 것이 확실하므로, 경로로 이동할 때 filter가 "있을 수도 있다"고 답한
+ * 소수의 커밋만 tree diff로 확인한다. git의 changed-path Bloom filter와 같이 경로 하나에 10 bit, hash 7개를 쓴다.
+ * 바뀐 경로가 {@value #MAX_CHANGED_PATHS}개보다 많은 커밋은 모든 bit가 켜진 1 byte filter를 기록해 항상 확인한다.
+ *
+ * <pre>
+ * offset  size        field
+ * 0       4           magic ("GTBF")
+ * 4       4           version
+ * 8       4           timeline count (n)
+ * 12      4           timeline checksum
+ * 16      4 * (n + 1) position별 filter 시작 offset, 마지막은 filter 영역의 끝
+ * ...     ...         filter (길이가 0이면 바뀐 경로가 없는 커밋)
+ * </pre>
+ *
+ * <p>
+ * <em>init</em>이 저장소의 tree를 읽어 기록하며 {@link CommitAdjacency}와 같이 저장소 없이 다시 생성할 수 없다.
+ * 헤더가 현재 timeline과 다르면 무시한다. {@link Writer}가 filter를 position 순서로 받아 바로 파일에 기록하므로
+ * 전체 filter를 힙에 모으지 않는다.
+ */
+final class ChangedPathFilters {
+    static final int MAGIC = 0x47544246; // "GTBF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int BITS_PER_PATH = 10;
+    static final int HASH_COUNT = 7;
+    static final int MAX_CHANGED_PATHS = 512;
+    /** {@link #compute}가 한 번에 계산해 들고 있는 커밋 수 */
+    static final int WINDOW_SIZE = ParallelCommits.CHUNK_SIZE * 32;
+
+    /** 바뀐 경로가 너무 많은 커밋의 filter, 모든 경로에 대해 "있을 수도 있다"고 답한다. */
+    private static final byte[] ALL_PATHS = { (byte) 0xff };
+    /** git의 changed-path Bloom filter와 같은 murmur3 seed */
+    private static final HashFunction FIRST_HASH = Hashing.murmur3_32_fixed(0x293ae76f);
+    private static final HashFunction SECOND_HASH = Hashing.murmur3_32_fixed(0x7e646e2c);
+
+    private final ByteBuffer buffer;
+    private final CommitTimeline timeline;
+    private final int filtersOffset;
+
+    private ChangedPathFilters(ByteBuffer buffer, CommitTimeline timeline) {
+        this.buffer = buffer;
+        this.timeline = timeline;
+        this.filtersOffset = HEADER_SIZE + 4 * (timeline.size() + 1);
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 filter를 연다.
+     *
+     * @param file     열 blooms 파일
+     * @param timeline filter가 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static ChangedPathFilters open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        long filtersOffset = HEADER_SIZE + 4L * (timeline.size() + 1);
+        if (buffer.limit() < filtersOffset
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()
+                || filtersOffset + buffer.getInt(HEADER_SIZE + 4 * timeline.size()) != buffer.limit()) {
+            return null;
+        }
+        return new ChangedPathFilters(buffer, timeline);
+    }
+
+    /**
+     * {@code filters}를 {@code file}에 기록한 후 연다.
+     *
+     * @param file     기록할 blooms 파일
+     * @param timeline filter가 가리키는 timeline
+     * @param filters  position별 filter
+     * @return 기록한 filter
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static ChangedPathFilters build(Path file, CommitTimeline timeline, byte[][] filters) throws IOException {
+        try (Writer writer = new Writer(file, timeline)) {
+            for (byte[] filter : filters) {
+                writer.add(filter);
+            }
+            writer.commit();
+        }
+        return open(file, timeline);
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 filter를 생성한다.
+     *
+     * @param timeline filter가 가리키는 timeline
+     * @param filters  position별 filter
+     * @return 생성한 filter
+     */
+    static ChangedPathFilters of(CommitTimeline timeline, byte[][] filters) {
+        int size = timeline.size();
+        Preconditions.checkArgument(filters.length == size,
+            "filters must have %s entries : %s", size, filters.length);
+        long filtersLength = 0;
+        for (byte[] filter : filters) {
+            filtersLength += filter.length;
+        }
+        Preconditions.checkArgument(HEADER_SIZE + 4L * (size + 1) + filtersLength <= Integer.MAX_VALUE,
+            "filters are too large : %s bytes", filtersLength);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + 4L * (size + 1) + filtersLength));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(timeline.checksum());
+        int offset = 0;
+        for (byte[] filter : filters) {
+            buffer.putInt(offset);
+            offset += filter.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] filter : filters) {
+            buffer.put(filter);
+        }
+        buffer.clear();
+        return new ChangedPathFilters(buffer, timeline);
+    }
+
+    /**
+     * {@code timeline}의 커밋마다 바뀐 경로의 filter를 계산해 position 순서로 {@code writer}에 기록한다.
+     *
+     * <p>
+     * 한 커밋의 filter는 커밋과 첫 번째 부모로만 정해지므로 {@code previous}에 같은 커밋의 filter가 있으면 그대로 쓰고,
+     * 나머지 커밋만 {@link ParallelCommits}로 여러 스레드에 나누어 계산한다. position을 {@value #WINDOW_SIZE}개씩
+     * 나누어 계산하고 바로 기록하므로 힙에는 한 구간의 filter만 남는다.
+     *
+     * @param repository    커밋과 tree를 읽을 저장소
+     * @param timeline      filter를 계산할 timeline
+     * @param previous      다시 쓸 filter, 없으면 null
+     * @param previousIndex {@code previous}의 timeline에 대한 인덱스, {@code previous}가 null이면 무시한다
+     * @param writer        filter를 기록할 writer, 호출한 쪽에서 {@link Writer#commit()}한다
+     * @throws IOException 커밋이나 tree를 읽지 못했거나 기록하지 못했을 때
+     */
+    static void compute(
+        Repository repository, CommitTimeline timeline, ChangedPathFilters previous, CommitIndex previousIndex,
+        Writer writer
+    ) throws IOException {
+        byte[][] filters = new byte[Math.min(WINDOW_SIZE, timeline.size())][];
+        int[] missing = new int[filters.length];
+        for (int from = 0; from < timeline.size(); from += WINDOW_SIZE) {
+            int to = Math.min(from + WINDOW_SIZE, timeline.size());
+            int missingCount = 0;
+            for (int position = from; position < to; ++position) {
+                int previousPosition = (null == previous) ? -1 : previousIndex.positionOf(timeline.get(position));
+                if (0 <= previousPosition) {
+                    filters[position - from] = previous.filter(previousPosition);
+                } else {
+                    missing[missingCount++] = position;
+                }
+            }
+            // 각 작업은 서로 다른 position에만 기록한다.
+            int windowStart = from;
+            ParallelCommits.forEachChunk(repository, Arrays.copyOf(missing, missingCount), "git-travel-blooms",
+                (reader, positions) -> computeChunk(reader, timeline, positions, windowStart, filters));
+            for (int position = from; position < to; ++position) {
+                writer.add(filters[position - from]);
+                filters[position - from] = null;
+            }
+        }
+    }
+
+    private static void computeChunk(
+        ObjectReader reader, CommitTimeline timeline, int[] positions, int windowStart, byte[][] filters
+    ) throws IOException {
+        try (RevWalk walk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            walk.setRetainBody(false);
+            Set<String> paths = new HashSet<String>();
+            for (int position : positions) {
+                RevCommit commit = walk.parseCommit(timeline.get(position));
+                resetDiff(walk, treeWalk, commit, TreeFilter.ANY_DIFF);
+                paths.clear();
+                while (paths.size() <= MAX_CHANGED_PATHS && treeWalk.next()) {
+                    String path = treeWalk.getPathString();
+                    // 파일과 함께 상위 디렉토리도 넣어 디렉토리로 조회할 수 있게 한다. 이미 있는 경로의 상위는 이미 들어 있다.
+                    int end = path.length();
+                    while (0 < end && paths.add(path.substring(0, end))) {
+                        end = path.lastIndexOf('/', end - 1);
+                    }
+                }
+                filters[position - windowStart] = filterOf(paths);
+            }
+        }
+    }
+
+    /** {@code paths}의 filter를 만든다. */
+    static byte[] filterOf(Set<String> paths) {
+        if (MAX_CHANGED_PATHS < paths.size()) {
+            return ALL_PATHS.clone();
+        }
+        byte[] filter = new byte[(paths.size() * BITS_PER_PATH + 7) / 8];
+        for (String path : paths) {
+            Key key = key(path);
+            for (int i = 0; i < HASH_COUNT; ++i) {
+                int bit = key.bit(i, filter.length);
+                filter[bit >>> 3] |= 1 << (bit & 7);
+            }
+        }
+        return filter;
+    }
+
+    /** {@code path}를 조회할 때 쓰는 hash를 계산한다. */
+    static Key key(String path) {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        return new Key(FIRST_HASH.hashBytes(bytes).asInt(), SECOND_HASH.hashBytes(bytes).asInt());
+    }
+
+    /** {@code commit}과 첫 번째 부모를 비교하도록 {@code treeWalk}를 초기화한다. */
+    private static void resetDiff(RevWalk walk, TreeWalk treeWalk, RevCommit commit, TreeFilter filter)
+            throws IOException {
+        treeWalk.reset();
+        treeWalk.setRecursive(true);
+        treeWalk.setFilter(filter);
+        if (0 < commit.getParentCount()) {
+            treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+        } else {
+            treeWalk.addTree(new EmptyTreeIterator());
+        }
+        treeWalk.addTree(commit.getTree());
+    }
+
+    /** 기록된 커밋 수 */
+    int size() {
+        return timeline.size();
+    }
+
+    /** filter가 가리키는 timeline */
+    CommitTimeline timeline() {
+        return timeline;
+    }
+
+    /**
+     * {@code position}의 커밋에서 {@code key}의 경로가 바뀌었을 수 있으면 true를 리턴한다.
+     *
+     * @param position 확인할 커밋의 position
+     * @param key      {@link #key}로 계산한 경로의 hash
+     * @return false이면 경로가 바뀌지 않은 것이 확실하다
+     */
+    boolean mightContain(int position, Key key) {
+        Preconditions.checkElementIndex(position, size());
+        int start = buffer.getInt(HEADER_SIZE + 4 * position);
+        int length = buffer.getInt(HEADER_SIZE + 4 * (position + 1)) - start;
+        if (0 == length) {
+            return false;
+        }
+        for (int i = 0; i < HASH_COUNT; ++i) {
+            int bit = key.bit(i, length);
+            if (0 == (buffer.get(filtersOffset + start + (bit >>> 3)) & (1 << (bit & 7)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@code position}의 filter 복사본 */
+    byte[] filter(int position) {
+        Preconditions.checkElementIndex(position, size());
+        int start = buffer.getInt(HEADER_SIZE + 4 * position);
+        byte[] filter = new byte[buffer.getInt(HEADER_SIZE + 4 * (position + 1)) - start];
+        ByteBuffer filters = buffer.duplicate();
+        filters.position(filtersOffset + start);
+        filters.get(filter);
+        return filter;
+    }
+
+    /**
+     * blooms 파일을 임시 파일에 기록한 후 {@link #commit()}에서 대상 파일로 교체하는 writer이다.
+     * {@link #commit()} 전에 닫히면 임시 파일을 지우고 기존 파일은 유지된다.
+     *
+     * <p>
+     * filter는 position 순서로 받는다. offset 영역의 크기는 timeline으로 정해지므로 filter는 그 뒤에 이어 쓰고,
+     * offset은 고정 크기 버퍼가 찰 때마다 제자리에 기록한다.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final CommitTimeline timeline;
+        private final FileChannel channel;
+        private final ByteBuffer offsets = ByteBuffer.allocate(64 * 1024);
+        private final ByteBuffer filterChunk = ByteBuffer.allocate(64 * 1024);
+        private final long filtersOffset;
+        private int size = 0;
+        private int flushedOffsets = 0;
+        private long filtersLength = 0;
+        private long flushedFilters = 0;
+        private boolean committed = false;
+
+        Writer(Path file, CommitTimeline timeline) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.timeline = timeline;
+            this.filtersOffset = HEADER_SIZE + 4L * (timeline.size() + 1);
+            this.channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        /** {@code filter}를 다음 position에 기록한다. */
+        void add(byte[] filter) throws IOException {
+            Preconditions.checkState(size < timeline.size(), "filters exceed timeline count %s.", timeline.size());
+            if (filtersOffset + filtersLength + filter.length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Changed path filters are too large : %s", file));
+            }
+            putOffset((int) filtersLength);
+            if (filterChunk.remaining() < filter.length) {
+                flushFilters();
+            }
+            if (filterChunk.remaining() < filter.length) {
+                writeFully(ByteBuffer.wrap(filter), filtersOffset + flushedFilters);
+                flushedFilters += filter.length;
+            } else {
+                filterChunk.put(filter);
+            }
+            filtersLength += filter.length;
+            ++size;
+        }
+
+        /** 지금까지 기록한 커밋 수 */
+        int size() {
+            return size;
+        }
+
+        /** 마지막 offset과 헤더를 기록하고 임시 파일을 대상 파일로 교체한다. */
+        void commit() throws IOException {
+            Preconditions.checkState(size == timeline.size(),
+                "filter count %s does not match timeline count %s.", size, timeline.size());
+            putOffset((int) filtersLength);
+            flushOffsets();
+            flushFilters();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(timeline.checksum()).flip();
+            writeFully(header, 0);
+            channel.force(false);
+            channel.close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private void putOffset(int offset) throws IOException {
+            offsets.putInt(offset);
+            if (!offsets.hasRemaining()) {
+                flushOffsets();
+            }
+        }
+
+        private void flushOffsets() throws IOException {
+            offsets.flip();
+            int count = offsets.remaining() / 4;
+            writeFully(offsets, HEADER_SIZE + 4L * flushedOffsets);
+            flushedOffsets += count;
+            offsets.clear();
+        }
+
+        private void flushFilters() throws IOException {
+            filterChunk.flip();
+            int length = filterChunk.remaining();
+            writeFully(filterChunk, filtersOffset + flushedFilters);
+            flushedFilters += length;
+            filterChunk.clear();
+        }
+
+        private void writeFully(ByteBuffer source, long position) throws IOException {
+            for (long written = position; source.hasRemaining(); ) {
+                written += channel.write(source, written);
+            }
+        }
+    }
+
+    /** 경로 하나의 두 hash, double hashing으로 {@link #HASH_COUNT}개의 bit를 정한다. */
+    static final class Key {
+        private final int first;
+        private final int second;
+
+        private Key(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /** 길이가 {@code length} byte인 filter에서 {@code i}번째 hash의 bit */
+        private int bit(int i, int length) {
+            return (int) (Integer.toUnsignedLong(first + i * second) % (8L * length));
+        }
+    }
+
+    /**
+     * 한 경로가 커밋에서 바뀌었는지 확인하는 객체이다.
+     *
+     * <p>
+     * filter가 "있을 수도 있다"고 답한 커밋만 첫 번째 부모와의 tree diff로 확인한다. filter가 없으면 모든 커밋을
+     * tree diff로 확인한다.
+     */
+    static final class PathQuery {
+        private final ChangedPathFilters filters;
+        private final String path;
+        private final Key key;
+        private final TreeFilter treeFilter;
+
+        /**
+         * @param filters 로그의 filter, 없으면 null
+         * @param path    저장소 최상위 기준의 파일이나 디렉토리 경로, '/'로 끝나지 않는다
+         */
+        PathQuery(ChangedPathFilters filters, String path) {
+            this.filters = filters;
+            this.path = Preconditions.checkNotNull(path, "path cannot be null.");
+            this.key = key(path);
+            this.treeFilter = AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF);
+        }
+
+        /** 확인할 경로 */
+        String path() {
+            return path;
+        }
+
+        /**
+         * {@code position}의 커밋 {@code commit}이 경로를 바꾸었으면 true를 리턴한다.
+         *
+         * @param walk     커밋과 tree를 읽을 {@link RevWalk}
+         * @param position 커밋의 position
+         * @param commit   커밋
+         * @return 커밋이 첫 번째 부모와 비교해 경로 아래의 파일을 바꾸었으면 true
+         * @throws IOException 커밋이나 tree를 읽지 못했을 때
+         */
+        boolean touches(RevWalk walk, int position, ObjectId commit) throws IOException {
+            if (null != filters && !filters.mightContain(position, key)) {
+                return false;
+            }
+            try (TreeWalk treeWalk = new TreeWalk(walk.getObjectReader())) {
+                resetDiff(walk, treeWalk, walk.parseCommit(commit), treeFilter);
+                return treeWalk.next();
+            }
+        }
+    }
+}
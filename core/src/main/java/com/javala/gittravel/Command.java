@@ -12,9 +12,10 @@ abstract class Command {
      * <p>
      * {@link CommandLintOptions} 필드 값을 기반으로 플래그 값을 받아와 실행합니다.
      * 
+     * @param session    커맨드를 수행할 프로젝트와 출력 스트림
      * @param parameters 필드 값이 초기화된 인스턴스
      * @return 성공 시 0, 실패 시 1
      * @throws GitAPIException
      */
-    abstract int exec(CommandLineOptions parameters) throws GitAPIException;
+    abstract int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException;
 }
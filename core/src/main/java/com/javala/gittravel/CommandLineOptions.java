@@ -1,5 +1,10 @@
 package com.javala.gittravel;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,6 +24,29 @@ final class CommandLineOptions {
     private final boolean travelBack;
     private final int travelCount;
     private final Optional<String> moveDestination;
+    private final boolean daemonStop;
+    private final int hereWindow;
+    private final boolean commitGraph;
+    private final boolean firstParent;
+    private final Optional<Integer> travelParent;
+    private final Optional<Integer> travelChild;
+    private final boolean moveNextMerge;
+    private final boolean movePrevMerge;
+    private final Optional<Duration> travelBy;
+    private final Optional<Instant> moveDate;
+    private final Optional<Integer> travelTags;
+    private final Optional<String> moveTag;
+    private final Optional<String> path;
+    private final Optional<String> moveNextTouching;
+    private final Optional<String> grep;
+    private final Optional<String> author;
+    private final Optional<String> committer;
+    private final boolean noCheckout;
+    private final Optional<String> batchFile;
+    private final Optional<Integer> worktreePoolSize;
+    private final Optional<String> travelEach;
+    private final Optional<Integer> eachJobs;
+    private final List<String> eachCommand;
 
     CommandLineOptions(
         Boolean help,
@@ -26,13 +54,59 @@ final class CommandLineOptions {
         Optional<String> branchName,
         boolean travelBack,
         int travelCount,
-        Optional<String> moveDestination) {
+        Optional<String> moveDestination,
+        boolean daemonStop,
+        int hereWindow,
+        boolean commitGraph,
+        boolean firstParent,
+        Optional<Integer> travelParent,
+        Optional<Integer> travelChild,
+        boolean moveNextMerge,
+        boolean movePrevMerge,
+        Optional<Duration> travelBy,
+        Optional<Instant> moveDate,
+        Optional<Integer> travelTags,
+        Optional<String> moveTag,
+        Optional<String> path,
+        Optional<String> moveNextTouching,
+        Optional<String> grep,
+        Optional<String> author,
+        Optional<String> committer,
+        boolean noCheckout,
+        Optional<String> batchFile,
+        Optional<Integer> worktreePoolSize,
+        Optional<String> travelEach,
+        Optional<Integer> eachJobs,
+        List<String> eachCommand) {
         this.help = help;
         this.commandType = commandType;
         this.branchName = branchName;
         this.travelBack = travelBack;
         this.travelCount = travelCount;
         this.moveDestination = moveDestination;
+        this.daemonStop = daemonStop;
+        this.hereWindow = hereWindow;
+        this.commitGraph = commitGraph;
+        this.firstParent = firstParent;
+        this.travelParent = travelParent;
+        this.travelChild = travelChild;
+        this.moveNextMerge = moveNextMerge;
+        this.movePrevMerge = movePrevMerge;
+        this.travelBy = travelBy;
+        this.moveDate = moveDate;
+        this.travelTags = travelTags;
+        this.moveTag = moveTag;
+        this.path = path;
+        this.moveNextTouching = moveNextTouching;
+        this.grep = grep;
+        this.author = author;
+        this.committer = committer;
+        this.noCheckout = noCheckout;
+        this.batchFile = batchFile;
+        this.worktreePoolSize = worktreePoolSize;
+        this.travelEach = travelEach;
+        this.eachJobs = eachJobs;
+        this.eachCommand = eachCommand;
     }
 
     /** 메뉴얼 표기 여부 */
@@ -84,6 +158,267 @@ final class CommandLineOptions {
         return moveDestination;
     }
 
+    /** 
+     * 실행 중인 daemon 종료 여부, false일 경우 daemon을 실행
+     * 
+     * <p>
+     * 사용처)
+     * 1. daemon
+     * */
+    boolean daemonStop() {
+        return daemonStop;
+    }
+
+    /** 
+     * here에서 HEAD 앞뒤로 표시할 커밋 수
+     * 
+     * <p>
+     * 사용처)
+     * 1. here
+     * */
+    int hereWindow() {
+        return hereWindow;
+    }
+
+    /** 
+     * init에서 저장소의 commit-graph를 기록할지 여부
+     * 
+     * <p>
+     * 사용처)
+     * 1. init
+     * */
+    boolean commitGraph() {
+        return commitGraph;
+    }
+
+    /** 
+     * 브랜치 로그 대신 first-parent 로그를 사용할지 여부
+     * 
+     * <p>
+     * 사용처)
+     * 1. init
+     * 2. travel
+     * 3. here
+     * 4. move
+     * */
+    boolean firstParent() {
+        return firstParent;
+    }
+
+    /** 
+     * HEAD에서 이동할 부모 번호, 1이 첫 번째 부모
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * */
+    Optional<Integer> travelParent() {
+        return travelParent;
+    }
+
+    /** 
+     * HEAD에서 이동할 자식 번호, 1이 가장 오래된 자식이며 0이면 자동으로 고름
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * */
+    Optional<Integer> travelChild() {
+        return travelChild;
+    }
+
+    /** 
+     * HEAD 이후 가장 가까운 merge 커밋으로 이동할지 여부
+     * 
+     * <p>
+     * 사용처)
+     * 1. move
+     * */
+    boolean moveNextMerge() {
+        return moveNextMerge;
+    }
+
+    /** 
+     * HEAD 이전 가장 가까운 merge 커밋으로 이동할지 여부
+     * 
+     * <p>
+     * 사용처)
+     * 1. move
+     * */
+    boolean movePrevMerge() {
+        return movePrevMerge;
+    }
+
+    /** 
+     * 커밋 수 대신 이동할 시간 간격
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * */
+    Optional<Duration> travelBy() {
+        return travelBy;
+    }
+
+    /** 
+     * 이동할 시각, 이 시각 이전의 마지막 커밋으로 이동
+     * 
+     * <p>
+     * 사용처)
+     * 1. move
+     * */
+    Optional<Instant> moveDate() {
+        return moveDate;
+    }
+
+    /** 
+     * 커밋 수 대신 건너갈 tag 수
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * */
+    Optional<Integer> travelTags() {
+        return travelTags;
+    }
+
+    /** 
+     * 이동할 tag 이름
+     * 
+     * <p>
+     * 사용처)
+     * 1. move
+     * */
+    Optional<String> moveTag() {
+        return moveTag;
+    }
+
+    /** 
+     * 이 경로를 바꾼 커밋만 세거나 표시, 저장소 최상위 기준이며 '/'로 끝나지 않음
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * 2. here
+     * */
+    Optional<String> path() {
+        return path;
+    }
+
+    /** 
+     * HEAD 이후에서 이 경로를 바꾼 가장 가까운 커밋으로 이동
+     * 
+     * <p>
+     * 사용처)
+     * 1. move
+     * */
+    Optional<String> moveNextTouching() {
+        return moveNextTouching;
+    }
+
+    /** 
+     * 커밋 메시지 검색어, 단어는 모두 일치해야 하며 'OR'로 대안을 나눔
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * 2. move
+     * */
+    Optional<String> grep() {
+        return grep;
+    }
+
+    /** 
+     * author 이름이나 이메일 검색어, {@link #grep()}과 같은 문법
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * 2. move
+     * */
+    Optional<String> author() {
+        return author;
+    }
+
+    /** 
+     * committer 이름이나 이메일 검색어, {@link #grep()}과 같은 문법
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * 2. move
+     * */
+    Optional<String> committer() {
+        return committer;
+    }
+
+    /** 
+     * 작업 트리를 checkout하지 않고 git-travel의 head만 이동
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * 2. move
+     * */
+    boolean noCheckout() {
+        return noCheckout;
+    }
+
+    /** 
+     * 한 줄에 하나씩 수행할 커맨드를 적은 파일, 없으면 표준 입력에서 읽음
+     * 
+     * <p>
+     * 사용처)
+     * 1. batch
+     * */
+    Optional<String> batchFile() {
+        return batchFile;
+    }
+
+    /** 
+     * worktree pool의 최대 worktree 수, 0이면 pool을 끔
+     * 
+     * <p>
+     * 사용처)
+     * 1. worktrees
+     * */
+    Optional<Integer> worktreePoolSize() {
+        return worktreePoolSize;
+    }
+
+    /** 
+     * 커밋마다 커맨드를 수행할 범위, {@code <from>..<to>}
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel
+     * */
+    Optional<String> travelEach() {
+        return travelEach;
+    }
+
+    /** 
+     * 동시에 수행할 커맨드 수
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel --each
+     * */
+    Optional<Integer> eachJobs() {
+        return eachJobs;
+    }
+
+    /** 
+     * '--' 다음의 커맨드와 인자
+     * 
+     * <p>
+     * 사용처)
+     * 1. travel --each
+     * */
+    List<String> eachCommand() {
+        return eachCommand;
+    }
+
     static Builder builder() {
         return new Builder();
     }
@@ -95,6 +430,29 @@ final class CommandLineOptions {
         private boolean travelBack = false;
         private int travelCount = 1;
         private Optional<String> moveDestination = Optional.empty();
+        private boolean daemonStop = false;
+        private int hereWindow = 2;
+        private boolean commitGraph = false;
+        private boolean firstParent = false;
+        private Optional<Integer> travelParent = Optional.empty();
+        private Optional<Integer> travelChild = Optional.empty();
+        private boolean moveNextMerge = false;
+        private boolean movePrevMerge = false;
+        private Optional<Duration> travelBy = Optional.empty();
+        private Optional<Instant> moveDate = Optional.empty();
+        private Optional<Integer> travelTags = Optional.empty();
+        private Optional<String> moveTag = Optional.empty();
+        private Optional<String> path = Optional.empty();
+        private Optional<String> moveNextTouching = Optional.empty();
+        private Optional<String> grep = Optional.empty();
+        private Optional<String> author = Optional.empty();
+        private Optional<String> committer = Optional.empty();
+        private boolean noCheckout = false;
+        private Optional<String> batchFile = Optional.empty();
+        private Optional<Integer> worktreePoolSize = Optional.empty();
+        private Optional<String> travelEach = Optional.empty();
+        private Optional<Integer> eachJobs = Optional.empty();
+        private List<String> eachCommand = Collections.emptyList();
         
         Builder help(boolean help){
             this.help = help;
@@ -126,6 +484,121 @@ final class CommandLineOptions {
             return this;
         }
 
+        Builder daemonStop(boolean daemonStop){
+            this.daemonStop = daemonStop;
+            return this;
+        }
+
+        Builder hereWindow(int hereWindow){
+            this.hereWindow = hereWindow;
+            return this;
+        }
+
+        Builder commitGraph(boolean commitGraph){
+            this.commitGraph = commitGraph;
+            return this;
+        }
+
+        Builder firstParent(boolean firstParent){
+            this.firstParent = firstParent;
+            return this;
+        }
+
+        Builder travelParent(int travelParent){
+            this.travelParent = Optional.of(travelParent);
+            return this;
+        }
+
+        Builder travelChild(int travelChild){
+            this.travelChild = Optional.of(travelChild);
+            return this;
+        }
+
+        Builder moveNextMerge(boolean moveNextMerge){
+            this.moveNextMerge = moveNextMerge;
+            return this;
+        }
+
+        Builder movePrevMerge(boolean movePrevMerge){
+            this.movePrevMerge = movePrevMerge;
+            return this;
+        }
+
+        Builder travelBy(Duration travelBy){
+            this.travelBy = Optional.of(travelBy);
+            return this;
+        }
+
+        Builder moveDate(Instant moveDate){
+            this.moveDate = Optional.of(moveDate);
+            return this;
+        }
+
+        Builder travelTags(int travelTags){
+            this.travelTags = Optional.of(travelTags);
+            return this;
+        }
+
+        Builder moveTag(String moveTag){
+            this.moveTag = Optional.of(moveTag);
+            return this;
+        }
+
+        Builder path(String path){
+            this.path = Optional.of(path);
+            return this;
+        }
+
+        Builder moveNextTouching(String moveNextTouching){
+            this.moveNextTouching = Optional.of(moveNextTouching);
+            return this;
+        }
+
+        Builder grep(String grep){
+            this.grep = Optional.of(grep);
+            return this;
+        }
+
+        Builder author(String author){
+            this.author = Optional.of(author);
+            return this;
+        }
+
+        Builder committer(String committer){
+            this.committer = Optional.of(committer);
+            return this;
+        }
+
+        Builder noCheckout(boolean noCheckout){
+            this.noCheckout = noCheckout;
+            return this;
+        }
+
+        Builder batchFile(String batchFile){
+            this.batchFile = Optional.of(batchFile);
+            return this;
+        }
+
+        Builder worktreePoolSize(int worktreePoolSize){
+            this.worktreePoolSize = Optional.of(worktreePoolSize);
+            return this;
+        }
+
+        Builder travelEach(String travelEach){
+            this.travelEach = Optional.of(travelEach);
+            return this;
+        }
+
+        Builder eachJobs(int eachJobs){
+            this.eachJobs = Optional.of(eachJobs);
+            return this;
+        }
+
+        Builder eachCommand(List<String> eachCommand){
+            this.eachCommand = Collections.unmodifiableList(new ArrayList<>(eachCommand));
+            return this;
+        }
+
         CommandLineOptions build() {
             return new CommandLineOptions(
                 help,
@@ -133,7 +606,30 @@ final class CommandLineOptions {
                 branchName,
                 travelBack, 
                 travelCount, 
-                moveDestination);
+                moveDestination,
+                daemonStop,
+                hereWindow,
+                commitGraph,
+                firstParent,
+                travelParent,
+                travelChild,
+                moveNextMerge,
+                movePrevMerge,
+                travelBy,
+                moveDate,
+                travelTags,
+                moveTag,
+                path,
+                moveNextTouching,
+                grep,
+                author,
+                committer,
+                noCheckout,
+                batchFile,
+                worktreePoolSize,
+                travelEach,
+                eachJobs,
+                eachCommand);
         }
     }
 }
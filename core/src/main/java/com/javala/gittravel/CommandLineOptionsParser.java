@@ -1,6 +1,20 @@
 package com.javala.gittravel;
 
-import java.util.Iterator;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
 /**
  * {@code CommandLineOptionsParser}는 git-travel 수행시 받아온 인자 값을 기반으로 옵션을 설정하는 클래스입니다.
  * Builder 패턴을 활용해 유동적인 매개변수 초기화와 동시에 불변 파라미터 객체를 생성합니다.
@@ -13,8 +27,29 @@ import java.util.Iterator;
  * {@link IllegalArgumentException}이나 {@link NumberFormatException} 예외를 던지는 경우가 있는데,
  * 이는 {@code parse}를 호출하는 메서드에서 {@link UsageException}으로 감싸 예외를 던지기 때문에
  * 결과적으로 하나의 예외만 처리하게 됩니다. 자세한 활용법은 {@link Main}의 {@code processArgs}를 확인하시면 됩니다.
+ * 
+ * <p>
+ * 옵션은 어느 위치에나 올 수 있으므로 함께 쓸 수 없는 옵션과 커맨드 다음 인자의 수는 {@link #parseAndValidate}가
+ * 모든 인자를 파싱한 후 커맨드마다 확인하고, 예외 메시지로 그 커맨드의 사용법을 표기합니다.
  */
 final class CommandLineOptionsParser {
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)([smhdw])");
+
+    private static final String INIT_USAGE =
+        "init [--commit-graph] [--first-parent] [<branch>](Default branch = main | master)";
+    private static final String TRAVEL_USAGE = "travel [--first-parent] [-b] [<ncommits(Must be integer)>]";
+    private static final String TRAVEL_PATH_USAGE = "travel [--first-parent] [-b] --path <path> [<ncommits>]";
+    private static final String TRAVEL_QUERY_USAGE = "travel [--first-parent] [-b] --grep <query> | --author <query>"
+        + " | --committer <query> [<ncommits>]";
+    private static final String TRAVEL_EACH_USAGE =
+        "travel [--first-parent] --each <from>..<to> [--jobs <n>] -- <command> [<args>]";
+    private static final String TRAVEL_TAGS_USAGE = "travel [--first-parent] [-b] --tags [<ntags>]";
+    private static final String TRAVEL_BY_USAGE = "travel [--first-parent] [-b] --by <duration(e.g. 1d, 2w, 12h)>";
+    private static final String TRAVEL_DAG_USAGE = "travel [--first-parent] --parent <n> | --child [<n>]";
+    private static final String MOVE_USAGE = "move [--first-parent] start | last | end | <commitHash> | --next-merge"
+        + " | --prev-merge | --date <iso> | --tag <name> | --next-touching <path>"
+        + " | --grep <query> | --author <query> | --committer <query>";
+
     /**
      * 인자를 기반으로 {@link CommandLineOptions} 인스턴스를 생성하고 값을 초기화 합니다.
      * 
@@ -22,10 +57,26 @@ final class CommandLineOptionsParser {
      * @return          필드 값이 초기화된 {@link CommandLineOptionsParser} 인스턴스
      */
     static CommandLineOptions parse(Iterable<String> options) {
+        return parse(options, false);
+    }
+
+    /**
+     * {@link #parse}와 같이 옵션을 파싱한 후 커맨드마다 함께 쓸 수 없는 옵션과 인자 수를 확인합니다.
+     * 
+     * @param options   커맨드 라인 인자
+     * @return          필드 값이 초기화된 {@link CommandLineOptionsParser} 인스턴스
+     * @throws IllegalArgumentException 커맨드에 맞지 않는 인자가 있을 때, 메시지는 그 커맨드의 사용법입니다.
+     */
+    static CommandLineOptions parseAndValidate(Iterable<String> options) {
+        return parse(options, true);
+    }
+
+    private static CommandLineOptions parse(Iterable<String> options, boolean validate) {
         CommandLineOptions.Builder optionsBuilder = CommandLineOptions.builder();
 
         CommandType commandType = CommandType.NONE;
-        Iterator<String> it = options.iterator();
+        int operands = 0;
+        PeekingIterator<String> it = Iterators.peekingIterator(options.iterator());
         while (it.hasNext()) {
             String option = it.next();
             String optionToLower = option.toLowerCase();
@@ -51,24 +102,197 @@ final class CommandLineOptionsParser {
                     commandType = CommandType.MOVE;
                     optionsBuilder.commandType(commandType);
                     break;
+                case "daemon":
+                    commandType = CommandType.DAEMON;
+                    optionsBuilder.commandType(commandType);
+                    break;
+                case "materialize":
+                    commandType = CommandType.MATERIALIZE;
+                    optionsBuilder.commandType(commandType);
+                    break;
+                case "batch":
+                    commandType = CommandType.BATCH;
+                    optionsBuilder.commandType(commandType);
+                    break;
+                case "worktrees":
+                    commandType = CommandType.WORKTREES;
+                    optionsBuilder.commandType(commandType);
+                    break;
                 case "--back":
                 case "-back":
                 case "-b":
                     optionsBuilder.travelBack(true);
                     break;
+                case "--window":
+                case "-w":
+                    if (commandType != CommandType.HERE || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--window\' requires 'here' and a number.");
+                    }
+                    optionsBuilder.hereWindow(parseNonNegativeInteger(it.next()));
+                    break;
+                case "--no-checkout":
+                    if (commandType != CommandType.TRAVEL && commandType != CommandType.MOVE) {
+                        throw new IllegalArgumentException("\'--no-checkout\' requires 'travel' or 'move'.");
+                    }
+                    optionsBuilder.noCheckout(true);
+                    break;
+                case "--commit-graph":
+                    if (commandType != CommandType.INIT) {
+                        throw new IllegalArgumentException("\'--commit-graph\' requires 'init'.");
+                    }
+                    optionsBuilder.commitGraph(true);
+                    break;
+                case "--parent":
+                    if (commandType != CommandType.TRAVEL || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--parent\' requires 'travel' and a number.");
+                    }
+                    optionsBuilder.travelParent(parsePositiveInteger(it.next()));
+                    break;
+                case "--child":
+                    if (commandType != CommandType.TRAVEL) {
+                        throw new IllegalArgumentException("\'--child\' requires 'travel'.");
+                    }
+                    // 자식 번호는 생략할 수 있으므로 다음 인자가 숫자일 때만 읽습니다.
+                    optionsBuilder.travelChild(
+                        (it.hasNext() && it.peek().matches("\\d+")) ? parseNonNegativeInteger(it.next()) : 0);
+                    break;
+                case "--next-merge":
+                case "--prev-merge":
+                    if (commandType != CommandType.MOVE) {
+                        throw new IllegalArgumentException(String.format("\'%s\' requires 'move'.", option));
+                    }
+                    if ("--next-merge".equals(optionToLower)) {
+                        optionsBuilder.moveNextMerge(true);
+                    } else {
+                        optionsBuilder.movePrevMerge(true);
+                    }
+                    break;
+                case "--by":
+                    if (commandType != CommandType.TRAVEL || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--by\' requires 'travel' and a duration.");
+                    }
+                    optionsBuilder.travelBy(parseDuration(it.next()));
+                    break;
+                case "--date":
+                    if (commandType != CommandType.MOVE || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--date\' requires 'move' and a date.");
+                    }
+                    optionsBuilder.moveDate(parseDate(it.next()));
+                    break;
+                case "--tags":
+                    if (commandType != CommandType.TRAVEL) {
+                        throw new IllegalArgumentException("\'--tags\' requires 'travel'.");
+                    }
+                    // tag 수는 생략할 수 있으므로 다음 인자가 숫자일 때만 읽습니다.
+                    optionsBuilder.travelTags(
+                        (it.hasNext() && it.peek().matches("\\d+")) ? parsePositiveInteger(it.next()) : 1);
+                    break;
+                case "--tag":
+                    if (commandType != CommandType.MOVE || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--tag\' requires 'move' and a tag name.");
+                    }
+                    optionsBuilder.moveTag(it.next());
+                    break;
+                case "--path":
+                    if ((commandType != CommandType.TRAVEL && commandType != CommandType.HERE) || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--path\' requires 'travel' or 'here' and a path.");
+                    }
+                    optionsBuilder.path(parsePath(it.next()));
+                    break;
+                case "--next-touching":
+                    if (commandType != CommandType.MOVE || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--next-touching\' requires 'move' and a path.");
+                    }
+                    optionsBuilder.moveNextTouching(parsePath(it.next()));
+                    break;
+                case "--grep":
+                    if ((commandType != CommandType.TRAVEL && commandType != CommandType.MOVE) || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--grep\' requires 'travel' or 'move' and a query.");
+                    }
+                    optionsBuilder.grep(parseQuery(it.next()));
+                    break;
+                case "--author":
+                    if ((commandType != CommandType.TRAVEL && commandType != CommandType.MOVE) || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--author\' requires 'travel' or 'move' and a query.");
+                    }
+                    optionsBuilder.author(parseQuery(it.next()));
+                    break;
+                case "--committer":
+                    if ((commandType != CommandType.TRAVEL && commandType != CommandType.MOVE) || !it.hasNext()) {
+                        throw new IllegalArgumentException(
+                            "\'--committer\' requires 'travel' or 'move' and a query.");
+                    }
+                    optionsBuilder.committer(parseQuery(it.next()));
+                    break;
+                case "--each":
+                    if (commandType != CommandType.TRAVEL || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--each\' requires 'travel' and a range.");
+                    }
+                    optionsBuilder.travelEach(parseRange(it.next()));
+                    break;
+                case "--jobs":
+                case "-j":
+                    if (commandType != CommandType.TRAVEL || !it.hasNext()) {
+                        throw new IllegalArgumentException("\'--jobs\' requires 'travel --each' and a number.");
+                    }
+                    int jobs = parseInteger(it.next());
+                    if (jobs < 1 || WorktreePool.MAX_SIZE <= jobs) {
+                        throw new IllegalArgumentException(
+                            String.format("\'--jobs\' accepts a number from 1 to %d.", WorktreePool.MAX_SIZE - 1));
+                    }
+                    optionsBuilder.eachJobs(jobs);
+                    break;
+                case "--":
+                    // 나머지 인자는 모두 커밋마다 수행할 커맨드입니다.
+                    if (commandType != CommandType.TRAVEL) {
+                        throw new IllegalArgumentException("\'--\' requires 'travel --each' and a command.");
+                    }
+                    List<String> command = new ArrayList<>();
+                    it.forEachRemaining(command::add);
+                    if (command.isEmpty()) {
+                        throw new IllegalArgumentException(TRAVEL_EACH_USAGE);
+                    }
+                    optionsBuilder.eachCommand(command);
+                    break;
+                case "--first-parent":
+                    switch (commandType) {
+                        case INIT:
+                        case TRAVEL:
+                        case HERE:
+                        case MOVE:
+                            optionsBuilder.firstParent(true);
+                            break;
+                        default:
+                            throw new IllegalArgumentException(
+                                "\'--first-parent\' requires 'init', 'travel', 'here' or 'move'.");
+                    }
+                    break;
                 default:
+                    ++operands;
                     switch (commandType) {
                         case INIT:
                             optionsBuilder.branchName(option);
                             break;
                         case TRAVEL:
-                            optionsBuilder.travelCount(parseInteger(option));
+                            optionsBuilder.travelCount(parseNonNegativeInteger(option));
                             break;
                         case HERE:
                             throw new IllegalArgumentException("\'here\' does not require parameter.");
                         case MOVE:
                             optionsBuilder.moveDestination(option);
                             break;
+                        case DAEMON:
+                            if (!"stop".equals(optionToLower)) {
+                                throw new IllegalArgumentException("\'daemon\' only accepts \'stop\'.");
+                            }
+                            optionsBuilder.daemonStop(true);
+                            break;
+                        case BATCH:
+                            optionsBuilder.batchFile(option);
+                            break;
+                        case WORKTREES:
+                            optionsBuilder.worktreePoolSize(parseWorktreePoolSize(optionToLower));
+                            break;
                         default:
                             throw new IllegalArgumentException("Invalid command");
                     }
@@ -76,7 +300,253 @@ final class CommandLineOptionsParser {
             }
         }
 
-        return optionsBuilder.build();
+        CommandLineOptions parsed = optionsBuilder.build();
+        if (validate) {
+            validate(parsed, operands);
+        }
+        return parsed;
+    }
+
+    /**
+     * 커맨드마다 함께 쓸 수 없는 옵션과 커맨드 다음 인자의 수를 확인합니다.
+     * 
+     * @param options   파싱한 옵션
+     * @param operands  옵션이나 옵션 값이 아닌 인자의 수, 예) {@code travel -b 3}의 {@code 3}
+     */
+    private static void validate(CommandLineOptions options, int operands) {
+        switch (options.commandType()) {
+            case INIT:
+                require(operands <= 1 && !options.travelBack(), INIT_USAGE);
+                break;
+            case TRAVEL:
+                validateTravel(options, operands);
+                break;
+            case MOVE:
+                // 목적지와 목적지를 정하는 옵션 중 정확히 하나가 있어야 합니다.
+                int targets = operands
+                    + (options.moveNextMerge() ? 1 : 0)
+                    + (options.movePrevMerge() ? 1 : 0)
+                    + (options.moveDate().isPresent() ? 1 : 0)
+                    + (options.moveTag().isPresent() ? 1 : 0)
+                    + (options.moveNextTouching().isPresent() ? 1 : 0)
+                    + (hasQuery(options) ? 1 : 0);
+                require(1 == targets && !options.travelBack(), MOVE_USAGE);
+                break;
+            case HERE:
+                require(!options.travelBack(), "here [--first-parent] [--window <n>] [--path <path>]");
+                break;
+            case DAEMON:
+                require(operands <= 1 && !options.travelBack(), "daemon [stop]");
+                break;
+            case MATERIALIZE:
+                require(!options.travelBack(), "materialize");
+                break;
+            case BATCH:
+                require(operands <= 1 && !options.travelBack(), "batch [<file>]");
+                break;
+            case WORKTREES:
+                require(operands <= 1 && !options.travelBack(), "worktrees [<size> | off]");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** <em>travel</em>의 이동 방법마다 함께 쓸 수 있는 옵션과 인자를 확인합니다. */
+    private static void validateTravel(CommandLineOptions options, int operands) {
+        boolean dag = options.travelParent().isPresent() || options.travelChild().isPresent();
+        boolean step = dag || options.travelBy().isPresent() || options.travelTags().isPresent();
+        boolean query = hasQuery(options);
+        if (options.path().isPresent()) {
+            require(!step && 0 < options.travelCount(), TRAVEL_PATH_USAGE);
+        }
+        if (query) {
+            require(!step && !options.path().isPresent() && 0 < options.travelCount(), TRAVEL_QUERY_USAGE);
+        }
+
+        if (options.travelEach().isPresent() || options.eachJobs().isPresent() || !options.eachCommand().isEmpty()) {
+            require(options.travelEach().isPresent() && !options.eachCommand().isEmpty() && 0 == operands && !step
+                    && !options.travelBack() && !options.noCheckout() && !query && !options.path().isPresent(),
+                TRAVEL_EACH_USAGE);
+        } else if (options.travelTags().isPresent()) {
+            require(!dag && !options.travelBy().isPresent() && 0 == operands, TRAVEL_TAGS_USAGE);
+        } else if (options.travelBy().isPresent()) {
+            require(!dag && 0 == operands, TRAVEL_BY_USAGE);
+        } else if (dag) {
+            require(options.travelParent().isPresent() != options.travelChild().isPresent()
+                    && !options.travelBack() && 0 == operands, TRAVEL_DAG_USAGE);
+        } else {
+            require(operands <= 1, TRAVEL_USAGE);
+        }
+    }
+
+    /** 메시지와 author, committer 검색어 중 하나라도 있으면 true */
+    private static boolean hasQuery(CommandLineOptions options) {
+        return options.grep().isPresent() || options.author().isPresent() || options.committer().isPresent();
+    }
+
+    /** {@code valid}가 false이면 {@code usage}를 메시지로 {@link IllegalArgumentException}을 던집니다. */
+    private static void require(boolean valid, String usage) {
+        if (!valid) {
+            throw new IllegalArgumentException(usage);
+        }
+    }
+
+    /**
+     * {@code 1d}, {@code 2w}, {@code 1d12h}와 같은 시간 간격을 파싱합니다.
+     * 
+     * <p>
+     * 단위는 s(초), m(분), h(시간), d(일), w(주)이며 여러 개를 이어 쓸 수 있습니다.
+     * 
+     * @param value 문자열
+     * @return      0보다 긴 시간 간격
+     */
+    private static Duration parseDuration(String value) {
+        Matcher matcher = DURATION_PATTERN.matcher(value.toLowerCase());
+        Duration duration = Duration.ZERO;
+        int end = 0;
+        try {
+            while (matcher.find() && matcher.start() == end) {
+                long amount = Long.parseLong(matcher.group(1));
+                switch (matcher.group(2)) {
+                    case "s": duration = duration.plusSeconds(amount); break;
+                    case "m": duration = duration.plusMinutes(amount); break;
+                    case "h": duration = duration.plusHours(amount); break;
+                    case "d": duration = duration.plusDays(amount); break;
+                    default: duration = duration.plusDays(Math.multiplyExact(amount, 7)); break;
+                }
+                end = matcher.end();
+            }
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid duration : %s", value), e);
+        }
+        if (0 == end || end != value.length() || duration.isZero()) {
+            throw new IllegalArgumentException(String.format("Invalid duration : %s", value));
+        }
+        return duration;
+    }
+
+    /**
+     * ISO 8601 형식의 날짜나 시각을 파싱합니다.
+     * 
+     * <p>
+     * {@code 2024-05-14}, {@code 2024-05-14T14:00}, {@code 2024-05-14T14:00:00+09:00}을 받으며 'T' 대신 공백을 쓸 수
+     * 있습니다. offset이 없으면 시스템 시간대로, 날짜만 있으면 그 날의 00:00으로 봅니다.
+     * 
+     * @param value 문자열
+     * @return      파싱한 시각
+     */
+    private static Instant parseDate(String value) {
+        String text = value.trim().replace(' ', 'T');
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException e) {
+            // offset이 없는 형식을 시도합니다.
+        }
+        try {
+            return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            // 날짜만 있는 형식을 시도합니다.
+        }
+        try {
+            return LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Invalid date : %s", value), e);
+        }
+    }
+
+    /**
+     * 저장소 최상위 기준의 파일이나 디렉토리 경로를 정규화합니다.
+     * 
+     * <p>
+     * {@code src/foo/}, {@code ./src/foo}, {@code /src/foo}는 모두 {@code src/foo}가 되며 Windows의 '\' 구분자도 받습니다.
+     * 
+     * @param value 문자열
+     * @return      앞뒤의 '/'와 {@code ./}를 뺀 경로
+     */
+    private static String parsePath(String value) {
+        String path = value.trim().replace('\\', '/');
+        while (path.startsWith("./") || path.startsWith("/")) {
+            path = path.substring(path.startsWith("/") ? 1 : 2);
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.isEmpty() || path.equals(".") || path.contains("//")) {
+            throw new IllegalArgumentException(String.format("Invalid path : %s", value));
+        }
+        return path;
+    }
+
+    /**
+     * 커밋 메시지나 author, committer 검색어를 확인합니다.
+     * 
+     * <p>
+     * 단어는 모두 일치해야 하며 대문자 {@code OR}로 대안을 나눕니다. 예) {@code "JIRA-1234 OR hotfix"}
+     * 
+     * @param value 문자열
+     * @return      {@code value}
+     * @see CommitTermIndex#match
+     */
+    private static String parseQuery(String value) {
+        if (!CommitTermIndex.isQuery(value)) {
+            throw new IllegalArgumentException(String.format("Invalid query : %s", value));
+        }
+        return value;
+    }
+
+    /** {@link #parseInteger}와 같지만 양수가 아니면 {@link IllegalArgumentException}을 던집니다. */
+    private static int parsePositiveInteger(String value) {
+        int result = parseInteger(value);
+        if (result <= 0) {
+            throw new IllegalArgumentException(String.format("Not a positive value : %s", value));
+        }
+        return result;
+    }
+
+    /** {@link #parseInteger}와 같지만 음수이면 {@link IllegalArgumentException}을 던집니다. */
+    private static int parseNonNegativeInteger(String value) {
+        int result = parseInteger(value);
+        if (result < 0) {
+            throw new IllegalArgumentException(String.format("Negative value : %s", value));
+        }
+        return result;
+    }
+
+    /**
+     * worktree pool의 크기를 파싱합니다.
+     * 
+     * @param value 1부터 {@link WorktreePool#MAX_SIZE}까지의 정수 또는 {@code off}
+     * @return      pool의 크기, {@code off}이면 0
+     */
+    private static int parseWorktreePoolSize(String value) {
+        if ("off".equals(value)) {
+            return 0;
+        }
+        int size = parseInteger(value);
+        if (size < 1 || WorktreePool.MAX_SIZE < size) {
+            throw new IllegalArgumentException(
+                String.format("\'worktrees\' accepts a size from 1 to %d or \'off\'.", WorktreePool.MAX_SIZE));
+        }
+        return size;
+    }
+
+    /**
+     * {@code <from>..<to>} 형식의 범위를 확인합니다.
+     * 
+     * <p>
+     * 양 끝은 <em>move</em>가 받는 목적지 또는 {@code HEAD}이며, {@code ~<n>}을 붙이면 그보다 n개 이전 커밋입니다.
+     * 예) {@code end~199..end}
+     * 
+     * @param value 문자열
+     * @return      범위
+     */
+    private static String parseRange(String value) {
+        final int separator = value.indexOf("..");
+        if (separator <= 0 || value.length() - 2 <= separator || value.indexOf("..", separator + 1) >= 0) {
+            throw new IllegalArgumentException(String.format("Invalid range : %s (e.g. end~9..end)", value));
+        }
+        return value;
     }
 
     /**
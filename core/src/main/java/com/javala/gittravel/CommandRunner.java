@@ -3,18 +3,21 @@ package com.javala.gittravel;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
 final class CommandRunner {
+    private final TravelSession session;
     private final Command command;
     private final CommandLineOptions parameters;
 
     CommandRunner(
+        TravelSession session,
         Command command,
         CommandLineOptions parameters
     ) {
+        this.session = session;
         this.command = command;
         this.parameters = parameters;
     }
 
     int run() throws GitAPIException {
-        return command.exec(parameters);
+        return command.exec(session, parameters);
     }
 }
@@ -2,5 +2,5 @@ package com.javala.gittravel;
 
 /** git-travel에서 수행할 커맨드 타입입니다. */
 public enum CommandType {
-    NONE, INIT, TRAVEL, HERE, MOVE
+    NONE, INIT, TRAVEL, HERE, MOVE, DAEMON, MATERIALIZE, BATCH, WORKTREES
 }
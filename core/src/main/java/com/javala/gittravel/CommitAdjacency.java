@@ -0,0 +1,355 @@
+package com.javala.gittravel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitAdjacency}는 {@link CommitTimeline}의 각 커밋의 부모와 자식을 timeline position으로 기록하는
+ * <em>adjacency</em> 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 부모와 자식은 각각 CSR(compressed sparse row) 형태로 기록한다. position의 부모는
+ * {@code parents[parentOffsets[position]]}부터 {@code parents[parentOffsets[position + 1]]} 전까지이며 자식도 같다.
+ * 그래서 한 커밋의 부모나 자식을 찾을 때 히스토리를 탐색하지 않고 차수(degree)만큼만 읽는다.
+ * JGit은 자식을 찾는 방법을 제공하지 않기 때문에 자식 목록은 <em>init</em> 때 부모 목록을 뒤집어 미리 만들어 둔다.
+ *
+ * <p>
+ * 부모는 커밋에 기록된 순서(첫 번째 부모가 먼저)대로 기록한다. timeline에 없는 부모(first-parent 로그의 두 번째
+ * 부모 등)는 -1로 기록하므로 부모 수는 항상 커밋의 실제 부모 수와 같다. 자식은 timeline에 있는 커밋만 position
+ * 오름차순으로 기록한다.
+ *
+ * <pre>
+ * offset  size            field
+ * 0       4               magic ("GTAJ")
+ * 4       4               version
+ * 8       4               count (n)
+ * 12      4               timeline checksum
+ * 16      4               parent count (p)
+ * 20      4               child count (c)
+ * 24      4 * (n + 1)     parent offsets
+ * ...     4 * p           parents
+ * ...     4 * (n + 1)     child offsets
+ * ...     4 * c           children
+ * </pre>
+ *
+ * <p>
+ * 헤더의 count와 timeline checksum이 현재 timeline과 다르면 {@link CommitIndex}와 같이 오래된 파일로 보고 무시한다.
+ */
+final class CommitAdjacency {
+    static final int MAGIC = 0x4754414a; // "GTAJ"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int parentsOffset;
+    private final int childOffsetsOffset;
+    private final int childrenOffset;
+
+    private CommitAdjacency(ByteBuffer buffer, int size, int parentCount) {
+        this.buffer = buffer;
+        this.size = size;
+        this.parentsOffset = HEADER_SIZE + 4 * (size + 1);
+        this.childOffsetsOffset = parentsOffset + 4 * parentCount;
+        this.childrenOffset = childOffsetsOffset + 4 * (size + 1);
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 부모와 자식을 연다.
+     *
+     * @param file     열 adjacency 파일
+     * @param timeline 파일이 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitAdjacency open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        int size = buffer.getInt(8);
+        int parentCount = buffer.getInt(16);
+        int childCount = buffer.getInt(20);
+        if (parentCount < 0 || childCount < 0
+                || buffer.limit() != HEADER_SIZE + 4L * (2 * (size + 1) + parentCount + childCount)) {
+            return null;
+        }
+        return new CommitAdjacency(buffer, size, parentCount);
+    }
+
+    /**
+     * {@code timeline}의 부모 목록으로 자식 목록을 만들어 {@code file}에 기록한 후 연다.
+     *
+     * @param file          기록할 adjacency 파일
+     * @param timeline      부모 목록이 가리키는 timeline
+     * @param parentOffsets position별 부모 목록의 시작 위치, 길이는 {@code timeline.size() + 1}
+     * @param parents       부모 position 목록, timeline에 없는 부모는 -1
+     * @return 기록한 부모와 자식
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitAdjacency build(Path file, CommitTimeline timeline, int[] parentOffsets, int[] parents)
+            throws IOException {
+        checkParents(timeline, parentOffsets, parents);
+        try (Writer writer = new Writer(file, timeline, parents.length, countChildren(parents))) {
+            addAll(writer, parentOffsets, parents);
+            return writer.commit();
+        }
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 부모와 자식을 생성한다.
+     *
+     * @param timeline      부모 목록이 가리키는 timeline
+     * @param parentOffsets position별 부모 목록의 시작 위치, 길이는 {@code timeline.size() + 1}
+     * @param parents       부모 position 목록, timeline에 없는 부모는 -1
+     * @return 생성한 부모와 자식
+     */
+    static CommitAdjacency of(CommitTimeline timeline, int[] parentOffsets, int[] parents) {
+        checkParents(timeline, parentOffsets, parents);
+        Writer writer = new Writer(timeline, parents.length, countChildren(parents));
+        addAll(writer, parentOffsets, parents);
+        return writer.fill();
+    }
+
+    private static void checkParents(CommitTimeline timeline, int[] parentOffsets, int[] parents) {
+        int size = timeline.size();
+        Preconditions.checkArgument(parentOffsets.length == size + 1,
+            "parentOffsets must have %s entries : %s", size + 1, parentOffsets.length);
+        Preconditions.checkArgument(parentOffsets[size] == parents.length,
+            "parentOffsets does not match parents : %s", parents.length);
+    }
+
+    private static int countChildren(int[] parents) {
+        int childCount = 0;
+        for (int parent : parents) {
+            childCount += (0 <= parent) ? 1 : 0;
+        }
+        return childCount;
+    }
+
+    private static void addAll(Writer writer, int[] parentOffsets, int[] parents) {
+        for (int position = parentOffsets.length - 2; position >= 0; --position) {
+            int from = parentOffsets[position];
+            writer.add(Arrays.copyOfRange(parents, from, parentOffsets[position + 1]));
+        }
+    }
+
+    /** 기록된 커밋 수 */
+    int size() {
+        return size;
+    }
+
+    /** {@code position} 커밋의 부모 수, timeline에 없는 부모도 포함한다. */
+    int parentCount(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return offset(HEADER_SIZE, position + 1) - offset(HEADER_SIZE, position);
+    }
+
+    /**
+     * {@code position} 커밋의 {@code n}번째 부모(0부터 시작)의 position을 리턴한다.
+     *
+     * @return 부모의 position, 부모가 timeline에 없으면 -1
+     */
+    int parent(int position, int n) {
+        Preconditions.checkElementIndex(n, parentCount(position));
+        return buffer.getInt(parentsOffset + 4 * (offset(HEADER_SIZE, position) + n));
+    }
+
+    /** {@code position} 커밋의 timeline에 있는 자식 수 */
+    int childCount(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return offset(childOffsetsOffset, position + 1) - offset(childOffsetsOffset, position);
+    }
+
+    /** {@code position} 커밋의 {@code n}번째 자식(0부터 시작, position 오름차순)의 position */
+    int child(int position, int n) {
+        Preconditions.checkElementIndex(n, childCount(position));
+        return buffer.getInt(childrenOffset + 4 * (offset(childOffsetsOffset, position) + n));
+    }
+
+    private int offset(int offsets, int position) {
+        return buffer.getInt(offsets + 4 * position);
+    }
+
+    /**
+     * 부모 목록을 가장 최근 커밋부터 받아 adjacency 파일을 기록한다.
+     *
+     * <p>
+     * 파일 전체를 mmap한 임시 파일에서 바로 채운다. 부모를 받으면서 자식 수를 세고, {@link #commit()}에서 기록된 부모
+     * 목록을 counting sort로 뒤집어 자식 목록을 만든다. 그래서 timeline 크기와 관계없이 힙을 일정하게 사용한다.
+     * 파일 시스템이 mmap을 지원하지 않으면 힙 버퍼에 만든 후 기록한다.
+     *
+     * <p>
+     * 부모 수와 자식 수로 파일 크기를 먼저 정하므로 두 값을 미리 알아야 한다.
+     * {@link #commit()}하지 않고 닫으면 임시 파일을 지운다.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int size;
+        private final int parentCount;
+        private final int childCount;
+        private final int parentsOffset;
+        private final int childOffsetsOffset;
+        private final int childrenOffset;
+        /** 다음에 받을 커밋의 position, 가장 최근 커밋부터 줄어든다. */
+        private int position;
+        /** 다음에 받을 커밋의 부모 목록이 끝나는 위치 */
+        private int parentEnd;
+        private int children = 0;
+        private boolean committed = false;
+
+        /**
+         * @param file        기록할 adjacency 파일
+         * @param timeline    부모 목록이 가리키는 timeline
+         * @param parentCount 전체 부모 수, timeline에 없는 부모도 포함한다
+         * @param childCount  전체 부모 중 timeline에 있는 부모 수
+         * @throws IOException 파일이 너무 크거나 내부적으로 {@code IOException}이 발생했을 때
+         */
+        Writer(Path file, CommitTimeline timeline, int parentCount, int childCount) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                this.buffer = CommitTimeline.mapReadWrite(channel, length(timeline, parentCount, childCount), file);
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+            this.size = timeline.size();
+            this.parentCount = parentCount;
+            this.childCount = childCount;
+            this.parentsOffset = HEADER_SIZE + 4 * (size + 1);
+            this.childOffsetsOffset = parentsOffset + 4 * parentCount;
+            this.childrenOffset = childOffsetsOffset + 4 * (size + 1);
+            start(timeline);
+        }
+
+        /** 메모리에만 존재하는 부모와 자식을 만드는 writer */
+        private Writer(CommitTimeline timeline, int parentCount, int childCount) {
+            this.file = null;
+            this.tempFile = null;
+            this.channel = null;
+            this.buffer = ByteBuffer.allocate(Math.toIntExact(length(timeline, parentCount, childCount)));
+            this.size = timeline.size();
+            this.parentCount = parentCount;
+            this.childCount = childCount;
+            this.parentsOffset = HEADER_SIZE + 4 * (size + 1);
+            this.childOffsetsOffset = parentsOffset + 4 * parentCount;
+            this.childrenOffset = childOffsetsOffset + 4 * (size + 1);
+            start(timeline);
+        }
+
+        private static long length(CommitTimeline timeline, int parentCount, int childCount) {
+            Preconditions.checkArgument(0 <= childCount && childCount <= parentCount,
+                "Invalid child count %s for %s parents.", childCount, parentCount);
+            return HEADER_SIZE + 4L * (2L * (timeline.size() + 1) + parentCount + childCount);
+        }
+
+        private void start(CommitTimeline timeline) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, size).putInt(12, timeline.checksum())
+                .putInt(16, parentCount).putInt(20, childCount);
+            position = size - 1;
+            parentEnd = parentCount;
+            buffer.putInt(HEADER_SIZE + 4 * size, parentCount);
+        }
+
+        /**
+         * 다음 커밋의 부모 position 목록을 기록한다. 커밋은 가장 최근 커밋부터 받는다.
+         *
+         * @param parents 커밋에 기록된 순서의 부모 position 목록, timeline에 없는 부모는 -1
+         */
+        void add(int[] parents) {
+            Preconditions.checkState(0 <= position, "parents exceed timeline count %s.", size);
+            Preconditions.checkArgument(parents.length <= parentEnd, "parents exceed parent count %s.", parentCount);
+            parentEnd -= parents.length;
+            buffer.putInt(HEADER_SIZE + 4 * position, parentEnd);
+            for (int i = 0; i < parents.length; ++i) {
+                int parent = parents[i];
+                Preconditions.checkArgument(-1 <= parent && parent < size, "Invalid parent position : %s", parent);
+                buffer.putInt(parentsOffset + 4 * (parentEnd + i), parent);
+                if (0 <= parent) {
+                    Preconditions.checkArgument(children < childCount,
+                        "children exceed child count %s.", childCount);
+                    int count = childOffsetsOffset + 4 * (parent + 1);
+                    buffer.putInt(count, buffer.getInt(count) + 1);
+                    ++children;
+                }
+            }
+            --position;
+        }
+
+        /** 자식 목록을 만들어 기록하고 임시 파일을 대상 파일로 교체한다. */
+        CommitAdjacency commit() throws IOException {
+            CommitAdjacency adjacency = fill();
+            CommitTimeline.flush(channel, buffer);
+            channel.close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return adjacency;
+        }
+
+        /**
+         * 자식 목록을 만든다. position 순서로 채우므로 자식은 오름차순이다.
+         *
+         * <p>
+         * 자식 offset을 채울 위치로 쓰면서 한 칸씩 밀리므로, 채운 후 한 칸씩 되돌린다.
+         */
+        private CommitAdjacency fill() {
+            Preconditions.checkState(position == -1 && parentEnd == 0 && children == childCount,
+                "parents do not match timeline count %s, parent count %s and child count %s.",
+                size, parentCount, childCount);
+            for (int i = 0; i < size; ++i) {
+                int offset = childOffsetsOffset + 4 * (i + 1);
+                buffer.putInt(offset, buffer.getInt(offset) + buffer.getInt(offset - 4));
+            }
+            for (int child = 0; child < size; ++child) {
+                int end = buffer.getInt(HEADER_SIZE + 4 * (child + 1));
+                for (int i = buffer.getInt(HEADER_SIZE + 4 * child); i < end; ++i) {
+                    int parent = buffer.getInt(parentsOffset + 4 * i);
+                    if (0 <= parent) {
+                        int next = childOffsetsOffset + 4 * parent;
+                        int slot = buffer.getInt(next);
+                        buffer.putInt(childrenOffset + 4 * slot, child);
+                        buffer.putInt(next, slot + 1);
+                    }
+                }
+            }
+            for (int i = size - 1; i > 0; --i) {
+                buffer.putInt(childOffsetsOffset + 4 * i, buffer.getInt(childOffsetsOffset + 4 * (i - 1)));
+            }
+            buffer.putInt(childOffsetsOffset, 0);
+            return new CommitAdjacency(buffer.duplicate().clear(), size, parentCount);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null == channel) {
+                return;
+            }
+            channel.close();
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.javala.gittravel;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * {@code CommitGraphFile}은 저장소의 commit-graph 파일({@code .git/objects/info/commit-graph})을 다루는 클래스입니다.
+ *
+ * <p>
+ * commit-graph에는 커밋마다 부모, commit time, generation number가 기록되어 있어 {@link RevWalk}가 body를
+ * 보관하지 않을 때({@link RevWalk#setRetainBody(boolean) retainBody}가 false) 커밋 객체를 inflate하지 않고 탐색할 수 있습니다.
+ * JGit은 {@code core.commitGraph} 설정이 켜져 있을 때만 commit-graph를 읽기 때문에, git-travel은 사용자가 명시적으로
+ * 끄지 않았다면 메모리의 설정에서만 켜고 설정 파일에는 기록하지 않습니다.
+ *
+ * <p>
+ * {@code init --commit-graph}로 branch와 tag에서 도달할 수 있는 모든 커밋의 commit-graph를 기록할 수 있습니다.
+ * git과 같은 포맷이므로 git도 그대로 사용합니다.
+ *
+ * <p>
+ * 기록에는 호환성을 보장하지 않는 JGit의 internal API({@code org.eclipse.jgit.internal.storage.commitgraph})를
+ * 사용합니다. 그래서 pom은 JGit 버전을 고정하고, 다른 버전의 JGit에서 API가 없거나 다르게 동작하면
+ * {@link #write}는 {@link IOException}으로 실패해 git-travel이 commit-graph 없이 동작하도록 합니다.
+ */
+final class CommitGraphFile {
+    private static final String COMMIT_GRAPH_FILENAME = "commit-graph";
+
+    private CommitGraphFile() {}
+
+    /**
+     * {@code repository}가 commit-graph를 읽도록 합니다. 설정 파일에 {@code core.commitGraph}가 false로 기록되어 있으면
+     * 아무것도 하지 않습니다.
+     *
+     * @param repository commit-graph를 읽을 저장소
+     */
+    static void enable(Repository repository) {
+        StoredConfig config = repository.getConfig();
+        if (config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true)) {
+            config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+        }
+    }
+
+    /**
+     * {@code repository}의 branch와 tag에서 도달할 수 있는 커밋으로 commit-graph를 기록합니다.
+     *
+     * <p>
+     * 기존 commit-graph가 모든 branch와 tag의 커밋을 이미 포함하면 다시 기록하지 않습니다. 새 파일은 임시 파일에 기록한 후
+     * 교체하기 때문에 기록 도중 실패해도 기존 commit-graph는 유지됩니다.
+     *
+     * @param repository commit-graph를 기록할 저장소
+     * @return 새로 기록했으면 true, 기존 commit-graph가 최신이면 false
+     * @throws IOException 저장소가 로컬 파일 저장소가 아니거나, JGit의 commit-graph API를 사용할 수 없거나,
+     *                     내부적으로 {@code IOException}이 발생했을 때
+     */
+    static boolean write(Repository repository) throws IOException {
+        try {
+            return writeGraph(repository);
+        } catch (LinkageError | RuntimeException e) {
+            throw new IOException("commit-graph cannot be written with this JGit version : " + e, e);
+        }
+    }
+
+    /** {@link #write}와 같되 JGit internal API의 에러를 그대로 던집니다. internal 클래스는 이 메서드에서만 참조합니다. */
+    private static boolean writeGraph(Repository repository) throws IOException {
+        if (!(repository.getObjectDatabase() instanceof ObjectDirectory)) {
+            throw new IOException("commit-graph can only be written to a local repository.");
+        }
+        enable(repository);
+        Path infoDir = ((ObjectDirectory) repository.getObjectDatabase()).getDirectory().toPath().resolve("info");
+        Path graphFile = infoDir.resolve(COMMIT_GRAPH_FILENAME);
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            Set<RevCommit> tips = tips(repository, walk);
+            if (tips.isEmpty() || covers(walk.getObjectReader().getCommitGraph(), tips)) {
+                return false;
+            }
+
+            GraphCommits commits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, tips, walk);
+            Files.createDirectories(infoDir);
+            Path tempFile = infoDir.resolve(COMMIT_GRAPH_FILENAME + ".tmp");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                    new CommitGraphWriter(commits).write(NullProgressMonitor.INSTANCE, out);
+                }
+                Files.move(tempFile, graphFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        return true;
+    }
+
+    /** branch와 tag가 가리키는 커밋 */
+    private static Set<RevCommit> tips(Repository repository, RevWalk walk) throws IOException {
+        Set<RevCommit> tips = new HashSet<>();
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS, Constants.R_TAGS)) {
+            ObjectId id = ref.getObjectId();
+            if (null == id) {
+                continue;
+            }
+            RevObject object = walk.peel(walk.parseAny(id));
+            if (object instanceof RevCommit) {
+                tips.add((RevCommit) object);
+            }
+        }
+        return tips;
+    }
+
+    private static boolean covers(Optional<CommitGraph> graph, Set<RevCommit> tips) {
+        if (graph.isEmpty()) {
+            return false;
+        }
+        for (RevCommit tip : tips) {
+            if (graph.get().findGraphPosition(tip) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,165 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitIndex}는 {@link CommitTimeline}의 커밋에서 position을 찾는 open addressing 해시 테이블이다.
+ *
+ * <p>
+ * 테이블의 각 슬롯에는 {@code position + 1}이 기록되며 0은 빈 슬롯을 의미한다. 커밋 해시는 이미 균등하게
+ * 분포되어 있으므로 ObjectId의 두번째 word({@link AnyObjectId#hashCode()})를 그대로 해시 값으로 사용하고,
+ * 충돌은 linear probing으로 해결한다. 키 비교는 timeline의 raw entry와 직접 비교하기 때문에
+ * 조회할 때 객체를 생성하지 않는다.
+ *
+ * <pre>
+ * offset  size          field
+ * 0       4             magic ("GTIX")
+ * 4       4             version
+ * 8       4             timeline count
+ * 12      4             timeline checksum
+ * 16      4             capacity (2의 거듭제곱)
+ * 20      4 * capacity  slots
+ * </pre>
+ *
+ * <p>
+ * 헤더의 timeline count와 checksum이 현재 timeline과 다르면 인덱스가 오래된 것으로 보고 다시 생성한다.
+ */
+final class CommitIndex {
+    static final int MAGIC = 0x47544958; // "GTIX"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final CommitTimeline timeline;
+    private final int mask;
+
+    private CommitIndex(ByteBuffer buffer, CommitTimeline timeline, int capacity) {
+        this.buffer = buffer;
+        this.timeline = timeline;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 인덱스를 연다.
+     *
+     * @param file     열 index 파일
+     * @param timeline 인덱스가 가리키는 timeline
+     * @return 인덱스 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitIndex open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        int capacity = buffer.getInt(16);
+        if (Integer.bitCount(capacity) != 1 || buffer.limit() != HEADER_SIZE + 4L * capacity) {
+            return null;
+        }
+        return new CommitIndex(buffer, timeline, capacity);
+    }
+
+    /**
+     * {@code timeline}의 인덱스를 생성해 {@code file}에 기록한 후 연다.
+     *
+     * <p>
+     * 테이블은 mmap한 임시 파일에서 바로 채우므로 timeline 크기만큼 힙을 사용하지 않는다.
+     *
+     * @param file     기록할 index 파일
+     * @param timeline 인덱스를 생성할 timeline
+     * @return 생성한 인덱스
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitIndex build(Path file, CommitTimeline timeline) throws IOException {
+        int capacity = capacityFor(timeline.size());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 테이블을 힙에 만들지 않고 파일에서 바로 채운다.
+            buffer = CommitTimeline.mapReadWrite(channel, HEADER_SIZE + 4L * capacity, file);
+            fill(buffer, timeline, capacity);
+            CommitTimeline.flush(channel, buffer);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new CommitIndex(buffer, timeline, capacity);
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 {@code timeline}의 인덱스를 생성한다.
+     *
+     * @param timeline 인덱스를 생성할 timeline
+     * @return 생성한 인덱스
+     */
+    static CommitIndex of(CommitTimeline timeline) {
+        int capacity = capacityFor(timeline.size());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * capacity);
+        fill(buffer, timeline, capacity);
+        return new CommitIndex(buffer, timeline, capacity);
+    }
+
+    /** 0으로 채워진 {@code buffer}에 헤더와 {@code timeline}의 모든 position을 기록한다. */
+    private static void fill(ByteBuffer buffer, CommitTimeline timeline, int capacity) {
+        int mask = capacity - 1;
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, timeline.size()).putInt(12, timeline.checksum())
+            .putInt(16, capacity);
+        for (int position = 0; position < timeline.size(); ++position) {
+            int slot = spread(timeline.hash(position)) & mask;
+            while (buffer.getInt(HEADER_SIZE + 4 * slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            buffer.putInt(HEADER_SIZE + 4 * slot, position + 1);
+        }
+    }
+
+    /**
+     * {@code commit}의 timeline position을 리턴한다.
+     *
+     * @return {@code commit}의 position, timeline에 없으면 -1
+     */
+    int positionOf(AnyObjectId commit) {
+        Preconditions.checkNotNull(commit, "commit cannot be null.");
+        int slot = spread(commit.hashCode()) & mask;
+        while (true) {
+            int value = buffer.getInt(HEADER_SIZE + 4 * slot);
+            if (value == 0) {
+                return -1;
+            }
+            if (timeline.matches(value - 1, commit)) {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** {@code commit}이 timeline에 있으면 true를 리턴한다. */
+    boolean contains(AnyObjectId commit) {
+        return positionOf(commit) >= 0;
+    }
+
+    /** load factor가 0.5 이하가 되는 2의 거듭제곱 크기를 리턴한다. */
+    private static int capacityFor(int size) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
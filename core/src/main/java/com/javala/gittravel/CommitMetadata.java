@@ -0,0 +1,365 @@
+package com.javala.gittravel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitMetadata}는 {@link CommitTimeline}의 각 커밋을 표시하는 데 필요한 정보를 기록하는
+ * <em>metadata</em> 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 커밋마다 commit time, author, 제목(short message)을 timeline과 같은 position 순서로 기록하기 때문에
+ * <em>here</em>, <em>travel</em>, <em>move</em>는 저장소의 커밋 객체를 읽지 않고 커밋을 표시할 수 있다.
+ * 축약 해시는 timeline의 ObjectId에서 바로 얻을 수 있으므로 따로 기록하지 않는다.
+ *
+ * <p>
+ * author는 string table에 한 번만 기록하고 record에는 table의 id만 기록한다.
+ * 제목은 subjects 영역에 UTF-8로 이어서 기록하며 record에 offset과 길이를 기록한다.
+ *
+ * <pre>
+ * offset          size                field
+ * 0               4                   magic ("GTMD")
+ * 4               4                   version
+ * 8               4                   count
+ * 12              4                   timeline checksum
+ * 16              4                   author count (a)
+ * 20              4                   subjects offset
+ * 24              4                   authors offset
+ * 28              4                   reserved
+ * 32              16 * count          records (commit time, author id, subject offset, subject length)
+ * subjects        ...                 UTF-8 제목
+ * authors         4 * (a + 1)         author 문자열 끝 offset 목록 (첫 값은 0)
+ * authors + ...   ...                 UTF-8 author ({@code name <email>})
+ * </pre>
+ *
+ * <p>
+ * 헤더의 count와 timeline checksum이 현재 timeline과 다르면 {@link CommitIndex}와 같이 오래된 파일로 보고 무시한다.
+ */
+final class CommitMetadata {
+    static final int MAGIC = 0x47544d44; // "GTMD"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 16;
+
+    private static final int WRITE_BUFFER_RECORDS = 4096;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int authorCount;
+    private final int subjectsOffset;
+    private final int authorsOffset;
+    private final String[] authors;
+
+    private CommitMetadata(ByteBuffer buffer, int size, int authorCount, int subjectsOffset, int authorsOffset) {
+        this.buffer = buffer;
+        this.size = size;
+        this.authorCount = authorCount;
+        this.subjectsOffset = subjectsOffset;
+        this.authorsOffset = authorsOffset;
+        this.authors = new String[authorCount];
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 메타데이터를 연다.
+     *
+     * @param file     열 metadata 파일
+     * @param timeline 메타데이터가 가리키는 timeline
+     * @return 메타데이터 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitMetadata open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        int size = buffer.getInt(8);
+        int authorCount = buffer.getInt(16);
+        int subjectsOffset = buffer.getInt(20);
+        int authorsOffset = buffer.getInt(24);
+        long authorBytesOffset = authorsOffset + 4L * (authorCount + 1);
+        if (authorCount < 0
+                || subjectsOffset != HEADER_SIZE + (long) size * RECORD_SIZE
+                || authorsOffset < subjectsOffset
+                || authorBytesOffset > buffer.limit()
+                || authorBytesOffset + buffer.getInt((int) authorBytesOffset - 4) != buffer.limit()) {
+            return null;
+        }
+        return new CommitMetadata(buffer, size, authorCount, subjectsOffset, authorsOffset);
+    }
+
+    /** 기록된 커밋 수 */
+    int size() {
+        return size;
+    }
+
+    /** {@code position} 커밋의 commit time(epoch seconds) */
+    int commitTime(int position) {
+        return buffer.getInt(record(position));
+    }
+
+    /** {@code position} 커밋의 author ({@code name <email>}) */
+    String author(int position) {
+        return author0(buffer.getInt(record(position) + 4));
+    }
+
+    /** {@code position} 커밋의 제목 */
+    String subject(int position) {
+        int record = record(position);
+        return decode(subjectsOffset + buffer.getInt(record + 8), buffer.getInt(record + 12));
+    }
+
+    private String author0(int id) {
+        String author = authors[id];
+        if (null == author) {
+            int offsets = authorsOffset + 4 * id;
+            int start = buffer.getInt(offsets);
+            author = decode(authorsOffset + 4 * (authorCount + 1) + start, buffer.getInt(offsets + 4) - start);
+            authors[id] = author;
+        }
+        return author;
+    }
+
+    private int record(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return HEADER_SIZE + position * RECORD_SIZE;
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** 커밋 하나의 메타데이터 */
+    static final class Entry {
+        private final int commitTime;
+        private final String author;
+        private final String subject;
+
+        Entry(int commitTime, String author, String subject) {
+            this.commitTime = commitTime;
+            this.author = Preconditions.checkNotNull(author, "author cannot be null.");
+            this.subject = Preconditions.checkNotNull(subject, "subject cannot be null.");
+        }
+
+        /** body가 있는 {@code commit}의 메타데이터 */
+        static Entry of(RevCommit commit) {
+            PersonIdent author = commit.getAuthorIdent();
+            return new Entry(commit.getCommitTime(),
+                author.getName() + " <" + author.getEmailAddress() + ">", commit.getShortMessage());
+        }
+
+        int commitTime() {
+            return commitTime;
+        }
+
+        String author() {
+            return author;
+        }
+
+        String subject() {
+            return subject;
+        }
+    }
+
+    /**
+     * metadata 파일을 순차적으로 기록하는 클래스이다.
+     *
+     * <p>
+     * record는 같은 디렉토리의 임시 파일에, 제목은 별도 임시 파일에 고정 크기 버퍼를 거쳐 기록한다.
+     * {@link #commit(CommitTimeline)}을 호출해야 제목과 string table, 헤더를 이어 기록하고 대상 파일로 교체한다.
+     * {@link #commit(CommitTimeline)} 전에 닫히면 임시 파일을 지우고 기존 파일은 유지된다.
+     *
+     * <p>
+     * {@code newestFirst}로 생성하면 {@link CommitTimeline.Writer}와 같이 가장 최근 커밋부터 받는다. 제목은 offset으로
+     * 찾기 때문에 record만 spool 파일에 기록한 후 {@link #commit(CommitTimeline)}에서 순서를 뒤집어 옮긴다.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final Path subjectsFile;
+        private final FileChannel channel;
+        private final FileChannel subjects;
+        private final Path recordsFile;
+        private final FileChannel recordSpool;
+        private final ByteBuffer records = ByteBuffer.allocate(WRITE_BUFFER_RECORDS * RECORD_SIZE);
+        private final ByteBuffer subjectChunk = ByteBuffer.allocate(64 * 1024);
+        private final Map<String, Integer> authorIds = new HashMap<>();
+        private final List<byte[]> authors = new ArrayList<>();
+        private int size = 0;
+        private int subjectsLength = 0;
+        private boolean committed = false;
+
+        Writer(Path file) throws IOException {
+            this(file, false);
+        }
+
+        Writer(Path file, boolean newestFirst) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.subjectsFile = file.resolveSibling(file.getFileName() + ".subjects.tmp");
+            this.channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.subjects = FileChannel.open(subjectsFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.recordsFile = newestFirst ? file.resolveSibling(file.getFileName() + ".records.tmp") : null;
+            this.recordSpool = newestFirst ? FileChannel.open(recordsFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE) : null;
+            channel.position(HEADER_SIZE);
+        }
+
+        /** {@code entry}를 다음 position에 기록한다. */
+        void add(Entry entry) throws IOException {
+            addRecord(entry.commitTime(), authorId(entry.author()), entry.subject().getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** {@code source}의 {@code [from, to)} 범위 메타데이터를 제목을 디코딩하지 않고 복사한다. */
+        void addAll(CommitMetadata source, int from, int to) throws IOException {
+            Preconditions.checkState(null == recordSpool, "addAll is not supported for a newest-first writer.");
+            Preconditions.checkPositionIndexes(from, to, source.size());
+            int[] remap = new int[source.authorCount];
+            Arrays.fill(remap, -1);
+            for (int position = from; position < to; ++position) {
+                int record = source.record(position);
+                int author = source.buffer.getInt(record + 4);
+                if (remap[author] < 0) {
+                    remap[author] = authorId(source.author0(author));
+                }
+                byte[] subject = new byte[source.buffer.getInt(record + 12)];
+                source.buffer.get(source.subjectsOffset + source.buffer.getInt(record + 8), subject);
+                addRecord(source.buffer.getInt(record), remap[author], subject);
+            }
+        }
+
+        /** 지금까지 기록한 커밋 수 */
+        int size() {
+            return size;
+        }
+
+        /**
+         * 제목과 string table, 헤더를 기록하고 임시 파일을 대상 파일로 교체한다.
+         *
+         * @param timeline 메타데이터가 가리키는 timeline, 기록한 커밋 수와 크기가 같아야 한다
+         */
+        void commit(CommitTimeline timeline) throws IOException {
+            Preconditions.checkState(size == timeline.size(),
+                "metadata count %s does not match timeline count %s.", size, timeline.size());
+            flushRecords();
+            flushSubjects();
+            if (null != recordSpool) {
+                CommitTimeline.copyReversed(recordSpool, RECORD_SIZE, channel, null);
+            }
+
+            long subjectsOffset = channel.position();
+            subjects.position(0);
+            for (long copied = 0; copied < subjectsLength; ) {
+                copied += channel.transferFrom(subjects, subjectsOffset + copied, subjectsLength - copied);
+            }
+            long authorsOffset = subjectsOffset + subjectsLength;
+            channel.position(authorsOffset);
+
+            ByteBuffer offsets = ByteBuffer.allocate(4 * (authors.size() + 1));
+            int end = 0;
+            offsets.putInt(end);
+            for (byte[] author : authors) {
+                end += author.length;
+                offsets.putInt(end);
+            }
+            CommitTimeline.writeFully(channel, offsets.flip());
+            for (byte[] author : authors) {
+                CommitTimeline.writeFully(channel, ByteBuffer.wrap(author));
+            }
+            if (channel.position() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Commit metadata is too large : %s", file));
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(timeline.checksum())
+                .putInt(authors.size()).putInt((int) subjectsOffset).putInt((int) authorsOffset).putInt(0).flip();
+            channel.position(0);
+            CommitTimeline.writeFully(channel, header);
+            channel.force(false);
+            channel.close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            subjects.close();
+            Files.deleteIfExists(subjectsFile);
+            if (null != recordSpool) {
+                recordSpool.close();
+                Files.deleteIfExists(recordsFile);
+            }
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private int authorId(String author) {
+            Integer id = authorIds.get(author);
+            if (null == id) {
+                id = authors.size();
+                authorIds.put(author, id);
+                authors.add(author.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+
+        private void addRecord(int commitTime, int author, byte[] subject) throws IOException {
+            if (subjectsLength + (long) subject.length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Commit metadata is too large : %s", file));
+            }
+            records.putInt(commitTime).putInt(author).putInt(subjectsLength).putInt(subject.length);
+            if (!records.hasRemaining()) {
+                flushRecords();
+            }
+            if (subjectChunk.remaining() < subject.length) {
+                flushSubjects();
+            }
+            if (subjectChunk.remaining() < subject.length) {
+                CommitTimeline.writeFully(subjects, ByteBuffer.wrap(subject));
+            } else {
+                subjectChunk.put(subject);
+            }
+            subjectsLength += subject.length;
+            ++size;
+        }
+
+        private void flushRecords() throws IOException {
+            CommitTimeline.writeFully((null == recordSpool) ? channel : recordSpool, records.flip());
+            records.clear();
+        }
+
+        private void flushSubjects() throws IOException {
+            CommitTimeline.writeFully(subjects, subjectChunk.flip());
+            subjectChunk.clear();
+        }
+    }
+}
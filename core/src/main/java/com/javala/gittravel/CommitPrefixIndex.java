@@ -0,0 +1,203 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.eclipse.jgit.lib.Constants;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitPrefixIndex}는 {@link CommitTimeline}의 position을 커밋 해시 순서로 정렬해 기록한 <em>prefixes</em>
+ * 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 같은 prefix로 시작하는 커밋은 정렬된 배열에서 연속된 구간을 이루기 때문에, 축약된 커밋 해시는 이진 탐색 두 번으로
+ * 구간의 처음과 끝을 찾아 해석한다. 비교는 timeline의 raw entry와 직접 하므로 조회할 때 객체를 생성하지 않는다.
+ * 구간에 커밋이 둘 이상이면 축약된 해시가 모호한 것이다.
+ *
+ * <pre>
+ * offset  size    field
+ * 0       4       magic ("GTPX")
+ * 4       4       version
+ * 8       4       timeline count (n)
+ * 12      4       timeline checksum
+ * 16      4 * n   커밋 해시 순서로 정렬된 position
+ * </pre>
+ *
+ * <p>
+ * {@link CommitIndex}와 같이 timeline에서 다시 생성할 수 있는 캐시이며, 헤더가 현재 timeline과 다르면 다시 생성한다.
+ */
+final class CommitPrefixIndex {
+    static final int MAGIC = 0x47545058; // "GTPX"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    /** 해석할 수 있는 가장 짧은 prefix 길이, git의 core.abbrev 최솟값과 같다. */
+    static final int MIN_PREFIX_LENGTH = 4;
+
+    private final ByteBuffer buffer;
+    private final CommitTimeline timeline;
+
+    private CommitPrefixIndex(ByteBuffer buffer, CommitTimeline timeline) {
+        this.buffer = buffer;
+        this.timeline = timeline;
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 prefix 인덱스를 연다.
+     *
+     * @param file     열 prefixes 파일
+     * @param timeline 인덱스가 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitPrefixIndex open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() != HEADER_SIZE + 4L * timeline.size()
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        return new CommitPrefixIndex(buffer, timeline);
+    }
+
+    /**
+     * {@code timeline}의 prefix 인덱스를 생성해 {@code file}에 기록한 후 연다.
+     *
+     * @param file     기록할 prefixes 파일
+     * @param timeline 인덱스를 생성할 timeline
+     * @return 생성한 인덱스
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitPrefixIndex build(Path file, CommitTimeline timeline) throws IOException {
+        CommitPrefixIndex index = of(timeline);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CommitTimeline.writeFully(channel, index.buffer.duplicate());
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return index;
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 {@code timeline}의 prefix 인덱스를 생성한다.
+     *
+     * @param timeline 인덱스를 생성할 timeline
+     * @return 생성한 인덱스
+     */
+    static CommitPrefixIndex of(CommitTimeline timeline) {
+        int size = timeline.size();
+        // 해시의 첫 word(부호를 뒤집어 unsigned 순서로 만든 값)와 position을 long 하나로 묶어 primitive 정렬한다.
+        long[] keys = new long[size];
+        for (int position = 0; position < size; ++position) {
+            keys[position] = ((long) (timeline.firstWord(position) ^ Integer.MIN_VALUE) << 32) | position;
+        }
+        Arrays.sort(keys);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(timeline.checksum());
+        IntBuffer positions = buffer.asIntBuffer();
+        int[] run = new int[0];
+        for (int from = 0; from < size;) {
+            int to = from + 1;
+            while (to < size && (keys[to] >>> 32) == (keys[from] >>> 32)) {
+                ++to;
+            }
+            if (to - from == 1) {
+                positions.put((int) keys[from]);
+            } else {
+                // 첫 word가 같은 드문 경우만 전체 해시로 다시 정렬한다.
+                run = (run.length < to - from) ? new int[to - from] : run;
+                for (int i = from; i < to; ++i) {
+                    run[i - from] = (int) keys[i];
+                }
+                sortByHash(timeline, run, to - from);
+                positions.put(run, 0, to - from);
+            }
+            from = to;
+        }
+        buffer.clear();
+        return new CommitPrefixIndex(buffer, timeline);
+    }
+
+    private static void sortByHash(CommitTimeline timeline, int[] positions, int length) {
+        for (int i = 1; i < length; ++i) {
+            int position = positions[i];
+            int j = i - 1;
+            while (0 <= j && 0 < timeline.compare(positions[j], position)) {
+                positions[j + 1] = positions[j];
+                --j;
+            }
+            positions[j + 1] = position;
+        }
+    }
+
+    /** {@code prefix}가 해석할 수 있는 축약된 커밋 해시이면 true를 리턴한다. */
+    static boolean isPrefix(String prefix) {
+        if (prefix.length() < MIN_PREFIX_LENGTH || Constants.OBJECT_ID_STRING_LENGTH < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); ++i) {
+            if (Character.digit(prefix.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@code prefix}로 시작하는 커밋의 position을 커밋 해시 순서로 리턴한다.
+     *
+     * @param prefix {@link #isPrefix}를 만족하는 축약된 커밋 해시, 대소문자를 구분하지 않는다
+     * @return 일치하는 커밋의 position, 없으면 빈 배열
+     */
+    int[] lookup(String prefix) {
+        Preconditions.checkArgument(isPrefix(prefix), "Invalid commit prefix : %s", prefix);
+        int nibbles = prefix.length();
+        byte[] raw = new byte[(nibbles + 1) / 2];
+        for (int i = 0; i < nibbles; ++i) {
+            raw[i / 2] |= Character.digit(prefix.charAt(i), 16) << ((i % 2 == 0) ? 4 : 0);
+        }
+        int from = search(raw, nibbles, false);
+        int to = search(raw, nibbles, true);
+        int[] positions = new int[to - from];
+        for (int i = from; i < to; ++i) {
+            positions[i - from] = position(i);
+        }
+        return positions;
+    }
+
+    /** prefix보다 크거나 같은({@code upper}이면 큰) 첫 번째 정렬 인덱스를 이진 탐색한다. */
+    private int search(byte[] prefix, int nibbles, boolean upper) {
+        int low = 0;
+        int high = timeline.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compare = timeline.comparePrefix(position(middle), prefix, nibbles);
+            if (compare < 0 || (upper && compare == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int position(int sorted) {
+        return buffer.getInt(HEADER_SIZE + 4 * sorted);
+    }
+}
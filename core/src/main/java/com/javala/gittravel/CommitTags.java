@@ -0,0 +1,244 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitTags}는 {@link CommitTimeline}에 있는 커밋을 가리키는 tag를 position 순서로 기록하는 <em>tags</em>
+ * 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * annotated tag는 가리키는 커밋으로 peel해서 기록하며 lightweight tag와 구분하지 않는다. 로그에 없는 커밋이나 커밋이
+ * 아닌 객체를 가리키는 tag는 기록하지 않는다. record는 (position, 이름) 순서로 정렬되어 있으므로 HEAD 앞뒤의 tag는
+ * 이진 탐색으로 찾고, 이름으로 찾을 때도 ref를 읽거나 히스토리를 탐색하지 않는다.
+ *
+ * <pre>
+ * offset  size    field
+ * 0       4       magic ("GTTG")
+ * 4       4       version
+ * 8       4       timeline count
+ * 12      4       timeline checksum
+ * 16      4       tag count (t)
+ * 20      8 * t   records (position, 이름 끝 offset)
+ * ...     ...     UTF-8 이름 ({@code refs/tags/} 제외)
+ * </pre>
+ *
+ * <p>
+ * 헤더의 count와 timeline checksum이 현재 timeline과 다르면 {@link CommitMetadata}와 같이 오래된 파일로 보고 무시한다.
+ */
+final class CommitTags {
+    static final int MAGIC = 0x47545447; // "GTTG"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int RECORD_SIZE = 8;
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+        Comparator.comparingInt(Entry::position).thenComparing(Entry::name);
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int namesOffset;
+
+    private CommitTags(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+        this.namesOffset = HEADER_SIZE + RECORD_SIZE * size;
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 tag를 연다.
+     *
+     * @param file     열 tags 파일
+     * @param timeline tag가 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTags open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        int size = buffer.getInt(16);
+        long namesOffset = HEADER_SIZE + (long) RECORD_SIZE * size;
+        if (size < 0 || namesOffset > buffer.limit()
+                || namesOffset + (0 == size ? 0 : buffer.getInt((int) namesOffset - 4)) != buffer.limit()) {
+            return null;
+        }
+        return new CommitTags(buffer, size);
+    }
+
+    /**
+     * {@code tags}를 정렬해 {@code file}에 기록한 후 연다.
+     *
+     * @param file     기록할 tags 파일
+     * @param timeline tag가 가리키는 timeline
+     * @param tags     기록할 tag, 순서는 상관없다
+     * @return 기록한 tag
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTags build(Path file, CommitTimeline timeline, List<Entry> tags) throws IOException {
+        CommitTags commitTags = of(timeline, tags);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CommitTimeline.writeFully(channel, commitTags.buffer.duplicate());
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return commitTags;
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 tag 목록을 생성한다.
+     *
+     * @param timeline tag가 가리키는 timeline
+     * @param tags     tag, 순서는 상관없다
+     * @return 생성한 tag 목록
+     */
+    static CommitTags of(CommitTimeline timeline, List<Entry> tags) {
+        List<Entry> sorted = new ArrayList<Entry>(tags);
+        sorted.sort(ENTRY_ORDER);
+        byte[][] names = new byte[sorted.size()][];
+        int namesLength = 0;
+        for (int i = 0; i < names.length; ++i) {
+            Entry entry = sorted.get(i);
+            Preconditions.checkElementIndex(entry.position(), timeline.size(), "tag position");
+            names[i] = entry.name().getBytes(StandardCharsets.UTF_8);
+            namesLength += names[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * names.length + namesLength);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(timeline.size()).putInt(timeline.checksum()).putInt(names.length);
+        int end = 0;
+        for (int i = 0; i < names.length; ++i) {
+            end += names[i].length;
+            buffer.putInt(sorted.get(i).position()).putInt(end);
+        }
+        for (byte[] name : names) {
+            buffer.put(name);
+        }
+        buffer.clear();
+        return new CommitTags(buffer, names.length);
+    }
+
+    /**
+     * {@code repository}의 tag 중 {@code index}의 커밋을 가리키는 tag를 읽는다.
+     *
+     * <p>
+     * packed ref는 peel된 값을 함께 기록하므로 대부분 tag 객체를 읽지 않는다. 히스토리는 탐색하지 않는다.
+     *
+     * @param repository tag를 읽을 저장소
+     * @param index      tag가 가리킬 로그의 인덱스
+     * @return 로그의 커밋을 가리키는 tag, 순서는 정해지지 않는다
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static List<Entry> read(Repository repository, CommitIndex index) throws IOException {
+        List<Entry> tags = new ArrayList<Entry>();
+        RefDatabase refDatabase = repository.getRefDatabase();
+        for (Ref ref : refDatabase.getRefsByPrefix(Constants.R_TAGS)) {
+            Ref peeled = ref.isPeeled() ? ref : refDatabase.peel(ref);
+            ObjectId id = (null != peeled.getPeeledObjectId()) ? peeled.getPeeledObjectId() : peeled.getObjectId();
+            int position = (null == id) ? -1 : index.positionOf(id);
+            if (0 <= position) {
+                tags.add(new Entry(ref.getName().substring(Constants.R_TAGS.length()), position));
+            }
+        }
+        return tags;
+    }
+
+    /** 기록된 tag 수 */
+    int size() {
+        return size;
+    }
+
+    /** {@code i}번째 tag가 가리키는 커밋의 position */
+    int position(int i) {
+        Preconditions.checkElementIndex(i, size);
+        return buffer.getInt(HEADER_SIZE + RECORD_SIZE * i);
+    }
+
+    /** {@code i}번째 tag의 이름 */
+    String name(int i) {
+        Preconditions.checkElementIndex(i, size);
+        int start = (0 == i) ? 0 : buffer.getInt(HEADER_SIZE + RECORD_SIZE * i - 4);
+        int end = buffer.getInt(HEADER_SIZE + RECORD_SIZE * i + 4);
+        byte[] name = new byte[end - start];
+        ByteBuffer names = buffer.duplicate();
+        names.position(namesOffset + start);
+        names.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 이름이 {@code name}인 tag가 가리키는 커밋의 position을 리턴한다.
+     *
+     * @param name {@code refs/tags/}를 제외한 tag 이름
+     * @return tag가 가리키는 커밋의 position, 없으면 -1
+     */
+    int find(String name) {
+        for (int i = 0; i < size; ++i) {
+            if (name.equals(name(i))) {
+                return position(i);
+            }
+        }
+        return -1;
+    }
+
+    /** position이 {@code position} 이상인 첫 번째 tag의 순서, 없으면 {@link #size()} */
+    int ceiling(int position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (position(middle) < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** 한 tag의 이름과 tag가 가리키는 커밋의 position */
+    static final class Entry {
+        private final String name;
+        private final int position;
+
+        Entry(String name, int position) {
+            this.name = Preconditions.checkNotNull(name, "name cannot be null.");
+            this.position = position;
+        }
+
+        String name() {
+            return name;
+        }
+
+        int position() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,884 @@
+package com.javala.gittravel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitTermIndex}는 커밋 메시지와 author, committer의 단어를 {@link CommitTimeline}의 position 목록으로 매핑한
+ * <em>terms</em> 파일의 바이너리 포맷을 다루는 역색인(inverted index)이다.
+ *
+ * <p>
+ * 단어는 글자와 숫자가 이어진 구간을 소문자로 바꾼 것이며 {@value #MAX_TOKEN_LENGTH}자보다 긴 단어는 기록하지 않는다.
+ * {@code JIRA-1234}처럼 공백 없이 기호로만 이어진 두 단어는 {@value #JOINER}로 이은 단어({@code jira-1234})로도 기록해
+ * 검색어의 단어가 메시지에서도 이어져 있는지 확인한다.
+ * 메시지(제목과 본문), author(이름과 이메일), committer(이름과 이메일)는 단어 앞에 {@link Field}의 prefix를 붙여 한
+ * 사전에 기록한다. 사전은 UTF-8 byte 순서로 정렬되어 있어 이진 탐색으로 찾고, position 목록은 오름차순으로 앞 position과의
+ * 차이를 varint로 기록한다. 따라서 검색은 커밋 객체를 읽지 않고 사전과 position 목록만 읽는다.
+ *
+ * <pre>
+ * offset  size        field
+ * 0       4           magic ("GTTI")
+ * 4       4           version
+ * 8       4           timeline count
+ * 12      4           timeline checksum
+ * 16      4           단어 수 (t)
+ * 20      8 * t       records (단어 끝 offset, position 목록 끝 offset)
+ * ...     ...         UTF-8 단어 (field prefix 포함)
+ * ...     ...         position 목록 (varint 개수, varint 첫 position, varint 차이...)
+ * </pre>
+ *
+ * <p>
+ * {@link ChangedPathFilters}와 같이 <em>init</em>이 저장소의 커밋을 읽어 기록하며 헤더가 현재 timeline과 다르면 무시한다.
+ * 파일에 기록할 {@link Builder}는 모은 position이 {@value #SPILL_POSTINGS}개를 넘을 때마다 정렬된 run 파일로 내보내고
+ * {@link #build}에서 run을 병합하므로, 힙 사용량은 커밋 수와 관계없이 일정하다.
+ */
+final class CommitTermIndex {
+    static final int MAGIC = 0x47545449; // "GTTI"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 20;
+    static final int RECORD_SIZE = 8;
+    static final int MAX_TOKEN_LENGTH = 64;
+    /** {@link Builder}가 run 파일로 내보내기 전까지 힙에 모으는 position 수 */
+    static final int SPILL_POSTINGS = 1 << 20;
+    /** 이어진 두 단어를 한 단어로 기록할 때 사이에 넣는 문자, 단어에는 나오지 않는다 */
+    static final char JOINER = '-';
+    /** 검색어에서 대안을 구분하는 단어 */
+    static final String OR = "OR";
+
+    private static final int[] EMPTY = new int[0];
+
+    /** 단어를 기록하는 영역 */
+    enum Field {
+        MESSAGE('m'), AUTHOR('a'), COMMITTER('c');
+
+        private final char prefix;
+
+        Field(char prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final CommitTimeline timeline;
+    private final int size;
+    private final int termsOffset;
+    private final int postingsOffset;
+
+    private CommitTermIndex(ByteBuffer buffer, CommitTimeline timeline, int size) {
+        this.buffer = buffer;
+        this.timeline = timeline;
+        this.size = size;
+        this.termsOffset = HEADER_SIZE + RECORD_SIZE * size;
+        this.postingsOffset = termsOffset + ((0 == size) ? 0 : buffer.getInt(termsOffset - RECORD_SIZE));
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 역색인을 연다.
+     *
+     * @param file     열 terms 파일
+     * @param timeline 역색인이 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTermIndex open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        int size = buffer.getInt(16);
+        long termsOffset = HEADER_SIZE + (long) RECORD_SIZE * size;
+        if (size < 0 || termsOffset > buffer.limit()) {
+            return null;
+        }
+        if (0 < size && termsOffset + buffer.getInt((int) termsOffset - 8) + buffer.getInt((int) termsOffset - 4)
+                != buffer.limit()) {
+            return null;
+        }
+        return new CommitTermIndex(buffer, timeline, size);
+    }
+
+    /**
+     * {@code builder}에 모은 단어로 역색인을 만들어 {@code file}에 기록한 후 연다.
+     *
+     * <p>
+     * {@code builder}가 run 파일을 내보냈으면 남은 단어도 run으로 내보낸 후 모든 run을 단어 순서로 병합하며 기록한다.
+     *
+     * @param file     기록할 terms 파일
+     * @param timeline 역색인이 가리키는 timeline
+     * @param builder  {@link #compute}로 단어를 모은 {@link Builder}
+     * @return 기록한 역색인
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTermIndex build(Path file, CommitTimeline timeline, Builder builder) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        if (builder.runs.isEmpty()) {
+            CommitTermIndex index = of(timeline, builder);
+            try (FileChannel channel = FileChannel.open(tempFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CommitTimeline.writeFully(channel, index.buffer.duplicate());
+                channel.force(false);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return index;
+        }
+
+        builder.spill();
+        Path termsFile = file.resolveSibling(file.getFileName() + ".terms.tmp");
+        Path postingsFile = file.resolveSibling(file.getFileName() + ".postings.tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int size = writeMerged(channel, timeline, builder, termsFile, postingsFile);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(timeline.size()).putInt(timeline.checksum()).putInt(size).flip();
+            channel.position(0);
+            CommitTimeline.writeFully(channel, header);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        } finally {
+            Files.deleteIfExists(termsFile);
+            Files.deleteIfExists(postingsFile);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file, timeline);
+    }
+
+    /**
+     * {@code builder}의 run을 단어 순서로 병합해 record는 {@code channel}의 {@link #HEADER_SIZE}부터, 단어와 position 목록은
+     * 각각의 spool 파일에 기록한 후 spool 파일을 record 뒤에 이어 붙인다.
+     *
+     * @return 기록한 단어 수
+     */
+    private static int writeMerged(
+        FileChannel channel, CommitTimeline timeline, Builder builder, Path termsFile, Path postingsFile
+    ) throws IOException {
+        List<Path> runs = builder.runs;
+        PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()),
+            (a, b) -> Arrays.compareUnsigned(a.term, b.term));
+        List<RunReader> readers = new ArrayList<RunReader>(runs.size());
+        int size = 0;
+        try (OutputStream terms = new BufferedOutputStream(Files.newOutputStream(termsFile), 64 * 1024);
+             OutputStream postings = new BufferedOutputStream(Files.newOutputStream(postingsFile), 64 * 1024)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+
+            ByteBuffer records = ByteBuffer.allocate(RECORD_SIZE * 8 * 1024);
+            channel.position(HEADER_SIZE);
+            long termEnd = 0;
+            long postingsEnd = 0;
+            while (!queue.isEmpty()) {
+                RunReader first = queue.poll();
+                byte[] term = first.term;
+                int[] positions = first.positions;
+                if (first.next()) {
+                    queue.add(first);
+                }
+                while (!queue.isEmpty() && Arrays.equals(term, queue.peek().term)) {
+                    RunReader same = queue.poll();
+                    positions = union(positions, same.positions);
+                    if (same.next()) {
+                        queue.add(same);
+                    }
+                }
+                byte[] encoded = encode(builder.toTimeline(positions, timeline.size()), timeline.size());
+                terms.write(term);
+                postings.write(encoded);
+                termEnd += term.length;
+                postingsEnd += encoded.length;
+                ++size;
+                if (HEADER_SIZE + (long) RECORD_SIZE * size + termEnd + postingsEnd > Integer.MAX_VALUE) {
+                    throw new IOException("Term index is too large.");
+                }
+                records.putInt((int) termEnd).putInt((int) postingsEnd);
+                if (!records.hasRemaining()) {
+                    CommitTimeline.writeFully(channel, records.flip());
+                    records.clear();
+                }
+            }
+            CommitTimeline.writeFully(channel, records.flip());
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        for (Path spool : Arrays.asList(termsFile, postingsFile)) {
+            try (FileChannel source = FileChannel.open(spool, StandardOpenOption.READ)) {
+                long start = channel.position();
+                for (long copied = 0; copied < source.size(); ) {
+                    copied += channel.transferFrom(source, start + copied, source.size() - copied);
+                }
+                channel.position(start + source.size());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 역색인을 생성한다.
+     *
+     * @param timeline 역색인이 가리키는 timeline
+     * @param builder  단어와 position을 모은 {@link Builder}
+     * @return 생성한 역색인
+     */
+    static CommitTermIndex of(CommitTimeline timeline, Builder builder) {
+        Preconditions.checkArgument(builder.runs.isEmpty(), "builder has spilled runs, use build instead.");
+        TreeMap<byte[], Postings> sorted = builder.sorted();
+        List<byte[]> terms = new ArrayList<byte[]>(sorted.keySet());
+        byte[][] encoded = new byte[terms.size()][];
+        long termsLength = 0;
+        long postingsLength = 0;
+        for (int i = 0; i < encoded.length; ++i) {
+            encoded[i] = encode(builder.toTimeline(sorted.get(terms.get(i)).sorted(), timeline.size()), timeline.size());
+            termsLength += terms.get(i).length;
+            postingsLength += encoded[i].length;
+        }
+        long length = HEADER_SIZE + (long) RECORD_SIZE * terms.size() + termsLength + postingsLength;
+        Preconditions.checkArgument(length <= Integer.MAX_VALUE, "term index is too large : %s bytes", length);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(timeline.size()).putInt(timeline.checksum()).putInt(terms.size());
+        int termEnd = 0;
+        int postingsEnd = 0;
+        for (int i = 0; i < encoded.length; ++i) {
+            termEnd += terms.get(i).length;
+            postingsEnd += encoded[i].length;
+            buffer.putInt(termEnd).putInt(postingsEnd);
+        }
+        for (byte[] term : terms) {
+            buffer.put(term);
+        }
+        for (byte[] postings : encoded) {
+            buffer.put(postings);
+        }
+        buffer.clear();
+        return new CommitTermIndex(buffer, timeline, terms.size());
+    }
+
+    /**
+     * {@code timeline}의 커밋마다 메시지와 author, committer의 단어를 {@code builder}에 모은다.
+     *
+     * <p>
+     * 커밋의 내용은 바뀌지 않으므로 {@code previous}에 있는 커밋은 position만 새 timeline의 position으로 옮기고,
+     * 나머지 커밋만 {@link ParallelCommits}로 여러 스레드에 나누어 읽는다.
+     *
+     * @param repository 커밋을 읽을 저장소
+     * @param timeline   역색인을 만들 timeline
+     * @param index      {@code timeline}의 인덱스
+     * @param previous   다시 쓸 역색인, 없으면 null
+     * @param builder    단어와 position을 모을 {@link Builder}, 보통 {@link Builder#Builder(Path)}로 생성한다
+     * @throws IOException 커밋을 읽지 못했거나 run 파일을 기록하지 못했을 때
+     */
+    static void compute(
+        Repository repository, CommitTimeline timeline, CommitIndex index, CommitTermIndex previous, Builder builder
+    ) throws IOException {
+        Preconditions.checkArgument(!builder.reversed, "builder must take timeline positions.");
+        boolean[] covered = new boolean[timeline.size()];
+        if (null != previous) {
+            int[] moved = new int[previous.timeline.size()];
+            for (int position = 0; position < moved.length; ++position) {
+                moved[position] = index.positionOf(previous.timeline.get(position));
+                if (0 <= moved[position]) {
+                    covered[moved[position]] = true;
+                }
+            }
+            for (int i = 0; i < previous.size; ++i) {
+                String term = previous.term(i);
+                for (int position : previous.postings(i)) {
+                    if (0 <= moved[position]) {
+                        builder.add(term, moved[position]);
+                    }
+                }
+                builder.spillIfFull();
+            }
+        }
+
+        int[] missing = new int[timeline.size()];
+        int missingCount = 0;
+        for (int position = 0; position < covered.length; ++position) {
+            if (!covered[position]) {
+                missing[missingCount++] = position;
+            }
+        }
+        ParallelCommits.forEachChunk(repository, Arrays.copyOf(missing, missingCount), "git-travel-terms",
+            (reader, positions) -> {
+                Builder chunk = readChunk(reader, timeline, positions);
+                synchronized (builder) {
+                    builder.merge(chunk);
+                }
+            });
+    }
+
+    private static Builder readChunk(ObjectReader reader, CommitTimeline timeline, int[] positions)
+            throws IOException {
+        Builder chunk = new Builder();
+        try (RevWalk walk = new RevWalk(reader)) {
+            for (int position : positions) {
+                RevCommit commit = walk.parseCommit(timeline.get(position));
+                chunk.addCommit(position, commit.getFullMessage(), commit.getAuthorIdent(), commit.getCommitterIdent());
+                commit.disposeBody();
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * {@code text}를 단어로 나눈다.
+     *
+     * @param text 나눌 문자열
+     * @return 소문자로 바꾼 단어, {@value #MAX_TOKEN_LENGTH}자보다 긴 단어는 뺀다
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<String>();
+        tokenize(text, tokens, null);
+        return tokens;
+    }
+
+    /**
+     * {@code text}를 단어로 나누어 {@code tokens}에 담고, 공백 없이 기호로만 이어진 두 단어는 {@value #JOINER}로 이어
+     * {@code joined}에 담는다.
+     *
+     * @param joined 이어진 단어를 담을 목록, 필요 없으면 null
+     */
+    private static void tokenize(String text, List<String> tokens, List<String> joined) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        String previous = null;
+        int start = -1;
+        for (int i = 0; i <= lower.length();) {
+            int codePoint = (i < lower.length()) ? lower.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                start = (start < 0) ? i : start;
+            } else {
+                if (0 <= start) {
+                    String token = lower.substring(start, i);
+                    boolean kept = lower.codePointCount(start, i) <= MAX_TOKEN_LENGTH;
+                    if (kept) {
+                        tokens.add(token);
+                        if (null != joined && null != previous) {
+                            joined.add(previous + JOINER + token);
+                        }
+                    }
+                    previous = kept ? token : null;
+                    start = -1;
+                }
+                if (Character.isWhitespace(codePoint)) {
+                    previous = null;
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+    }
+
+    /**
+     * {@code query}가 검색할 수 있는 검색어이면 true를 리턴한다.
+     *
+     * @param query {@link #match}에 넘길 검색어
+     * @return {@link #OR}로 나눈 대안마다 단어가 하나 이상 있으면 true
+     */
+    static boolean isQuery(String query) {
+        for (List<String> alternative : alternatives(query)) {
+            if (alternative.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@code query}를 {@link #OR}로 나눈 대안마다 찾을 단어. 기호로 이어진 단어는 이어진 단어로 바꾸므로
+     * {@code JIRA-1234}는 {@code jira-1234}를, {@code a.b.c}는 {@code a-b}와 {@code b-c}를 찾는다.
+     */
+    private static List<List<String>> alternatives(String query) {
+        List<List<String>> alternatives = new ArrayList<List<String>>();
+        List<String> current = new ArrayList<String>();
+        for (String word : query.trim().split("\\s+")) {
+            if (OR.equals(word)) {
+                alternatives.add(current);
+                current = new ArrayList<String>();
+                continue;
+            }
+            List<String> tokens = new ArrayList<String>();
+            List<String> joined = new ArrayList<String>();
+            tokenize(word, tokens, joined);
+            current.addAll((1 < tokens.size() && joined.size() == tokens.size() - 1) ? joined : tokens);
+        }
+        alternatives.add(current);
+        return alternatives;
+    }
+
+    /** 기록된 단어 수 */
+    int size() {
+        return size;
+    }
+
+    /**
+     * {@code field}에서 {@code query}와 일치하는 커밋의 position을 찾는다.
+     *
+     * <p>
+     * 공백으로 나눈 검색어의 단어는 모두 있어야 하며(AND), {@link #OR}로 나눈 대안 중 하나만 일치하면 된다. 기호로
+     * 이어진 단어는 메시지에서도 이어져 있어야 한다. 예를 들어 {@code "JIRA-1234 OR hotfix"}는 {@code JIRA-1234}를
+     * 가졌거나 {@code hotfix}를 가진 커밋과 일치하며, {@code "JIRA 1234"}는 두 단어가 떨어져 있어도 일치한다.
+     *
+     * @param field 검색할 영역
+     * @param query {@link #isQuery}를 만족하는 검색어, 대소문자를 구분하지 않는다
+     * @return 일치하는 position, 오름차순
+     */
+    int[] match(Field field, String query) {
+        Preconditions.checkArgument(isQuery(query), "Invalid query : %s", query);
+        int[] result = EMPTY;
+        for (List<String> alternative : alternatives(query)) {
+            int[] matched = null;
+            for (String token : alternative) {
+                int[] postings = lookup(field, token);
+                matched = (null == matched) ? postings : intersect(matched, postings);
+            }
+            result = union(result, matched);
+        }
+        return result;
+    }
+
+    /**
+     * {@code field}에서 단어 {@code token}을 가진 커밋의 position을 리턴한다.
+     *
+     * @param field 검색할 영역
+     * @param token {@link #tokenize}로 나눈 단어, 또는 {@value #JOINER}로 이은 두 단어
+     * @return 일치하는 position, 오름차순
+     */
+    int[] lookup(Field field, String token) {
+        byte[] term = (field.prefix + token).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compare = compareTerm(middle, term);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (0 < compare) {
+                high = middle;
+            } else {
+                return postings(middle);
+            }
+        }
+        return EMPTY;
+    }
+
+    /** 정렬된 두 position 목록의 교집합 */
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                ++i;
+            } else if (b[j] < a[i]) {
+                ++j;
+            } else {
+                result[count++] = a[i];
+                ++i;
+                ++j;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** 정렬된 두 position 목록의 합집합 */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                ++j;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** {@code i}번째 단어와 {@code term}을 unsigned byte 순서로 비교한다. */
+    private int compareTerm(int i, byte[] term) {
+        int start = termsOffset + ((0 == i) ? 0 : buffer.getInt(HEADER_SIZE + RECORD_SIZE * (i - 1)));
+        int end = termsOffset + buffer.getInt(HEADER_SIZE + RECORD_SIZE * i);
+        int length = Math.min(end - start, term.length);
+        for (int k = 0; k < length; ++k) {
+            int compare = Integer.compare(buffer.get(start + k) & 0xff, term[k] & 0xff);
+            if (0 != compare) {
+                return compare;
+            }
+        }
+        return Integer.compare(end - start, term.length);
+    }
+
+    /** {@code i}번째 단어, field prefix를 포함한다 */
+    private String term(int i) {
+        int start = termsOffset + ((0 == i) ? 0 : buffer.getInt(HEADER_SIZE + RECORD_SIZE * (i - 1)));
+        byte[] term = new byte[termsOffset + buffer.getInt(HEADER_SIZE + RECORD_SIZE * i) - start];
+        ByteBuffer terms = buffer.duplicate();
+        terms.position(start);
+        terms.get(term);
+        return new String(term, StandardCharsets.UTF_8);
+    }
+
+    /** {@code i}번째 단어의 position 목록 */
+    private int[] postings(int i) {
+        ByteBuffer postings = buffer.duplicate();
+        postings.position(postingsOffset + ((0 == i) ? 0 : buffer.getInt(HEADER_SIZE + RECORD_SIZE * (i - 1) + 4)));
+        int[] positions = new int[readVarint(postings)];
+        int position = -1;
+        for (int k = 0; k < positions.length; ++k) {
+            position += readVarint(postings) + 1;
+            positions[k] = position;
+        }
+        return positions;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (0 <= b) {
+                return value;
+            }
+        }
+    }
+
+    /** 메시지와 author, committer 검색어를 모두 만족하는 커밋을 찾는 검색 조건 */
+    static final class Query {
+        private final String grep;
+        private final String author;
+        private final String committer;
+
+        /**
+         * @param grep      메시지 검색어, 없으면 null
+         * @param author    author 검색어, 없으면 null
+         * @param committer committer 검색어, 없으면 null
+         */
+        Query(String grep, String author, String committer) {
+            Preconditions.checkArgument(null != grep || null != author || null != committer, "empty query");
+            this.grep = grep;
+            this.author = author;
+            this.committer = committer;
+        }
+
+        /** 주어진 검색어가 하나라도 있으면 검색 조건을, 없으면 빈 값을 리턴한다. */
+        static Optional<Query> of(Optional<String> grep, Optional<String> author, Optional<String> committer) {
+            if (!grep.isPresent() && !author.isPresent() && !committer.isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Query(grep.orElse(null), author.orElse(null), committer.orElse(null)));
+        }
+
+        /**
+         * {@code index}에서 검색어를 모두 만족하는 커밋을 찾는다.
+         *
+         * @return 일치하는 position, 오름차순
+         */
+        int[] match(CommitTermIndex index) {
+            int[] matched = null;
+            matched = intersect(matched, index, Field.MESSAGE, grep);
+            matched = intersect(matched, index, Field.AUTHOR, author);
+            matched = intersect(matched, index, Field.COMMITTER, committer);
+            return matched;
+        }
+
+        private static int[] intersect(int[] matched, CommitTermIndex index, Field field, String query) {
+            if (null == query) {
+                return matched;
+            }
+            int[] positions = index.match(field, query);
+            return (null == matched) ? positions : CommitTermIndex.intersect(matched, positions);
+        }
+
+        /** 사용자에게 보여줄 검색 조건, 예를 들어 {@code --grep 'JIRA-1234' --author 'alice'} */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            append(out, "--grep", grep);
+            append(out, "--author", author);
+            append(out, "--committer", committer);
+            return out.toString();
+        }
+
+        private static void append(StringBuilder out, String option, String query) {
+            if (null != query) {
+                out.append((0 == out.length()) ? "" : " ").append(option).append(" '").append(query).append('\'');
+            }
+        }
+    }
+
+    /**
+     * 단어마다 position을 모으는 객체, thread-safe하지 않다.
+     *
+     * <p>
+     * {@link #Builder(Path)}로 생성하면 모은 position이 {@value #SPILL_POSTINGS}개를 넘을 때마다 단어 순서로 정렬한
+     * run 파일을 대상 파일 옆에 기록하고 힙을 비운다. run 파일은 {@link #close()}에서 지운다.
+     *
+     * <p>
+     * {@link #Builder(Path, boolean)}로 생성하면 로그를 기록하는 순서대로, 즉 가장 최근 커밋을 0으로 센 순서를 position
+     * 대신 받고 {@link #build}에서 timeline의 position으로 바꾼다. 전체 커밋 수를 모르는 채 커밋을 받는
+     * {@link TravelLogs.LogWriter}가 사용한다.
+     */
+    static final class Builder implements Closeable {
+        private final Map<String, Postings> postings = new HashMap<String, Postings>();
+        private final Path file;
+        private final int spillPostings;
+        private final boolean reversed;
+        private final List<Path> runs = new ArrayList<Path>();
+        private int postingCount = 0;
+
+        /** run 파일을 내보내지 않고 힙에만 모은다. */
+        Builder() {
+            this(null, Integer.MAX_VALUE);
+        }
+
+        /** @param file 기록할 terms 파일, run 파일을 이 파일 옆에 기록한다 */
+        Builder(Path file) {
+            this(file, SPILL_POSTINGS);
+        }
+
+        /**
+         * @param file     기록할 terms 파일, run 파일을 이 파일 옆에 기록한다
+         * @param reversed true이면 가장 최근 커밋부터 센 순서를 position 대신 받는다
+         */
+        Builder(Path file, boolean reversed) {
+            this(file, SPILL_POSTINGS, reversed);
+        }
+
+        Builder(Path file, int spillPostings) {
+            this(file, spillPostings, false);
+        }
+
+        Builder(Path file, int spillPostings, boolean reversed) {
+            Preconditions.checkArgument(0 < spillPostings, "spillPostings must be positive : %s", spillPostings);
+            this.file = file;
+            this.spillPostings = spillPostings;
+            this.reversed = reversed;
+        }
+
+        /** {@code position}의 커밋이 {@code term}을 가졌다고 기록한다. */
+        private void add(String term, int position) {
+            postings.computeIfAbsent(term, unused -> new Postings()).add(position);
+            ++postingCount;
+        }
+
+        /** {@code position} 커밋의 메시지와 author, committer의 단어를 기록한다. */
+        void addCommit(int position, String message, PersonIdent author, PersonIdent committer)
+                throws IOException {
+            Set<String> terms = new HashSet<String>();
+            addTokens(terms, Field.MESSAGE, message);
+            addTokens(terms, Field.AUTHOR, author.getName() + ' ' + author.getEmailAddress());
+            addTokens(terms, Field.COMMITTER, committer.getName() + ' ' + committer.getEmailAddress());
+            for (String term : terms) {
+                add(term, position);
+            }
+            spillIfFull();
+        }
+
+        private static void addTokens(Set<String> terms, Field field, String text) {
+            List<String> tokens = new ArrayList<String>();
+            List<String> joined = new ArrayList<String>();
+            tokenize(text, tokens, joined);
+            for (String token : tokens) {
+                terms.add(field.prefix + token);
+            }
+            for (String token : joined) {
+                terms.add(field.prefix + token);
+            }
+        }
+
+        /** 모은 정렬된 position 목록을 {@code timelineSize}개 커밋의 timeline position 목록으로 바꾼다. */
+        private int[] toTimeline(int[] sorted, int timelineSize) {
+            if (!reversed) {
+                return sorted;
+            }
+            int[] positions = new int[sorted.length];
+            for (int k = 0; k < sorted.length; ++k) {
+                positions[sorted.length - 1 - k] = timelineSize - 1 - sorted[k];
+            }
+            return positions;
+        }
+
+        private void merge(Builder other) throws IOException {
+            for (Map.Entry<String, Postings> entry : other.postings.entrySet()) {
+                Postings positions = entry.getValue();
+                for (int k = 0; k < positions.size; ++k) {
+                    add(entry.getKey(), positions.positions[k]);
+                }
+            }
+            spillIfFull();
+        }
+
+        /** 모은 position이 한도를 넘었으면 run 파일로 내보낸다. */
+        private void spillIfFull() throws IOException {
+            if (null != file && spillPostings <= postingCount) {
+                spill();
+            }
+        }
+
+        /** 모은 단어를 정렬된 run 파일로 내보내고 힙을 비운다. */
+        private void spill() throws IOException {
+            Preconditions.checkState(null != file, "builder has no file to spill to.");
+            Path run = file.resolveSibling(file.getFileName() + "." + runs.size() + ".run.tmp");
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run), 64 * 1024))) {
+                for (Map.Entry<byte[], Postings> entry : sorted().entrySet()) {
+                    int[] positions = entry.getValue().sorted();
+                    out.writeInt(entry.getKey().length);
+                    out.write(entry.getKey());
+                    out.writeInt(positions.length);
+                    for (int position : positions) {
+                        out.writeInt(position);
+                    }
+                }
+                out.writeInt(-1);
+            }
+            postings.clear();
+            postingCount = 0;
+        }
+
+        /** UTF-8 byte 순서로 정렬한 단어와 position 목록 */
+        private TreeMap<byte[], Postings> sorted() {
+            TreeMap<byte[], Postings> sorted = new TreeMap<byte[], Postings>(Arrays::compareUnsigned);
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                sorted.put(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+            }
+            return sorted;
+        }
+
+        /** 내보낸 run 파일을 지운다. */
+        @Override
+        public void close() throws IOException {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /** 한 단어의 position 목록 */
+    private static final class Postings {
+        private int[] positions = new int[4];
+        private int size;
+
+        private void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        /** 정렬하고 중복을 뺀 position 목록 */
+        private int[] sorted() {
+            int[] sorted = Arrays.copyOf(positions, size);
+            Arrays.sort(sorted);
+            int count = 0;
+            for (int k = 0; k < sorted.length; ++k) {
+                if (0 == k || sorted[count - 1] != sorted[k]) {
+                    sorted[count++] = sorted[k];
+                }
+            }
+            return Arrays.copyOf(sorted, count);
+        }
+    }
+
+    /** 정렬하고 중복을 뺀 {@code positions}를 varint로 기록한다. */
+    private static byte[] encode(int[] positions, int timelineSize) {
+        ByteBuffer out = ByteBuffer.allocate(5 * (positions.length + 1));
+        writeVarint(out, positions.length);
+        int previous = -1;
+        for (int position : positions) {
+            Preconditions.checkElementIndex(position, timelineSize, "term position");
+            writeVarint(out, position - previous - 1);
+            previous = position;
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static void writeVarint(ByteBuffer out, int value) {
+        while (0 != (value & ~0x7f)) {
+            out.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /** {@link Builder}가 내보낸 run 파일을 단어 순서로 읽는 객체 */
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        private byte[] term;
+        private int[] positions;
+
+        private RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 8 * 1024));
+        }
+
+        /** 다음 단어를 읽는다. run의 끝이면 false를 리턴한다. */
+        private boolean next() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return false;
+            }
+            term = new byte[length];
+            in.readFully(term);
+            positions = new int[in.readInt()];
+            for (int k = 0; k < positions.length; ++k) {
+                positions[k] = in.readInt();
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
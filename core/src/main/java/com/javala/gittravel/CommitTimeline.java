@@ -0,0 +1,497 @@
+package com.javala.gittravel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitTimeline}은 branch 로그를 기록하는 <em>commits</em> 파일의 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 파일은 16 byte 헤더와 커밋마다 20 byte 크기의 raw ObjectId로 구성된다. 커밋은 가장 오래된 커밋부터
+ * 순서대로 기록하며, 이 순서에서 커밋의 인덱스를 <em>position</em>이라고 한다. 새 커밋이 추가되어도
+ * 기존 커밋의 position은 바뀌지 않는다.
+ *
+ * <pre>
+ * offset  size    field
+ * 0       4       magic ("GTTL")
+ * 4       4       version
+ * 8       4       count
+ * 12      4       entries의 CRC32 checksum
+ * 16      20 * n  entries
+ * </pre>
+ *
+ * <p>
+ * 파일은 {@link java.nio.MappedByteBuffer}로 열기 때문에 특정 position을 읽을 때 전체 파일을 읽지 않고
+ * 해당 페이지만 읽는다. 파일 시스템이 mmap을 지원하지 않으면 파일 전체를 힙에 읽어 들인다.
+ */
+final class CommitTimeline {
+    static final int MAGIC = 0x4754544c; // "GTTL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = Constants.OBJECT_ID_LENGTH;
+
+    private static final int WRITE_BUFFER_ENTRIES = 4096;
+    private static final int REVERSE_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int checksum;
+
+    private CommitTimeline(ByteBuffer buffer, int size, int checksum) {
+        this.buffer = buffer;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    /**
+     * 바이너리 포맷의 {@code file}을 연다.
+     *
+     * @param file 열 commits 파일
+     * @return {@code file}을 읽는 CommitTimeline 객체
+     * @throws IOException 파일 헤더나 크기가 올바르지 않거나 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTimeline open(Path file) throws IOException {
+        ByteBuffer buffer = mapReadOnly(file);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(String.format("%s is not a commit timeline file.", file));
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported commit timeline version %d : %s", version, file));
+        }
+        int size = buffer.getInt(8);
+        if (size < 0 || buffer.limit() != HEADER_SIZE + (long) size * ENTRY_SIZE) {
+            throw new IOException(String.format("Corrupt commit timeline file : %s", file));
+        }
+        return new CommitTimeline(buffer, size, buffer.getInt(12));
+    }
+
+    /**
+     * 바이너리 포맷의 {@code file}을 열고 entries의 checksum을 확인한다.
+     *
+     * <p>
+     * 전체 entries를 읽으므로 파일을 새로 기록하거나 변환한 직후에만 사용한다.
+     *
+     * @param file 열 commits 파일
+     * @return {@code file}을 읽는 CommitTimeline 객체
+     * @throws IOException 파일 헤더나 크기, checksum이 올바르지 않거나 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTimeline openVerified(Path file) throws IOException {
+        CommitTimeline timeline = open(file);
+        if (!timeline.verify()) {
+            throw new IOException(String.format("Corrupt commit timeline file : %s", file));
+        }
+        return timeline;
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 timeline을 생성한다.
+     *
+     * @param commits 가장 오래된 커밋부터 정렬된 커밋 목록
+     * @return {@code commits}를 담은 CommitTimeline 객체
+     */
+    static CommitTimeline of(List<? extends AnyObjectId> commits) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + commits.size() * ENTRY_SIZE);
+        byte[] raw = new byte[ENTRY_SIZE];
+        buffer.position(HEADER_SIZE);
+        for (AnyObjectId commit : commits) {
+            commit.copyRawTo(raw, 0);
+            buffer.put(raw);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().flip().position(HEADER_SIZE));
+        int checksum = (int) crc.getValue();
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, commits.size()).putInt(12, checksum);
+        return new CommitTimeline(buffer, commits.size(), checksum);
+    }
+
+    /**
+     * 주어진 {@code file}이 바이너리 포맷으로 기록되었으면 true, 아니면 false를 리턴한다.
+     *
+     * @param file 확인할 commits 파일, 존재해야 한다
+     * @return 바이너리 포맷이면 true, 이전 텍스트 포맷이면 false
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static boolean isTimelineFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // 4 byte를 모두 읽을 때까지 반복한다.
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * 한 줄에 커밋 해시 하나씩, 가장 최근 커밋부터 기록한 이전 텍스트 포맷의 {@code file}을 읽는다.
+     *
+     * @param file 텍스트 포맷의 commits 파일
+     * @return 가장 오래된 커밋부터 정렬된 커밋 목록
+     * @throws IOException 올바른 커밋 해시가 아닌 줄이 있거나 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static List<ObjectId> readLegacy(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<ObjectId> commits = new ArrayList<>(lines.size());
+        for (int i = lines.size() - 1; i >= 0; --i) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!ObjectId.isId(line)) {
+                throw new IOException(String.format("Corrupt commits file %s : %s", file, line));
+            }
+            commits.add(ObjectId.fromString(line));
+        }
+        return commits;
+    }
+
+    /**
+     * {@code commits}를 바이너리 포맷으로 {@code file}에 기록한다.
+     *
+     * <p>
+     * 같은 디렉토리의 임시 파일에 먼저 기록한 후 {@code file}로 교체하기 때문에 기록 도중 실패해도 기존 파일은 유지된다.
+     *
+     * @param file    기록할 commits 파일
+     * @param commits 가장 오래된 커밋부터 정렬된 커밋 목록
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static void write(Path file, List<? extends AnyObjectId> commits) throws IOException {
+        Preconditions.checkNotNull(commits, "commits cannot be null.");
+        try (Writer writer = new Writer(file)) {
+            for (AnyObjectId commit : commits) {
+                writer.add(commit);
+            }
+            writer.commit();
+        }
+    }
+
+    /** 기록된 커밋 수 */
+    int size() {
+        return size;
+    }
+
+    /** 헤더에 기록된 entries의 CRC32 checksum */
+    int checksum() {
+        return checksum;
+    }
+
+    /** {@code position}에 기록된 커밋의 {@link AnyObjectId#hashCode()} 값을 객체 생성 없이 리턴한다. */
+    int hash(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return buffer.getInt(HEADER_SIZE + position * ENTRY_SIZE + 4);
+    }
+
+    /** {@code position}에 기록된 커밋을 리턴한다. */
+    ObjectId get(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return ObjectId.fromRaw(raw(position));
+    }
+
+    /** {@code position}에 기록된 커밋이 {@code commit}과 같으면 true를 리턴한다. 객체를 생성하지 않는다. */
+    boolean matches(int position, AnyObjectId commit) {
+        Preconditions.checkElementIndex(position, size);
+        int offset = HEADER_SIZE + position * ENTRY_SIZE;
+        for (int i = 0; i < ENTRY_SIZE; ++i) {
+            if (buffer.get(offset + i) != (byte) commit.getByte(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@code position}에 기록된 커밋 해시의 첫 4 byte를 big endian int로 리턴한다. */
+    int firstWord(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return buffer.getInt(HEADER_SIZE + position * ENTRY_SIZE);
+    }
+
+    /** 두 position에 기록된 커밋 해시를 unsigned byte 순서로 비교한다. */
+    int compare(int position, int other) {
+        Preconditions.checkElementIndex(position, size);
+        Preconditions.checkElementIndex(other, size);
+        int offset = HEADER_SIZE + position * ENTRY_SIZE;
+        int otherOffset = HEADER_SIZE + other * ENTRY_SIZE;
+        for (int i = 0; i < ENTRY_SIZE; ++i) {
+            int compare = Integer.compare(buffer.get(offset + i) & 0xff, buffer.get(otherOffset + i) & 0xff);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * {@code position}에 기록된 커밋 해시의 앞 {@code nibbles}자리를 {@code prefix}와 비교한다.
+     *
+     * @param prefix  앞에서부터 4 bit씩 채운 prefix
+     * @param nibbles 비교할 16진수 자릿수
+     * @return 커밋 해시가 prefix로 시작하면 0, 작으면 음수, 크면 양수
+     */
+    int comparePrefix(int position, byte[] prefix, int nibbles) {
+        Preconditions.checkElementIndex(position, size);
+        int offset = HEADER_SIZE + position * ENTRY_SIZE;
+        int bytes = nibbles / 2;
+        for (int i = 0; i < bytes; ++i) {
+            int compare = Integer.compare(buffer.get(offset + i) & 0xff, prefix[i] & 0xff);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        if (nibbles % 2 == 1) {
+            return Integer.compare((buffer.get(offset + bytes) & 0xff) >>> 4, (prefix[bytes] & 0xff) >>> 4);
+        }
+        return 0;
+    }
+
+    /** 가장 오래된 커밋부터 정렬된 전체 커밋 목록을 리턴한다. */
+    List<ObjectId> toList() {
+        List<ObjectId> commits = new ArrayList<>(size);
+        for (int position = 0; position < size; ++position) {
+            commits.add(get(position));
+        }
+        return commits;
+    }
+
+    /** entries가 헤더의 checksum과 일치하면 true를 리턴한다. */
+    boolean verify() {
+        CRC32 crc = new CRC32();
+        crc.update(entries(0, size));
+        return (int) crc.getValue() == checksum;
+    }
+
+    /** {@code [from, to)} 범위의 raw entries를 읽기 전용 버퍼로 리턴한다. */
+    private ByteBuffer entries(int from, int to) {
+        Preconditions.checkPositionIndexes(from, to, size);
+        ByteBuffer entries = buffer.duplicate();
+        entries.limit(HEADER_SIZE + to * ENTRY_SIZE).position(HEADER_SIZE + from * ENTRY_SIZE);
+        return entries.slice();
+    }
+
+    private byte[] raw(int position) {
+        byte[] raw = new byte[ENTRY_SIZE];
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(HEADER_SIZE + position * ENTRY_SIZE);
+        entry.get(raw);
+        return raw;
+    }
+
+    /** 파일을 읽기 전용으로 mmap한다. 파일 시스템이 mmap을 지원하지 않으면 힙에 읽어 들인다. */
+    static ByteBuffer mapReadOnly(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("File is too large : %s", file));
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } catch (UnsupportedOperationException e) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) length);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 파일 끝까지 읽는다.
+                }
+                return buffer.flip();
+            }
+        }
+    }
+
+    /**
+     * {@code channel}의 파일을 {@code length} 크기로 늘려 읽기 쓰기로 mmap한다. 늘어난 영역은 0으로 채워진다.
+     *
+     * <p>
+     * 전체 파일을 힙에 두지 않고 임의 위치에 기록할 때 사용한다. 파일 시스템이 mmap을 지원하지 않으면 같은 크기의 힙
+     * 버퍼를 리턴하므로, 기록을 마친 후 {@link #flush}로 파일에 반영해야 한다.
+     *
+     * @param channel 읽기 쓰기로 연 빈 파일
+     * @param length  파일 크기
+     * @param file    에러 메시지에 표시할 파일 경로
+     * @return 파일 전체를 가리키는 버퍼
+     * @throws IOException 파일이 너무 크거나 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static ByteBuffer mapReadWrite(FileChannel channel, long length, Path file) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("File is too large : %s", file));
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } catch (UnsupportedOperationException e) {
+            return ByteBuffer.allocate((int) length);
+        }
+    }
+
+    /** {@link #mapReadWrite}로 얻은 {@code buffer}의 내용을 파일에 반영한다. */
+    static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        } else {
+            channel.position(0);
+            writeFully(channel, buffer.duplicate().clear());
+        }
+        channel.force(false);
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * {@code recordSize} 크기 record들이 기록된 {@code source}를 record 순서를 뒤집어 {@code target}에 이어 기록한다.
+     *
+     * <p>
+     * {@code source}를 끝에서부터 고정 크기 버퍼 단위로 읽기 때문에 파일 크기와 관계없이 메모리 사용량이 일정하다.
+     *
+     * @param source     읽을 파일, 크기가 {@code recordSize}의 배수여야 한다
+     * @param recordSize record 크기
+     * @param target     기록할 파일, 현재 position부터 기록한다
+     * @param crc        기록한 내용으로 갱신할 checksum, null이면 갱신하지 않는다
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static void copyReversed(FileChannel source, int recordSize, FileChannel target, CRC32 crc) throws IOException {
+        long end = source.size() / recordSize;
+        int chunkRecords = Math.max(1, REVERSE_BUFFER_SIZE / recordSize);
+        ByteBuffer chunk = ByteBuffer.allocate(chunkRecords * recordSize);
+        byte[] reversed = new byte[chunk.capacity()];
+        while (end > 0) {
+            int count = (int) Math.min(end, chunkRecords);
+            long start = end - count;
+            chunk.clear().limit(count * recordSize);
+            while (chunk.hasRemaining()) {
+                if (source.read(chunk, start * recordSize + chunk.position()) < 0) {
+                    throw new IOException("Unexpected end of spool file.");
+                }
+            }
+            byte[] records = chunk.array();
+            for (int i = 0; i < count; ++i) {
+                System.arraycopy(records, (count - 1 - i) * recordSize, reversed, i * recordSize, recordSize);
+            }
+            ByteBuffer out = ByteBuffer.wrap(reversed, 0, count * recordSize);
+            if (null != crc) {
+                crc.update(out.duplicate());
+            }
+            writeFully(target, out);
+            end = start;
+        }
+    }
+
+    /**
+     * commits 파일을 순차적으로 기록하는 클래스이다.
+     *
+     * <p>
+     * 커밋은 고정 크기 버퍼를 거쳐 같은 디렉토리의 임시 파일에 기록되며, {@link #commit()}을 호출해야
+     * 헤더를 기록하고 대상 파일로 교체한다. {@link #commit()} 전에 닫히면 임시 파일을 지우고 기존 파일은 유지된다.
+     *
+     * <p>
+     * {@code newestFirst}로 생성하면 커밋을 가장 최근 커밋부터 받는다. 이때 커밋은 별도 spool 파일에 기록한 후
+     * {@link #commit()}에서 순서를 뒤집어 옮기므로, 최신 순으로 탐색하는 {@link org.eclipse.jgit.revwalk.RevWalk}의
+     * 결과를 메모리에 모으지 않고 바로 기록할 수 있다.
+     */
+    static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final Path spoolFile;
+        private final FileChannel channel;
+        private final FileChannel spool;
+        private final CRC32 crc = new CRC32();
+        private final ByteBuffer chunk = ByteBuffer.allocate(WRITE_BUFFER_ENTRIES * ENTRY_SIZE);
+        private final byte[] raw = new byte[ENTRY_SIZE];
+        private int size = 0;
+        private boolean committed = false;
+
+        Writer(Path file) throws IOException {
+            this(file, false);
+        }
+
+        Writer(Path file, boolean newestFirst) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.spoolFile = newestFirst ? file.resolveSibling(file.getFileName() + ".spool.tmp") : null;
+            this.channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.spool = newestFirst ? FileChannel.open(spoolFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE) : null;
+            channel.position(HEADER_SIZE);
+        }
+
+        /** {@code commit}을 다음 position에 기록한다. {@code newestFirst}이면 이전 position에 기록한다. */
+        void add(AnyObjectId commit) throws IOException {
+            commit.copyRawTo(raw, 0);
+            chunk.put(raw);
+            ++size;
+            if (!chunk.hasRemaining()) {
+                flush();
+            }
+        }
+
+        /** {@code source}의 {@code [from, to)} 범위 커밋을 객체 생성 없이 그대로 복사한다. */
+        void addAll(CommitTimeline source, int from, int to) throws IOException {
+            Preconditions.checkState(null == spool, "addAll is not supported for a newest-first writer.");
+            flush();
+            ByteBuffer entries = source.entries(from, to);
+            crc.update(entries.duplicate());
+            writeFully(channel, entries);
+            size += to - from;
+        }
+
+        /** 지금까지 기록한 커밋 수 */
+        int size() {
+            return size;
+        }
+
+        /** 헤더를 기록하고 임시 파일을 대상 파일로 교체한다. */
+        void commit() throws IOException {
+            flush();
+            if (null != spool) {
+                copyReversed(spool, ENTRY_SIZE, channel, crc);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt((int) crc.getValue()).flip();
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(false);
+            channel.close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (null != spool) {
+                spool.close();
+                Files.deleteIfExists(spoolFile);
+            }
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private void flush() throws IOException {
+            chunk.flip();
+            if (null != spool) {
+                writeFully(spool, chunk);
+            } else {
+                crc.update(chunk.duplicate());
+                writeFully(channel, chunk);
+            }
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code CommitTimes}는 {@link CommitTimeline}과 같은 position 순서로 커밋 시간을 기록하는 <em>times</em> 파일의
+ * 바이너리 포맷을 다루는 클래스이다.
+ *
+ * <p>
+ * 로그의 commit time은 merge된 곁가지나 시계가 틀린 커밋 때문에 position 순서로 증가하지 않을 수 있다. 그래서 각
+ * 커밋의 commit time과 함께 그 position부터 로그 끝까지의 최소 commit time을 기록한다. 최소 시간은 position 순서로
+ * 감소하지 않으므로 이진 탐색할 수 있으며, "시간 t의 코드"는 commit time이 t 이하인 마지막 position이다. 미래로
+ * 찍힌 커밋 하나가 있어도 그 뒤의 커밋은 각자의 commit time으로 찾는다.
+ *
+ * <pre>
+ * offset        size    field
+ * 0             4       magic ("GTCT")
+ * 4             4       version
+ * 8             4       timeline count (n)
+ * 12            4       timeline checksum
+ * 16            8 * n   commit time (epoch seconds)
+ * 16 + 8 * n    8 * n   position부터 끝까지의 최소 commit time (epoch seconds)
+ * </pre>
+ *
+ * <p>
+ * {@link CommitMetadata}의 commit time에서 다시 생성할 수 있는 캐시이며, 헤더가 현재 timeline과 다르면 무시한다.
+ */
+final class CommitTimes {
+    static final int MAGIC = 0x47544354; // "GTCT"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private CommitTimes(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * {@code file}에 기록된 {@code timeline}의 커밋 시간을 연다.
+     *
+     * @param file     열 times 파일
+     * @param timeline 커밋 시간이 가리키는 timeline
+     * @return 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTimes open(Path file, CommitTimeline timeline) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer = CommitTimeline.mapReadOnly(file);
+        if (buffer.limit() != HEADER_SIZE + 16L * timeline.size()
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != timeline.size()
+                || buffer.getInt(12) != timeline.checksum()) {
+            return null;
+        }
+        return new CommitTimes(buffer, timeline.size());
+    }
+
+    /**
+     * {@code metadata}의 commit time으로 {@code timeline}의 커밋 시간을 만들어 {@code file}에 기록한 후 연다.
+     *
+     * @param file     기록할 times 파일
+     * @param timeline 커밋 시간을 만들 timeline
+     * @param metadata {@code timeline}의 메타데이터
+     * @return 기록한 커밋 시간
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    static CommitTimes build(Path file, CommitTimeline timeline, CommitMetadata metadata) throws IOException {
+        Preconditions.checkArgument(metadata.size() == timeline.size(), "metadata does not match timeline.");
+        long[] commitTimes = new long[timeline.size()];
+        for (int position = 0; position < commitTimes.length; ++position) {
+            commitTimes[position] = metadata.commitTime(position);
+        }
+        CommitTimes times = of(timeline, commitTimes);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CommitTimeline.writeFully(channel, times.buffer.duplicate());
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return times;
+    }
+
+    /**
+     * 파일에 기록하지 않고 메모리에만 존재하는 커밋 시간을 생성한다.
+     *
+     * @param timeline    커밋 시간이 가리키는 timeline
+     * @param commitTimes position별 commit time (epoch seconds)
+     * @return 생성한 커밋 시간
+     */
+    static CommitTimes of(CommitTimeline timeline, long[] commitTimes) {
+        int size = timeline.size();
+        Preconditions.checkArgument(commitTimes.length == size,
+            "commitTimes must have %s entries : %s", size, commitTimes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 16 * size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(timeline.checksum());
+        for (long commitTime : commitTimes) {
+            buffer.putLong(commitTime);
+        }
+        long min = Long.MAX_VALUE;
+        for (int position = size - 1; 0 <= position; --position) {
+            min = Math.min(min, commitTimes[position]);
+            buffer.putLong(HEADER_SIZE + 8 * (size + position), min);
+        }
+        buffer.clear();
+        return new CommitTimes(buffer, size);
+    }
+
+    /** 기록된 커밋 수 */
+    int size() {
+        return size;
+    }
+
+    /** {@code position} 커밋의 commit time (epoch seconds) */
+    long time(int position) {
+        Preconditions.checkElementIndex(position, size);
+        return buffer.getLong(HEADER_SIZE + 8 * position);
+    }
+
+    /** {@code position}부터 로그 끝까지의 최소 commit time (epoch seconds) */
+    private long minimumFrom(int position) {
+        return buffer.getLong(HEADER_SIZE + 8 * (size + position));
+    }
+
+    /**
+     * commit time이 {@code time} 이하인 마지막 position을 이진 탐색한다.
+     *
+     * @param time epoch seconds
+     * @return 마지막 position, 모든 커밋이 {@code time} 이후이면 -1
+     */
+    int floor(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (minimumFrom(middle) <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * {@code end} 앞의 position 중 commit time이 {@code time} 이하인 마지막 position을 찾는다.
+     *
+     * <p>
+     * {@link #floor(long)}가 {@code end} 앞이면 그 값이고, 아니면 {@code end}부터 거꾸로 commit time을 확인한다.
+     *
+     * @param time epoch seconds
+     * @param end  찾을 범위의 끝 (제외)
+     * @return 마지막 position, 없으면 -1
+     */
+    int floor(long time, int end) {
+        Preconditions.checkPositionIndex(end, size);
+        int position = floor(time);
+        if (position < end) {
+            return position;
+        }
+        position = end - 1;
+        while (0 <= position && time < time(position)) {
+            --position;
+        }
+        return position;
+    }
+}
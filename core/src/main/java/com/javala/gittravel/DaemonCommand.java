@@ -0,0 +1,53 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * <em>daemon</em> 커맨드를 수행하는 클래스입니다.
+ * 
+ * <p>
+ * {@link TravelDaemon}을 실행해 종료될 때까지 커맨드 요청을 받습니다.
+ * {@code stop}을 지정하면 실행 중인 daemon을 종료합니다.
+ * 
+ * <p>
+ * Usage) {@code daemon [stop]}
+ */
+final class DaemonCommand extends Command {
+
+    /** daemon 커맨드를 수행합니다. */
+    @Override
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        try {
+            final Path socketPath = TravelDaemon.socketPath();
+            if (parameters.daemonStop()) {
+                if (!TravelDaemon.isRunning(socketPath)) {
+                    session.err().println("git-travel daemon is not running.");
+                    return 1;
+                }
+                return TravelDaemon.forward(
+                    socketPath, new File("."), new String[] { "daemon", "stop" }, session.out(), session.err());
+            }
+
+            try (TravelDaemon daemon = TravelDaemon.bind(socketPath)) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        daemon.stop();
+                    } catch (IOException e) {
+                        // 종료 중에는 socket 파일 삭제 실패를 무시합니다.
+                    }
+                }));
+                session.out().println("git-travel daemon is listening on " + daemon.getSocketPath());
+                daemon.serve();
+            }
+        } catch (IOException | TravelLogsException e) {
+            session.err().println(e.getMessage());
+            return 1;
+        }
+
+        return 0;
+    }
+}
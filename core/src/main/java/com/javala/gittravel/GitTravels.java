@@ -2,62 +2,136 @@ package com.javala.gittravel;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Strings;
+import com.google.common.base.Preconditions;
 
 
 /**
  * {@code GitTravels}는 <em>JGit</em> 라이브러리를 활용한 <em>git-travel</em> 핵심 유틸 클래스입니다.
  * 
  * <p>
- * <em>JGit</em>에서 모든 커밋 해시들의 정보를 가져올 수 있습니다. 그렇기 때문에 로그 기록대신에 
- * 자체 기능을 활용해 현 브랜치의 커밋 해시 목록을 가져와 이를 기반한 기능을 제공합니다.
+ * <em>init</em>으로 기록한 현 브랜치의 커밋 해시 목록({@link BranchTimeline})을 기반으로 기능을 제공하며,
+ * <em>JGit</em>으로는 실제로 표시하거나 checkout하는 커밋만 읽습니다.
  */
 public class GitTravels {
 
     /**
-     * <em>HEAD</em>를 기준으로 최대 5개의 목록을 콘솔에 표시합니다.
+     * <em>HEAD</em>를 기준으로 최대 {@code 2 * window + 1}개의 목록을 콘솔에 표시합니다.
      * 
      * <p>
-     * 가장 끝에 있는 커밋 해시에 checkout된 경우, 이전 커밋의 목록을 2개 표시하고,
-     * 가장 초기 커밋 해시에 checkout된 경우, 이후 커밋의 목록을 2개 표시합니다.
+     * 가장 끝에 있는 커밋 해시에 checkout된 경우, 이전 커밋의 목록을 window개 표시하고,
+     * 가장 초기 커밋 해시에 checkout된 경우, 이후 커밋의 목록을 window개 표시합니다.
      * 
      * <p>
-     * 그 밖엔 checkout된 커밋 해시를 기준으로 이전과 이후 커밋을 2개씩 표시합니다.
+     * 그 밖엔 checkout된 커밋 해시를 기준으로 이전과 이후 커밋을 window개씩 표시합니다.
      * 
+     * <p>
+     * 각 커밋을 가리키는 tag를 {@code (tag: <이름>)}으로 덧붙이고, 로그에 tag가 있으면 HEAD 이하와 이후에서 가장 가까운
+     * tag를 마지막 줄에 표시합니다. tag는 {@link BranchTimeline#tagsOrNull()}에서 읽으므로 ref를 읽지 않습니다.
+     * 
+     * <p>
+     * 커밋 목록과 제목은 {@link BranchTimeline}에서 window 범위만 가져오며, 메타데이터가 없을 때만 저장소에서
+     * 하나의 {@link ObjectReader}로 표시할 커밋을 읽습니다. 따라서 수행 시간은 전체 히스토리 크기가 아닌
+     * window 크기에 비례합니다.
+     * 출력은 한 번에 내보냅니다.
+     * 
+     * @param window      HEAD 앞뒤로 표시할 커밋 수
+     * @param firstParent true이면 first-parent 로그를 표시
      * @throws IOException .git 폴더를 찾을 수 없을 때
      * @throws GitAPIException JGit에서 에러가 발생할 때
      */
-    public static void here() throws IOException, GitAPIException {
-        try (Git git = git()) {
-            final String headCommitHash = getHeadCommitHash(git).get();
-            final List<RevCommit> logs = getAllLogs(git);
-
-            final int currentHeadIndex = getCurrentHeadIndex(headCommitHash, logs);
-            final int start = Math.max(currentHeadIndex - 2, 0);
-            final int end = Math.min(currentHeadIndex + 2, logs.size() - 1);
-            for(int logIndex = start; logIndex <= end; ++logIndex){
-                RevCommit log = logs.get(logIndex);
-                if(headCommitHash.equals(log.name()))
-                    System.out.println(
-                        ConsoleColors.RED + getGitLogMessage(log).get() + ConsoleColors.RESET
-                    );    
-                else
-                    System.out.println(getGitLogMessage(log).get());
-            }
-            
+    public static void here(TravelSession session, int window, boolean firstParent)
+            throws IOException, GitAPIException {
+        here(session, window, null, firstParent);
+    }
+
+    /**
+     * {@link #here(TravelSession, int, boolean)}과 같지만 {@code path}가 있으면 <em>HEAD</em>와 함께 {@code path}를
+     * 바꾼 커밋만 앞뒤로 window개씩 표시합니다.
+     * 
+     * <p>
+     * 경로를 바꾼 커밋은 {@link ChangedPathFilters.PathQuery}로 찾으므로 filter가 "있을 수도 있다"고 답한 커밋만
+     * tree diff로 확인합니다.
+     * 
+     * @param window      HEAD 앞뒤로 표시할 커밋 수
+     * @param path        저장소 최상위 기준의 파일이나 디렉토리 경로, null이면 모든 커밋을 표시
+     * @param firstParent true이면 first-parent 로그를 표시
+     * @throws IOException .git 폴더를 찾을 수 없거나, {@code path}가 있는데 HEAD가 로그에 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void here(TravelSession session, int window, String path, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 <= window, "window must not be negative : %s", window);
+        try (Git git = session.git();
+             ObjectReader reader = git.getRepository().newObjectReader();
+             RevWalk walk = new RevWalk(reader)) {
+            final ObjectId headCommit = headCommit(session, git);
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+
+            final int headPosition;
+            final List<Integer> positions = new ArrayList<Integer>();
+            if (null == path) {
+                headPosition = timeline.headPosition(headCommit);
+                final int start = (int) Math.min((long) headPosition + window, timeline.size() - 1);
+                final int end = Math.max(headPosition - window, 0);
+                for (int position = start; position >= end; --position) {
+                    positions.add(position);
+                }
+            } else {
+                headPosition = requireHeadPosition(session, git, timeline);
+                final ChangedPathFilters.PathQuery query =
+                    new ChangedPathFilters.PathQuery(timeline.pathFiltersOrNull(), path);
+                positions.addAll(findTouching(walk, timeline, query, headPosition, 1, window));
+                Collections.reverse(positions);
+                positions.add(headPosition);
+                positions.addAll(findTouching(walk, timeline, query, headPosition, -1, window));
+            }
+            final CommitTags tags = timeline.tagsOrNull();
+            final StringBuilder out = new StringBuilder();
+            for(int position : positions){
+                ObjectId log = timeline.get(position);
+                if(headCommit.equals(log)) {
+                    out.append(ConsoleColors.RED);
+                    appendGitLogMessage(out, walk, timeline, position);
+                    appendTags(out, tags, position).append(ConsoleColors.RESET);
+                } else {
+                    appendTags(appendGitLogMessage(out, walk, timeline, position), tags, position);
+                }
+                out.append(System.lineSeparator());
+            }
+            if (null != tags && 0 < tags.size() && 0 <= headPosition) {
+                appendNearestTags(out, tags, headPosition).append(System.lineSeparator());
+            }
+            final TravelLogs.PendingCheckout pending = pendingCheckout(session, git);
+            if (null != pending) {
+                out.append(String.format("Working tree is at %s. Run 'materialize' to check out HEAD.",
+                    pending.checkedOut().name().substring(0, 6))).append(System.lineSeparator());
+            }
+            final WorktreePool pool = worktreePoolOrNull(session, git);
+            if (null != pool && !pool.members().isEmpty()) {
+                out.append("Worktree : ").append(pool.workTree(pool.members().get(0))).append(System.lineSeparator());
+            }
+            session.out().print(out);
+            session.out().flush();
         } catch(IOException | GitAPIException ex) {
             throw ex;
         }
@@ -67,32 +141,427 @@ public class GitTravels {
      * 현재 <em>HEAD</em>를 기준으로 횟수만큼 위치의 커밋해시로 checkout합니다.
      * 
      * <p> 
-     * 커밋 해시 목록들은 가장 최근 등록된 순으로 목록을 가져옵니다.
-     * 그래서 인덱스가 낮을 수록 가장 최근 것입니다.
+     * 커밋 목록은 {@link BranchTimeline}의 position 순서를 따릅니다.
+     * position이 낮을 수록 오래된 커밋입니다.
+     * 
+     * <p>
+     * 매개변수가 양수일 경우, step 만큼 이전 커밋 해시로 checkout하고
+     * 매개변수가 음수라면 step 만큼 최근 커밋 해시로 checkout합니다.
+     * 이동한 위치는 git-travel의 head로 기록합니다.
      * 
      * <p>
-     * 매개변수가 양수일 경우, {현 커밋 인덱스 + step} 번째 이전 커밋 해시로 checkout하고
-     * 매개변수가 음수라면 {현 커밋 인덱스 - step} 번째, 최근 커밋 해시로 checkout합니다.
+     * {@code firstParent}가 true이면 first-parent 로그에서 이동하므로 merge된 곁가지의 커밋에는 멈추지 않습니다.
      * 
-     * @param step 이동할 커밋 인덱스
+     * @param step        이동할 커밋 수
+     * @param firstParent true이면 first-parent 로그에서 이동
      * @throws IOException .git 폴더를 찾을 수 없을 때
      * @throws GitAPIException JGit에서 에러가 발생할 때
      */
-    public static void travel(int step) throws IOException, GitAPIException {
-        try (Git git = git()) {
-            final String headCommitHash = getHeadCommitHash(git).get();
-            final List<RevCommit> logs = getAllLogs(git);
+    public static void travel(TravelSession session, int step, boolean firstParent)
+            throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final ObjectId headCommit = headCommit(session, git);
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
 
-            final int currentHeadIndex = getCurrentHeadIndex(headCommitHash, logs);
-            final int travelIndex = getIndexFromOffset(0, logs.size() - 1, currentHeadIndex, step);
-            
-            git.checkout().setName(logs.get(travelIndex).name()).call();
-            System.out.println("Travel to : " + getGitLogMessage(logs.get(travelIndex)).get());
+            final int headPosition = timeline.headPosition(headCommit);
+            final int travelPosition = getIndexFromOffset(0, timeline.size() - 1, headPosition, -step);
+
+            checkoutPosition(session, git, walk, timeline, travelPosition, "Travel to : ");
         } catch(IOException | GitAPIException ex) {
             throw ex;
         }
     }
 
+    /**
+     * 현재 <em>HEAD</em>의 {@code parent}번째 부모로 checkout합니다.
+     * 
+     * <p>
+     * 부모는 {@link BranchTimeline#adjacency()}에서 찾기 때문에 히스토리를 탐색하지 않습니다.
+     * 
+     * @param parent      이동할 부모 번호, 1이 첫 번째 부모
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 부모가 없거나 로그에 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelToParent(TravelSession session, int parent, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 < parent, "parent must be positive : %s", parent);
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final CommitAdjacency adjacency = timeline.adjacency();
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            final int parentCount = adjacency.parentCount(headPosition);
+            if (parentCount < parent) {
+                throw new IOException(String.format("HEAD has %d parent(s).", parentCount));
+            }
+            final int parentPosition = adjacency.parent(headPosition, parent - 1);
+            if (parentPosition < 0) {
+                throw new IOException(String.format("Parent %d of HEAD is not in the log.", parent));
+            }
+            checkoutPosition(session, git, walk, timeline, parentPosition, "Travel to : ");
+        }
+    }
+
+    /**
+     * 현재 <em>HEAD</em>의 자식으로 checkout합니다.
+     * 
+     * <p>
+     * 자식은 position 순서로 1번부터 번호를 매깁니다. {@code child}가 0이면 자식이 하나이거나 HEAD를 첫 번째 부모로
+     * 가진 자식이 하나일 때 그 자식으로 이동하고, 아니면 자식 목록을 보여주며 번호를 고르도록 합니다.
+     * 
+     * @param child       이동할 자식 번호, 0이면 자동으로 고름
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 자식이 없거나 자식을 고를 수 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelToChild(TravelSession session, int child, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 <= child, "child must not be negative : %s", child);
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final CommitAdjacency adjacency = timeline.adjacency();
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            final int childCount = adjacency.childCount(headPosition);
+            if (0 == childCount) {
+                throw new IOException("HEAD has no children in the log.");
+            }
+            if (childCount < child) {
+                throw new IOException(String.format("HEAD has %d children.", childCount));
+            }
+
+            int childPosition = -1;
+            if (0 < child) {
+                childPosition = adjacency.child(headPosition, child - 1);
+            } else if (1 == childCount) {
+                childPosition = adjacency.child(headPosition, 0);
+            } else {
+                for (int i = 0; i < childCount; ++i) {
+                    int candidate = adjacency.child(headPosition, i);
+                    if (adjacency.parent(candidate, 0) == headPosition) {
+                        if (0 <= childPosition) {
+                            childPosition = -1;
+                            break;
+                        }
+                        childPosition = candidate;
+                    }
+                }
+            }
+            if (childPosition < 0) {
+                final StringBuilder message = new StringBuilder(String.format(
+                    "HEAD has %d children. Choose one with 'travel --child <n>'.", childCount));
+                for (int i = 0; i < childCount; ++i) {
+                    message.append(System.lineSeparator()).append(i + 1).append(' ');
+                    appendGitLogMessage(message, walk, timeline, adjacency.child(headPosition, i));
+                }
+                throw new IOException(message.toString());
+            }
+            checkoutPosition(session, git, walk, timeline, childPosition, "Travel to : ");
+        }
+    }
+
+    /**
+     * 현재 <em>HEAD</em> 이후 또는 이전의 가장 가까운 merge 커밋으로 checkout합니다.
+     * 
+     * <p>
+     * 로그의 position 순서로 부모가 둘 이상인 커밋을 찾습니다. 부모 수는 {@link BranchTimeline#adjacency()}에서
+     * 읽기 때문에 커밋 객체를 읽지 않습니다.
+     * 
+     * @param next        true이면 HEAD 이후(최근), false이면 HEAD 이전(과거)의 merge 커밋으로 이동
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException merge 커밋이 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void moveToMerge(TravelSession session, boolean next, boolean firstParent)
+            throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final CommitAdjacency adjacency = timeline.adjacency();
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            final int direction = next ? 1 : -1;
+            for (int position = headPosition + direction; 0 <= position && position < timeline.size();
+                    position += direction) {
+                if (1 < adjacency.parentCount(position)) {
+                    checkoutPosition(session, git, walk, timeline, position, "Move to : ");
+                    return;
+                }
+            }
+            throw new IOException(String.format("No merge commit %s HEAD.", next ? "after" : "before"));
+        }
+    }
+
+    /**
+     * {@code date} 시각의 코드, 즉 {@code date} 이전에 만들어진 로그의 마지막 커밋으로 checkout합니다.
+     * 
+     * <p>
+     * {@link BranchTimeline#times()}를 이진 탐색하기 때문에 커밋 객체를 읽지 않습니다.
+     * 
+     * @param date        이동할 시각
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException {@code date} 이전의 커밋이 없거나 커밋 시간이 기록되지 않았을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void moveToDate(TravelSession session, Instant date, boolean firstParent)
+            throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final int position = timeline.times().floor(date.getEpochSecond());
+            if (position < 0) {
+                throw new IOException(String.format("No commit at or before %s.", date));
+            }
+            checkoutPosition(session, git, walk, timeline, position, "Move to : ");
+        }
+    }
+
+    /**
+     * 현재 <em>HEAD</em>에서 {@code duration}만큼 이후 또는 이전 시각의 코드로 checkout합니다.
+     * 
+     * <p>
+     * 기준 시각은 {@link CommitTimes#time}에 기록된 <em>HEAD</em>의 시각입니다. 이후로 이동할 때 그 사이에 커밋이 없으면
+     * 다음 커밋으로 이동하므로 항상 한 커밋 이상 이동합니다. 이전으로 이동할 때는 <em>HEAD</em> 앞의 커밋에서 찾으며,
+     * 기준 시각 이전의 커밋이 없으면 가장 오래된 커밋으로 이동합니다.
+     * 
+     * @param duration    이동할 시간 간격
+     * @param back        true이면 이전(과거)으로 이동
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 커밋 시간이 기록되지 않았을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelByTime(TravelSession session, Duration duration, boolean back, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(!duration.isNegative() && !duration.isZero(),
+            "duration must be positive : %s", duration);
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final CommitTimes times = timeline.times();
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            final long headTime = times.time(headPosition);
+            final long seconds = duration.getSeconds();
+            int position;
+            if (back) {
+                position = Math.max(times.floor(headTime - seconds, headPosition), 0);
+            } else {
+                position = times.floor(headTime + seconds);
+                if (position == headPosition) {
+                    position = Math.min(headPosition + 1, timeline.size() - 1);
+                }
+            }
+            checkoutPosition(session, git, walk, timeline, position, "Travel to : ");
+        }
+    }
+
+    /**
+     * 이름이 {@code tagName}인 tag가 가리키는 커밋으로 checkout합니다.
+     * 
+     * <p>
+     * tag는 <em>init</em>이 기록한 {@link BranchTimeline#tags()}에서 찾기 때문에 보통 ref를 읽지 않습니다. 마지막
+     * <em>init</em> 이후에 만든 tag는 기록에 없으므로, 그때만 {@code refs/tags/<tagName>} ref 하나를 읽어 peel한 커밋을
+     * 로그에서 찾습니다.
+     * 
+     * @param tagName     {@code refs/tags/}를 제외한 tag 이름
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException tag가 없거나 로그에 없는 커밋을 가리킬 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void moveToTag(TravelSession session, String tagName, boolean firstParent)
+            throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            int position = timeline.tags().find(tagName);
+            if (position < 0) {
+                position = findUnrecordedTag(git, timeline, tagName);
+            }
+            checkoutPosition(session, git, walk, timeline, position, "Move to : ");
+        }
+    }
+
+    /**
+     * <em>init</em>이 기록하지 않은 tag를 ref 하나만 읽어 찾습니다. 히스토리나 다른 ref는 읽지 않습니다.
+     * 
+     * @return tag가 가리키는 커밋의 position
+     * @throws IOException tag가 없거나 로그에 없는 커밋을 가리킬 때
+     */
+    private static int findUnrecordedTag(Git git, BranchTimeline timeline, String tagName) throws IOException {
+        final Ref ref = git.getRepository().exactRef(Constants.R_TAGS + tagName);
+        if (null == ref) {
+            throw new IOException(String.format("No tag named '%s'.", tagName));
+        }
+        final Ref peeled = ref.isPeeled() ? ref : git.getRepository().getRefDatabase().peel(ref);
+        final ObjectId commit = (null != peeled.getPeeledObjectId()) ? peeled.getPeeledObjectId() : peeled.getObjectId();
+        final int position = (null == commit) ? -1 : timeline.positionOf(commit);
+        if (position < 0) {
+            throw new IOException(String.format(
+                "Tag '%s' is not in the log. If the branch has moved since the last init, run init again.", tagName));
+        }
+        return position;
+    }
+
+    /**
+     * 현재 <em>HEAD</em>에서 tag가 있는 커밋을 {@code count}개 건너 checkout합니다.
+     * 
+     * <p>
+     * 같은 커밋을 가리키는 tag는 하나로 셉니다. 남은 tag가 {@code count}개보다 적으면 가장 끝의 tag로 이동합니다.
+     * 
+     * @param count       건너갈 tag 수
+     * @param back        true이면 이전(과거)의 tag로 이동
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 이동할 방향에 tag가 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelByTags(TravelSession session, int count, boolean back, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 < count, "count must be positive : %s", count);
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final CommitTags tags = timeline.tags();
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            int position = headPosition;
+            for (int moved = 0; moved < count; ++moved) {
+                final int i = back ? tags.ceiling(position) - 1 : tags.ceiling(position + 1);
+                if (i < 0 || tags.size() <= i) {
+                    break;
+                }
+                position = tags.position(i);
+            }
+            if (position == headPosition) {
+                throw new IOException(String.format("No tag %s HEAD.", back ? "before" : "after"));
+            }
+            checkoutPosition(session, git, walk, timeline, position, "Travel to : ");
+        }
+    }
+
+    /**
+     * 현재 <em>HEAD</em>에서 {@code path}를 바꾼 커밋을 {@code count}개 건너 checkout합니다.
+     * 
+     * <p>
+     * 커밋이 경로를 바꾸었는지는 첫 번째 부모와 비교합니다. {@link BranchTimeline#pathFiltersOrNull()}의 filter가
+     * "있을 수도 있다"고 답한 커밋만 tree diff로 확인하므로 대부분의 커밋은 객체를 읽지 않고 건너뜁니다.
+     * 남은 커밋이 {@code count}개보다 적으면 경로를 바꾼 가장 끝의 커밋으로 이동합니다.
+     * 
+     * @param path        저장소 최상위 기준의 파일이나 디렉토리 경로
+     * @param count       건너갈 커밋 수
+     * @param back        true이면 이전(과거)의 커밋으로 이동
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 이동할 방향에 {@code path}를 바꾼 커밋이 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelByPath(TravelSession session, String path, int count, boolean back, boolean firstParent)
+            throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 < count, "count must be positive : %s", count);
+        travelToTouching(session, path, count, back, firstParent, "Travel to : ");
+    }
+
+    /**
+     * 현재 <em>HEAD</em> 이후에서 {@code path}를 바꾼 가장 가까운 커밋으로 checkout합니다.
+     * 
+     * @param path        저장소 최상위 기준의 파일이나 디렉토리 경로
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException HEAD 이후에 {@code path}를 바꾼 커밋이 없을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     * @see #travelByPath
+     */
+    public static void moveToNextTouching(TravelSession session, String path, boolean firstParent)
+            throws IOException, GitAPIException {
+        travelToTouching(session, path, 1, false, firstParent, "Move to : ");
+    }
+
+    private static void travelToTouching(
+        TravelSession session, String path, int count, boolean back, boolean firstParent, String label
+    ) throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final int headPosition = requireHeadPosition(session, git, timeline);
+            final ChangedPathFilters.PathQuery query =
+                new ChangedPathFilters.PathQuery(timeline.pathFiltersOrNull(), path);
+
+            final List<Integer> found = findTouching(walk, timeline, query, headPosition, back ? -1 : 1, count);
+            if (found.isEmpty()) {
+                throw new IOException(String.format(
+                    "No commit touching '%s' %s HEAD.", path, back ? "before" : "after"));
+            }
+            checkoutPosition(session, git, walk, timeline, found.get(found.size() - 1), label);
+        }
+    }
+
+    /**
+     * {@code from} 다음부터 {@code direction} 방향으로 {@code query}의 경로를 바꾼 커밋을 최대 {@code limit}개 찾습니다.
+     * 
+     * @param direction 1이면 이후(최근), -1이면 이전(과거)
+     * @return 찾은 커밋의 position, {@code from}에서 가까운 순서
+     */
+    private static List<Integer> findTouching(
+        RevWalk walk, BranchTimeline timeline, ChangedPathFilters.PathQuery query, int from, int direction, int limit
+    ) throws IOException {
+        final List<Integer> found = new ArrayList<Integer>();
+        for (int position = from + direction; found.size() < limit && 0 <= position && position < timeline.size();
+                position += direction) {
+            if (query.touches(walk, position, timeline.get(position))) {
+                found.add(position);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 현재 <em>HEAD</em>에서 {@code query}와 일치하는 커밋을 {@code count}개 건너 checkout합니다.
+     * 
+     * <p>
+     * 일치하는 커밋은 {@link BranchTimeline#termIndex()}의 역색인에서 찾으므로 커밋 객체를 읽지 않습니다.
+     * 남은 커밋이 {@code count}개보다 적으면 일치하는 가장 끝의 커밋으로 이동합니다.
+     * 
+     * @param query       메시지와 author, committer 검색 조건
+     * @param count       건너갈 커밋 수
+     * @param back        true이면 이전(과거)의 커밋으로 이동
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException 이동할 방향에 일치하는 커밋이 없거나 역색인이 기록되지 않았을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static void travelByQuery(
+        TravelSession session, CommitTermIndex.Query query, int count, boolean back, boolean firstParent
+    ) throws IOException, GitAPIException {
+        Preconditions.checkArgument(0 < count, "count must be positive : %s", count);
+        travelToMatch(session, query, count, back, firstParent, "Travel to : ");
+    }
+
+    /**
+     * 현재 <em>HEAD</em> 이후에서 {@code query}와 일치하는 가장 가까운 커밋으로 checkout합니다.
+     * 
+     * @param query       메시지와 author, committer 검색 조건
+     * @param firstParent true이면 first-parent 로그에서 이동
+     * @throws IOException HEAD 이후에 일치하는 커밋이 없거나 역색인이 기록되지 않았을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     * @see #travelByQuery
+     */
+    public static void moveToMatch(TravelSession session, CommitTermIndex.Query query, boolean firstParent)
+            throws IOException, GitAPIException {
+        travelToMatch(session, query, 1, false, firstParent, "Move to : ");
+    }
+
+    private static void travelToMatch(
+        TravelSession session, CommitTermIndex.Query query, int count, boolean back, boolean firstParent, String label
+    ) throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final int[] matches = query.match(timeline.termIndex());
+            final int headPosition = requireHeadPosition(session, git, timeline);
+
+            // HEAD보다 이전에 일치하는 커밋 수와 HEAD 이후에 처음 일치하는 커밋의 순서
+            final int found = Arrays.binarySearch(matches, headPosition);
+            final int before = (0 <= found) ? found : -found - 1;
+            final int after = (0 <= found) ? found + 1 : before;
+            if (back ? 0 == before : matches.length == after) {
+                throw new IOException(String.format(
+                    "No commit matching %s %s HEAD.", query, back ? "before" : "after"));
+            }
+            final int i = back ? Math.max(before - count, 0) : Math.min(after + count - 1, matches.length - 1);
+            checkoutPosition(session, git, walk, timeline, matches[i], label);
+        }
+    }
+
     /**
      * 해당 커밋 해시로 checkout합니다.
      * 
@@ -104,26 +573,30 @@ public class GitTravels {
      * start, begin : 가장 초기 revision으로 checkout
      * last, end : 가장 최근 revision으로 checkout
      * 
-     * @param moveDestination 커밋 해시 또는 관련 키워드
-     * @throws IOException .git 폴더를 찾을 수 없을 때
+     * <p>
+     * 그 밖의 값은 {@link #resolvePosition}으로 로그 안의 커밋을 찾은 후에 checkout하고 git-travel의 head로 기록합니다.
+     * 
+     * @param moveDestination 커밋 해시(축약 가능) 또는 관련 키워드
+     * @param firstParent     true이면 first-parent 로그에서 이동
+     * @throws IOException .git 폴더를 찾을 수 없거나, 커밋이 모호하거나 로그에 없을 때
      * @throws GitAPIException JGit에서 에러가 발생할 때
      */
-    public static void move(String moveDestination) throws IOException, GitAPIException  {
-        try (Git git = git()) {
-            final List<RevCommit> logs = getAllLogs(git);
+    public static void move(TravelSession session, String moveDestination, boolean firstParent)
+            throws IOException, GitAPIException  {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
             switch(moveDestination) {
                 case "start":
                 case "begin":
-                    git.checkout().setName(logs.get(logs.size() - 1).name()).call();
-                    System.out.println("Move to : " + getGitLogMessage(logs.get(logs.size() - 1)).get());
+                    checkoutPosition(session, git, walk, timeline, 0, "Move to : ");
                     break;
                 case "end":
                 case "last":
-                    git.checkout().setName(logs.get(0).name()).call();
-                    System.out.println("Move to : " + getGitLogMessage(logs.get(0)).get());
+                    checkoutPosition(session, git, walk, timeline, timeline.size() - 1, "Move to : ");
                     break;
                 default:
-                    git.checkout().setName(moveDestination).call();
+                    checkoutPosition(session, git, walk, timeline,
+                        resolvePosition(git, walk, timeline, moveDestination), "Move to : ");
             }
         } catch(IOException | GitAPIException ex) {
             throw ex;
@@ -131,29 +604,270 @@ public class GitTravels {
     }
 
     /**
-     * 프로세스 실행 위치를 기준으로 .git의 정보를 초기화한 {@link Git} 변수를 반환합니다.
+     * {@code range}의 커밋마다 pool의 worktree에서 {@code command}를 수행합니다.
      * 
-     * @return .git의 정보를 초기화한 {@link Git} 변수
-     * @throws IOException .git 폴더를 찾을 수 없을 때
+     * <p>
+     * 범위는 {@code <from>..<to>}이며 양 끝은 <em>move</em>의 목적지(start, end, 커밋 해시 등)나 {@code HEAD}입니다.
+     * {@code ~<n>}을 붙이면 로그에서 n개 이전 커밋이며 로그의 처음을 넘지 않습니다. 예) {@code end~199..end}
+     * 양 끝의 순서와 관계없이 로그 순서로 수행하며, 작업 트리와 git-travel의 head는 옮기지 않습니다.
+     * 자세한 내용은 {@link TravelEach}를 확인하시면 됩니다.
+     * 
+     * @param range       {@code <from>..<to>}
+     * @param command     커밋마다 수행할 커맨드와 인자
+     * @param jobs        동시에 수행할 커맨드 수
+     * @param firstParent true이면 first-parent 로그의 커밋마다 수행
+     * @return 실패한 커밋 수
+     * @throws IOException 범위의 커밋이 로그에 없거나 pool을 만들지 못했을 때
      * @throws GitAPIException JGit에서 에러가 발생할 때
      */
-    public static final Git git() throws IOException, GitAPIException {
-        return new Git(new FileRepository(getDotGitDir()));
+    public static int travelEach(
+        TravelSession session, String range, List<String> command, int jobs, boolean firstParent
+    ) throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final BranchTimeline timeline = BranchTimeline.load(session, firstParent);
+            final int separator = range.indexOf("..");
+            final int from = resolveEndpoint(session, git, walk, timeline, range.substring(0, separator));
+            final int to = resolveEndpoint(session, git, walk, timeline, range.substring(separator + 2));
+
+            final List<String> labels = new ArrayList<>();
+            for (int position = Math.min(from, to); position <= Math.max(from, to); ++position) {
+                labels.add(getGitLogMessage(walk, timeline, position));
+            }
+            final Path poolDir;
+            try {
+                poolDir = session.travelLogs().worktreePoolDir(git.getRepository())
+                    .resolve(TravelEach.POOL_DIRNAME);
+            } catch (TravelLogsException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return TravelEach.run(session.out(), git.getRepository(), poolDir, timeline, Math.min(from, to), labels,
+                command, jobs);
+        }
+    }
+
+    /** {@code <목적지>[~<n>]} 형식의 범위 끝이 가리키는 position을 반환합니다. */
+    private static int resolveEndpoint(
+        TravelSession session, Git git, RevWalk walk, BranchTimeline timeline, String endpoint
+    ) throws IOException {
+        String destination = endpoint;
+        int back = 0;
+        final int tilde = endpoint.lastIndexOf('~');
+        if (0 < tilde && endpoint.substring(tilde + 1).matches("\\d+")) {
+            destination = endpoint.substring(0, tilde);
+            back = Integer.parseInt(endpoint.substring(tilde + 1));
+        }
+        final int position;
+        switch (destination) {
+            case "HEAD":
+                position = requireHeadPosition(session, git, timeline);
+                break;
+            case "start":
+            case "begin":
+                position = 0;
+                break;
+            case "end":
+            case "last":
+                position = timeline.size() - 1;
+                break;
+            default:
+                position = resolvePosition(git, walk, timeline, destination);
+        }
+        return Math.max(0, position - back);
     }
 
     /**
-     * <em>.git</em> 경로 파일 변수를 반환합니다.
+     * {@code destination}이 가리키는 커밋의 position을 반환합니다.
+     * 
+     * <p>
+     * 축약된 커밋 해시는 {@link BranchTimeline#prefixIndex()}에서 이진 탐색으로 찾으며, 여러 커밋이 일치하면
+     * 후보 목록과 함께 실패합니다. 로그에 없는 해시나 ref 이름은 저장소에서 해석한 후 로그에 있는지 확인합니다.
+     * 따라서 checkout은 로그에 있는 커밋으로만 수행됩니다.
      * 
-     * @return <em>.git</em> 경로 파일 변수
-     * @throws IOException 해당 경로를 못 찾을 때
+     * @throws IOException 커밋이 모호하거나 로그에 없을 때
      */
-    public static final File getDotGitDir() throws IOException {
-        return new File(getGitRootDir(), ".git");
+    private static int resolvePosition(Git git, RevWalk walk, BranchTimeline timeline, String destination)
+            throws IOException {
+        if (CommitPrefixIndex.isPrefix(destination)) {
+            final int[] positions = timeline.prefixIndex().lookup(destination);
+            if (1 == positions.length) {
+                return positions[0];
+            }
+            if (1 < positions.length) {
+                final StringBuilder message = new StringBuilder(String.format(
+                    "Commit prefix '%s' is ambiguous. Candidates:", destination));
+                for (int position : positions) {
+                    message.append(System.lineSeparator()).append("  ").append(timeline.get(position).name())
+                        .append(' ').append(subject(walk, timeline, position));
+                }
+                throw new IOException(message.toString());
+            }
+        }
+
+        ObjectId commit;
+        try {
+            commit = git.getRepository().resolve(destination + "^{commit}");
+        } catch (RevisionSyntaxException | IncorrectObjectTypeException e) {
+            commit = null;
+        }
+        final int position = (null == commit) ? -1 : timeline.positionOf(commit);
+        if (position < 0) {
+            throw new IOException(String.format("'%s' is not a commit in the log.", destination));
+        }
+        return position;
     }
 
-    static final String getProjectName() throws IOException {
-        final File gitRootDir = getGitRootDir();
-        return gitRootDir.getName();
+    /** {@code position}의 커밋으로 checkout하고 git-travel의 head로 기록한 후 {@code label}과 함께 출력합니다. */
+    private static void checkoutPosition(
+        TravelSession session, Git git, RevWalk walk, BranchTimeline timeline, int position, String label
+    ) throws IOException, GitAPIException {
+        final ObjectId commit = timeline.get(position);
+        final TravelLogs travelLogs = travelLogsOrNull(session);
+        Path workTree = null;
+        if (session.defersCheckout() && null != travelLogs) {
+            final ObjectId checkedOut = ObjectId.fromString(getCheckedOutCommitHash(session, git).get());
+            if (checkedOut.equals(commit)) {
+                travelLogs.clearPendingCheckout();
+            } else {
+                travelLogs.writePendingCheckout(checkedOut, commit);
+            }
+        } else {
+            workTree = checkout(session, git, commit);
+            if (null != travelLogs) {
+                travelLogs.clearPendingCheckout();
+            }
+        }
+        timeline.writeHead(position);
+        session.out().println(label + getGitLogMessage(walk, timeline, position));
+        if (null != workTree) {
+            session.out().println("Worktree : " + workTree);
+        }
+    }
+
+    /**
+     * {@code commit}을 작업 트리에 checkout합니다. worktree pool을 켰으면 작업 트리 대신 pool의 worktree에 checkout합니다.
+     * 
+     * @return checkout한 pool의 worktree 경로, pool을 켜지 않았으면 null
+     */
+    private static Path checkout(TravelSession session, Git git, ObjectId commit) throws IOException, GitAPIException {
+        final WorktreePool pool = worktreePoolOrNull(session, git);
+        if (null == pool) {
+            git.checkout().setName(commit.name()).call();
+            return null;
+        }
+        return pool.checkout(git.getRepository(), commit);
+    }
+
+    /**
+     * 미루어 둔 checkout을 수행해 작업 트리를 git-travel의 HEAD로 옮깁니다.
+     * 
+     * <p>
+     * {@code travel --no-checkout}이나 daemon은 이동할 때마다 git-travel의 head만 옮기므로, 여러 번 이동한 후에도
+     * 작업 트리는 마지막 위치로 한 번만 checkout됩니다. 미룬 후에 사용자가 직접 checkout했으면 미룬 checkout을 버립니다.
+     * 
+     * <p>
+     * checkout에 실패하면 미루어 둔 checkout을 버리므로, 이후 HEAD는 작업 트리에 checkout된 커밋입니다.
+     * 
+     * @return checkout을 수행했으면 true, 미루어 둔 checkout이 없으면 false
+     * @throws IOException .git 폴더를 찾을 수 없거나 checkout에 실패했을 때
+     * @throws GitAPIException JGit에서 에러가 발생할 때
+     */
+    public static boolean materialize(TravelSession session) throws IOException, GitAPIException {
+        try (Git git = session.git(); RevWalk walk = new RevWalk(git.getRepository())) {
+            final TravelLogs travelLogs = travelLogsOrNull(session);
+            final TravelLogs.PendingCheckout pending = pendingCheckout(session, git);
+            if (null == pending) {
+                if (null != travelLogs) {
+                    travelLogs.clearPendingCheckout();
+                }
+                return false;
+            }
+            final Path workTree;
+            try {
+                workTree = checkout(session, git, pending.target());
+            } catch (IOException | GitAPIException | RuntimeException e) {
+                // 작업 트리가 그대로이므로 HEAD가 목적지로 보이지 않게 미룬 checkout을 버립니다.
+                travelLogs.clearPendingCheckout();
+                throw new IOException(String.format("Failed to check out %s, working tree stays at %s : %s",
+                    pending.target().name().substring(0, 6), pending.checkedOut().name().substring(0, 6),
+                    e.getMessage()), e);
+            }
+            travelLogs.clearPendingCheckout();
+            final BranchTimeline timeline = BranchTimeline.load(session);
+            final int position = timeline.positionOf(pending.target());
+            session.out().println("Materialize : " + ((0 <= position)
+                ? getGitLogMessage(walk, timeline, position)
+                : pending.target().name().substring(0, 6) + ' ' + walk.parseCommit(pending.target()).getShortMessage()));
+            if (null != workTree) {
+                session.out().println("Worktree : " + workTree);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * git-travel이 HEAD로 보는 커밋을 반환합니다.
+     * 
+     * <p>
+     * checkout을 미루었고 작업 트리가 그대로이면 미룬 목적지가, 아니면 <em>HEAD</em> 커밋이 HEAD입니다.
+     */
+    private static ObjectId headCommit(TravelSession session, Git git) throws IOException {
+        final TravelLogs.PendingCheckout pending = pendingCheckout(session, git);
+        return (null == pending)
+            ? ObjectId.fromString(getCheckedOutCommitHash(session, git).get()) : pending.target();
+    }
+
+    /**
+     * 작업 트리에 checkout된 커밋 해시를 반환합니다.
+     * 
+     * <p>
+     * worktree pool을 켰으면 마지막으로 사용한 pool의 worktree가, pool에 worktree가 없으면 작업 트리가 기준입니다.
+     */
+    private static Optional<String> getCheckedOutCommitHash(TravelSession session, Git git) throws IOException {
+        final WorktreePool pool = worktreePoolOrNull(session, git);
+        final ObjectId checkedOut = (null == pool) ? null : pool.checkedOut(git.getRepository());
+        return (null == checkedOut) ? getHeadCommitHash(git) : Optional.of(checkedOut.name());
+    }
+
+    /** 세션 프로젝트의 worktree pool, 켜지 않았으면 null */
+    private static WorktreePool worktreePoolOrNull(TravelSession session, Git git) throws IOException {
+        final TravelLogs travelLogs = travelLogsOrNull(session);
+        return (null == travelLogs)
+            ? null : WorktreePool.open(travelLogs.worktreePoolDir(git.getRepository()), git.getRepository());
+    }
+
+    /** 작업 트리가 미룬 때와 같은 커밋에 있으면 미루어 둔 checkout을, 아니면 null을 반환합니다. */
+    private static TravelLogs.PendingCheckout pendingCheckout(TravelSession session, Git git) throws IOException {
+        final TravelLogs travelLogs = travelLogsOrNull(session);
+        final TravelLogs.PendingCheckout pending = (null == travelLogs) ? null : travelLogs.readPendingCheckout();
+        if (null == pending
+                || !pending.checkedOut().name().equals(getCheckedOutCommitHash(session, git).orElse(null))) {
+            return null;
+        }
+        return pending;
+    }
+
+    /** 세션의 {@link TravelLogs}, 상태 디렉토리를 정할 수 없으면 null */
+    private static TravelLogs travelLogsOrNull(TravelSession session) throws IOException {
+        try {
+            return session.travelLogs();
+        } catch (TravelLogsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * <em>HEAD</em>의 position을 반환합니다.
+     * 
+     * @throws IOException <em>HEAD</em>를 로그에서 찾을 수 없을 때
+     */
+    private static int requireHeadPosition(TravelSession session, Git git, BranchTimeline timeline)
+            throws IOException {
+        final ObjectId headCommit = headCommit(session, git);
+        final int headPosition = timeline.headPosition(headCommit);
+        if (headPosition < 0) {
+            throw new IOException("HEAD is not in the log.");
+        }
+        return headPosition;
     }
 
     /**
@@ -162,11 +876,12 @@ public class GitTravels {
      * <p>
      * 경로를 찾을 때까지 상위 경로로 타고 올라가 찾습니다.
      * 
+     * @param workingDir git-travel 실행 경로
      * @return <em>.git</em> 절대 경로
      * @throws IOException
      */
-    private static final File getGitRootDir() throws IOException {
-        File directory = new File(".").getCanonicalFile();
+    static final File getGitRootDir(File workingDir) throws IOException {
+        File directory = workingDir.getCanonicalFile();
         while (false == new File(directory, ".git").exists()) {
             directory = directory.getParentFile();
             if (null == directory) {
@@ -199,40 +914,62 @@ public class GitTravels {
         return Optional.empty();
     }
 
-    /** Checkout 브랜치의 모든 log 목록을 가져옵니다. */
-    private static List<RevCommit> getAllLogs(Git git) throws IOException, GitAPIException {
-        Iterable<RevCommit> iterators = git.log().all().call();
-        List<RevCommit> logs = new ArrayList<RevCommit>();
-        iterators.forEach(logs::add);
-        return logs;
+    /** {@code position} 커밋의 로그 메시지를 반환합니다. */
+    private static String getGitLogMessage(RevWalk walk, BranchTimeline timeline, int position) throws IOException {
+        return appendGitLogMessage(new StringBuilder(), walk, timeline, position).toString();
     }
 
-    /** 해당 로그의 메시지를 반환합니다. */
-    private static Optional<String> getGitLogMessage(RevCommit log) {
-        Optional<String> ret = Optional.empty();
-        ret = Optional.of(Strings.lenientFormat(
-            "%s %s", 
-            log.name().substring(0, 6), 
-            log.getShortMessage()
-        ));
-        return ret;
+    /**
+     * {@code position} 커밋의 로그 메시지({@code <짧은 해시> <제목>})를 {@code out}에 덧붙입니다.
+     *
+     * <p>
+     * 제목은 {@link BranchTimeline}의 메타데이터에서 읽고, 메타데이터가 없을 때만 {@code walk}로 커밋을 읽습니다.
+     */
+    private static StringBuilder appendGitLogMessage(
+        StringBuilder out, RevWalk walk, BranchTimeline timeline, int position
+    ) throws IOException {
+        return out.append(timeline.get(position).name(), 0, 6).append(' ').append(subject(walk, timeline, position));
     }
 
-    /** 현재 <em>HEAD</em>의 인덱스를 반환합니다. */
-    @VisibleForTesting
-    static final int getCurrentHeadIndex(
-        final String headCommitHash, 
-        final List<RevCommit> logs
-    ) {
-        for(int nHeadIndex = 0; nHeadIndex < logs.size(); ++nHeadIndex) {
-            RevCommit log = logs.get(nHeadIndex);
-            if(headCommitHash.equals(log.name())){
-                return nHeadIndex;
-            }
+    /** {@code position} 커밋을 가리키는 tag를 {@code (tag: v1.0, tag: v1.0.1)} 형식으로 {@code out}에 덧붙입니다. */
+    private static StringBuilder appendTags(StringBuilder out, CommitTags tags, int position) {
+        if (null == tags) {
+            return out;
         }
-        return -1;
+        final int first = tags.ceiling(position);
+        int i = first;
+        for (; i < tags.size() && tags.position(i) == position; ++i) {
+            out.append((first == i) ? " (" : ", ").append("tag: ").append(tags.name(i));
+        }
+        return (first == i) ? out : out.append(')');
     }
-    
+
+    /** HEAD 이하에서 가장 가까운 tag와 HEAD 이후에서 가장 가까운 tag를 거리와 함께 {@code out}에 덧붙입니다. */
+    private static StringBuilder appendNearestTags(StringBuilder out, CommitTags tags, int headPosition) {
+        final int next = tags.ceiling(headPosition + 1);
+        out.append("Nearest tags :");
+        if (0 < next) {
+            // 같은 커밋의 tag 중에서는 이름 순서로 마지막 tag를 표시합니다.
+            final int distance = headPosition - tags.position(next - 1);
+            out.append(' ').append(tags.name(next - 1))
+                .append(0 == distance ? " (HEAD)" : String.format(" (%d commits before)", distance));
+        }
+        if (next < tags.size()) {
+            out.append(0 < next ? ", " : " ").append(tags.name(next))
+                .append(String.format(" (%d commits after)", tags.position(next) - headPosition));
+        }
+        return out;
+    }
+
+    /** {@code position} 커밋의 제목, 메타데이터가 없을 때만 {@code walk}로 커밋을 읽습니다. */
+    private static String subject(RevWalk walk, BranchTimeline timeline, int position) throws IOException {
+        String subject = timeline.subject(position);
+        if (null == subject) {
+            subject = walk.parseCommit(timeline.get(position)).getShortMessage();
+        }
+        return subject;
+    }
+
     /** (min <= {offset + step} <= max) 값을 반환합니다.  */
     @VisibleForTesting
     static final int getIndexFromOffset(
@@ -10,9 +10,15 @@ import org.eclipse.jgit.api.errors.GitAPIException;
  * <p>
  * <em>init</em> 커맨드를 통해 초기화된 현재 브랜치 정보를 기반으로
  * 현재 브랜치의 커밋 정보와 HEAD가 가리키고 있는 커밋을 강조 표시합니다. 
+ * 커밋을 가리키는 tag를 함께 표시하고, tag가 있으면 HEAD에서 가장 가까운 tag를 마지막 줄에 표시합니다.
  * 
  * <p>
- * Usage) {@code here}
+ * Usage) {@code here [--first-parent] [--window <n>] [--path <path>]}
+ * 
+ * <p>
+ * {@code --window}는 HEAD 앞뒤로 표시할 커밋 수이며 기본값은 2입니다.
+ * {@code --path}를 주면 HEAD와 함께 그 경로를 바꾼 커밋만 표시합니다.
+ * {@code --first-parent}를 주면 <em>init --first-parent</em>로 기록한 first-parent 로그를 표시합니다.
  * 
  * <p>
  * WARNING) <em>init</em>을 통해 가리키는 브랜치 정보를 초기화한 후에 정상 수행가능합니다.
@@ -21,11 +27,12 @@ final class HereCommand extends Command {
 
     /** here 커맨드를 수행합니다. */
     @Override
-    int exec(CommandLineOptions parameters) throws GitAPIException {
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
         try {
-            GitTravels.here();
+            GitTravels.here(
+                session, parameters.hereWindow(), parameters.path().orElse(null), parameters.firstParent());
         } catch (IOException e) {
-            System.err.println(e.getMessage());
+            session.err().println(e.getMessage());
             return 1;
         }
 
@@ -2,11 +2,15 @@ package com.javala.gittravel;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -22,9 +26,17 @@ import org.eclipse.jgit.api.errors.GitAPIException;
  * git-travel-data <p>
  * |--projectA <p>
  * | |--.current-branch <p>
+ * | |--.worktrees <p>
  * | |--branchA <p>
  * | | |--head <p>
  * | | |--commits <p>
+ * | | |--index <p>
+ * | | |--metadata <p>
+ * | | |--adjacency <p>
+ * | | |--tags <p>
+ * | | |--blooms <p>
+ * | | |--terms <p>
+ * | | |--first-parent <p>
  * | |--branchB <p>
  * | |--head <p>
  * | |--commits <p>
@@ -35,45 +47,370 @@ import org.eclipse.jgit.api.errors.GitAPIException;
  * Windows: %LOCALAPPDATA%\git-travel-data
  * 
  * <p>
+ * 이미 초기화된 브랜치는 마지막으로 기록한 끝 커밋 이후의 변경분만 탐색해 로그에 반영합니다. 새 커밋 중 기존 로그의
+ * 가장 늦은 커밋보다 늦지 않은 커밋이 있으면, 처음부터 기록한 로그에서 기존 커밋 사이에 놓이므로 로그를 다시 기록합니다.
+ * 
+ * <p>
+ * 로그와 함께 각 커밋의 제목, author, commit time을 <em>metadata</em>에 기록해 다른 커맨드가
+ * 저장소의 커밋 객체를 읽지 않고 커밋을 표시할 수 있도록 합니다. 각 커밋의 부모와 자식은 position으로
+ * <em>adjacency</em>에 기록해 <em>travel --parent</em>, <em>travel --child</em> 등이 히스토리를 탐색하지 않도록 합니다.
+ * 
+ * <p>
+ * 로그의 커밋을 가리키는 tag는 peel해서 position 순서로 <em>tags</em>에 기록합니다. tag는 커밋과 관계없이 바뀌므로
+ * 로그가 최신이어도 매번 다시 기록합니다.
+ * 
+ * <p>
+ * 각 커밋이 첫 번째 부모와 비교해 바꾼 경로는 {@link ChangedPathFilters}로 <em>blooms</em>에 기록해 경로로 이동할 때
+ * 대부분의 커밋을 tree diff 없이 건너뛸 수 있도록 합니다. 이전에 기록한 커밋의 filter는 다시 쓰고 새 커밋만 여러
+ * 스레드로 나누어 계산합니다.
+ * 
+ * <p>
+ * 커밋 메시지와 author, committer의 단어는 {@link CommitTermIndex}로 <em>terms</em>에 기록해 <em>travel --grep</em>,
+ * <em>move --author</em> 등이 커밋 객체를 읽지 않고 일치하는 커밋을 찾도록 합니다. filter와 같이 이전에 기록한
+ * 커밋의 단어는 다시 쓰고 새 커밋만 읽습니다. 로그를 처음부터 기록할 때는 로그를 기록하며 읽은 body로 단어를 모으므로
+ * 커밋을 다시 읽지 않습니다.
+ * 
+ * <p>
+ * {@code --commit-graph}를 주면 로그를 탐색하기 전에 저장소의 commit-graph를 기록하거나 갱신합니다. 기록하지 못하면
+ * 경고를 출력하고 commit-graph 없이 로그를 기록합니다.
+ * 
+ * <p>
+ * {@code --first-parent}를 주면 브랜치 로그와 함께 끝 커밋에서 첫 번째 부모만 따라간 커밋들을
+ * <em>first-parent</em> 디렉토리에 별도의 로그로 기록합니다. merge된 곁가지의 커밋이 빠지기 때문에
+ * merge가 많은 브랜치에서 주 히스토리만 따라 이동할 수 있습니다.
+ * 
+ * <p>
  * 여기서 인자 값 {@code 브랜치}가 비어 있으면 자동적으로 {@code main} 또는 {@code master}
  * 브랜치 정보를 초기화합니다.
  * 
  * <p>
- * Usage) {@code init [<branch>]}
+ * Usage) {@code init [--commit-graph] [--first-parent] [<branch>]}
  */
 final class InitCommand extends Command {
 
     /** init 커맨드를 수행합니다. */
     @Override
-    int exec(CommandLineOptions parameters) throws GitAPIException {
-        try (Git git = GitTravels.git()){
-            final String projectName = GitTravels.getProjectName();
-            final TravelLogs travelLogs = TravelLogs.create(projectName);
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        try (Git git = session.git()){
+            final TravelLogs travelLogs = session.travelLogs();
 
             String branch = getBranch(git, parameters.branchName());
             if (null == branch) {
-                System.out.println("No branch found named : " + branch);
+                session.out().println("No branch found named : " + branch);
                 return 1;
             }
 
-            Iterable<RevCommit> revCommits = git.log().add(git.getRepository().resolve(branch)).call();
-            List<String> commits = new ArrayList<String>();
-            for (RevCommit revCommit : revCommits) {
-                commits.add(revCommit.getName());
+            if (parameters.commitGraph()) {
+                try {
+                    boolean written = CommitGraphFile.write(git.getRepository());
+                    session.out().println(written ? "Wrote commit-graph." : "commit-graph is up to date.");
+                } catch (IOException e) {
+                    // commit-graph 없이도 로그는 기록할 수 있으므로 건너뜁니다.
+                    session.err().println("Skipped commit-graph : " + e.getMessage());
+                }
+            }
+
+            ObjectId tip = git.getRepository().resolve(branch);
+            // 로그를 바꾸기 전에 기존 filter와 인덱스를 열어 두어야 남아 있는 커밋의 filter를 다시 쓸 수 있다.
+            ChangedPathFilters previousFilters = null;
+            CommitIndex previousIndex = null;
+            CommitTermIndex previousTerms = null;
+            if (travelLogs.isInitialized(branch)) {
+                CommitTimeline previousTimeline = travelLogs.openTimeline(branch);
+                previousFilters = travelLogs.openPathFilters(branch, previousTimeline);
+                previousIndex = (null == previousFilters) ? null : travelLogs.openIndex(branch, previousTimeline);
+                previousTerms = travelLogs.openTermIndex(branch, previousTimeline);
+            }
+            if (!travelLogs.isInitialized(branch) || !updateCommits(git.getRepository(), travelLogs, branch, tip)) {
+                writeCommits(git.getRepository(), travelLogs, branch, tip);
             }
+            writePathFilters(git.getRepository(), travelLogs, branch, previousFilters, previousIndex);
+            writeTermIndex(git.getRepository(), travelLogs, branch, previousTerms);
 
-            travelLogs.writeCommits(branch.toString(), commits);
+            // first-parent 로그는 브랜치 디렉토리 안에 기록하므로 브랜치 로그 다음에 기록한다.
+            if (parameters.firstParent()) {
+                String log = TravelLogs.firstParentLog(branch);
+                if (!travelLogs.isInitialized(log)
+                        || !updateFirstParentCommits(git.getRepository(), travelLogs, log, tip)) {
+                    writeFirstParentCommits(git.getRepository(), travelLogs, log, tip);
+                }
+                // first-parent 로그의 커밋은 모두 브랜치 로그에 있으므로 브랜치 로그의 filter를 그대로 쓴다.
+                CommitTimeline branchTimeline = travelLogs.openTimeline(branch);
+                writePathFilters(git.getRepository(), travelLogs, log,
+                    travelLogs.openPathFilters(branch, branchTimeline), travelLogs.openIndex(branch, branchTimeline));
+                writeTermIndex(git.getRepository(), travelLogs, log, travelLogs.openTermIndex(branch, branchTimeline));
+                writeTags(git.getRepository(), travelLogs, log);
+            }
+            writeTags(git.getRepository(), travelLogs, branch);
         } catch (IOException e) {
-            System.err.println(e.getMessage());
+            session.err().println(e.getMessage());
             return 1;
         } catch (TravelLogsException e) {
-            System.err.println(e.getMessage());
+            session.err().println(e.getMessage());
             return 1;
         }
 
         return 0;
     }
 
+    /**
+     * {@code tip}에서 도달할 수 있는 모든 커밋을 탐색해 브랜치의 로그를 새로 기록합니다.
+     * 
+     * <p>
+     * 탐색은 body 없이 하고, {@link TravelLogs.LogWriter}에 넘길 커밋의 body만 읽어 메타데이터와 메시지, author,
+     * committer의 단어를 읽은 후 버립니다. 그래서 커밋 목록이나 body를 메모리에 모으지 않지만, {@link RevWalk}가 방문한
+     * 커밋을 표시하기 위해 body 없는 {@link RevCommit}을 커밋마다 하나씩 보관하므로 heap은 히스토리 길이에 비례해
+     * 늘어납니다. 기록한 로그와 역색인은 {@link TravelLogs.LogWriter#commit()}에서 한 번에 반영됩니다.
+     * 
+     * @param repository <em>.git</em> 저장소
+     * @param travelLogs 로그를 기록할 {@link TravelLogs}
+     * @param branch     브랜치 이름
+     * @param tip        브랜치의 현재 끝 커밋
+     * @throws IOException
+     */
+    private void writeCommits(Repository repository, TravelLogs travelLogs, String branch, ObjectId tip)
+            throws IOException {
+        try (RevWalk walk = new RevWalk(repository);
+             TravelLogs.LogWriter writer = travelLogs.newLogWriter(branch, true)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(tip));
+            for (RevCommit commit : walk) {
+                walk.parseBody(commit);
+                writer.add(commit);
+                commit.disposeBody();
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * 이미 초기화된 브랜치의 로그를 마지막으로 기록한 끝 커밋 이후의 변경분만 반영합니다.
+     * 
+     * <p>
+     * 마지막으로 기록한 끝 커밋에서 {@code tip}까지만 탐색합니다. fast-forward된 경우 새 커밋만 추가하고,
+     * force-push 등으로 히스토리가 바뀐 경우 merge-base 이후 갈라진 커밋만 지우고 새 커밋을 추가합니다.
+     * 
+     * <p>
+     * {@link #writeCommits}의 탐색은 commit time이 늦은 커밋부터 내보내므로, 오래된 곁가지를 merge하는 등 기존 로그의
+     * 가장 늦은 커밋보다 늦지 않은 새 커밋이 있으면 새 커밋이 기존 커밋 사이에 놓입니다. 이때는 처음부터 기록한 로그와
+     * position이 같도록 변경분을 반영하지 않습니다. 같은 시간이면 탐색 순서가 큐에 들어간 순서에 달려 있으므로 늦지
+     * 않은 것으로 봅니다.
+     * 
+     * @param repository <em>.git</em> 저장소
+     * @param travelLogs 로그를 기록할 {@link TravelLogs}
+     * @param branch     초기화된 브랜치 이름
+     * @param tip        브랜치의 현재 끝 커밋
+     * @return 변경분을 반영했으면 true, 이전 끝 커밋을 저장소에서 찾을 수 없거나 <em>metadata</em>나
+     *         <em>adjacency</em>가 없거나 새 커밋이 기존 커밋 사이에 놓여 전체 로그를 다시 기록해야 하면 false
+     * @throws IOException
+     */
+    private boolean updateCommits(Repository repository, TravelLogs travelLogs, String branch, ObjectId tip)
+            throws IOException {
+        if (!hasCaches(travelLogs, branch)) {
+            return false;
+        }
+        final ObjectId indexedTip = travelLogs.readTip(branch);
+        if (indexedTip.equals(tip)) {
+            return true;
+        }
+        if (!repository.getObjectDatabase().has(indexedTip)) {
+            return false;
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            // 탐색은 body 없이 commit-graph로 하고 body는 새로 추가할 커밋만 읽는다.
+            walk.setRetainBody(false);
+            // 이전 끝 커밋에서만 도달할 수 있는 커밋은 merge-base 이후 갈라진 커밋으로, fast-forward면 비어 있다.
+            List<RevCommit> removed = walkExclusive(walk, indexedTip, tip);
+            walk.reset();
+            List<RevCommit> added = walkExclusive(walk, tip, indexedTip);
+            if (!isAfterLog(added, travelLogs, branch)) {
+                return false;
+            }
+            Collections.reverse(added);
+            List<CommitMetadata.Entry> addedMetadata = new ArrayList<CommitMetadata.Entry>(added.size());
+            List<RevCommit[]> addedParents = new ArrayList<RevCommit[]>(added.size());
+            for (RevCommit commit : added) {
+                walk.parseBody(commit);
+                addedMetadata.add(CommitMetadata.Entry.of(commit));
+                addedParents.add(commit.getParents());
+            }
+            travelLogs.updateCommits(branch, removed, added, addedMetadata, addedParents);
+        }
+        return true;
+    }
+
+    /**
+     * {@code tip}에서 첫 번째 부모만 따라간 커밋들로 first-parent 로그를 새로 기록합니다.
+     * 
+     * <p>
+     * {@link #writeCommits}와 같이 커밋을 탐색하는 대로 {@link TravelLogs.LogWriter}에 넘깁니다.
+     * 
+     * @param repository <em>.git</em> 저장소
+     * @param travelLogs 로그를 기록할 {@link TravelLogs}
+     * @param log        {@link TravelLogs#firstParentLog}로 얻은 로그 이름
+     * @param tip        브랜치의 현재 끝 커밋
+     * @throws IOException
+     */
+    private void writeFirstParentCommits(Repository repository, TravelLogs travelLogs, String log, ObjectId tip)
+            throws IOException {
+        try (RevWalk walk = new RevWalk(repository);
+             TravelLogs.LogWriter writer = travelLogs.newLogWriter(log, true)) {
+            RevCommit commit = walk.parseCommit(tip);
+            while (true) {
+                writer.add(commit);
+                commit.disposeBody();
+                if (0 == commit.getParentCount()) {
+                    break;
+                }
+                commit = walk.parseCommit(commit.getParent(0));
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * 이미 기록된 first-parent 로그를 {@code tip}의 first-parent 로그로 갱신합니다.
+     * 
+     * <p>
+     * 한 커밋의 first-parent 로그는 항상 같기 때문에 {@code tip}에서 첫 번째 부모를 따라가다 기존 로그에 있는 커밋을
+     * 만나면 그 이전은 기존 로그와 같습니다. 그래서 만난 커밋 이후의 기존 커밋을 지우고 따라온 커밋만 추가합니다.
+     * 
+     * @param repository <em>.git</em> 저장소
+     * @param travelLogs 로그를 기록할 {@link TravelLogs}
+     * @param log        이미 기록된 first-parent 로그 이름
+     * @param tip        브랜치의 현재 끝 커밋
+     * @return 변경분을 반영했으면 true, 기존 로그와 만나지 않거나 <em>metadata</em>나 <em>adjacency</em>가 없어
+     *         전체 로그를 다시 기록해야 하면 false
+     * @throws IOException
+     */
+    private boolean updateFirstParentCommits(Repository repository, TravelLogs travelLogs, String log, ObjectId tip)
+            throws IOException {
+        if (!hasCaches(travelLogs, log)) {
+            return false;
+        }
+        CommitTimeline timeline = travelLogs.openTimeline(log);
+        CommitIndex index = travelLogs.openIndex(log, timeline);
+
+        List<RevCommit> added = new ArrayList<RevCommit>();
+        List<CommitMetadata.Entry> addedMetadata = new ArrayList<CommitMetadata.Entry>();
+        List<RevCommit[]> addedParents = new ArrayList<RevCommit[]>();
+        int base;
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(tip);
+            while ((base = index.positionOf(commit)) < 0) {
+                added.add(commit);
+                addedMetadata.add(CommitMetadata.Entry.of(commit));
+                addedParents.add(commit.getParents());
+                commit.disposeBody();
+                if (0 == commit.getParentCount()) {
+                    return false;
+                }
+                commit = walk.parseCommit(commit.getParent(0));
+            }
+        }
+        if (added.isEmpty() && base == timeline.size() - 1) {
+            return true;
+        }
+
+        List<ObjectId> removed = new ArrayList<ObjectId>(timeline.size() - base - 1);
+        for (int position = base + 1; position < timeline.size(); ++position) {
+            removed.add(timeline.get(position));
+        }
+        Collections.reverse(added);
+        Collections.reverse(addedMetadata);
+        Collections.reverse(addedParents);
+        travelLogs.updateCommits(log, removed, added, addedMetadata, addedParents);
+        return true;
+    }
+
+    /**
+     * {@code log}의 커밋을 가리키는 tag를 기록합니다.
+     * 
+     * <p>
+     * tag는 로그와 관계없이 바뀌기 때문에 로그가 최신이어도 매번 기록합니다. ref만 읽으므로 히스토리는 탐색하지 않습니다.
+     */
+    private void writeTags(Repository repository, TravelLogs travelLogs, String log) throws IOException {
+        CommitTimeline timeline = travelLogs.openTimeline(log);
+        travelLogs.writeTags(log, CommitTags.read(repository, travelLogs.openIndex(log, timeline)));
+    }
+
+    /**
+     * {@code log}의 커밋마다 바뀐 경로의 filter를 기록합니다.
+     * 
+     * <p>
+     * 현재 로그의 filter가 이미 기록되어 있으면 아무것도 하지 않습니다. {@code previous}에 있는 커밋의 filter는 다시 쓰고
+     * 나머지 커밋만 tree를 비교해 계산합니다.
+     * 
+     * @param previous      다시 쓸 filter, 없으면 null
+     * @param previousIndex {@code previous}의 timeline에 대한 인덱스
+     */
+    private void writePathFilters(Repository repository, TravelLogs travelLogs, String log,
+            ChangedPathFilters previous, CommitIndex previousIndex) throws IOException {
+        CommitTimeline timeline = travelLogs.openTimeline(log);
+        if (null != travelLogs.openPathFilters(log, timeline)) {
+            return;
+        }
+        try (ChangedPathFilters.Writer writer = travelLogs.newPathFiltersWriter(log, timeline)) {
+            ChangedPathFilters.compute(repository, timeline, previous, previousIndex, writer);
+            writer.commit();
+        }
+    }
+
+    /**
+     * {@code log}의 커밋 메시지와 author, committer의 역색인을 기록합니다.
+     * 
+     * <p>
+     * 현재 로그의 역색인이 이미 기록되어 있으면 아무것도 하지 않습니다. 로그를 처음부터 기록했으면
+     * {@link TravelLogs.LogWriter}가 역색인을 함께 기록했으므로, 여기서는 변경분만 반영한 로그의 역색인을 기록합니다.
+     * {@code previous}에 있는 커밋의 단어는 다시 쓰고 단어가 없는 나머지 커밋만 읽습니다.
+     * 
+     * @param previous 다시 쓸 역색인, 없으면 null
+     */
+    private void writeTermIndex(Repository repository, TravelLogs travelLogs, String log, CommitTermIndex previous)
+            throws IOException {
+        CommitTimeline timeline = travelLogs.openTimeline(log);
+        if (null != travelLogs.openTermIndex(log, timeline)) {
+            return;
+        }
+        try (CommitTermIndex.Builder builder = travelLogs.newTermIndexBuilder(log)) {
+            CommitTermIndex.compute(repository, timeline, travelLogs.openIndex(log, timeline), previous, builder);
+            travelLogs.writeTermIndex(log, builder);
+        }
+    }
+
+    /** {@code log}에 변경분만 반영할 수 있도록 <em>metadata</em>와 <em>adjacency</em>가 모두 기록되어 있으면 true */
+    private boolean hasCaches(TravelLogs travelLogs, String log) throws IOException {
+        CommitTimeline timeline = travelLogs.openTimeline(log);
+        return null != travelLogs.openMetadata(log, timeline) && null != travelLogs.openAdjacency(log, timeline);
+    }
+
+    /** {@code added}의 모든 커밋이 {@code log}의 모든 커밋보다 commit time이 늦으면 true */
+    private boolean isAfterLog(List<RevCommit> added, TravelLogs travelLogs, String log) throws IOException {
+        int earliest = Integer.MAX_VALUE;
+        for (RevCommit commit : added) {
+            earliest = Math.min(earliest, commit.getCommitTime());
+        }
+        CommitMetadata metadata = travelLogs.openMetadata(log, travelLogs.openTimeline(log));
+        for (int position = metadata.size() - 1; position >= 0; --position) {
+            if (earliest <= metadata.commitTime(position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@code start}에서 도달할 수 있지만 {@code exclude}에서는 도달할 수 없는 커밋을 최신 순으로 반환합니다. */
+    private List<RevCommit> walkExclusive(RevWalk walk, ObjectId start, ObjectId exclude) throws IOException {
+        walk.markStart(walk.parseCommit(start));
+        walk.markUninteresting(walk.parseCommit(exclude));
+        List<RevCommit> commits = new ArrayList<RevCommit>();
+        for (RevCommit commit : walk) {
+            commits.add(commit);
+        }
+        return commits;
+    }
+
     /**
      * 인자로 받은 브랜치 명을 기반으로 브랜치 이름을 반환합니다.
      * 
@@ -0,0 +1,50 @@
+package com.javala.gittravel;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.Configurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * {@code LogConfigurator}는 logback 설정 파일 대신 코드로 로그를 설정합니다.
+ *
+ * <p>
+ * JGit은 클래스를 초기화할 때 logger를 가져오기 때문에 logback은 커맨드마다 초기화됩니다. 설정 파일을 두면
+ * 그때마다 XML을 파싱하는 클래스들을 불러오므로, 기본으로는 root logger를 끄기만 하고
+ * 시스템 프로퍼티 {@value #LEVEL_PROPERTY}로 레벨을 지정했을 때만 콘솔 appender를 생성합니다.
+ *
+ * <p>
+ * logback은 classpath에 설정 파일이 없을 때 {@code ServiceLoader}로 이 클래스를 찾습니다.
+ */
+public final class LogConfigurator extends ContextAwareBase implements Configurator {
+    static final String LEVEL_PROPERTY = "gittravel.log";
+
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @Override
+    public void configure(LoggerContext loggerContext) {
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        Level level = Level.toLevel(System.getProperty(LEVEL_PROPERTY), Level.OFF);
+        root.setLevel(level);
+        if (level == Level.OFF) {
+            return;
+        }
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender.setContext(loggerContext);
+        appender.setName("STDERR");
+        appender.setTarget("System.err");
+        appender.setEncoder(encoder);
+        appender.start();
+        root.addAppender(appender);
+    }
+}
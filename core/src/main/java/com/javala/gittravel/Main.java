@@ -3,6 +3,7 @@
  */
 package com.javala.gittravel;
 
+import java.io.File;
 import java.util.Arrays;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -20,16 +21,32 @@ public class Main {
         System.exit(result);
     }
 
-    /** Package-private 엔트리 함수입니다. */
+    /** Package-private 엔트리 함수입니다. 프로세스 실행 위치와 표준 출력으로 커맨드를 수행합니다. */
     static int exec(String... args) {
+        try (TravelSession session = TravelSession.open(new File("."), System.out, System.err)) {
+            return exec(session, args);
+        }
+    }
+
+    /**
+     * 주어진 {@code session}에서 커맨드를 수행합니다.
+     * 
+     * <p>
+     * daemon처럼 한 프로세스에서 여러 커맨드를 수행할 때 {@code session}의 저장소와 {@link TravelLogs}를 재사용합니다.
+     * 
+     * @param session   커맨드를 수행할 세션
+     * @param args      커맨드 라인 인자
+     * @return          성공 시 0, 실패 시 1
+     */
+    static int exec(TravelSession session, String... args) {
         try {
             Main main = new Main();
-            return main.travel(args);
+            return main.travel(session, args);
         } catch (UsageException e) {
-            System.err.print(e.getMessage());
+            session.err().print(e.getMessage());
             return 1;
         } catch(GitAPIException e){
-            System.err.print(e.getMessage());
+            session.err().print(e.getMessage());
             return 1;
         }
     }
@@ -38,23 +55,40 @@ public class Main {
      * 매개변수를 기반으로 {@link CommandLineOptions} 인스턴스를 생성하고 필드를 정의합니다.
      * 이후 정의된 필드를 기반으로 예외 처리 또는 커맨드를 수행합니다.
      * 
+     * @param session 커맨드를 수행할 세션
      * @param args  커맨드 라인 인자
      * @return      성공 시 0, 실패 시 1
      * @throws UsageException
      * @throws GitAPIException
      */
-    public int travel(String... args) throws UsageException, GitAPIException {
-        CommandLineOptions parameters = processArgs(args);
+    int travel(TravelSession session, String... args) throws UsageException, GitAPIException {
+        return run(session, processArgs(args));
+    }
+
+    /**
+     * {@link #processArgs}로 확인한 {@code parameters}의 커맨드를 수행합니다.
+     * 
+     * @param session    커맨드를 수행할 세션
+     * @param parameters 필드가 초기화된 {@link CommandLineOptions} 인스턴스
+     * @return           성공 시 0, 실패 시 1
+     * @throws UsageException
+     * @throws GitAPIException
+     */
+    static int run(TravelSession session, CommandLineOptions parameters) throws UsageException, GitAPIException {
         if(parameters.help()){
             throw new UsageException();
         }
         
         CommandRunner runner = null;
         switch(parameters.commandType()) {
-            case INIT: runner = new CommandRunner(new InitCommand(), parameters); break;
-            case TRAVEL: runner = new CommandRunner(new TravelCommand(), parameters); break;
-            case HERE: runner = new CommandRunner(new HereCommand(), parameters); break;
-            case MOVE: runner = new CommandRunner(new MoveCommand(), parameters); break;
+            case INIT: runner = new CommandRunner(session, new InitCommand(), parameters); break;
+            case TRAVEL: runner = new CommandRunner(session, new TravelCommand(), parameters); break;
+            case HERE: runner = new CommandRunner(session, new HereCommand(), parameters); break;
+            case MOVE: runner = new CommandRunner(session, new MoveCommand(), parameters); break;
+            case DAEMON: runner = new CommandRunner(session, new DaemonCommand(), parameters); break;
+            case MATERIALIZE: runner = new CommandRunner(session, new MaterializeCommand(), parameters); break;
+            case BATCH: runner = new CommandRunner(session, new BatchCommand(System.in), parameters); break;
+            case WORKTREES: runner = new CommandRunner(session, new WorktreesCommand(), parameters); break;
             default: return 1;
         }
         
@@ -63,6 +97,7 @@ public class Main {
 
     /**
      * {@link CommandLineOptions} 인스턴스 생성 및 예외 처리합니다.
+     * 커맨드마다 함께 쓸 수 없는 옵션과 인자 수는 {@link CommandLineOptionsParser#parseAndValidate}가 확인합니다.
      * 
      * @param args  커맨드 라인 인자
      * @return      필드가 초기화된 {@link CommandLineOptions} 인스턴스
@@ -75,7 +110,7 @@ public class Main {
 
         CommandLineOptions parameters;
         try {
-            parameters = CommandLineOptionsParser.parse(Arrays.asList(args));
+            parameters = CommandLineOptionsParser.parseAndValidate(Arrays.asList(args));
         } catch (IllegalArgumentException e) {
             throw new UsageException(e.getMessage());
         } catch (Throwable t) {
@@ -83,34 +118,6 @@ public class Main {
             throw new UsageException(t.getMessage());
         }
 
-        if(parameters.commandType() == CommandType.INIT && (2 < args.length || parameters.travelBack())) {
-            throw new UsageException("init [<branch>](Default branch = main | master)");
-        }
-        if(parameters.commandType() == CommandType.TRAVEL){
-            switch(args.length) {
-                case 1:
-                    break;
-                case 2:
-                    if(false == parameters.travelBack() && false == args[1].matches("\\d+")){
-                        throw new UsageException("travel [-b] [<ncommits(Must be integer)>]");    
-                    }
-                    break;
-                case 3:
-                    if(false == parameters.travelBack() || false == args[2].matches("\\d+")){
-                        throw new UsageException("travel [-b] [<ncommits(Must be integer)>]");    
-                    }
-                    break;
-                default:
-                    throw new UsageException("travel [-b] [<ncommits(Must be integer)>]");
-            }
-        }
-        if(parameters.commandType() == CommandType.MOVE && (2 != args.length || parameters.travelBack())){
-            throw new UsageException("move start | last | end | <commitHash>");
-        }
-        if(parameters.commandType() == CommandType.HERE && (1 != args.length || parameters.travelBack())){
-            throw new UsageException("here");
-        }
-
         return parameters;
     }
 
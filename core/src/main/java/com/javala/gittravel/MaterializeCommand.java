@@ -0,0 +1,33 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * <em>materialize</em> 커맨드를 수행하는 클래스입니다.
+ * 
+ * <p>
+ * {@code travel --no-checkout}이나 daemon이 미루어 둔 checkout을 수행해 작업 트리를 git-travel의 HEAD로 옮깁니다.
+ * 미루어 둔 checkout이 없으면 아무것도 하지 않습니다.
+ * 
+ * <p>
+ * Usage) {@code materialize}
+ */
+final class MaterializeCommand extends Command {
+
+    /** materialize 커맨드를 수행합니다. */
+    @Override
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        try {
+            if (!GitTravels.materialize(session)) {
+                session.out().println("Working tree is up to date.");
+            }
+        } catch (IOException e) {
+            session.err().println(e.getMessage());
+            return 1;
+        }
+
+        return 0;
+    }
+}
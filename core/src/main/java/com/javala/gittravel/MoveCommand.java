@@ -1,6 +1,7 @@
 package com.javala.gittravel;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 
@@ -12,7 +13,24 @@ import org.eclipse.jgit.api.errors.GitAPIException;
  * 처음과 끝 지점을 이동할 수 있습니다.
  * 
  * <p>
- * Usage) {@code move start|end|last|<commithash>}
+ * {@code --first-parent}를 주면 first-parent 로그의 처음과 끝으로 이동합니다.
+ * 
+ * <p>
+ * {@code --next-merge}와 {@code --prev-merge}는 HEAD 이후와 이전의 가장 가까운 merge 커밋으로 이동합니다.
+ * 
+ * <p>
+ * {@code --date <iso>}는 주어진 시각의 코드, 즉 그 시각 이전의 마지막 커밋으로 이동합니다.
+ * {@code --tag <name>}은 tag가 가리키는 커밋으로 이동합니다.
+ * {@code --next-touching <path>}는 HEAD 이후에서 그 경로를 바꾼 가장 가까운 커밋으로 이동합니다.
+ * {@code --grep <query>}, {@code --author <query>}, {@code --committer <query>}는 HEAD 이후에서 검색어와 일치하는
+ * 가장 가까운 커밋으로 이동하며, 함께 주면 모두 일치해야 합니다.
+ * 
+ * <p>
+ * {@code --no-checkout}을 주면 작업 트리는 그대로 두고 git-travel의 head만 이동합니다. 작업 트리는 <em>materialize</em>가
+ * 마지막 위치로 한 번에 checkout합니다.
+ * 
+ * <p>
+ * Usage) {@code move [--first-parent] [--no-checkout] start|end|last|<commithash>|--next-merge|--prev-merge|--date <iso>|--tag <name>|--next-touching <path>|--grep <query>|--author <query>|--committer <query>}
  * 
  * <p>
  * WARNING) <em>init</em>을 통해 가리키는 브랜치 정보를 초기화한 후에 정상 수행가능합니다.
@@ -21,11 +39,28 @@ final class MoveCommand extends Command {
 
     /** move 커맨드를 수행합니다. */
     @Override
-    int exec(CommandLineOptions parameters) throws GitAPIException {
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        if (parameters.noCheckout()) {
+            session = session.deferringCheckout();
+        }
         try {
-            GitTravels.move(parameters.moveDestination().get());
+            final Optional<CommitTermIndex.Query> query =
+                CommitTermIndex.Query.of(parameters.grep(), parameters.author(), parameters.committer());
+            if (query.isPresent()) {
+                GitTravels.moveToMatch(session, query.get(), parameters.firstParent());
+            } else if (parameters.moveTag().isPresent()) {
+                GitTravels.moveToTag(session, parameters.moveTag().get(), parameters.firstParent());
+            } else if (parameters.moveNextTouching().isPresent()) {
+                GitTravels.moveToNextTouching(session, parameters.moveNextTouching().get(), parameters.firstParent());
+            } else if (parameters.moveDate().isPresent()) {
+                GitTravels.moveToDate(session, parameters.moveDate().get(), parameters.firstParent());
+            } else if (parameters.moveNextMerge() || parameters.movePrevMerge()) {
+                GitTravels.moveToMerge(session, parameters.moveNextMerge(), parameters.firstParent());
+            } else {
+                GitTravels.move(session, parameters.moveDestination().get(), parameters.firstParent());
+            }
         } catch (IOException e) {
-            System.err.println(e.getMessage());
+            session.err().println(e.getMessage());
             return 1;
         }
 
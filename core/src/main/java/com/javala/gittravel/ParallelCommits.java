@@ -0,0 +1,90 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * {@code ParallelCommits}는 <em>init</em>이 커밋마다 객체를 읽어 계산하는 캐시를 여러 스레드로 나누어 계산하는 클래스이다.
+ *
+ * <p>
+ * position을 {@value #CHUNK_SIZE}개씩 나누어 프로세서 수만큼의 스레드에 맡기며, {@link ObjectReader}는 스레드 사이에
+ * 공유할 수 없으므로 chunk마다 새로 연다. 작업이 끝나면 스레드를 모두 정리한다.
+ */
+final class ParallelCommits {
+    /** 한 작업이 맡는 커밋 수 */
+    static final int CHUNK_SIZE = 256;
+
+    private ParallelCommits() {}
+
+    /** chunk 하나를 처리하는 작업 */
+    @FunctionalInterface
+    interface ChunkTask {
+        /**
+         * @param reader    이 chunk에서만 쓰는 {@link ObjectReader}
+         * @param positions 처리할 position, 오름차순
+         * @throws IOException 객체를 읽지 못했을 때
+         */
+        void run(ObjectReader reader, int[] positions) throws IOException;
+    }
+
+    /**
+     * {@code positions}를 chunk로 나누어 {@code task}를 여러 스레드에서 수행한다.
+     *
+     * <p>
+     * 모든 작업이 끝난 후 리턴하므로, 작업이 서로 다른 배열 원소에 기록한 값은 리턴한 후 호출한 스레드에서 보인다.
+     *
+     * @param repository 객체를 읽을 저장소
+     * @param positions  처리할 position, 오름차순
+     * @param threadName 작업 스레드 이름
+     * @param task       chunk마다 수행할 작업
+     * @throws IOException 작업이 실패했거나 중단되었을 때
+     */
+    static void forEachChunk(Repository repository, int[] positions, String threadName, ChunkTask task)
+            throws IOException {
+        if (0 == positions.length) {
+            return;
+        }
+        int chunks = (positions.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int threads = Math.min(chunks, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(chunks);
+            for (int from = 0; from < positions.length; from += CHUNK_SIZE) {
+                int[] chunk = Arrays.copyOfRange(positions, from, Math.min(from + CHUNK_SIZE, positions.length));
+                futures.add(executor.submit(() -> {
+                    try (ObjectReader reader = repository.newObjectReader()) {
+                        task.run(reader, chunk);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading commits.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
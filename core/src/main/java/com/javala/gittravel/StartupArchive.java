@@ -0,0 +1,176 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * {@code StartupArchive}는 git-travel의 시작 시간을 줄이는 AppCDS(Application Class-Data Sharing) archive를 생성합니다.
+ *
+ * <p>
+ * 임시 저장소를 만들고 {@code -XX:ArchiveClassesAtExit} 옵션을 준 JVM에서 <em>init</em>, <em>here</em>,
+ * <em>travel</em>, <em>move</em>를 수행해 이때 불러온 클래스를 archive에 기록합니다. 그 후 archive 없이
+ * 실행했을 때와 archive로 실행했을 때 <em>here</em>의 시작 시간을 측정해 출력합니다.
+ * {@code bin/git-travel}은 archive가 있으면 {@code -XX:SharedArchiveFile}로 사용합니다.
+ *
+ * <p>
+ * 학습용 커맨드는 별도 <em>상태 디렉토리</em>에 기록하므로 사용자의 상태 디렉토리를 건드리지 않습니다.
+ * archive는 만든 jar 경로와 JVM 버전에서만 유효하며 다르면 JVM이 archive 없이 실행합니다.
+ *
+ * <p>
+ * Usage) {@code java -cp <shaded jar> com.javala.gittravel.StartupArchive <archive> <work dir>}
+ */
+final class StartupArchive {
+    private static final String TRAIN_FLAG = "--train";
+    private static final int COMMIT_COUNT = 64;
+    private static final int MEASURE_COUNT = 5;
+
+    /** 학습 단계에서 수행하는 커맨드 */
+    private static final String[][] TRAINING_COMMANDS = {
+        { "init" },
+        { "here" },
+        { "travel", "-b", "3" },
+        { "travel", "2" },
+        { "move", "start" },
+        { "travel" },
+        { "move", "last" },
+        { "here" },
+    };
+
+    private StartupArchive() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && TRAIN_FLAG.equals(args[0])) {
+            train();
+            return;
+        }
+        if (args.length != 2) {
+            System.err.println("Usage : StartupArchive <archive> <work dir>");
+            System.exit(1);
+        }
+        System.exit(create(Paths.get(args[0]).toAbsolutePath(), Paths.get(args[1]).toAbsolutePath()));
+    }
+
+    /** 현재 위치의 저장소에서 학습용 커맨드를 수행합니다. */
+    private static void train() {
+        for (String[] command : TRAINING_COMMANDS) {
+            if (0 != Main.exec(command)) {
+                throw new IllegalStateException("Training command failed : " + String.join(" ", command));
+            }
+        }
+    }
+
+    private static int create(Path archive, Path workDir) throws IOException, InterruptedException, GitAPIException {
+        FileUtils.delete(workDir.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        Path repository = workDir.resolve("repository");
+        Path home = Files.createDirectories(workDir.resolve("home"));
+        createRepository(repository);
+
+        String jar = jarPath();
+        Files.deleteIfExists(archive);
+        Files.createDirectories(archive.getParent());
+        List<String> training = command("-XX:ArchiveClassesAtExit=" + archive, "-cp", jar,
+            StartupArchive.class.getName(), TRAIN_FLAG);
+        if (0 != run(training, repository, home, true)) {
+            System.err.println("git-travel startup archive training failed.");
+            return 1;
+        }
+
+        final long withoutArchive;
+        final long withArchive;
+        try {
+            withoutArchive = measure(command("-jar", jar, "here"), repository, home);
+            withArchive = measure(command("-XX:SharedArchiveFile=" + archive, "-jar", jar, "here"), repository, home);
+        } catch (IOException e) {
+            // archive로 실행하지 못하면 bin/git-travel이 쓰지 않도록 지웁니다.
+            Files.deleteIfExists(archive);
+            System.err.println("git-travel startup measurement failed : " + e.getMessage());
+            return 1;
+        }
+        System.out.println(String.format(
+            "git-travel startup (here, median of %d) : %d ms without archive, %d ms with %s",
+            MEASURE_COUNT, withoutArchive, withArchive, archive.getFileName()));
+        return 0;
+    }
+
+    /** {@link #COMMIT_COUNT}개의 커밋이 있는 master 브랜치 저장소를 생성합니다. */
+    private static void createRepository(Path repository) throws IOException, GitAPIException {
+        PersonIdent author = new PersonIdent("git-travel", "git-travel@localhost", 0L, 0);
+        try (Git git = Git.init().setInitialBranch("master").setDirectory(repository.toFile()).call()) {
+            Path file = repository.resolve("travel.txt");
+            for (int i = 0; i < COMMIT_COUNT; ++i) {
+                Files.write(file, ("commit " + i + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                git.add().addFilepattern("travel.txt").call();
+                git.commit().setMessage("commit " + i).setAuthor(author).setCommitter(author).setSign(false).call();
+            }
+        }
+    }
+
+    /**
+     * 명령을 {@link #MEASURE_COUNT}번 실행해 걸린 시간의 중앙값(ms)을 반환합니다.
+     *
+     * @throws IOException 실행이 0이 아닌 종료 코드로 끝났을 때, 실패한 실행의 시간은 측정값이 아니므로 쓰지 않습니다
+     */
+    private static long measure(List<String> command, Path repository, Path home)
+            throws IOException, InterruptedException {
+        long[] elapsed = new long[MEASURE_COUNT];
+        for (int i = 0; i < MEASURE_COUNT; ++i) {
+            long start = System.nanoTime();
+            int exitCode = run(command, repository, home, false);
+            elapsed[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (0 != exitCode) {
+                throw new IOException(String.format("'%s' exited with %d.",
+                    String.join(" ", command.subList(1, command.size())), exitCode));
+            }
+        }
+        Arrays.sort(elapsed);
+        return elapsed[MEASURE_COUNT / 2];
+    }
+
+    private static int run(List<String> command, Path repository, Path home, boolean showErrors)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .directory(repository.toFile())
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(showErrors ? ProcessBuilder.Redirect.INHERIT : ProcessBuilder.Redirect.DISCARD);
+        Map<String, String> environment = builder.environment();
+        environment.put("HOME", home.toString());
+        environment.put("LOCALAPPDATA", home.toString());
+        environment.remove(TravelDaemon.SOCKET_ENV);
+        return builder.start().waitFor();
+    }
+
+    private static List<String> command(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    /** 이 클래스가 들어있는 jar 경로 */
+    private static String jarPath() throws IOException {
+        try {
+            File jar = new File(StartupArchive.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!jar.isFile()) {
+                throw new IOException("StartupArchive must run from the shaded jar : " + jar);
+            }
+            return jar.getAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.javala.gittravel;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 
@@ -11,7 +12,29 @@ import org.eclipse.jgit.api.errors.GitAPIException;
  * 현재 HEAD를 기준으로 앞 또는 뒤로 Options의 {@code travelCount}만큼 이동합니다.
  * 
  * <p>
- * Usage) {@code travel [-b] [<ncommits>]}
+ * {@code --first-parent}를 주면 <em>init --first-parent</em>로 기록한 first-parent 로그에서 이동합니다.
+ * 
+ * <p>
+ * {@code --parent <n>}은 HEAD의 n번째 부모로, {@code --child [<n>]}은 HEAD의 자식으로 이동합니다.
+ * 자식 번호를 생략하면 {@link GitTravels#travelToChild}가 자식을 고릅니다.
+ * 
+ * <p>
+ * {@code --by <duration>}은 커밋 수 대신 시간 간격만큼, {@code --tags [<ntags>]}는 tag가 있는 커밋 단위로 이동합니다.
+ * {@code --path <path>}를 주면 그 경로를 바꾼 커밋만 셉니다.
+ * {@code --grep <query>}, {@code --author <query>}, {@code --committer <query>}를 주면 <em>init</em>이 기록한
+ * 역색인에서 일치하는 커밋만 셉니다.
+ * 
+ * <p>
+ * {@code --no-checkout}을 주면 작업 트리는 그대로 두고 git-travel의 head만 이동합니다. 작업 트리는 <em>materialize</em>가
+ * 마지막 위치로 한 번에 checkout합니다.
+ * 
+ * <p>
+ * {@code --each <from>..<to> [--jobs <n>] -- <command>}는 이동하지 않고 범위의 커밋마다 worktree에서 커맨드를 수행합니다.
+ * 자세한 내용은 {@link TravelEach}를 확인하시면 됩니다.
+ * 
+ * <p>
+ * Usage) {@code travel [--first-parent] [--no-checkout] [-b] [--path <path> | --grep <query> | --author <query> | --committer <query>] [<ncommits> | --by <duration> | --tags [<ntags>]] | --parent <n> | --child [<n>]}
+ * <br>{@code travel [--first-parent] --each <from>..<to> [--jobs <n>] -- <command> [<args>]}
  * 
  * <p>
  * WARNING) <em>init</em>을 통해 가리키는 브랜치 정보를 초기화한 후에 정상 수행가능합니다.
@@ -19,15 +42,54 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 public class TravelCommand extends Command {
     /** travel 커맨드를 수행합니다. */
     @Override 
-    int exec(CommandLineOptions parameters) throws GitAPIException {
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        if (parameters.noCheckout()) {
+            session = session.deferringCheckout();
+        }
         try {
+            if (parameters.travelEach().isPresent()) {
+                return (0 == GitTravels.travelEach(session, parameters.travelEach().get(), parameters.eachCommand(),
+                    parameters.eachJobs().orElse(1), parameters.firstParent())) ? 0 : 1;
+            }
+            if (parameters.travelParent().isPresent()) {
+                GitTravels.travelToParent(session, parameters.travelParent().get(), parameters.firstParent());
+                return 0;
+            }
+            if (parameters.travelChild().isPresent()) {
+                GitTravels.travelToChild(session, parameters.travelChild().get(), parameters.firstParent());
+                return 0;
+            }
+
+            final Optional<CommitTermIndex.Query> query =
+                CommitTermIndex.Query.of(parameters.grep(), parameters.author(), parameters.committer());
+            if (query.isPresent()) {
+                GitTravels.travelByQuery(session, query.get(), parameters.travelCount(),
+                    parameters.travelBack(), parameters.firstParent());
+                return 0;
+            }
+            if (parameters.path().isPresent()) {
+                GitTravels.travelByPath(session, parameters.path().get(), parameters.travelCount(),
+                    parameters.travelBack(), parameters.firstParent());
+                return 0;
+            }
+            if (parameters.travelTags().isPresent()) {
+                GitTravels.travelByTags(
+                    session, parameters.travelTags().get(), parameters.travelBack(), parameters.firstParent());
+                return 0;
+            }
+            if (parameters.travelBy().isPresent()) {
+                GitTravels.travelByTime(
+                    session, parameters.travelBy().get(), parameters.travelBack(), parameters.firstParent());
+                return 0;
+            }
+
             int step = (parameters.travelBack()) 
                             ? parameters.travelCount() 
                             : -1 * parameters.travelCount();
 
-            GitTravels.travel(step);
+            GitTravels.travel(session, step, parameters.firstParent());
         } catch (IOException e) {
-            System.err.println(e.getMessage());
+            session.err().println(e.getMessage());
             return 1;
         }
 
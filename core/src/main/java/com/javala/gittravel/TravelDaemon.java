@@ -0,0 +1,610 @@
+package com.javala.gittravel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+
+/**
+ * {@code TravelDaemon}은 git-travel 커맨드를 Unix domain socket으로 받아 한 프로세스 안에서 수행하는 상주 서버입니다.
+ *
+ * <p>
+ * 커맨드마다 JVM을 새로 띄우고 저장소를 다시 여는 비용을 없애기 위해, 프로젝트마다 {@link TravelSession}을
+ * 한 번만 열어 저장소와 {@link TravelLogs}(열어둔 timeline, index 포함)를 계속 재사용합니다.
+ * 여러 클라이언트를 동시에 처리하며, Java 21 이상에서는 요청마다 virtual thread를 사용합니다.
+ * 같은 프로젝트에 대한 커맨드는 순서대로 수행합니다.
+ *
+ * <p>
+ * <em>travel</em>과 <em>move</em>는 checkout을 미루어 git-travel의 head만 옮기고, 프로젝트에 요청이
+ * {@value #MATERIALIZE_DELAY_MILLIS}ms 동안 없으면 작업 트리를 마지막 위치로 한 번만 checkout합니다. 그래서 연달아
+ * 이동할 때 지나치는 커밋은 checkout하지 않습니다. 작업 트리를 보는 다른 커맨드는 수행하기 전에 checkout하며,
+ * daemon을 멈출 때도 미루어 둔 checkout을 모두 수행합니다. 예약한 checkout이 실패하면 그 프로젝트의 다음 요청은
+ * 커맨드를 수행하지 않고 실패를 출력한 후 0이 아닌 종료 코드를 반환합니다.
+ *
+ * <p>
+ * 요청은 UTF-8로 다음을 보냅니다. 실행 위치와 인자는 byte 수를 담은 줄 뒤에 그 byte 수만큼의 내용과 줄바꿈을 보내므로
+ * 줄바꿈을 가진 인자도 그대로 전달됩니다. 숫자 줄은 {@value #MAX_LINE_BYTES} byte, 실행 위치와 인자는
+ * {@value #MAX_FIELD_BYTES} byte까지 받습니다.
+ * <pre>
+ * git-travel/2
+ * &lt;인자 수&gt;
+ * &lt;실행 위치의 byte 수&gt;
+ * &lt;커맨드 실행 위치&gt;
+ * &lt;인자의 byte 수&gt;  (인자 수만큼)
+ * &lt;인자&gt;
+ * </pre>
+ *
+ * <p>
+ * 응답은 1 byte 종류, 4 byte 길이, 내용으로 된 frame의 연속입니다. 종류는 {@code o}(표준 출력),
+ * {@code e}(표준 에러), {@code x}(종료 코드, 4 byte 정수)이며 {@code x} frame이 마지막입니다.
+ *
+ * <p>
+ * 요청은 작업 트리를 바꾸므로 daemon을 실행한 사용자만 보낼 수 있습니다. POSIX 파일 시스템에서는 socket 디렉토리를
+ * 만들 때 {@code rwx------}로, socket 파일은 {@code rw-------}로 만들고, 연결한 프로세스의 uid가 socket 파일의
+ * 소유자와 다르면 커맨드를 수행하지 않습니다.
+ *
+ * <p>
+ * Usage) {@code daemon [stop]}, 클라이언트는 {@code bin/git-travel-client}를 참고하시면 됩니다.
+ */
+final class TravelDaemon implements Closeable {
+    static final String PROTOCOL = "git-travel/2";
+    static final String SOCKET_ENV = "GIT_TRAVEL_SOCKET";
+    static final String SOCKET_FILENAME = ".daemon.sock";
+    /** 마지막 요청 후 미루어 둔 checkout을 수행하기까지 기다리는 시간 */
+    static final long MATERIALIZE_DELAY_MILLIS = 300;
+
+    private static final byte STDOUT_FRAME = 'o';
+    private static final byte STDERR_FRAME = 'e';
+    private static final byte EXIT_FRAME = 'x';
+    /** 요청 하나에 받는 최대 인자 수 */
+    private static final int MAX_ARGS = 4096;
+    /** 요청에서 프로토콜과 숫자를 담은 줄의 최대 byte 수 */
+    private static final int MAX_LINE_BYTES = 64;
+    /** 실행 위치와 인자 하나의 최대 byte 수 */
+    private static final int MAX_FIELD_BYTES = 1 << 20;
+
+    private final Path socketPath;
+    private final ServerSocketChannel server;
+    /** socket 파일의 소유자 */
+    private final UserPrincipal owner;
+    private final ExecutorService executor;
+    private final Function<File, TravelSession> openSession;
+    private final Map<File, TravelSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService materializer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "git-travel-materialize");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<File, ScheduledFuture<?>> materializations = new ConcurrentHashMap<>();
+    /** 예약한 checkout이 실패한 프로젝트의 에러 메시지, 다음 요청에 전달합니다. */
+    private final Map<File, String> materializeFailures = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private volatile boolean stopping = false;
+
+    private TravelDaemon(
+        Path socketPath, ServerSocketChannel server, UserPrincipal owner, Function<File, TravelSession> openSession
+    ) {
+        this.socketPath = socketPath;
+        this.server = server;
+        this.owner = owner;
+        this.openSession = openSession;
+        this.executor = newExecutor();
+    }
+
+    /**
+     * daemon이 사용하는 socket 경로를 반환합니다.
+     *
+     * <p>
+     * 환경 변수 {@value #SOCKET_ENV}가 있으면 그 경로를, 없으면 <em>상태 디렉토리</em>의
+     * {@value #SOCKET_FILENAME}을 사용합니다.
+     *
+     * @throws TravelLogsException 시스템이 OS를 판별할 수 없을 때
+     */
+    static Path socketPath() throws TravelLogsException {
+        String path = System.getenv(SOCKET_ENV);
+        if (!Strings.isNullOrEmpty(path)) {
+            return Paths.get(path);
+        }
+        return TravelLogs.getDefaultGitTravelDataDir(FileSystems.getDefault()).resolve(SOCKET_FILENAME);
+    }
+
+    /**
+     * {@code socketPath}에 socket을 열고 daemon을 생성합니다. 남아있는 socket 파일은 daemon이 응답하지 않을 때만 지웁니다.
+     *
+     * @param socketPath socket 경로
+     * @return 요청을 받을 준비가 된 daemon
+     * @throws IOException 이미 daemon이 실행 중이거나 socket을 열지 못했을 때
+     */
+    static TravelDaemon bind(Path socketPath) throws IOException {
+        return bind(socketPath, root -> TravelSession.open(root, System.out, System.err));
+    }
+
+    /**
+     * {@code socketPath}에 socket을 열고, 프로젝트마다 {@code openSession}으로 세션을 여는 daemon을 생성합니다.
+     *
+     * @param socketPath  socket 경로
+     * @param openSession 프로젝트 최상위 경로로 공유할 세션을 여는 함수
+     * @return 요청을 받을 준비가 된 daemon
+     * @throws IOException 이미 daemon이 실행 중이거나 socket을 열지 못했을 때
+     */
+    @VisibleForTesting
+    static TravelDaemon bind(Path socketPath, Function<File, TravelSession> openSession) throws IOException {
+        if (Files.exists(socketPath)) {
+            if (isRunning(socketPath)) {
+                throw new IOException("git-travel daemon is already running : " + socketPath);
+            }
+            Files.delete(socketPath);
+        }
+        final boolean posix = socketPath.getFileSystem().supportedFileAttributeViews().contains("posix");
+        final Path directory = socketPath.toAbsolutePath().getParent();
+        if (posix) {
+            Files.createDirectories(directory,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            if (posix) {
+                Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+            }
+            return new TravelDaemon(socketPath, server, Files.getOwner(socketPath), openSession);
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            Files.deleteIfExists(socketPath);
+            throw e;
+        }
+    }
+
+    /** {@code socketPath}에서 daemon이 요청을 받고 있으면 true를 반환합니다. */
+    static boolean isRunning(Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return false;
+        }
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 실행 중인 daemon에 커맨드를 보내고 출력을 {@code out}, {@code err}로 옮깁니다.
+     *
+     * @param socketPath daemon socket 경로
+     * @param workingDir 커맨드 실행 위치
+     * @param args       커맨드 라인 인자
+     * @param out        표준 출력을 옮길 스트림
+     * @param err        표준 에러를 옮길 스트림
+     * @return 커맨드 종료 코드
+     * @throws IOException daemon에 연결하지 못했거나 연결이 끊겼을 때
+     */
+    static int forward(Path socketPath, File workingDir, String[] args, PrintStream out, PrintStream err)
+            throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            OutputStream request = Channels.newOutputStream(channel);
+            request.write(encodeRequest(workingDir.getCanonicalPath(), args));
+            request.flush();
+
+            DataInputStream response = new DataInputStream(Channels.newInputStream(channel));
+            while (true) {
+                byte type = response.readByte();
+                byte[] payload = new byte[response.readInt()];
+                response.readFully(payload);
+                switch (type) {
+                    case STDOUT_FRAME:
+                        out.write(payload);
+                        out.flush();
+                        break;
+                    case STDERR_FRAME:
+                        err.write(payload);
+                        err.flush();
+                        break;
+                    case EXIT_FRAME:
+                        return new DataInputStream(new ByteArrayInputStream(payload)).readInt();
+                    default:
+                        throw new IOException("Unknown git-travel daemon response : " + type);
+                }
+            }
+        }
+    }
+
+    /** daemon이 사용하는 socket 경로 */
+    Path getSocketPath() {
+        return socketPath;
+    }
+
+    /**
+     * {@link #stop()}이 호출되거나 {@code daemon stop} 요청을 받을 때까지 요청을 받아 처리합니다.
+     * 처리 중인 요청이 모두 끝난 후 반환합니다.
+     */
+    void serve() throws IOException {
+        while (running) {
+            final SocketChannel client;
+            try {
+                client = server.accept();
+            } catch (ClosedChannelException e) {
+                break;
+            }
+            executor.execute(() -> handle(client));
+        }
+
+        stop();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map.Entry<File, TravelSession> entry : sessions.entrySet()) {
+            cancelMaterialize(entry.getKey());
+            String failure = materialize(entry.getValue());
+            if (null != failure) {
+                entry.getValue().err().println(failure);
+            }
+            entry.getValue().close();
+        }
+        materializer.shutdownNow();
+    }
+
+    /** {@link #stop()}과 같습니다. */
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    /**
+     * 요청 받기를 멈추고 socket 파일을 지웁니다. 처리 중인 요청은 끝까지 수행합니다.
+     *
+     * <p>
+     * 여러 번 호출해도 되며, shutdown hook처럼 daemon을 소유하지 않은 곳에서 멈출 때 사용합니다.
+     */
+    synchronized void stop() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        server.close();
+        executor.shutdown();
+        Files.deleteIfExists(socketPath);
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            InputStream in = Channels.newInputStream(client);
+            DataOutputStream response = new DataOutputStream(Channels.newOutputStream(client));
+            PrintStream out = new PrintStream(
+                new FrameOutputStream(response, STDOUT_FRAME), true, StandardCharsets.UTF_8);
+            PrintStream err = new PrintStream(
+                new FrameOutputStream(response, STDERR_FRAME), true, StandardCharsets.UTF_8);
+            if (!isOwner(client)) {
+                err.println("git-travel daemon accepts requests only from its owner.");
+                writeExit(response, 1);
+                return;
+            }
+            final String[] request;
+            try {
+                request = readRequest(in);
+            } catch (EOFException e) {
+                // 요청을 다 보내기 전에 연결을 끊었습니다.
+                return;
+            } catch (IOException e) {
+                err.println(e.getMessage());
+                writeExit(response, 1);
+                return;
+            }
+
+            int result;
+            try {
+                result = execute(new File(request[0]), Arrays.copyOfRange(request, 1, request.length), out, err);
+            } catch (RuntimeException e) {
+                err.println(e.getMessage());
+                result = 1;
+            }
+            out.flush();
+            err.flush();
+            writeExit(response, result);
+            if (stopping) {
+                stop();
+            }
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊었습니다.
+        }
+    }
+
+    /** {@code client}가 daemon을 실행한 사용자의 프로세스이면 true, 연결한 사용자를 알 수 없는 OS에서는 항상 true */
+    private boolean isOwner(SocketChannel client) throws IOException {
+        if (!client.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)) {
+            return true;
+        }
+        final UnixDomainPrincipal peer = client.getOption(ExtendedSocketOptions.SO_PEERCRED);
+        return owner.equals(peer.user());
+    }
+
+    private int execute(File workingDir, String[] args, PrintStream out, PrintStream err) throws IOException {
+        CommandLineOptions parameters = null;
+        try {
+            parameters = Main.processArgs(args);
+        } catch (UsageException e) {
+            // 사용법 출력은 Main이 처리합니다.
+        }
+        if (null != parameters && parameters.commandType() == CommandType.DAEMON) {
+            if (parameters.daemonStop()) {
+                // 종료 코드를 보낸 후 멈춥니다.
+                out.println("Stopping git-travel daemon.");
+                stopping = true;
+                return 0;
+            }
+            err.println("git-travel daemon is already running : " + socketPath);
+            return 1;
+        }
+        if (null != parameters && parameters.commandType() == CommandType.BATCH) {
+            // 표준 입력과 상대 경로가 클라이언트가 아닌 daemon의 것이므로 batch는 한 프로세스로 수행합니다.
+            err.println("'batch' cannot run in the git-travel daemon.");
+            return 1;
+        }
+        if (null != parameters && parameters.travelEach().isPresent()) {
+            // 커맨드가 클라이언트가 아닌 daemon의 환경 변수로 수행되고 오래 걸리므로 한 프로세스로 수행합니다.
+            err.println("'travel --each' cannot run in the git-travel daemon.");
+            return 1;
+        }
+
+        final File root;
+        TravelSession shared;
+        try {
+            root = GitTravels.getGitRootDir(workingDir);
+            shared = sessions.computeIfAbsent(root, openSession);
+        } catch (IOException e) {
+            // git 프로젝트가 아니면 매번 새 세션에서 수행해 한 프로세스로 수행할 때와 같은 에러를 출력합니다.
+            try (TravelSession session = TravelSession.open(workingDir, out, err)) {
+                return Main.exec(session, args);
+            }
+        }
+        synchronized (shared) {
+            cancelMaterialize(root);
+            String failure = materializeFailures.remove(root);
+            if (null != failure) {
+                // 클라이언트는 이미 이동을 마쳤다고 보고 종료했으므로, 커맨드를 수행하지 않고 실패를 알립니다.
+                err.println(failure);
+                return 1;
+            }
+            CommandType commandType = (null == parameters) ? CommandType.NONE : parameters.commandType();
+            switch (commandType) {
+                case TRAVEL:
+                case MOVE:
+                    int result = Main.exec(shared.withOutput(out, err).deferringCheckout(), args);
+                    materializations.put(root, materializer.schedule(
+                        () -> materializeLater(root, shared), MATERIALIZE_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+                    return result;
+                case HERE:
+                case MATERIALIZE:
+                    return Main.exec(shared.withOutput(out, err), args);
+                default:
+                    failure = materialize(shared.withOutput(out, err));
+                    if (null != failure) {
+                        err.println(failure);
+                        return 1;
+                    }
+                    return Main.exec(shared.withOutput(out, err), args);
+            }
+        }
+    }
+
+    /** {@code root} 프로젝트에 예약한 checkout을 취소합니다. 이미 수행 중이면 끝날 때까지 기다리지 않습니다. */
+    private void cancelMaterialize(File root) {
+        ScheduledFuture<?> scheduled = materializations.remove(root);
+        if (null != scheduled) {
+            scheduled.cancel(false);
+        }
+    }
+
+    /**
+     * 예약한 시간에 {@code root} 프로젝트의 미루어 둔 checkout을 수행합니다.
+     * 실패하면 {@code root}에 대한 다음 요청이 에러를 출력하고 0이 아닌 종료 코드를 반환하도록 기록합니다.
+     */
+    private void materializeLater(File root, TravelSession session) {
+        synchronized (session) {
+            String failure = materialize(session);
+            if (null != failure) {
+                session.err().println(failure);
+                materializeFailures.put(root, failure);
+            }
+        }
+    }
+
+    /**
+     * {@code session}의 프로젝트에 미루어 둔 checkout을 수행합니다.
+     *
+     * @return 실패했으면 에러 메시지, 성공했거나 미루어 둔 checkout이 없으면 null
+     */
+    private static String materialize(TravelSession session) {
+        synchronized (session) {
+            try {
+                GitTravels.materialize(session);
+                return null;
+            } catch (IOException | GitAPIException | RuntimeException e) {
+                return e.getMessage();
+            }
+        }
+    }
+
+    /** 종료 코드를 담은 마지막 frame을 기록합니다. */
+    private static void writeExit(DataOutputStream response, int result) throws IOException {
+        synchronized (response) {
+            response.writeByte(EXIT_FRAME);
+            response.writeInt(4);
+            response.writeInt(result);
+            response.flush();
+        }
+    }
+
+    /** 커맨드 실행 위치 {@code workingDir}와 인자 {@code args}를 요청으로 만듭니다. */
+    @VisibleForTesting
+    static byte[] encodeRequest(String workingDir, String... args) {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.writeBytes((PROTOCOL + '\n' + args.length + '\n').getBytes(StandardCharsets.UTF_8));
+        writeField(request, workingDir);
+        for (String arg : args) {
+            writeField(request, arg);
+        }
+        return request.toByteArray();
+    }
+
+    private static void writeField(ByteArrayOutputStream request, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        request.writeBytes((bytes.length + "\n").getBytes(StandardCharsets.UTF_8));
+        request.writeBytes(bytes);
+        request.write('\n');
+    }
+
+    /**
+     * 요청의 커맨드 실행 위치와 인자를 읽습니다. 첫번째 원소가 실행 위치입니다.
+     *
+     * @throws EOFException 요청이 끝나기 전에 연결이 끊겼을 때
+     * @throws IOException  프로토콜이나 인자 수, 인자 길이가 올바르지 않을 때
+     */
+    private static String[] readRequest(InputStream in) throws IOException {
+        String protocol = readLine(in);
+        if (!PROTOCOL.equals(protocol)) {
+            throw new IOException("Unsupported git-travel daemon protocol : " + protocol);
+        }
+        String count = readLine(in);
+        final int argc;
+        try {
+            argc = Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid git-travel daemon argument count : " + count, e);
+        }
+        if (argc < 0 || MAX_ARGS < argc) {
+            throw new IOException("Invalid git-travel daemon argument count : " + count);
+        }
+        String[] request = new String[argc + 1];
+        for (int i = 0; i <= argc; ++i) {
+            request[i] = readField(in);
+        }
+        return request;
+    }
+
+    /** byte 수를 담은 줄과 그 byte 수만큼의 내용, 줄바꿈으로 된 실행 위치나 인자를 읽습니다. */
+    private static String readField(InputStream in) throws IOException {
+        String length = readLine(in);
+        final int size;
+        try {
+            size = Integer.parseInt(length);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid git-travel daemon argument length : " + length, e);
+        }
+        if (size < 0 || MAX_FIELD_BYTES < size) {
+            throw new IOException("Invalid git-travel daemon argument length : " + length);
+        }
+        byte[] field = in.readNBytes(size);
+        if (field.length < size) {
+            throw new EOFException();
+        }
+        int end = in.read();
+        if (end < 0) {
+            throw new EOFException();
+        }
+        if (end != '\n') {
+            throw new IOException("git-travel daemon argument is longer than its length : " + length);
+        }
+        return new String(field, StandardCharsets.UTF_8);
+    }
+
+    /** {@value #MAX_LINE_BYTES} byte까지의 한 줄을 읽습니다. */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (MAX_LINE_BYTES <= line.size()) {
+                throw new IOException("git-travel daemon request line is too long.");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Java 21 이상이면 virtual thread executor를, 아니면 daemon thread pool을 생성합니다. */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "git-travel-daemon");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** 쓰는 내용을 하나의 frame으로 감싸 응답 스트림에 기록합니다. */
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream response;
+        private final byte type;
+
+        private FrameOutputStream(DataOutputStream response, byte type) {
+            this.response = response;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (response) {
+                response.writeByte(type);
+                response.writeInt(len);
+                response.write(b, off, len);
+                response.flush();
+            }
+        }
+    }
+}
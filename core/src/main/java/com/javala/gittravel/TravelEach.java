@@ -0,0 +1,198 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * {@code TravelEach}는 <em>travel --each</em>가 범위의 커밋마다 커맨드를 수행하는 pipeline이다.
+ *
+ * <p>
+ * 커밋마다 {@link WorktreePool}의 worktree 하나를 checkout해 그 안에서 커맨드를 수행하며, 최대 {@code jobs}개를 동시에
+ * 수행한다. pool은 {@code jobs + 1}개의 worktree를 가지므로 커맨드가 수행되는 동안 호출한 스레드가 다음 커밋을 남은
+ * worktree에 미리 checkout해 둔다. checkout은 한 스레드에서만 하며 사용 중인 worktree는 고르지 않고, 로그 순서로
+ * 이웃한 커밋이 남아 있는 worktree를 고르므로 바뀐 파일만 쓴다. 커맨드가 추적 중인 파일을 고쳐도 다음 checkout이
+ * 그 변경 사항을 버리므로 커밋마다 깨끗한 tree에서 수행한다. pool은 <em>worktrees</em> 커맨드의 pool과 별개이며
+ * 다음 <em>travel --each</em>에서 다시 쓴다.
+ *
+ * <p>
+ * 커맨드는 shell을 거치지 않고 worktree를 작업 디렉토리로 수행하며, {@value #COMMIT_VARIABLE}과
+ * {@value #POSITION_VARIABLE} 환경 변수로 커밋 해시와 position을 넘긴다. 표준 출력과 에러는 커밋마다
+ * <em>logs</em> 디렉토리의 파일에 기록한다. 결과(종료 코드와 수행 시간)는 끝나는 대로 출력하되, 앞선 커밋이 모두
+ * 끝날 때까지 기다려 로그 순서를 지킨다.
+ */
+final class TravelEach {
+    /** {@link TravelLogs#worktreePoolDir} 안의 pool 디렉토리 이름 */
+    static final String POOL_DIRNAME = "each";
+    /** 커맨드에 커밋 해시를 넘기는 환경 변수 */
+    static final String COMMIT_VARIABLE = "GIT_TRAVEL_COMMIT";
+    /** 커맨드에 로그의 position을 넘기는 환경 변수 */
+    static final String POSITION_VARIABLE = "GIT_TRAVEL_POSITION";
+
+    private static final String NAME_PREFIX = "git-travel-each-";
+    private static final String LOGS_DIRNAME = "logs";
+
+    private TravelEach() {}
+
+    /**
+     * {@code from}부터 {@code labels} 수만큼의 커밋마다 {@code command}를 수행하고 결과를 {@code out}에 출력한다.
+     *
+     * @param out        결과를 출력할 스트림
+     * @param repository worktree를 연결할 저장소
+     * @param poolDir    pool 디렉토리
+     * @param timeline   커밋을 읽을 로그
+     * @param from       첫 커밋의 position
+     * @param labels     커밋마다 출력할 {@code <짧은 해시> <제목>}
+     * @param command    커밋마다 수행할 커맨드와 인자
+     * @param jobs       동시에 수행할 커맨드 수
+     * @return 실패한 커밋 수
+     * @throws IOException pool을 만들지 못했거나 중단되었을 때
+     */
+    static int run(PrintStream out, Repository repository, Path poolDir, BranchTimeline timeline, int from,
+            List<String> labels, List<String> command, int jobs) throws IOException {
+        final WorktreePool pool = WorktreePool.create(poolDir, NAME_PREFIX, repository, jobs + 1);
+        final Path logDir = poolDir.resolve(LOGS_DIRNAME);
+        FileUtils.delete(logDir.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        Files.createDirectories(logDir);
+        out.println("Logs : " + logDir.toAbsolutePath());
+        out.flush();
+
+        final Reporter reporter = new Reporter(out, labels);
+        final Semaphore idle = new Semaphore(jobs + 1);
+        final Set<Path> busy = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(jobs, runnable -> {
+            Thread thread = new Thread(runnable, "travel-each");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < labels.size(); ++i) {
+                idle.acquire();
+                final int position = from + i;
+                final ObjectId commit = timeline.get(position);
+                final Path workTree;
+                try {
+                    workTree = pool.checkout(repository, commit, busy, true);
+                } catch (IOException e) {
+                    idle.release();
+                    reporter.report(i, Result.failed(e.getMessage()));
+                    continue;
+                }
+                busy.add(workTree);
+                final int index = i;
+                final Path log = logDir.resolve(String.format("%d-%s.log", position, commit.name().substring(0, 6)));
+                executor.execute(() -> {
+                    try {
+                        reporter.report(index, execute(command, workTree, commit, position, log));
+                    } finally {
+                        busy.remove(workTree);
+                        idle.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("travel --each was interrupted.");
+        } finally {
+            executor.shutdownNow();
+        }
+        return reporter.summarize();
+    }
+
+    /** {@code workTree}에서 {@code command}를 수행하고 종료 코드와 수행 시간을 반환한다. */
+    private static Result execute(List<String> command, Path workTree, ObjectId commit, int position, Path log) {
+        final long start = System.nanoTime();
+        final ProcessBuilder builder = new ProcessBuilder(command)
+            .directory(workTree.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile());
+        builder.environment().put(COMMIT_VARIABLE, commit.name());
+        builder.environment().put(POSITION_VARIABLE, Integer.toString(position));
+        Process process = null;
+        try {
+            process = builder.start();
+            return new Result(process.waitFor(), System.nanoTime() - start, null);
+        } catch (IOException e) {
+            return Result.failed(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            return Result.failed("Interrupted");
+        }
+    }
+
+    /** 커밋 하나의 결과 */
+    private static final class Result {
+        private final int exitCode;
+        private final long nanos;
+        private final String error;
+
+        private Result(int exitCode, long nanos, String error) {
+            this.exitCode = exitCode;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /** 커맨드를 수행하지 못한 결과 */
+        static Result failed(String error) {
+            return new Result(-1, 0, error);
+        }
+
+        boolean succeeded() {
+            return null == error && 0 == exitCode;
+        }
+
+        @Override
+        public String toString() {
+            return (null == error)
+                ? String.format("exit %d (%.1fs)", exitCode, nanos / 1e9)
+                : "failed : " + error;
+        }
+    }
+
+    /** 끝난 결과를 로그 순서로 출력한다. */
+    private static final class Reporter {
+        private final PrintStream out;
+        private final List<String> labels;
+        private final Result[] results;
+        private int next = 0;
+        private int failed = 0;
+
+        Reporter(PrintStream out, List<String> labels) {
+            this.out = out;
+            this.labels = labels;
+            this.results = new Result[labels.size()];
+        }
+
+        /** {@code index}번째 커밋의 결과를 기록하고, 앞선 커밋이 모두 끝났으면 이어서 끝난 결과까지 출력한다. */
+        synchronized void report(int index, Result result) {
+            results[index] = result;
+            for (; next < results.length && null != results[next]; ++next) {
+                failed += results[next].succeeded() ? 0 : 1;
+                out.println("Each : " + labels.get(next) + " : " + results[next]);
+                out.flush();
+            }
+        }
+
+        /** 요약을 출력하고 실패한 커밋 수를 반환한다. */
+        synchronized int summarize() {
+            out.println(String.format("Each : %d commits, %d failed", results.length, failed));
+            return failed;
+        }
+    }
+}
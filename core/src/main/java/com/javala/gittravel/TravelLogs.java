@@ -1,20 +1,67 @@
 package com.javala.gittravel;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.MutableObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
 
 // 코드 관리자를 위한 코멘트:
 // 초기화된 branch 상태에 대해 Valid와 Invalid 상태가 존재한다.
 // 다음 조건들을 만족했을 때 branch 상태가 Valid하다고 한다.
-// - branch/commits 파일이 존재하며 빈 파일이 아니다.
+// - branch/commits 파일이 존재하며 빈 파일이 아니다. 포맷은 CommitTimeline 문서를 확인한다.
 // - branch/head 파일이 존재하며 branch/commits 파일 안에 있는 값 하나와 대응한다.
+//   head 파일은 position과 커밋 해시를 함께 기록하며, 둘이 맞지 않으면 커밋 해시를 기준으로 복구한다.
+// - branch/index 파일은 branch/commits 파일에서 생성한 캐시이며, 없거나 맞지 않으면 다시 생성한다.
+// - branch/prefixes 파일도 branch/commits 파일에서 생성한 캐시이며 index 파일과 같은 규칙을 따른다.
+// - branch/metadata 파일은 init이 기록하는 표시용 캐시이며, 없거나 맞지 않으면 무시하고 저장소에서 읽는다.
+// - branch/times 파일은 branch/metadata 파일의 commit time에서 생성한 캐시이며, 없거나 맞지 않으면 다시 생성한다.
+// - branch/tags 파일은 init이 매번 기록하는 tag 목록이며, 없거나 맞지 않으면 tag로 이동할 수 없다.
+// - branch/adjacency 파일은 init이 기록하는 부모와 자식 목록이며, 없거나 맞지 않으면 DAG 이동을 할 수 없다.
+// - branch/blooms 파일은 init이 기록하는 커밋별 changed-path Bloom filter이며, 없거나 맞지 않으면 경로로 이동할 때
+//   모든 커밋을 tree diff로 확인한다.
+// - branch/terms 파일은 init이 기록하는 커밋 메시지와 author, committer의 역색인이며, 없거나 맞지 않으면 메시지로
+//   이동할 수 없다.
+// - .pending-checkout 파일은 travel --no-checkout이나 daemon이 checkout을 미루었을 때 작업 트리에 checkout된 커밋과
+//   git-travel이 HEAD로 보는 커밋을 기록한다. 작업 트리의 HEAD가 기록된 커밋과 다르면 사용자가 직접 checkout한
+//   것이므로 무시한다.
+// - .worktrees 디렉토리는 worktrees 커맨드로 켠 worktree pool이며, pool 파일과 git-travel이 만든 linked worktree들을
+//   가진다. pool 파일이 없으면 pool은 꺼져 있다. 형식은 WorktreePool 문서를 확인한다. git 브랜치 이름은 '.'으로
+//   시작할 수 없으므로 branch 디렉토리와 겹치지 않는다.
+// - branch/first-parent 디렉토리는 init --first-parent가 기록하는 first-parent 로그이며, 위 파일을 같은 규칙으로 가진다.
+//   git은 branch와 branch/first-parent 브랜치를 함께 가질 수 없기 때문에 다른 branch의 디렉토리와 겹치지 않는다.
+//   branch 디렉토리 안에 만들어지므로 항상 branch를 먼저 초기화한다.
 //
 // TravelLogs의 public 함수를 호출하기 전과 후, branch가 Initialzied되어있다면 상태는
 // 항상 Valid하게 유지해야 한다.
@@ -34,11 +81,15 @@ import com.google.common.base.Preconditions;
  * TravelLogs는 특정 branch에 대해 <em>초기화</em> 상태를 정의한다.
  * 초기화 상태란 TravelLogs가 branch에 대해 commits와 head를 최소 한 번 기록한 상태를 말한다.
  * 많은 메소드들이 호출 전제 조건으로 branch가 초기화된 상태임을 요구한다. 자세한 내용은 각 메소드의 문서를 확인한다.
+ * 
+ * <p>
+ * branch의 first-parent 로그는 {@link #firstParentLog}가 반환하는 이름의 branch처럼 기록하고 읽는다.
  */
 public class TravelLogs {
     private final Path dataDir;
     private final Path currentBranchFile;
     private final String projectName;
+    private final Map<String, OpenedTimeline> openedTimelines = new ConcurrentHashMap<>();
 
     @VisibleForTesting
     TravelLogs(String systemDataDirPath, String projectName) {
@@ -76,7 +127,44 @@ public class TravelLogs {
     private static final String GIT_TRAVEL_DATA_DIRNAME = "git-travel-data";
     private static final String COMMIT_FILENAME = "commits";
     private static final String HEAD_FILENAME = "head";
+    private static final String INDEX_FILENAME = "index";
+    private static final String METADATA_FILENAME = "metadata";
+    private static final String ADJACENCY_FILENAME = "adjacency";
+    private static final String PREFIXES_FILENAME = "prefixes";
+    private static final String TIMES_FILENAME = "times";
+    private static final String TAGS_FILENAME = "tags";
+    private static final String BLOOMS_FILENAME = "blooms";
+    private static final String TERMS_FILENAME = "terms";
     private static final String CURRENT_BRANCH_FILENAME = ".current-branch";
+    private static final String PENDING_CHECKOUT_FILENAME = ".pending-checkout";
+    private static final String WORKTREES_DIRNAME = ".worktrees";
+    private static final String FIRST_PARENT_DIRNAME = "first-parent";
+
+    /**
+     * 주어진 {@code branch}의 first-parent 로그 이름을 리턴한다.
+     *
+     * <p>
+     * first-parent 로그는 {@code branch} 끝 커밋에서 첫 번째 부모만 따라간 커밋들의 로그이며, 이 이름을 branch 인자로
+     * 넘겨 다른 branch와 같은 방법으로 기록하고 읽는다. 먼저 {@code branch}가 <em>초기화</em>된 상태여야 한다.
+     *
+     * @param branch first-parent 로그의 branch
+     * @return {@code branch}의 first-parent 로그 이름
+     */
+    static String firstParentLog(String branch) {
+        Preconditions.checkArgument(!branch.isBlank(), "branch cannot be blank.");
+        return branch + "/" + FIRST_PARENT_DIRNAME;
+    }
+
+    /**
+     * 모든 프로젝트의 상태 정보가 기록되는 <em>상태 디렉토리</em>를 리턴한다.
+     *
+     * @param fileSystem 상태 디렉토리가 있는 파일 시스템
+     * @return OS별 데이터 디렉토리 안의 git-travel-data 디렉토리
+     * @throws TravelLogsException 시스템이 OS를 판별할 수 없을 때
+     */
+    static Path getDefaultGitTravelDataDir(FileSystem fileSystem) throws TravelLogsException {
+        return getDefaultSystemDatadir(fileSystem).resolve(GIT_TRAVEL_DATA_DIRNAME);
+    }
 
     @VisibleForTesting
     static Path getDefaultSystemDatadir(FileSystem fileSystem) throws TravelLogsException {
@@ -125,7 +213,7 @@ public class TravelLogs {
      */
     public boolean isValidCommit(String branch, String commit) throws IOException {
         Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
-        return readCommits(branch).contains(commit);
+        return ObjectId.isId(commit) && openIndex(branch, openTimeline(branch)).contains(ObjectId.fromString(commit));
     }
 
     /**
@@ -144,29 +232,477 @@ public class TravelLogs {
      * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
      */
     public void writeCommits(String branch, List<String> commits) throws IOException {
+        writeCommits(branch, commits, null);
+    }
+
+    /**
+     * {@link #writeCommits(String, List)}와 같이 로그를 기록하고 {@code metadata}로 표시용 메타데이터를 함께 기록한다.
+     *
+     * @param branch   {@code commits}를 기록할 branch
+     * @param commits  {@code branch}에 기록할 commits, 가장 최근 커밋부터 정렬되어야 한다
+     * @param metadata {@code commits}와 같은 순서의 메타데이터, null이면 메타데이터를 기록하지 않는다
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void writeCommits(String branch, List<String> commits, List<CommitMetadata.Entry> metadata)
+            throws IOException {
         Preconditions.checkArgument(!commits.isEmpty(), "commits cannot be empty.");
+        Preconditions.checkArgument(null == metadata || metadata.size() == commits.size(),
+            "metadata must have the same size as commits.");
 
-        Path commitsFile = dataDir.resolve(branch).resolve(COMMIT_FILENAME);
-        Path headFile = dataDir.resolve(branch).resolve(HEAD_FILENAME);
+        try (LogWriter writer = newLogWriter(branch, null != metadata)) {
+            for (int i = 0; i < commits.size(); ++i) {
+                writer.add(ObjectId.fromString(commits.get(i)), (null == metadata) ? null : metadata.get(i));
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * 주어진 {@code branch}의 전체 로그를 가장 최근 커밋부터 받아 기록하는 {@link LogWriter}를 생성한다.
+     *
+     * <p>
+     * 커밋은 고정 크기 버퍼를 거쳐 바로 파일에 기록되므로 로그 길이와 관계없이 메모리 사용량이 일정하다.
+     * {@link LogWriter#commit()}을 호출하기 전에는 기존 로그가 그대로 유지된다.
+     *
+     * @param branch       로그를 기록할 branch
+     * @param withMetadata 메타데이터를 함께 기록하면 true
+     * @return {@code branch}의 로그를 기록하는 {@link LogWriter}
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    LogWriter newLogWriter(String branch, boolean withMetadata) throws IOException {
+        return new LogWriter(branch, withMetadata);
+    }
 
-        if (!isInitialized(branch)) {
-            if (!existsCurrentBranch()) {
-                writeCurrentBranch(branch);
+    /**
+     * 한 branch의 전체 로그를 기록하는 writer이다. {@link #newLogWriter}로 생성한다.
+     *
+     * <p>
+     * 초기화되지 않은 branch는 branch 디렉토리 옆의 임시 디렉토리에 commits, index, metadata, head를 모두 기록한 후
+     * 디렉토리를 한 번에 옮긴다. 따라서 기록 도중 실패해도 branch가 초기화된 것으로 보이지 않는다.
+     * 이미 초기화된 branch는 각 파일을 임시 파일에 기록한 후 교체하며, head는 가장 마지막에 기록한다.
+     * head는 커밋 해시를 함께 기록하므로 교체 도중 실패해도 {@link #readHeadPosition}이 position을 복구한다.
+     */
+    final class LogWriter implements Closeable {
+        private final String branch;
+        private final boolean initialized;
+        private final Path branchDir;
+        private final Path targetDir;
+        private final CommitTimeline.Writer commits;
+        private final CommitMetadata.Writer metadata;
+        private final Path parentsFile;
+        private final DataOutputStream parents;
+        private final CommitTermIndex.Builder terms;
+        private boolean withParents = true;
+        private boolean withTerms = true;
+        private boolean committed = false;
+
+        private LogWriter(String branch, boolean withMetadata) throws IOException {
+            Preconditions.checkArgument(!branch.isBlank(), "branch cannot be blank.");
+            this.branch = branch;
+            this.initialized = isInitialized(branch);
+            this.branchDir = dataDir.resolve(branch);
+            if (initialized) {
+                targetDir = branchDir;
+            } else {
+                targetDir = branchDir.resolveSibling(branchDir.getFileName() + ".init.tmp");
+                deleteRecursively(targetDir);
+                Files.createDirectories(targetDir);
             }
-            Files.createDirectories(commitsFile.getParent());
-            Files.write(commitsFile, commits);
 
-            Files.createDirectories(headFile.getParent());
-            writeHeadInternal(branch, commits.get(0));
-        } else {
-            Files.write(commitsFile, commits);
-            String head = readHead(branch);
-            if (!commits.contains(head)) {
-                writeHeadInternal(branch, commits.get(0));
+            CommitTimeline.Writer commits = null;
+            CommitMetadata.Writer metadata = null;
+            this.parentsFile = targetDir.resolve(ADJACENCY_FILENAME + ".parents.tmp");
+            try {
+                commits = new CommitTimeline.Writer(targetDir.resolve(COMMIT_FILENAME), true);
+                if (withMetadata) {
+                    metadata = new CommitMetadata.Writer(targetDir.resolve(METADATA_FILENAME), true);
+                }
+                this.parents = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(parentsFile)));
+            } catch (IOException e) {
+                if (null != commits) {
+                    commits.close();
+                }
+                if (null != metadata) {
+                    metadata.close();
+                }
+                throw e;
+            }
+            this.commits = commits;
+            this.metadata = metadata;
+            this.terms = new CommitTermIndex.Builder(targetDir.resolve(TERMS_FILENAME), true);
+        }
+
+        /**
+         * {@code commit}을 로그의 가장 앞(가장 오래된 쪽)에 추가한다. 부모를 모르므로 adjacency 파일은 기록하지 않는다.
+         *
+         * @param commit 추가할 커밋, 이전에 추가한 커밋보다 오래된 커밋이어야 한다
+         * @param entry  {@code commit}의 메타데이터, 메타데이터를 기록하지 않으면 무시한다
+         */
+        void add(AnyObjectId commit, CommitMetadata.Entry entry) throws IOException {
+            add(commit, null, entry);
+        }
+
+        /**
+         * {@code commit}을 로그의 가장 앞(가장 오래된 쪽)에 추가하고 부모를 함께 기록한다.
+         *
+         * <p>
+         * 부모의 position은 모든 커밋을 받은 후에야 정해지므로 부모 해시는 임시 파일에 기록해 두고
+         * {@link #commit()}에서 {@link CommitAdjacency}로 변환한다. 모든 커밋의 부모를 받았을 때만 adjacency 파일을 기록한다.
+         *
+         * @param commit  추가할 커밋, 이전에 추가한 커밋보다 오래된 커밋이어야 한다
+         * @param parents {@code commit}의 부모, 커밋에 기록된 순서여야 하며 null이면 adjacency 파일을 기록하지 않는다
+         * @param entry   {@code commit}의 메타데이터, 메타데이터를 기록하지 않으면 무시한다
+         */
+        void add(AnyObjectId commit, AnyObjectId[] parents, CommitMetadata.Entry entry) throws IOException {
+            withTerms = false;
+            addInternal(commit, parents, entry);
+        }
+
+        /**
+         * body를 읽은 {@code commit}을 로그의 가장 앞(가장 오래된 쪽)에 추가하고 부모와 메타데이터, 메시지와 author,
+         * committer의 단어를 함께 기록한다.
+         *
+         * <p>
+         * 모든 커밋을 이 메서드로 받았을 때만 {@link #commit()}에서 {@link CommitTermIndex} 파일을 기록하므로, <em>init</em>은
+         * 커밋의 body를 한 번만 읽는다.
+         *
+         * @param commit 추가할 커밋, 이전에 추가한 커밋보다 오래된 커밋이어야 한다
+         */
+        void add(RevCommit commit) throws IOException {
+            if (withTerms) {
+                terms.addCommit(commits.size(), commit.getFullMessage(), commit.getAuthorIdent(),
+                    commit.getCommitterIdent());
+            }
+            addInternal(commit, commit.getParents(), CommitMetadata.Entry.of(commit));
+        }
+
+        private void addInternal(AnyObjectId commit, AnyObjectId[] parents, CommitMetadata.Entry entry)
+                throws IOException {
+            commits.add(commit);
+            if (null != metadata) {
+                metadata.add(Preconditions.checkNotNull(entry, "entry cannot be null."));
+            }
+            if (null == parents) {
+                withParents = false;
+            } else if (withParents) {
+                this.parents.writeInt(parents.length);
+                for (AnyObjectId parent : parents) {
+                    parent.copyRawTo(this.parents);
+                }
+            }
+        }
+
+        /** 기록한 로그를 branch에 반영한다. 처음 초기화하는 branch이면 current branch로도 설정한다. */
+        void commit() throws IOException {
+            Preconditions.checkState(0 < commits.size(), "commits cannot be empty.");
+            commits.commit();
+            CommitTimeline timeline = CommitTimeline.openVerified(targetDir.resolve(COMMIT_FILENAME));
+            CommitIndex index = CommitIndex.build(targetDir.resolve(INDEX_FILENAME), timeline);
+            CommitPrefixIndex.build(targetDir.resolve(PREFIXES_FILENAME), timeline);
+            if (null != metadata) {
+                metadata.commit(timeline);
+                CommitTimes.build(targetDir.resolve(TIMES_FILENAME), timeline,
+                    CommitMetadata.open(targetDir.resolve(METADATA_FILENAME), timeline));
+            }
+            parents.close();
+            if (withParents) {
+                buildAdjacency(timeline, index);
+            }
+            Files.deleteIfExists(parentsFile);
+            if (withTerms) {
+                CommitTermIndex.build(targetDir.resolve(TERMS_FILENAME), timeline, terms);
+            }
+            // 임시 디렉토리를 옮기기 전에 spool 파일과 run 파일을 지운다.
+            terms.close();
+            commits.close();
+            if (null != metadata) {
+                metadata.close();
+            }
+
+            int last = timeline.size() - 1;
+            if (!initialized) {
+                writeHeadFile(targetDir.resolve(HEAD_FILENAME), last, timeline.get(last));
+                Files.move(targetDir, branchDir, StandardCopyOption.ATOMIC_MOVE);
+                if (!existsCurrentBranch()) {
+                    writeCurrentBranch(branch);
+                }
+            } else {
+                String head = readHeadInternal(branch).commit;
+                int headPosition = ObjectId.isId(head) ? index.positionOf(ObjectId.fromString(head)) : -1;
+                int position = (0 <= headPosition) ? headPosition : last;
+                writeHeadInternal(branch, position, timeline.get(position));
+            }
+            committed = true;
+        }
+
+        /**
+         * 부모 해시 임시 파일을 두 번 읽어 adjacency 파일을 기록한다. 첫 번째는 전체 부모 수와 timeline에 있는 부모 수를
+         * 세고, 두 번째는 부모의 position을 {@link CommitAdjacency.Writer}에 넘긴다. 임시 파일은 가장 최근 커밋부터
+         * 기록되어 있으므로 Writer가 받는 순서와 같다.
+         */
+        private void buildAdjacency(CommitTimeline timeline, CommitIndex index) throws IOException {
+            int size = timeline.size();
+            long parentCount = 0;
+            int childCount = 0;
+            MutableObjectId parent = new MutableObjectId();
+            byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+            try (DataInputStream in = openParents()) {
+                for (int position = size - 1; position >= 0; --position) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; ++i) {
+                        in.readFully(raw);
+                        parent.fromRaw(raw);
+                        childCount += index.contains(parent) ? 1 : 0;
+                    }
+                    parentCount += count;
+                }
+            }
+            if (parentCount > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Too many parents : %d", parentCount));
+            }
+
+            try (DataInputStream in = openParents();
+                 CommitAdjacency.Writer writer = new CommitAdjacency.Writer(
+                     targetDir.resolve(ADJACENCY_FILENAME), timeline, (int) parentCount, childCount)) {
+                for (int position = size - 1; position >= 0; --position) {
+                    int[] positions = new int[in.readInt()];
+                    for (int i = 0; i < positions.length; ++i) {
+                        in.readFully(raw);
+                        parent.fromRaw(raw);
+                        positions[i] = index.positionOf(parent);
+                    }
+                    writer.add(positions);
+                }
+                writer.commit();
+            }
+        }
+
+        private DataInputStream openParents() throws IOException {
+            return new DataInputStream(new BufferedInputStream(Files.newInputStream(parentsFile)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                commits.close();
+            } finally {
+                if (null != metadata) {
+                    metadata.close();
+                }
+                parents.close();
+                Files.deleteIfExists(parentsFile);
+                terms.close();
+                if (!initialized && !committed) {
+                    deleteRecursively(targetDir);
+                }
             }
         }
     }
 
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * 주어진 {@code branch} 로그에서 {@code removed} 커밋을 지우고 {@code added} 커밋을 끝에 추가한다.
+     *
+     * <p>
+     * 남아있는 커밋은 커밋 객체를 만들지 않고 바이트 단위로 복사하기 때문에 전체 로그를 다시 기록하는
+     * {@link #writeCommits}보다 빠르다. fast-forward처럼 지울 커밋이 없으면 새 커밋만 추가된다.
+     *
+     * <p>
+     * head는 {@link #writeCommits}와 같이 그대로 유지되며, head가 {@code removed}에 포함되면 가장 최근 커밋으로
+     * 재설정된다.
+     *
+     * @param branch  로그를 갱신할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param removed 로그에서 지울 커밋, 로그에 없는 커밋은 무시한다
+     * @param added   로그 끝에 추가할 커밋, 가장 오래된 커밋부터 정렬되어야 한다
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void updateCommits(String branch, Collection<? extends AnyObjectId> removed, List<? extends AnyObjectId> added)
+            throws IOException {
+        updateCommits(branch, removed, added, null);
+    }
+
+    /**
+     * {@link #updateCommits(String, Collection, List)}와 같이 로그를 갱신하고 메타데이터도 함께 갱신한다.
+     *
+     * <p>
+     * 남아있는 커밋의 메타데이터는 기존 metadata 파일에서 복사한다. 기존 metadata 파일이 없거나
+     * {@code addedMetadata}가 null이면 메타데이터를 갱신하지 않는다.
+     *
+     * @param branch        로그를 갱신할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param removed       로그에서 지울 커밋, 로그에 없는 커밋은 무시한다
+     * @param added         로그 끝에 추가할 커밋, 가장 오래된 커밋부터 정렬되어야 한다
+     * @param addedMetadata {@code added}와 같은 순서의 메타데이터
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void updateCommits(String branch, Collection<? extends AnyObjectId> removed, List<? extends AnyObjectId> added,
+            List<CommitMetadata.Entry> addedMetadata) throws IOException {
+        updateCommits(branch, removed, added, addedMetadata, null);
+    }
+
+    /**
+     * {@link #updateCommits(String, Collection, List, List)}와 같이 로그와 메타데이터를 갱신하고 부모와 자식 목록도 함께 갱신한다.
+     *
+     * <p>
+     * 남아있는 커밋의 부모는 기존 adjacency 파일의 position을 새 position으로 옮기고, 추가한 커밋의 부모는 새 로그에서
+     * 찾는다. 기존 adjacency 파일이 없거나 {@code addedParents}가 null이면 부모와 자식 목록을 갱신하지 않는다.
+     *
+     * @param branch        로그를 갱신할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param removed       로그에서 지울 커밋, 로그에 없는 커밋은 무시한다
+     * @param added         로그 끝에 추가할 커밋, 가장 오래된 커밋부터 정렬되어야 한다
+     * @param addedMetadata {@code added}와 같은 순서의 메타데이터
+     * @param addedParents  {@code added}와 같은 순서의 부모 목록, 각 부모는 커밋에 기록된 순서여야 한다
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void updateCommits(String branch, Collection<? extends AnyObjectId> removed, List<? extends AnyObjectId> added,
+            List<CommitMetadata.Entry> addedMetadata, List<? extends AnyObjectId[]> addedParents) throws IOException {
+        Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
+        Preconditions.checkArgument(null == addedMetadata || addedMetadata.size() == added.size(),
+            "metadata must have the same size as added commits.");
+        Preconditions.checkArgument(null == addedParents || addedParents.size() == added.size(),
+            "parents must have the same size as added commits.");
+
+        CommitTimeline timeline = openTimeline(branch);
+        CommitIndex index = openIndex(branch, timeline);
+        BitSet removedPositions = new BitSet(timeline.size());
+        for (AnyObjectId commit : removed) {
+            int position = index.positionOf(commit);
+            if (0 <= position) {
+                removedPositions.set(position);
+            }
+        }
+        Preconditions.checkArgument(removedPositions.cardinality() < timeline.size() || !added.isEmpty(),
+            "commits cannot be empty.");
+
+        int headPosition = readHeadPosition(branch, timeline);
+        int newHeadPosition = removedPositions.get(headPosition)
+                ? -1
+                : headPosition - removedPositions.get(0, headPosition).cardinality();
+
+        CommitMetadata metadata = (null == addedMetadata) ? null : openMetadata(branch, timeline);
+        CommitAdjacency adjacency = (null == addedParents) ? null : openAdjacency(branch, timeline);
+        Path commitsFile = dataDir.resolve(branch).resolve(COMMIT_FILENAME);
+        try (CommitTimeline.Writer writer = new CommitTimeline.Writer(commitsFile);
+             CommitMetadata.Writer metadataWriter = (null == metadata)
+                 ? null : new CommitMetadata.Writer(metadataFile(branch))) {
+            int from = 0;
+            while (from < timeline.size()) {
+                int next = removedPositions.nextSetBit(from);
+                int to = (next < 0) ? timeline.size() : next;
+                writer.addAll(timeline, from, to);
+                if (null != metadataWriter) {
+                    metadataWriter.addAll(metadata, from, to);
+                }
+                if (next < 0) {
+                    break;
+                }
+                from = removedPositions.nextClearBit(next);
+            }
+            for (int i = 0; i < added.size(); ++i) {
+                AnyObjectId commit = added.get(i);
+                int position = index.positionOf(commit);
+                if (position < 0 || removedPositions.get(position)) {
+                    writer.add(commit);
+                    if (null != metadataWriter) {
+                        metadataWriter.add(addedMetadata.get(i));
+                    }
+                }
+            }
+            writer.commit();
+            if (null != metadataWriter) {
+                metadataWriter.commit(CommitTimeline.open(commitsFile));
+            }
+        }
+
+        CommitTimeline updated = CommitTimeline.openVerified(commitsFile);
+        CommitIndex updatedIndex = CommitIndex.build(dataDir.resolve(branch).resolve(INDEX_FILENAME), updated);
+        CommitPrefixIndex.build(dataDir.resolve(branch).resolve(PREFIXES_FILENAME), updated);
+        if (null != metadata) {
+            CommitTimes.build(timesFile(branch), updated, CommitMetadata.open(metadataFile(branch), updated));
+        }
+        if (null != adjacency) {
+            updateAdjacency(branch, adjacency, removedPositions, index, added, addedParents, updated, updatedIndex);
+        }
+        if (newHeadPosition < 0) {
+            newHeadPosition = updated.size() - 1;
+        }
+        writeHeadInternal(branch, newHeadPosition, updated.get(newHeadPosition));
+    }
+
+    /**
+     * {@link #updateCommits}로 갱신한 로그의 adjacency 파일을 기록한다.
+     *
+     * <p>
+     * 새 로그는 지우지 않은 기존 커밋이 순서대로 앞에 오고 추가한 커밋이 뒤에 온다. 기존 커밋의 부모는 지운 커밋 수만큼
+     * 당긴 position으로 옮기며, 추가한 커밋은 {@link #updateCommits}와 같은 조건으로 실제로 기록된 커밋만 부모를 찾는다.
+     */
+    private void updateAdjacency(String branch, CommitAdjacency adjacency, BitSet removedPositions, CommitIndex index,
+            List<? extends AnyObjectId> added, List<? extends AnyObjectId[]> addedParents,
+            CommitTimeline updated, CommitIndex updatedIndex) throws IOException {
+        int[] moved = new int[adjacency.size()];
+        for (int position = 0, next = 0; position < adjacency.size(); ++position) {
+            moved[position] = removedPositions.get(position) ? -1 : next++;
+        }
+
+        int[] offsets = new int[updated.size() + 1];
+        int[] parents = new int[16];
+        int edges = 0;
+        int position = 0;
+        for (int old = 0; old < adjacency.size(); ++old) {
+            if (removedPositions.get(old)) {
+                continue;
+            }
+            for (int i = 0; i < adjacency.parentCount(old); ++i) {
+                int parent = adjacency.parent(old, i);
+                parents = ensureCapacity(parents, edges + 1);
+                parents[edges++] = (parent < 0) ? -1 : moved[parent];
+            }
+            offsets[++position] = edges;
+        }
+        for (int i = 0; i < added.size(); ++i) {
+            int old = index.positionOf(added.get(i));
+            if (0 <= old && !removedPositions.get(old)) {
+                continue;
+            }
+            for (AnyObjectId parent : addedParents.get(i)) {
+                parents = ensureCapacity(parents, edges + 1);
+                parents[edges++] = updatedIndex.positionOf(parent);
+            }
+            offsets[++position] = edges;
+        }
+        Preconditions.checkState(position == updated.size(),
+            "adjacency count %s does not match timeline count %s.", position, updated.size());
+        CommitAdjacency.build(adjacencyFile(branch), updated, offsets, Arrays.copyOf(parents, edges));
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return (capacity <= array.length) ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    /**
+     * 주어진 {@code branch}를 마지막으로 기록했을 때의 branch 끝 커밋을 리턴한다.
+     *
+     * <p>
+     * 로그는 가장 오래된 커밋부터 기록되므로 마지막 position의 커밋이 마지막으로 기록한 branch의 끝이다.
+     *
+     * @param branch 로그를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @return 마지막으로 기록한 branch의 끝 커밋
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    ObjectId readTip(String branch) throws IOException {
+        CommitTimeline timeline = openTimeline(branch);
+        return timeline.get(timeline.size() - 1);
+    }
+
     /**
      * 주어진 {@code branch}의 로그를 리턴한다.
      * 
@@ -175,9 +711,347 @@ public class TravelLogs {
      * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
      */
     public List<String> readCommits(String branch) throws IOException {
+        Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
+        CommitTimeline timeline = openTimeline(branch);
+        List<String> commits = new ArrayList<>(timeline.size());
+        for (int position = timeline.size() - 1; position >= 0; --position) {
+            commits.add(timeline.get(position).name());
+        }
+        return commits;
+    }
+
+    /**
+     * 주어진 {@code branch}의 commits 파일을 연다.
+     *
+     * <p>
+     * commits 파일이 이전 텍스트 포맷으로 기록되어 있으면 바이너리 포맷으로 변환한 후 연다.
+     *
+     * @param branch 로그를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @return 주어진 {@code branch}의 {@link CommitTimeline}
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitTimeline openTimeline(String branch) throws IOException {
         Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
         Path commitsFile = dataDir.resolve(branch).resolve(COMMIT_FILENAME);
-        return Files.readAllLines(commitsFile);
+        FileStamp stamp = new FileStamp(Files.readAttributes(commitsFile, BasicFileAttributes.class));
+        OpenedTimeline opened = openedTimelines.get(branch);
+        if (null != opened && opened.stamp.equals(stamp)) {
+            return opened.timeline;
+        }
+
+        if (!CommitTimeline.isTimelineFile(commitsFile)) {
+            CommitTimeline.write(commitsFile, CommitTimeline.readLegacy(commitsFile));
+            CommitTimeline.openVerified(commitsFile);
+            stamp = new FileStamp(Files.readAttributes(commitsFile, BasicFileAttributes.class));
+        }
+        CommitTimeline timeline = CommitTimeline.open(commitsFile);
+        openedTimelines.put(branch, new OpenedTimeline(stamp, timeline));
+        return timeline;
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitIndex}를 연다.
+     *
+     * <p>
+     * index 파일이 없거나 {@code timeline}과 맞지 않으면 다시 생성한다.
+     *
+     * @param branch   인덱스를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitIndex}
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitIndex openIndex(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        Path indexFile = dataDir.resolve(branch).resolve(INDEX_FILENAME);
+        FileStamp stamp = FileStamp.read(indexFile);
+        Sidecar<CommitIndex> cached = (null == opened) ? null : opened.index;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitIndex index = CommitIndex.open(indexFile, timeline);
+        if (null == index) {
+            index = CommitIndex.build(indexFile, timeline);
+            stamp = FileStamp.read(indexFile);
+        }
+        if (null != opened) {
+            opened.index = Sidecar.of(stamp, index);
+        }
+        return index;
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitPrefixIndex}를 연다.
+     *
+     * <p>
+     * prefixes 파일이 없거나 {@code timeline}과 맞지 않으면 다시 생성한다.
+     *
+     * @param branch   인덱스를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitPrefixIndex}
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitPrefixIndex openPrefixIndex(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        Path prefixesFile = dataDir.resolve(branch).resolve(PREFIXES_FILENAME);
+        FileStamp stamp = FileStamp.read(prefixesFile);
+        Sidecar<CommitPrefixIndex> cached = (null == opened) ? null : opened.prefixIndex;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitPrefixIndex prefixIndex = CommitPrefixIndex.open(prefixesFile, timeline);
+        if (null == prefixIndex) {
+            prefixIndex = CommitPrefixIndex.build(prefixesFile, timeline);
+            stamp = FileStamp.read(prefixesFile);
+        }
+        if (null != opened) {
+            opened.prefixIndex = Sidecar.of(stamp, prefixIndex);
+        }
+        return prefixIndex;
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitMetadata}를 연다.
+     *
+     * <p>
+     * metadata 파일은 <em>init</em>이 기록하며 index와 달리 저장소 없이 다시 생성할 수 없다.
+     *
+     * @param branch   메타데이터를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitMetadata}, metadata 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitMetadata openMetadata(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(metadataFile(branch));
+        Sidecar<CommitMetadata> cached = (null == opened) ? null : opened.metadata;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitMetadata metadata = CommitMetadata.open(metadataFile(branch), timeline);
+        if (null != opened) {
+            opened.metadata = Sidecar.of(stamp, metadata);
+        }
+        return metadata;
+    }
+
+    private Path metadataFile(String branch) {
+        return dataDir.resolve(branch).resolve(METADATA_FILENAME);
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitTimes}를 연다.
+     *
+     * <p>
+     * times 파일이 없거나 {@code timeline}과 맞지 않으면 metadata 파일에서 다시 생성한다.
+     *
+     * @param branch   커밋 시간을 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitTimes}, metadata 파일도 없거나 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitTimes openTimes(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(timesFile(branch));
+        Sidecar<CommitTimes> cached = (null == opened) ? null : opened.times;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitTimes times = CommitTimes.open(timesFile(branch), timeline);
+        if (null == times) {
+            CommitMetadata metadata = openMetadata(branch, timeline);
+            if (null == metadata) {
+                return null;
+            }
+            times = CommitTimes.build(timesFile(branch), timeline, metadata);
+            stamp = FileStamp.read(timesFile(branch));
+        }
+        if (null != opened) {
+            opened.times = Sidecar.of(stamp, times);
+        }
+        return times;
+    }
+
+    private Path timesFile(String branch) {
+        return dataDir.resolve(branch).resolve(TIMES_FILENAME);
+    }
+
+    /**
+     * 주어진 {@code branch}의 tag 목록을 {@code tags}로 교체한다.
+     *
+     * <p>
+     * tag는 커밋과 관계없이 추가되거나 옮겨지기 때문에 <em>init</em>은 로그가 바뀌지 않았어도 매번 기록한다.
+     *
+     * @param branch tag를 기록할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param tags   현재 로그의 position을 가리키는 tag
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void writeTags(String branch, List<CommitTags.Entry> tags) throws IOException {
+        CommitTimeline timeline = openTimeline(branch);
+        CommitTags commitTags = CommitTags.build(tagsFile(branch), timeline, tags);
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        if (null != opened) {
+            opened.tags = Sidecar.of(FileStamp.read(tagsFile(branch)), commitTags);
+        }
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitTags}를 연다.
+     *
+     * @param branch   tag를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitTags}, tags 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitTags openTags(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(tagsFile(branch));
+        Sidecar<CommitTags> cached = (null == opened) ? null : opened.tags;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitTags tags = CommitTags.open(tagsFile(branch), timeline);
+        if (null != opened) {
+            opened.tags = Sidecar.of(stamp, tags);
+        }
+        return tags;
+    }
+
+    private Path tagsFile(String branch) {
+        return dataDir.resolve(branch).resolve(TAGS_FILENAME);
+    }
+
+    /**
+     * 주어진 {@code branch}의 changed-path filter를 position 순서로 받아 기록하는 writer를 생성한다.
+     *
+     * <p>
+     * {@link ChangedPathFilters.Writer#commit()}을 호출하기 전에는 기존 filter가 그대로 유지된다. 교체된 파일은
+     * {@link #openPathFilters}가 파일 속성으로 알아채고 다시 연다.
+     *
+     * @param branch   filter를 기록할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return {@code branch}의 filter를 기록하는 writer
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    ChangedPathFilters.Writer newPathFiltersWriter(String branch, CommitTimeline timeline) throws IOException {
+        return new ChangedPathFilters.Writer(bloomsFile(branch), timeline);
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link ChangedPathFilters}를 연다.
+     *
+     * @param branch   filter를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link ChangedPathFilters}, blooms 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    ChangedPathFilters openPathFilters(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(bloomsFile(branch));
+        Sidecar<ChangedPathFilters> cached = (null == opened) ? null : opened.pathFilters;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        ChangedPathFilters pathFilters = ChangedPathFilters.open(bloomsFile(branch), timeline);
+        if (null != opened) {
+            opened.pathFilters = Sidecar.of(stamp, pathFilters);
+        }
+        return pathFilters;
+    }
+
+    private Path bloomsFile(String branch) {
+        return dataDir.resolve(branch).resolve(BLOOMS_FILENAME);
+    }
+
+    /**
+     * 주어진 {@code branch}의 역색인에 넣을 단어를 모으는 {@link CommitTermIndex.Builder}를 생성한다.
+     *
+     * <p>
+     * 모은 단어가 많으면 terms 파일 옆에 run 파일을 기록하므로 사용한 후 닫아야 한다.
+     *
+     * @param branch 역색인을 기록할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @return {@code branch}의 단어를 모으는 builder
+     */
+    CommitTermIndex.Builder newTermIndexBuilder(String branch) {
+        return new CommitTermIndex.Builder(termsFile(branch));
+    }
+
+    /**
+     * 주어진 {@code branch}의 역색인을 {@code builder}로 교체한다.
+     *
+     * @param branch  역색인을 기록할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param builder {@link CommitTermIndex#compute}로 현재 로그의 단어와 position을 모은 {@link #newTermIndexBuilder}
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void writeTermIndex(String branch, CommitTermIndex.Builder builder) throws IOException {
+        CommitTimeline timeline = openTimeline(branch);
+        CommitTermIndex termIndex = CommitTermIndex.build(termsFile(branch), timeline, builder);
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        if (null != opened) {
+            opened.termIndex = Sidecar.of(FileStamp.read(termsFile(branch)), termIndex);
+        }
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitTermIndex}를 연다.
+     *
+     * @param branch   역색인을 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitTermIndex}, terms 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitTermIndex openTermIndex(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(termsFile(branch));
+        Sidecar<CommitTermIndex> cached = (null == opened) ? null : opened.termIndex;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitTermIndex termIndex = CommitTermIndex.open(termsFile(branch), timeline);
+        if (null != opened) {
+            opened.termIndex = Sidecar.of(stamp, termIndex);
+        }
+        return termIndex;
+    }
+
+    private Path termsFile(String branch) {
+        return dataDir.resolve(branch).resolve(TERMS_FILENAME);
+    }
+
+    /**
+     * 주어진 {@code branch}의 {@code timeline}에 대한 {@link CommitAdjacency}를 연다.
+     *
+     * <p>
+     * adjacency 파일은 <em>init</em>이 커밋의 부모를 읽어 기록하며 metadata 파일과 같이 저장소 없이 다시 생성할 수 없다.
+     *
+     * @param branch   부모와 자식 목록을 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param timeline {@link #openTimeline}으로 연 {@code branch}의 timeline
+     * @return 주어진 {@code branch}의 {@link CommitAdjacency}, adjacency 파일이 없거나 {@code timeline}과 맞지 않으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    CommitAdjacency openAdjacency(String branch, CommitTimeline timeline) throws IOException {
+        OpenedTimeline opened = openedTimeline(branch, timeline);
+        FileStamp stamp = FileStamp.read(adjacencyFile(branch));
+        Sidecar<CommitAdjacency> cached = (null == opened) ? null : opened.adjacency;
+        if (null != cached && cached.isCurrent(stamp)) {
+            return cached.value;
+        }
+
+        CommitAdjacency adjacency = CommitAdjacency.open(adjacencyFile(branch), timeline);
+        if (null != opened) {
+            opened.adjacency = Sidecar.of(stamp, adjacency);
+        }
+        return adjacency;
+    }
+
+    private Path adjacencyFile(String branch) {
+        return dataDir.resolve(branch).resolve(ADJACENCY_FILENAME);
     }
 
     /**
@@ -189,8 +1063,23 @@ public class TravelLogs {
      */
     public String readHead(String branch) throws IOException {
         Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
-        Path headFile = dataDir.resolve(branch).resolve(HEAD_FILENAME);
-        return Files.readAllLines(headFile).get(0);
+        return readHeadInternal(branch).commit;
+    }
+
+    /**
+     * 주어진 {@code branch}의 <em>head</em>가 가리키는 timeline position을 리턴한다.
+     *
+     * <p>
+     * head 파일에 기록된 position과 커밋 해시가 timeline과 맞지 않으면(로그가 새로 기록되었거나 이전 포맷의
+     * head 파일일 때) 커밋 해시로 position을 다시 찾아 head 파일을 갱신한다.
+     *
+     * @param branch head를 읽을 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다.
+     * @return 주어진 {@code branch}의 head position
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    int readHeadPosition(String branch) throws IOException {
+        Preconditions.checkState(isInitialized(branch), constructNotInitalizedMessage(branch));
+        return readHeadPosition(branch, openTimeline(branch));
     }
 
     /**
@@ -200,8 +1089,8 @@ public class TravelLogs {
      */
     public void writeHeadToStart() throws IOException {
         String branch = readCurrentBranch();
-        List<String> commits = readCommits(branch);
-        writeHeadInternal(branch, commits.get(commits.size() - 1));
+        CommitTimeline timeline = openTimeline(branch);
+        writeHeadInternal(branch, 0, timeline.get(0));
     };
 
     /**
@@ -211,8 +1100,8 @@ public class TravelLogs {
      */
     public void writeHeadToEnd() throws IOException {
         String branch = readCurrentBranch();
-        List<String> commits = readCommits(branch);
-        writeHeadInternal(branch, commits.get(0));
+        CommitTimeline timeline = openTimeline(branch);
+        writeHeadInternal(branch, timeline.size() - 1, timeline.get(timeline.size() - 1));
     };
 
     /**
@@ -223,52 +1112,217 @@ public class TravelLogs {
      */
     public void writeHeadToCommit(String commit) throws IOException {
         String branch = readCurrentBranch();
-        Preconditions.checkArgument(isValidCommit(branch, commit), "Commit %s doesn't exist in branch log.", commit);
-        writeHeadInternal(branch, commit);
+        CommitTimeline timeline = openTimeline(branch);
+        int position = ObjectId.isId(commit)
+                ? openIndex(branch, timeline).positionOf(ObjectId.fromString(commit))
+                : -1;
+        Preconditions.checkArgument(0 <= position, "Commit %s doesn't exist in branch log.", commit);
+        writeHeadInternal(branch, position, timeline.get(position));
+    }
+
+    /**
+     * 주어진 {@code branch} 로그의 {@code position}으로 <em>head</em>를 설정한다.
+     *
+     * @param branch   head를 설정할 branch, {@code branch}는 <em>초기화</em>된 상태여야 한다
+     * @param position head로 설정할 timeline position
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void writeHeadToPosition(String branch, int position) throws IOException {
+        CommitTimeline timeline = openTimeline(branch);
+        Preconditions.checkElementIndex(position, timeline.size(), "position");
+        writeHeadInternal(branch, position, timeline.get(position));
     }
 
     /**
      * 현재 <em>head</em> 인덱스를 기준으로 해당 횟수 만큼 이동한다.
      *
+     * <p>
+     * head의 position에서 횟수만큼 더한 position으로 이동하며, timeline 범위를 넘어가면 마지막 커밋에 멈춘다.
+     *
      * @param count 이동할 횟수 
      * @throws IOException 내부적으로 {@code IOException} 이 발생했을 때
      */
     public void writeHeadToCount(int count) throws IOException {
         Preconditions.checkArgument(0 < count, "Travel count parameter should be bigger than 0 : %d", count);
-
-        String branch = readCurrentBranch();
-        String headCommit = readHead(branch);
-        Preconditions.checkArgument(isValidCommit(branch, headCommit), "Commit %s doesn't exist in branch log.", headCommit);
-        
-        List<String> commits = readCommits(branch);
-        int headIndex = commits.indexOf(headCommit);
-        writeHeadInternal(branch, commits.get(Math.max(0, headIndex - count)));
+        writeHeadToOffset(count);
     }
 
     /**
      * 현재 <em>head</em> 인덱스를 기준으로 해당 횟수 만큼 <em>뒤로</em> 이동한다.
      *
+     * <p>
+     * head의 position에서 횟수만큼 뺀 position으로 이동하며, timeline 범위를 넘어가면 시작 커밋에 멈춘다.
+     *
      * @param count 뒤로 이동할 횟수 
      * @throws IOException 내부적으로 {@code IOException} 이 발생했을 때
      */
     public void writeHeadBackToCount(int count) throws IOException {
         Preconditions.checkArgument(0 < count, "Travel count parameter should be bigger than 0 : %d", count);
+        writeHeadToOffset(-count);
+    }
 
+    private void writeHeadToOffset(int offset) throws IOException {
         String branch = readCurrentBranch();
-        String headCommit = readHead(branch);
-        Preconditions.checkArgument(isValidCommit(branch, headCommit), "Commit %s doesn't exist in branch log.", headCommit);
-        
-        List<String> commits = readCommits(branch);
-        int headIndex = commits.indexOf(headCommit);
-        writeHeadInternal(branch, commits.get(Math.min(commits.size() - 1, headIndex + count)));
+        CommitTimeline timeline = openTimeline(branch);
+        int headPosition = readHeadPosition(branch, timeline);
+        int position = GitTravels.getIndexFromOffset(0, timeline.size() - 1, headPosition, offset);
+        writeHeadInternal(branch, position, timeline.get(position));
+    }
+
+    private int readHeadPosition(String branch, CommitTimeline timeline) throws IOException {
+        Head head = readHeadInternal(branch);
+        if (0 <= head.position && head.position < timeline.size() && ObjectId.isId(head.commit)
+                && timeline.matches(head.position, ObjectId.fromString(head.commit))) {
+            return head.position;
+        }
+
+        int position = ObjectId.isId(head.commit)
+                ? openIndex(branch, timeline).positionOf(ObjectId.fromString(head.commit))
+                : -1;
+        Preconditions.checkArgument(0 <= position, "Commit %s doesn't exist in branch log.", head.commit);
+        writeHeadInternal(branch, position, timeline.get(position));
+        return position;
+    }
+
+    /**
+     * head 파일을 읽는다.
+     *
+     * <p>
+     * head 파일은 {@code <position> <commit>} 한 줄로 기록된다. 이전 포맷은 커밋 해시만 기록되어 있으며
+     * 이때 position은 -1로 읽는다.
+     */
+    private Head readHeadInternal(String branch) throws IOException {
+        Path headFile = dataDir.resolve(branch).resolve(HEAD_FILENAME);
+        String line = Files.readAllLines(headFile).get(0).trim();
+        int separator = line.indexOf(' ');
+        if (separator < 0) {
+            return new Head(-1, line);
+        }
+        try {
+            return new Head(Integer.parseInt(line.substring(0, separator)), line.substring(separator + 1).trim());
+        } catch (NumberFormatException e) {
+            return new Head(-1, line.substring(separator + 1).trim());
+        }
     }
 
-    private void writeHeadInternal(String branch, String commit) throws IOException {
+    private void writeHeadInternal(String branch, int position, ObjectId commit) throws IOException {
         Path headFile = dataDir.resolve(branch).resolve(HEAD_FILENAME);
         if (!Files.isRegularFile(headFile)) {
             Files.createDirectories(headFile.getParent());
         }
-        Files.writeString(headFile, commit + System.lineSeparator());
+        writeHeadFile(headFile, position, commit);
+    }
+
+    private static void writeHeadFile(Path headFile, int position, ObjectId commit) throws IOException {
+        Path tempFile = headFile.resolveSibling(HEAD_FILENAME + ".tmp");
+        Files.writeString(tempFile, position + " " + commit.name() + System.lineSeparator());
+        Files.move(tempFile, headFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** {@code timeline}이 {@code branch}에 대해 캐시한 timeline이면 그 {@link OpenedTimeline}을, 아니면 null을 리턴한다. */
+    private OpenedTimeline openedTimeline(String branch, CommitTimeline timeline) {
+        OpenedTimeline opened = openedTimelines.get(branch);
+        return (null != opened && opened.timeline == timeline) ? opened : null;
+    }
+
+    /**
+     * 한 번 연 timeline과 index, metadata, adjacency 등의 sidecar 파일이다. daemon처럼 같은 TravelLogs 객체로 여러 커맨드를
+     * 수행할 때 다시 열지 않는다.
+     *
+     * <p>
+     * sidecar는 commits 파일이 바뀌지 않아도 다른 프로세스가 다시 기록할 수 있으므로(예: tag만 바뀐 뒤의 <em>init</em>)
+     * 각자 자기 파일의 {@link FileStamp}로 확인한다.
+     */
+    private static final class OpenedTimeline {
+        private final FileStamp stamp;
+        private final CommitTimeline timeline;
+        private volatile Sidecar<CommitIndex> index;
+        private volatile Sidecar<CommitMetadata> metadata;
+        private volatile Sidecar<CommitAdjacency> adjacency;
+        private volatile Sidecar<CommitPrefixIndex> prefixIndex;
+        private volatile Sidecar<CommitTimes> times;
+        private volatile Sidecar<CommitTags> tags;
+        private volatile Sidecar<ChangedPathFilters> pathFilters;
+        private volatile Sidecar<CommitTermIndex> termIndex;
+
+        private OpenedTimeline(FileStamp stamp, CommitTimeline timeline) {
+            this.stamp = stamp;
+            this.timeline = timeline;
+        }
+    }
+
+    /** 캐시한 sidecar와 읽을 때의 파일 상태 */
+    private static final class Sidecar<T> {
+        private final FileStamp stamp;
+        private final T value;
+
+        private Sidecar(FileStamp stamp, T value) {
+            this.stamp = stamp;
+            this.value = value;
+        }
+
+        /** 파일이 없었거나 {@code value}가 null이면 캐시하지 않도록 null을 리턴한다. */
+        private static <T> Sidecar<T> of(FileStamp stamp, T value) {
+            return (null == stamp || null == value) ? null : new Sidecar<>(stamp, value);
+        }
+
+        private boolean isCurrent(FileStamp current) {
+            return stamp.equals(current);
+        }
+    }
+
+    /**
+     * 파일 키와 수정 시간, 크기이다.
+     *
+     * <p>
+     * 로그 파일은 항상 새 파일로 교체되기 때문에 셋이 같으면 같은 내용으로 본다.
+     */
+    private static final class FileStamp {
+        private final Object fileKey;
+        private final FileTime lastModifiedTime;
+        private final long size;
+
+        private FileStamp(BasicFileAttributes attributes) {
+            this.fileKey = attributes.fileKey();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+        }
+
+        /** {@code file}의 상태, 파일이 없으면 null */
+        private static FileStamp read(Path file) throws IOException {
+            try {
+                return new FileStamp(Files.readAttributes(file, BasicFileAttributes.class));
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp stamp = (FileStamp) other;
+            return Objects.equals(fileKey, stamp.fileKey)
+                && lastModifiedTime.equals(stamp.lastModifiedTime)
+                && size == stamp.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, lastModifiedTime, size);
+        }
+    }
+
+    /** head 파일에 기록된 position과 커밋 해시 */
+    private static final class Head {
+        private final int position;
+        private final String commit;
+
+        private Head(int position, String commit) {
+            this.position = position;
+            this.commit = commit;
+        }
     }
 
     /**
@@ -300,6 +1354,86 @@ public class TravelLogs {
         Files.writeString(currentBranchFile, branch + System.lineSeparator());
     }
 
+    /**
+     * 미루어 둔 checkout을 리턴한다.
+     *
+     * @return 미루어 둔 checkout, 없으면 null
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    PendingCheckout readPendingCheckout() throws IOException {
+        Path pendingFile = dataDir.resolve(PENDING_CHECKOUT_FILENAME);
+        if (!Files.isRegularFile(pendingFile)) {
+            return null;
+        }
+        String[] commits = Files.readAllLines(pendingFile).get(0).trim().split(" ");
+        if (2 != commits.length || !ObjectId.isId(commits[0]) || !ObjectId.isId(commits[1])) {
+            return null;
+        }
+        return new PendingCheckout(ObjectId.fromString(commits[0]), ObjectId.fromString(commits[1]));
+    }
+
+    /**
+     * 작업 트리는 {@code checkedOut}에 둔 채 {@code target}으로 checkout을 미루었다고 기록한다.
+     *
+     * @param checkedOut 작업 트리에 checkout된 커밋
+     * @param target     git-travel이 HEAD로 보는 커밋
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void writePendingCheckout(AnyObjectId checkedOut, AnyObjectId target) throws IOException {
+        Path pendingFile = dataDir.resolve(PENDING_CHECKOUT_FILENAME);
+        Files.createDirectories(dataDir);
+        Path tempFile = pendingFile.resolveSibling(PENDING_CHECKOUT_FILENAME + ".tmp");
+        Files.writeString(tempFile, checkedOut.name() + " " + target.name() + System.lineSeparator());
+        Files.move(tempFile, pendingFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 미루어 둔 checkout 기록을 지운다.
+     *
+     * @throws IOException 내부적으로 {@code IOException}이 발생했을 때
+     */
+    void clearPendingCheckout() throws IOException {
+        Files.deleteIfExists(dataDir.resolve(PENDING_CHECKOUT_FILENAME));
+    }
+
+    /**
+     * {@code repository}의 worktree pool 디렉토리를 리턴한다. pool을 켠 적이 없으면 존재하지 않는다.
+     *
+     * <p>
+     * 프로젝트 상태 디렉토리는 프로젝트 디렉토리 이름으로 정해지므로, 이름이 같은 다른 저장소의 pool과 겹치지 않도록
+     * git 디렉토리의 canonical 경로를 SHA-256으로 hash한 앞 16자리를 디렉토리 이름으로 사용한다.
+     *
+     * @param repository worktree를 연결할 저장소
+     * @return worktree pool 디렉토리
+     * @throws IOException git 디렉토리의 canonical 경로를 구하지 못했을 때
+     */
+    Path worktreePoolDir(Repository repository) throws IOException {
+        String gitDir = repository.getDirectory().getCanonicalPath();
+        return dataDir.resolve(WORKTREES_DIRNAME)
+            .resolve(Hashing.sha256().hashString(gitDir, StandardCharsets.UTF_8).toString().substring(0, 16));
+    }
+
+    /** 작업 트리에 checkout된 커밋과 git-travel이 HEAD로 보는 커밋 */
+    static final class PendingCheckout {
+        private final ObjectId checkedOut;
+        private final ObjectId target;
+
+        private PendingCheckout(ObjectId checkedOut, ObjectId target) {
+            this.checkedOut = checkedOut;
+            this.target = target;
+        }
+
+        /** 작업 트리에 checkout된 커밋 */
+        ObjectId checkedOut() {
+            return checkedOut;
+        }
+
+        /** git-travel이 HEAD로 보는 커밋 */
+        ObjectId target() {
+            return target;
+        }
+    }
+
     private String constructNotInitalizedMessage(String branch) {
         return String.format("%s branch is not initalized.", branch);
     }
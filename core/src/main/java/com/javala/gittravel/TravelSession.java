@@ -0,0 +1,188 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Repository;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code TravelSession}은 git 프로젝트 하나에 대해 커맨드를 수행할 때 사용하는 자원을 묶은 클래스입니다.
+ *
+ * <p>
+ * 커맨드를 실행한 위치와 출력 스트림, 그리고 한 번 연 저장소({@link Repository})와 {@link TravelLogs}를 가지고 있습니다.
+ * 저장소와 {@link TravelLogs}는 처음 사용할 때 열며, {@link #withOutput}으로 만든 세션끼리 공유합니다.
+ * 그래서 daemon처럼 한 프로세스에서 여러 커맨드를 수행할 때 저장소를 다시 찾거나 열지 않습니다.
+ *
+ * <p>
+ * {@link #deferringCheckout()}로 만든 세션은 커밋으로 이동할 때 작업 트리를 바로 checkout하지 않고 git-travel의 head만
+ * 옮깁니다. 작업 트리는 {@link GitTravels#materialize}가 마지막 위치로 한 번만 checkout합니다.
+ *
+ * <p>
+ * 저장소는 commit-graph가 있으면 읽도록 설정합니다. 자세한 내용은 {@link CommitGraphFile}을 확인하시면 됩니다.
+ */
+final class TravelSession implements AutoCloseable {
+    private final Resources resources;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final boolean deferCheckout;
+
+    private TravelSession(Resources resources, PrintStream out, PrintStream err, boolean deferCheckout) {
+        this.resources = resources;
+        this.out = out;
+        this.err = err;
+        this.deferCheckout = deferCheckout;
+    }
+
+    /**
+     * {@code workingDir}에서 커맨드를 수행하는 세션을 생성합니다. 저장소는 처음 사용할 때 엽니다.
+     *
+     * @param workingDir 커맨드 실행 위치
+     * @param out        커맨드 출력 스트림
+     * @param err        커맨드 에러 출력 스트림
+     * @return 생성한 세션
+     */
+    static TravelSession open(File workingDir, PrintStream out, PrintStream err) {
+        return new TravelSession(new Resources(workingDir), out, err, false);
+    }
+
+    /**
+     * {@code workingDir}에서 커맨드를 수행하되 상태 디렉토리 대신 주어진 {@code travelLogs}를 사용하는 세션을 생성합니다.
+     *
+     * @param workingDir 커맨드 실행 위치
+     * @param travelLogs 세션이 사용할 {@link TravelLogs}
+     * @param out        커맨드 출력 스트림
+     * @param err        커맨드 에러 출력 스트림
+     * @return 생성한 세션
+     */
+    @VisibleForTesting
+    static TravelSession open(File workingDir, TravelLogs travelLogs, PrintStream out, PrintStream err) {
+        Resources resources = new Resources(workingDir);
+        resources.travelLogs = Preconditions.checkNotNull(travelLogs, "travelLogs cannot be null.");
+        return new TravelSession(resources, out, err, false);
+    }
+
+    /** 저장소와 {@link TravelLogs}를 공유하고 출력 스트림만 다른 세션을 반환합니다. */
+    TravelSession withOutput(PrintStream out, PrintStream err) {
+        return new TravelSession(resources, out, err, deferCheckout);
+    }
+
+    /** 저장소와 {@link TravelLogs}, 출력 스트림을 공유하고 checkout을 미루는 세션을 반환합니다. */
+    TravelSession deferringCheckout() {
+        return new TravelSession(resources, out, err, true);
+    }
+
+    /** 커밋으로 이동할 때 작업 트리의 checkout을 미루면 true */
+    boolean defersCheckout() {
+        return deferCheckout;
+    }
+
+    /** 커맨드 출력 스트림 */
+    PrintStream out() {
+        return out;
+    }
+
+    /** 커맨드 에러 출력 스트림 */
+    PrintStream err() {
+        return err;
+    }
+
+    /**
+     * 프로젝트 최상위 경로, <em>.git</em> 폴더가 있는 경로를 반환합니다.
+     *
+     * @throws IOException 실행 위치가 git 프로젝트가 아닐 때
+     */
+    File gitRootDir() throws IOException {
+        return resources.gitRootDir();
+    }
+
+    /**
+     * 프로젝트 이름, 최상위 경로의 디렉토리 이름을 반환합니다.
+     *
+     * @throws IOException 실행 위치가 git 프로젝트가 아닐 때
+     */
+    String projectName() throws IOException {
+        return gitRootDir().getName();
+    }
+
+    /**
+     * 세션이 공유하는 저장소를 반환합니다.
+     *
+     * @throws IOException 실행 위치가 git 프로젝트가 아니거나 저장소를 열 수 없을 때
+     */
+    Repository repository() throws IOException {
+        return resources.repository();
+    }
+
+    /**
+     * 세션의 저장소를 감싼 {@link Git}을 반환합니다. 반환한 {@link Git}을 닫아도 저장소는 닫히지 않습니다.
+     *
+     * @throws IOException 실행 위치가 git 프로젝트가 아니거나 저장소를 열 수 없을 때
+     */
+    Git git() throws IOException {
+        return Git.wrap(repository());
+    }
+
+    /**
+     * 프로젝트의 {@link TravelLogs}를 반환합니다.
+     *
+     * @throws IOException 실행 위치가 git 프로젝트가 아닐 때
+     * @throws TravelLogsException 시스템이 OS를 판별할 수 없을 때
+     */
+    TravelLogs travelLogs() throws IOException, TravelLogsException {
+        return resources.travelLogs();
+    }
+
+    /** 세션이 연 저장소를 닫습니다. {@link #withOutput}으로 만든 세션도 함께 닫힙니다. */
+    @Override
+    public void close() {
+        resources.close();
+    }
+
+    /** 세션끼리 공유하는 자원 */
+    private static final class Resources {
+        private final File workingDir;
+        private File gitRootDir;
+        private Repository repository;
+        private TravelLogs travelLogs;
+
+        private Resources(File workingDir) {
+            this.workingDir = workingDir;
+        }
+
+        synchronized File gitRootDir() throws IOException {
+            if (null == gitRootDir) {
+                gitRootDir = GitTravels.getGitRootDir(workingDir);
+            }
+            return gitRootDir;
+        }
+
+        synchronized Repository repository() throws IOException {
+            if (null == repository) {
+                repository = new FileRepository(new File(gitRootDir(), ".git"));
+            }
+            // 설정 파일이 바뀌면 다시 읽어 들이므로 매번 켭니다.
+            CommitGraphFile.enable(repository);
+            return repository;
+        }
+
+        synchronized TravelLogs travelLogs() throws IOException, TravelLogsException {
+            if (null == travelLogs) {
+                travelLogs = TravelLogs.create(gitRootDir().getName());
+            }
+            return travelLogs;
+        }
+
+        synchronized void close() {
+            if (null != repository) {
+                repository.close();
+                repository = null;
+            }
+        }
+    }
+}
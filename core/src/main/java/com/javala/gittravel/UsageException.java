@@ -13,10 +13,14 @@ final class UsageException extends Exception {
         "Usage : git-travel command [flag] [option]",
         "",
         "Command : ",
-        "1. init [<branch>] : The git-travel tool initializes the git log entries of <branch>. If <branch> is omitted, tool will initialize master branch or main if master is not present.",
-        "2. travel [-b] [<ncommits>] : move forward <ncommits> from HEAD. If -b flag is set, it will move backwards.",
-        "3. here : show the commit hash of HEAD.",
-        "4. move start|last|end|<commithash> : moves to start commit, last commit, or <commithash> of the initialized branch.",
+        "1. init [--commit-graph] [--first-parent] [<branch>] : The git-travel tool initializes the git log entries of <branch>. If <branch> is omitted, tool will initialize master branch or main if master is not present. --commit-graph writes or refreshes the repository commit-graph first. --first-parent also records the first-parent chain of <branch>.",
+        "2. travel [--first-parent] [--no-checkout] [-b] [--path <path> | --grep <query> | --author <query> | --committer <query>] [<ncommits> | --by <duration> | --tags [<ntags>]] | --parent <n> | --child [<n>] : move forward <ncommits> from HEAD. If -b flag is set, it will move backwards. --by steps by time (e.g. 1d, 2w, 12h) and --tags by tagged commits instead of commit count. --path <path> counts only commits that changed <path>. --grep, --author and --committer count only commits whose message, author or committer contains every word of <query>; separate alternatives with OR (e.g. \"JIRA-1234 OR hotfix\"). --first-parent moves along the first-parent chain only. --no-checkout moves only the git-travel HEAD and leaves the working tree for materialize. --parent <n> moves to the n-th parent of HEAD and --child [<n>] to a child of HEAD. travel [--first-parent] --each <from>..<to> [--jobs <n>] -- <command> [<args>] does not move HEAD but runs <command> in a pooled worktree at every commit of the range (e.g. end~199..end), up to <n> at a time, and prints the exit code and duration of each in log order.",
+        "3. here [--first-parent] [--window <n>] [--path <path>] : show the commit hash of HEAD with <n> commits on each side (default 2), their tags and the nearest tags. --path shows only commits that changed <path>.",
+        "4. move [--first-parent] [--no-checkout] start|last|end|<commithash>|--next-merge|--prev-merge|--date <iso>|--tag <name>|--next-touching <path>|--grep <query>|--author <query>|--committer <query> : moves to start commit, last commit, <commithash>, the nearest merge commit after or before HEAD, the last commit at or before <iso> (e.g. 2024-05-14T14:00), the commit tagged <name>, the nearest commit after HEAD that changed <path>, or the nearest commit after HEAD matching the message, author or committer <query> of the initialized branch.",
+        "5. daemon [stop] : run a resident git-travel process that serves commands over a local socket, or stop it. The daemon defers checkouts of travel and move and checks out the last target once it is idle.",
+        "6. materialize : check out the commit that travel --no-checkout or the daemon moved HEAD to.",
+        "7. batch [<file>] : run the commands of <file>, or of the standard input, one per line in one process, and print the exit code of each. It keeps going after a failed command and checks out once at the end like the daemon.",
+        "8. worktrees [<size> | off] : turn on a pool of up to <size> linked worktrees that travel and move check out into instead of the working tree, list the pool, or remove it with off.",
 
     };
 
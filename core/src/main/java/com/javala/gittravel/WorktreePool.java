@@ -0,0 +1,407 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.errors.CheckoutConflictException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FileUtils;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@code WorktreePool}은 git-travel이 관리하는 linked worktree들의 pool입니다.
+ *
+ * <p>
+ * pool을 켜면 travel과 move는 사용자의 작업 트리 대신 pool의 worktree에 checkout하므로 작업 트리와 IDE의 인덱스,
+ * 빌드 캐시는 그대로 남습니다. checkout할 때는 목적지와 tree 차이가 가장 적은 worktree를 골라 바뀐 파일만 씁니다.
+ * 새 worktree에 처음부터 checkout하는 편이 더 적게 쓰면, pool이 차지 않았을 때는 worktree를 새로 만들고 찼을 때는
+ * 가장 오래 사용하지 않은 worktree를 비워서 다시 씁니다. git-travel의 HEAD는 마지막으로 사용한 worktree의 커밋입니다.
+ *
+ * <p>
+ * worktree는 git의 linked worktree와 같은 구조로 만들어 git 명령으로도 그대로 사용할 수 있습니다. 공용 git 디렉토리의
+ * <em>worktrees/&lt;이름&gt;</em>에 HEAD와 index, commondir, gitdir을 두고 worktree의 <em>.git</em> 파일이 그 디렉토리를
+ * 가리킵니다. JGit은 linked worktree의 commondir을 읽지 못하기 때문에 공용 git 디렉토리와 worktree, index 파일로
+ * 저장소를 직접 구성해 checkout하고, 공용 HEAD를 건드리지 않도록 worktree의 HEAD는 파일에 직접 씁니다.
+ *
+ * <p>
+ * pool 디렉토리는 worktree들과 아래 형식의 <em>pool</em> 파일을 가집니다. 사용 순번은 worktree로 checkout할 때마다
+ * pool에서 가장 큰 값으로 바뀝니다.
+ *
+ * <pre>
+ * size &lt;최대 worktree 수&gt;
+ * &lt;worktree 이름&gt; &lt;사용 순번&gt;
+ * ...
+ * </pre>
+ */
+final class WorktreePool {
+    /** pool이 가질 수 있는 최대 worktree 수 */
+    static final int MAX_SIZE = 16;
+
+    /** <em>worktrees</em> 커맨드로 켠 pool의 worktree 이름 접두어 */
+    static final String NAME_PREFIX = "git-travel-";
+
+    private static final String POOL_FILENAME = "pool";
+
+    private final Path poolDir;
+    private final File commonDir;
+    private final String namePrefix;
+    private final List<Member> members;
+    private int size;
+
+    private WorktreePool(Path poolDir, File commonDir, String namePrefix, int size, List<Member> members) {
+        this.poolDir = poolDir;
+        this.commonDir = commonDir;
+        this.namePrefix = namePrefix;
+        this.size = size;
+        this.members = members;
+    }
+
+    /**
+     * {@code poolDir}의 pool을 엽니다.
+     *
+     * @param poolDir    pool 디렉토리
+     * @param repository worktree를 연결할 저장소
+     * @return pool, 켜져 있지 않으면 null
+     * @throws IOException pool 파일을 읽지 못했을 때
+     */
+    static WorktreePool open(Path poolDir, Repository repository) throws IOException {
+        return open(poolDir, NAME_PREFIX, repository);
+    }
+
+    private static WorktreePool open(Path poolDir, String namePrefix, Repository repository) throws IOException {
+        final Path poolFile = poolDir.resolve(POOL_FILENAME);
+        if (!Files.isRegularFile(poolFile)) {
+            return null;
+        }
+        int size = 0;
+        final List<Member> members = new ArrayList<>();
+        for (String line : Files.readAllLines(poolFile, StandardCharsets.UTF_8)) {
+            final String[] fields = line.trim().split(" ");
+            if (2 != fields.length) {
+                continue;
+            }
+            try {
+                if ("size".equals(fields[0])) {
+                    size = Integer.parseInt(fields[1]);
+                } else if (fields[0].startsWith(namePrefix)) {
+                    members.add(new Member(fields[0], Long.parseLong(fields[1])));
+                }
+            } catch (NumberFormatException e) {
+                // 손상된 줄은 무시합니다.
+            }
+        }
+        if (size < 1 || MAX_SIZE < size) {
+            return null;
+        }
+        return new WorktreePool(poolDir, repository.getDirectory(), namePrefix, size, members);
+    }
+
+    /**
+     * {@code poolDir}에 최대 {@code size}개의 worktree를 가지는 pool을 켭니다. 이미 켜져 있으면 크기만 바꾸며,
+     * 크기보다 많은 worktree는 오래 사용하지 않은 순서로 지웁니다.
+     *
+     * @param poolDir    pool 디렉토리
+     * @param repository worktree를 연결할 저장소
+     * @param size       최대 worktree 수
+     * @return pool
+     * @throws IOException pool 파일을 쓰지 못했을 때
+     */
+    static WorktreePool create(Path poolDir, Repository repository, int size) throws IOException {
+        return create(poolDir, NAME_PREFIX, repository, size);
+    }
+
+    /**
+     * {@link #create(Path, Repository, int)}와 같되, 한 저장소에 여러 pool을 둘 수 있도록 worktree 이름의 접두어를 정합니다.
+     *
+     * @param namePrefix 다른 pool과 겹치지 않는 worktree 이름 접두어
+     */
+    static WorktreePool create(Path poolDir, String namePrefix, Repository repository, int size) throws IOException {
+        Preconditions.checkArgument(0 < size && size <= MAX_SIZE, "size must be from 1 to %s.", MAX_SIZE);
+        WorktreePool pool = open(poolDir, namePrefix, repository);
+        if (null == pool) {
+            pool = new WorktreePool(poolDir, repository.getDirectory(), namePrefix, size, new ArrayList<>());
+        }
+        pool.size = size;
+        while (size < pool.members.size()) {
+            pool.delete(pool.leastRecentlyUsed());
+        }
+        pool.write();
+        return pool;
+    }
+
+    /** 최대 worktree 수 */
+    int size() {
+        return size;
+    }
+
+    /** 최근에 사용한 순서로 정렬한 worktree 목록 */
+    List<Member> members() {
+        final List<Member> sorted = new ArrayList<>(members);
+        sorted.sort(Comparator.comparingLong(Member::use).reversed());
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /** {@code member}의 worktree 경로 */
+    Path workTree(Member member) {
+        return poolDir.resolve(member.name()).toAbsolutePath();
+    }
+
+    /**
+     * git-travel의 HEAD로 볼 커밋, 즉 마지막으로 사용한 worktree의 커밋을 반환합니다.
+     *
+     * @param repository worktree를 연결한 저장소
+     * @return 마지막으로 사용한 worktree의 커밋, worktree가 없으면 null
+     * @throws IOException worktree의 HEAD를 읽지 못했을 때
+     */
+    ObjectId checkedOut(Repository repository) throws IOException {
+        final List<Member> sorted = members();
+        return sorted.isEmpty() ? null : commit(repository, sorted.get(0));
+    }
+
+    /**
+     * {@code member}의 worktree에 checkout된 커밋을 반환합니다.
+     *
+     * @return checkout된 커밋, 읽을 수 없으면 null
+     * @throws IOException worktree의 HEAD를 읽지 못했을 때
+     */
+    ObjectId commit(Repository repository, Member member) throws IOException {
+        final Path headFile = adminDir(member).resolve("HEAD");
+        if (!Files.isRegularFile(headFile)) {
+            return null;
+        }
+        final String head = Files.readString(headFile, StandardCharsets.UTF_8).trim();
+        if (head.startsWith("ref: ")) {
+            // git으로 worktree에서 브랜치를 checkout했으면 공용 저장소에서 브랜치를 읽습니다.
+            final Ref ref = repository.exactRef(head.substring("ref: ".length()));
+            return (null == ref) ? null : ref.getObjectId();
+        }
+        return ObjectId.isId(head) ? ObjectId.fromString(head) : null;
+    }
+
+    /**
+     * {@code commit}을 pool의 worktree에 checkout합니다.
+     *
+     * <p>
+     * 각 worktree의 커밋과 목적지의 tree 차이를 세어 가장 적은 worktree를 고르며, 같으면 오래 사용하지 않은 worktree를
+     * 고릅니다. 차이는 지금까지 찾은 가장 적은 값까지만 세므로 가까운 worktree가 있으면 나머지는 금방 끝납니다.
+     *
+     * @param repository worktree를 연결한 저장소
+     * @param commit     checkout할 커밋
+     * @return checkout한 worktree의 경로
+     * @throws IOException 커밋을 읽지 못했거나 worktree에 목적지와 충돌하는 변경 사항이 있을 때
+     */
+    Path checkout(Repository repository, AnyObjectId commit) throws IOException {
+        return checkout(repository, commit, Collections.emptySet(), false);
+    }
+
+    /**
+     * {@link #checkout(Repository, AnyObjectId)}와 같되, {@code busy}의 worktree는 고르거나 비우지 않습니다.
+     *
+     * <p>
+     * 다른 스레드가 사용하는 worktree를 피하기 위해 사용합니다. pool의 변경은 한 스레드에서만 해야 합니다.
+     * {@code force}이면 worktree의 추적 중인 파일에 남은 변경 사항을 버리고 목적지의 내용으로 되돌리므로, 목적지와
+     * tree가 같은 worktree도 다시 checkout합니다. git-travel만 사용하는 pool에서 사용합니다.
+     *
+     * @param busy  사용 중인 worktree 경로, pool의 크기보다 적어야 합니다.
+     * @param force 추적 중인 파일의 변경 사항을 버릴지 여부
+     */
+    Path checkout(Repository repository, AnyObjectId commit, Set<Path> busy, boolean force) throws IOException {
+        Preconditions.checkArgument(busy.size() < size, "Every worktree is busy.");
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevCommit target = walk.parseCommit(commit);
+            Member best = null;
+            RevTree bestTree = null;
+            long bestCost = Long.MAX_VALUE;
+            final List<Member> leastRecentlyUsedFirst = new ArrayList<>(members());
+            Collections.reverse(leastRecentlyUsedFirst);
+            leastRecentlyUsedFirst.removeIf(member -> busy.contains(workTree(member)));
+            for (Member member : leastRecentlyUsedFirst) {
+                final ObjectId checkedOut = commit(repository, member);
+                if (null == checkedOut) {
+                    continue;
+                }
+                final RevTree tree;
+                try {
+                    tree = walk.parseCommit(checkedOut).getTree();
+                } catch (MissingObjectException e) {
+                    continue;
+                }
+                final long cost = countChanges(repository, tree, target.getTree(), bestCost);
+                if (cost < bestCost) {
+                    best = member;
+                    bestTree = tree;
+                    bestCost = cost;
+                }
+            }
+
+            if (null == best || countChanges(repository, null, target.getTree(), bestCost) < bestCost) {
+                if (size <= members.size()) {
+                    delete(leastRecentlyUsedFirst.get(0));
+                }
+                best = new Member(newName(), 0);
+                // 실패한 checkout이 남긴 디렉토리가 있으면 지우고 시작합니다.
+                delete(best);
+                members.add(best);
+                bestTree = null;
+                bestCost = Long.MAX_VALUE;
+            }
+
+            if (force) {
+                checkout(repository, best, null, target);
+            } else if (0 != bestCost) {
+                checkout(repository, best, bestTree, target);
+            }
+            writeAtomically(adminDir(best).resolve("HEAD"), target.name());
+            best.use = nextUse();
+            write();
+            return workTree(best);
+        }
+    }
+
+    /**
+     * pool의 worktree를 모두 지우고 pool을 끕니다.
+     *
+     * @throws IOException worktree를 지우지 못했을 때
+     */
+    void remove() throws IOException {
+        for (Member member : new ArrayList<>(members)) {
+            delete(member);
+        }
+        Files.deleteIfExists(poolDir.resolve(POOL_FILENAME));
+        FileUtils.delete(poolDir.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+    }
+
+    /**
+     * {@code from} tree가 checkout된 {@code member}를 {@code target}으로 바꿉니다. {@code from}이 null이면 index와
+     * worktree를 {@code target}에 맞추며, 추적 중인 파일의 변경 사항은 버립니다.
+     */
+    private void checkout(Repository repository, Member member, RevTree from, RevCommit target) throws IOException {
+        final Path workTree = workTree(member);
+        final Path adminDir = adminDir(member);
+        Files.createDirectories(workTree);
+        Files.createDirectories(adminDir);
+        writeAtomically(workTree.resolve(".git"), "gitdir: " + adminDir.toAbsolutePath());
+        writeAtomically(adminDir.resolve("gitdir"), workTree.resolve(".git").toString());
+        writeAtomically(adminDir.resolve("commondir"), "../..");
+
+        try (Repository worktree = new FileRepositoryBuilder()
+                .setGitDir(commonDir)
+                .setWorkTree(workTree.toFile())
+                .setIndexFile(adminDir.resolve("index").toFile())
+                .setMustExist(true)
+                .build()) {
+            final DirCacheCheckout checkout = (null == from)
+                ? new DirCacheCheckout(worktree, worktree.lockDirCache(), target.getTree())
+                : new DirCacheCheckout(worktree, from, worktree.lockDirCache(), target.getTree());
+            checkout.setFailOnConflict(null != from);
+            checkout.checkout();
+        } catch (CheckoutConflictException e) {
+            throw new IOException(String.format("Worktree %s has local changes : %s", workTree, e.getMessage()), e);
+        }
+    }
+
+    /** {@code from}에서 {@code to}로 바뀌는 파일 수를 {@code limit}까지 셉니다. {@code from}이 null이면 빈 tree입니다. */
+    private static long countChanges(Repository repository, RevTree from, RevTree to, long limit) throws IOException {
+        try (TreeWalk walk = new TreeWalk(repository)) {
+            if (null == from) {
+                walk.addTree(new EmptyTreeIterator());
+            } else {
+                walk.addTree(from);
+            }
+            walk.addTree(to);
+            walk.setRecursive(true);
+            walk.setFilter(TreeFilter.ANY_DIFF);
+            long count = 0;
+            while (count < limit && walk.next()) {
+                ++count;
+            }
+            return count;
+        }
+    }
+
+    private Member leastRecentlyUsed() {
+        return members.stream().min(Comparator.comparingLong(Member::use)).get();
+    }
+
+    private long nextUse() {
+        return 1 + members.stream().mapToLong(Member::use).max().orElse(0);
+    }
+
+    private String newName() {
+        for (int i = 1; ; ++i) {
+            final String name = namePrefix + i;
+            if (members.stream().noneMatch(member -> member.name().equals(name))) {
+                return name;
+            }
+        }
+    }
+
+    /** {@code member}의 worktree와 공용 git 디렉토리의 관리 디렉토리를 지우고 pool에서 뺍니다. */
+    private void delete(Member member) throws IOException {
+        FileUtils.delete(workTree(member).toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        FileUtils.delete(adminDir(member).toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        members.remove(member);
+    }
+
+    private Path adminDir(Member member) {
+        return commonDir.toPath().resolve("worktrees").resolve(member.name());
+    }
+
+    private void write() throws IOException {
+        final StringBuilder out = new StringBuilder("size ").append(size);
+        for (Member member : members) {
+            out.append(System.lineSeparator()).append(member.name()).append(' ').append(member.use());
+        }
+        Files.createDirectories(poolDir);
+        writeAtomically(poolDir.resolve(POOL_FILENAME), out.toString());
+    }
+
+    private static void writeAtomically(Path file, String line) throws IOException {
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tempFile, line + System.lineSeparator(), StandardCharsets.UTF_8);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** pool의 worktree 하나 */
+    static final class Member {
+        private final String name;
+        private long use;
+
+        private Member(String name, long use) {
+            this.name = name;
+            this.use = use;
+        }
+
+        /** 공용 git 디렉토리의 <em>worktrees</em> 아래에서 쓰는 worktree 이름 */
+        String name() {
+            return name;
+        }
+
+        /** 마지막으로 checkout한 사용 순번, 클수록 최근에 사용했습니다. */
+        long use() {
+            return use;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.javala.gittravel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * <em>worktrees</em> 커맨드를 수행하는 클래스입니다.
+ *
+ * <p>
+ * {@link WorktreePool}을 켜거나 끄고, pool의 worktree 목록을 출력합니다. pool을 켜면 travel과 move는 사용자의 작업
+ * 트리를 건드리지 않고 pool의 worktree에 checkout합니다. 크기를 줄이면 오래 사용하지 않은 worktree부터 지우고,
+ * {@code off}는 pool의 worktree를 모두 지워 git-travel의 HEAD를 작업 트리로 되돌립니다.
+ *
+ * <p>
+ * 목록은 최근에 사용한 순서로 출력하며, git-travel의 HEAD인 worktree에 '*'를 표시합니다.
+ *
+ * <p>
+ * Usage) {@code worktrees [<size> | off]}
+ */
+final class WorktreesCommand extends Command {
+
+    /** worktrees 커맨드를 수행합니다. */
+    @Override
+    int exec(TravelSession session, CommandLineOptions parameters) throws GitAPIException {
+        try (Git git = session.git()) {
+            final TravelLogs travelLogs = session.travelLogs();
+            final Path poolDir = travelLogs.worktreePoolDir(git.getRepository());
+            WorktreePool pool = WorktreePool.open(poolDir, git.getRepository());
+            if (parameters.worktreePoolSize().isPresent()) {
+                final int size = parameters.worktreePoolSize().get();
+                if (0 == size) {
+                    if (null != pool) {
+                        pool.remove();
+                    }
+                    session.out().println("Worktree pool is off.");
+                    return 0;
+                }
+                pool = WorktreePool.create(poolDir, git.getRepository(), size);
+            }
+            if (null == pool) {
+                session.out().println("Worktree pool is off. Run 'worktrees <size>' to turn it on.");
+                return 0;
+            }
+            print(session, git, pool);
+        } catch (IOException | TravelLogsException e) {
+            session.err().println(e.getMessage());
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static void print(TravelSession session, Git git, WorktreePool pool) throws IOException {
+        final List<WorktreePool.Member> members = pool.members();
+        final StringBuilder out = new StringBuilder(String.format("Worktree pool : %d/%d worktrees",
+            members.size(), pool.size())).append(System.lineSeparator());
+        try (RevWalk walk = new RevWalk(git.getRepository())) {
+            for (WorktreePool.Member member : members) {
+                out.append(members.get(0) == member ? "* " : "  ").append(pool.workTree(member)).append(' ');
+                out.append(describe(walk, pool.commit(git.getRepository(), member))).append(System.lineSeparator());
+            }
+        }
+        session.out().print(out);
+        session.out().flush();
+    }
+
+    /** {@code commit}의 짧은 해시와 제목, 읽을 수 없으면 (unknown) */
+    private static String describe(RevWalk walk, ObjectId commit) throws IOException {
+        if (null == commit) {
+            return "(unknown)";
+        }
+        try {
+            return commit.name().substring(0, 6) + ' ' + walk.parseCommit(commit).getShortMessage();
+        } catch (MissingObjectException e) {
+            return "(unknown)";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link BatchCommand} Test */
+public class BatchCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(40).workTree(true));
+    }
+
+    @Test
+    public void runEveryLineAndCheckOutOnce() throws IOException, GitAPIException {
+        File file = folder.newFile("commands.txt");
+        Files.write(file.toPath(), Arrays.asList(
+            "init",
+            "# comment",
+            "move start",
+            "",
+            "travel 3",
+            "travel --grep 'no such words'",
+            "move unknown-ref",
+            "travel -b 1",
+            "daemon",
+            "here -w 0"), StandardCharsets.UTF_8);
+
+        TravelFixture.Result result = fixture.run("batch", file.toString());
+        assertEquals(1, result.exitCode);
+        String[] lines = result.lines();
+        assertEquals("[batch] 8 commands, 3 failed", lines[lines.length - 1]);
+        for (String status : new String[] { "1 exit 0", "3 exit 0", "5 exit 0", "6 exit 1", "7 exit 1", "8 exit 0",
+            "9 exit 1", "10 exit 0" }) {
+            assertTrue(status, result.out.contains("[batch] " + status + System.lineSeparator()));
+        }
+        assertTrue(result.err.contains("'daemon' cannot run in batch."));
+
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        assertEquals(2, fixture.headPosition());
+        assertEquals(timeline.get(2).name(), fixture.workTreeHead());
+        assertNull(fixture.travelLogs().readPendingCheckout());
+    }
+
+    @Test
+    public void readStandardInput() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("init").exitCode);
+        InputStream input = new ByteArrayInputStream("move end\ntravel -b \"2\"\n".getBytes(StandardCharsets.UTF_8));
+        TravelFixture.Result result = fixture.exec(new BatchCommand(input), "batch");
+        assertEquals(0, result.exitCode);
+        assertTrue(result.out.endsWith("[batch] 2 commands, 0 failed" + System.lineSeparator()));
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        assertEquals(timeline.get(timeline.size() - 3).name(), fixture.workTreeHead());
+
+        assertEquals(1, fixture.run("batch", folder.getRoot().toPath().resolve("missing").toString()).exitCode);
+    }
+
+    @Test
+    public void countFailedFinalCheckout() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        fixture.editChangedFile(timeline.get(0).name(), timeline.get(3).name());
+
+        InputStream input = new ByteArrayInputStream("travel 3\n".getBytes(StandardCharsets.UTF_8));
+        TravelFixture.Result result = fixture.exec(new BatchCommand(input), "batch");
+        assertEquals(1, result.exitCode);
+        String[] lines = result.lines();
+        assertEquals("[batch] materialize exit 1", lines[lines.length - 2]);
+        assertEquals("[batch] 1 commands, 1 failed", lines[lines.length - 1]);
+        assertTrue(result.err.startsWith("Failed to check out " + timeline.get(3).name().substring(0, 6)));
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+        assertNull(fixture.travelLogs().readPendingCheckout());
+    }
+
+    @Test
+    public void split() {
+        assertEquals(Arrays.asList("travel", "-b", "3"), BatchCommand.split("  travel\t-b 3 "));
+        assertEquals(Arrays.asList("travel", "--grep", "JIRA-1234 OR hotfix"),
+            BatchCommand.split("travel --grep \"JIRA-1234 OR hotfix\""));
+        assertEquals(Arrays.asList("move", "--author", "O'Brien \"x\""),
+            BatchCommand.split("move --author O\\'Brien' \"x\"'"));
+        assertEquals(Arrays.asList("a\"b\\c", ""), BatchCommand.split("\"a\\\"b\\\\c\" ''"));
+        for (String line : new String[] { "travel --grep 'fix", "travel \"fix\\\"", "travel \\" }) {
+            try {
+                BatchCommand.split(line);
+                fail(line);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
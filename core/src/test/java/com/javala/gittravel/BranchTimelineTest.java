@@ -0,0 +1,88 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>here</em>, <em>travel</em>, <em>move</em>가 탐색하는 {@link BranchTimeline} Test */
+public class BranchTimelineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(40).workTree(true));
+    }
+
+    @Test
+    public void navigateInitializedBranch() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("init").exitCode);
+        BranchTimeline timeline = load();
+        assertTrue(timeline.isInitialized());
+        assertEquals(fixture.repository().commits(), timeline.size());
+        int end = timeline.size() - 1;
+        assertEquals(end, timeline.headPosition(ObjectId.fromString(fixture.workTreeHead())));
+
+        assertNavigate(timeline, end);
+        assertEquals(end - 1, fixture.headPosition());
+    }
+
+    @Test
+    public void navigateUninitializedBranch() throws IOException, GitAPIException {
+        BranchTimeline timeline = load();
+        assertFalse(timeline.isInitialized());
+        assertEquals(fixture.repository().commits(), timeline.size());
+        int head = timeline.headPosition(ObjectId.fromString(fixture.workTreeHead()));
+        assertEquals(timeline.size() - 1, head);
+
+        assertNavigate(timeline, head);
+        assertFalse(fixture.travelLogs().isInitialized(SyntheticRepository.BRANCH));
+        assertFalse(fixture.travelLogs().existsCurrentBranch());
+    }
+
+    /** {@code head}에서 travel, here, move, travel 순서로 이동하며 작업 트리와 출력을 확인합니다. */
+    private void assertNavigate(BranchTimeline timeline, int head) throws IOException, GitAPIException {
+        int position = head - 5;
+        TravelFixture.Result result = fixture.run("travel", "-b", "5");
+        assertEquals(0, result.exitCode);
+        assertTrue(result.out.startsWith("Travel to : " + abbreviated(timeline, position)));
+        assertEquals(timeline.get(position).name(), fixture.workTreeHead());
+
+        String[] lines = fixture.run("here", "-w", "1").lines();
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith(abbreviated(timeline, position + 1)));
+        assertTrue(lines[1].startsWith(ConsoleColors.RED + abbreviated(timeline, position)));
+        assertTrue(lines[2].startsWith(abbreviated(timeline, position - 1)));
+
+        result = fixture.run("move", timeline.get(3).name());
+        assertEquals(0, result.exitCode);
+        assertTrue(result.out.startsWith("Move to : " + abbreviated(timeline, 3)));
+        assertEquals(timeline.get(3).name(), fixture.workTreeHead());
+
+        assertEquals(0, fixture.run("move", timeline.get(position).name()).exitCode);
+        assertEquals(0, fixture.run("travel", "4").exitCode);
+        assertEquals(timeline.get(position + 4).name(), fixture.workTreeHead());
+    }
+
+    private BranchTimeline load() throws IOException, GitAPIException {
+        try (TravelSession session =
+                TravelSession.open(fixture.repository().directory(), fixture.travelLogs(), System.out, System.err)) {
+            return BranchTimeline.load(session);
+        }
+    }
+
+    private static String abbreviated(BranchTimeline timeline, int position) {
+        return timeline.get(position).name().substring(0, 6);
+    }
+}
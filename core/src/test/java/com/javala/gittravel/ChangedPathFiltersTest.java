@@ -0,0 +1,110 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** {@link ChangedPathFilters} Test */
+public class ChangedPathFiltersTest {
+    private static Set<String> paths(String... paths) {
+        return new HashSet<>(Arrays.asList(paths));
+    }
+
+    @Test
+    public void filtersHaveNoFalseNegatives() {
+        Set<String> changed = new HashSet<>();
+        for (int i = 0; i < 200; ++i) {
+            changed.add("src/main/java/File" + i + ".java");
+        }
+        ChangedPathFilters filters = ChangedPathFilters.of(
+            RandomCommits.timeline(1, 1), new byte[][] { ChangedPathFilters.filterOf(changed) });
+        for (String path : changed) {
+            assertTrue(path, filters.mightContain(0, ChangedPathFilters.key(path)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; ++i) {
+            if (filters.mightContain(0, ChangedPathFilters.key("src/test/java/File" + i + ".java"))) {
+                ++falsePositives;
+            }
+        }
+        // 경로 하나에 10 bit, hash 7개이면 false positive 비율은 1% 정도이다.
+        assertTrue("false positives : " + falsePositives, falsePositives < 300);
+    }
+
+    @Test
+    public void emptyAndOversizedFilters() {
+        Set<String> many = new HashSet<>();
+        for (int i = 0; i <= ChangedPathFilters.MAX_CHANGED_PATHS; ++i) {
+            many.add("f" + i);
+        }
+        ChangedPathFilters filters = ChangedPathFilters.of(RandomCommits.timeline(2, 1), new byte[][] {
+            ChangedPathFilters.filterOf(Collections.emptySet()), ChangedPathFilters.filterOf(many) });
+
+        assertEquals(0, filters.filter(0).length);
+        assertFalse(filters.mightContain(0, ChangedPathFilters.key("f0")));
+        assertEquals(1, filters.filter(1).length);
+        assertTrue(filters.mightContain(1, ChangedPathFilters.key("anything")));
+    }
+
+    @Test
+    public void readWrittenFilters() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("blooms");
+        CommitTimeline timeline = RandomCommits.timeline(3, 1);
+        byte[][] written = {
+            ChangedPathFilters.filterOf(paths("a", "a/b.txt")),
+            ChangedPathFilters.filterOf(Collections.emptySet()),
+            ChangedPathFilters.filterOf(paths("c.txt")) };
+        ChangedPathFilters.build(file, timeline, written);
+
+        ChangedPathFilters filters = ChangedPathFilters.open(file, timeline);
+        assertNotNull(filters);
+        for (int position = 0; position < written.length; ++position) {
+            assertArrayEquals(written[position], filters.filter(position));
+        }
+        assertTrue(filters.mightContain(0, ChangedPathFilters.key("a")));
+        assertTrue(filters.mightContain(2, ChangedPathFilters.key("c.txt")));
+        assertNull(ChangedPathFilters.open(file, RandomCommits.timeline(3, 2)));
+    }
+
+    @Test
+    public void writeFiltersLargerThanBuffers() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("blooms");
+        CommitTimeline timeline = RandomCommits.timeline(20000, 1);
+        try (ChangedPathFilters.Writer writer = new ChangedPathFilters.Writer(file, timeline)) {
+            for (int position = 0; position < timeline.size(); ++position) {
+                writer.add(ChangedPathFilters.filterOf(paths("dir" + position, "dir" + position + "/file")));
+            }
+            writer.commit();
+        }
+
+        ChangedPathFilters filters = ChangedPathFilters.open(file, timeline);
+        assertNotNull(filters);
+        for (int position = 0; position < timeline.size(); ++position) {
+            assertTrue(filters.mightContain(position, ChangedPathFilters.key("dir" + position + "/file")));
+        }
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(Arrays.asList(file), files.collect(Collectors.toList()));
+        }
+    }
+}
@@ -41,6 +41,8 @@ public class CommandLineFlagsTest {
         Main.processArgs("init");
         Main.processArgs("init", "main");
         Main.processArgs("init", "master");
+        Main.processArgs("init", "--commit-graph");
+        Main.processArgs("init", "--commit-graph", "main");
 
         try {
             Main.processArgs("init", "main", "master");
@@ -48,6 +50,18 @@ public class CommandLineFlagsTest {
         } catch (UsageException e) {
             assertThat("", e.getMessage().contains("init"));
         }
+        try {
+            Main.processArgs("init", "--commit-graph", "main", "master");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("init"));
+        }
+        try {
+            Main.processArgs("travel", "--commit-graph");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("init"));
+        }
     }
 
     @Test
@@ -55,6 +69,21 @@ public class CommandLineFlagsTest {
         Main.processArgs("travel");
         Main.processArgs("travel", "12");
         Main.processArgs("travel", "-b", "1");
+        Main.processArgs("travel", "1", "-b");
+
+        try {
+            Main.processArgs("travel", "-5");
+            fail();
+        } catch(UsageException e) {
+            // expected
+        }
+
+        try {
+            Main.processArgs("travel", "--");
+            fail();
+        } catch(UsageException e) {
+            // expected
+        }
 
         try {
             Main.processArgs("travel", "asdf");
@@ -132,9 +161,206 @@ public class CommandLineFlagsTest {
         }
     }
 
+    @Test
+    public void dagNavigation() throws UsageException {
+        Main.processArgs("travel", "--parent", "2");
+        Main.processArgs("travel", "--child");
+        Main.processArgs("travel", "--child", "1");
+        Main.processArgs("move", "--next-merge");
+        Main.processArgs("move", "--prev-merge");
+
+        String[][] invalids = {
+            { "travel", "--parent", "1", "--child" },
+            { "travel", "-b", "--parent", "1" },
+            { "travel", "--parent", "2", "5" },
+            { "move", "--next-merge", "x" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void timeTravel() throws UsageException {
+        Main.processArgs("travel", "--by", "1d");
+        Main.processArgs("travel", "-b", "--by", "1w");
+        Main.processArgs("move", "--date", "2024-05-14");
+
+        String[][] invalids = {
+            { "travel", "--by", "1d", "3" },
+            { "travel", "--by", "1d", "--parent", "1" },
+            { "move", "--date", "2024-05-14", "start" },
+            { "move", "--date" },
+            { "here", "--by", "1d" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void tags() throws UsageException {
+        Main.processArgs("travel", "--tags");
+        Main.processArgs("travel", "--tags", "2");
+        Main.processArgs("travel", "-b", "--tags", "2");
+        Main.processArgs("move", "--tag", "v1.0");
+
+        String[][] invalids = {
+            { "travel", "--tags", "2", "3" },
+            { "travel", "--tags", "--by", "1d" },
+            { "move", "--tag" },
+            { "move", "--tag", "v1.0", "start" },
+            { "here", "--tags" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void paths() throws UsageException {
+        Main.processArgs("travel", "--path", "src");
+        Main.processArgs("travel", "--path", "src", "2");
+        Main.processArgs("travel", "-b", "3", "--path", "src");
+        Main.processArgs("here", "--path", "src", "--window", "1");
+        Main.processArgs("move", "--next-touching", "src");
+
+        String[][] invalids = {
+            { "travel", "--path", "src", "2", "3" },
+            { "travel", "--path", "src", "0" },
+            { "travel", "--path", "src", "--tags" },
+            { "travel", "--path", "src", "--parent", "1" },
+            { "here", "--path", "src", "1" },
+            { "move", "--next-touching" },
+            { "move", "--next-touching", "src", "start" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void queries() throws UsageException {
+        Main.processArgs("travel", "--grep", "fix");
+        Main.processArgs("travel", "-b", "--author", "alice", "2");
+        Main.processArgs("travel", "--grep", "fix", "--committer", "bob", "--first-parent");
+        Main.processArgs("move", "--grep", "JIRA-1234");
+        Main.processArgs("move", "--author", "alice", "--grep", "fix OR bug");
+
+        String[][] invalids = {
+            { "travel", "--grep", "fix", "0" },
+            { "travel", "--grep", "fix", "--path", "src" },
+            { "travel", "--author", "alice", "--by", "1d" },
+            { "travel", "--author", "alice", "--child" },
+            { "move", "--grep", "fix", "start" },
+            { "move", "-b", "--grep", "fix" },
+            { "move", "--grep" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void noCheckout() throws UsageException {
+        Main.processArgs("travel", "--no-checkout");
+        Main.processArgs("travel", "-b", "3", "--no-checkout");
+        Main.processArgs("move", "--no-checkout", "end");
+        Main.processArgs("move", "--no-checkout", "--grep", "fix");
+        Main.processArgs("materialize");
+
+        String[][] invalids = {
+            { "move", "--no-checkout" },
+            { "materialize", "now" },
+            { "materialize", "-b" },
+            { "materialize", "--first-parent" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void each() throws UsageException {
+        Main.processArgs("travel", "--each", "start..end", "--", "true");
+        Main.processArgs("travel", "--first-parent", "--each", "HEAD~9..HEAD", "--jobs", "3", "--", "make", "-j", "4");
+        Main.processArgs("travel", "--each", "abc1234..end", "--", "travel", "--each");
+
+        String[][] invalids = {
+            { "travel", "--each", "start..end" },
+            { "travel", "--each", "start..end", "--" },
+            { "travel", "--", "true" },
+            { "travel", "--jobs", "2", "--", "true" },
+            { "travel", "-b", "--each", "start..end", "--", "true" },
+            { "travel", "--each", "start..end", "3", "--", "true" },
+            { "travel", "--each", "start..end", "--no-checkout", "--", "true" },
+            { "travel", "--each", "start..end", "--jobs", "16", "--", "true" },
+            { "travel", "--each", "start...end", "--", "true" },
+            { "here", "--", "true" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void batch() throws UsageException {
+        Main.processArgs("batch");
+        Main.processArgs("batch", "commands.txt");
+
+        String[][] invalids = {
+            { "batch", "a.txt", "b.txt" },
+            { "batch", "-b" },
+        };
+        for (String[] args : invalids) {
+            try {
+                Main.processArgs(args);
+                fail(String.join(" ", args));
+            } catch (UsageException e) {
+                // expected
+            }
+        }
+    }
+
     @Test
     public void hereCommand() throws UsageException {
         Main.processArgs("here");
+        Main.processArgs("here", "--window", "10");
         try {
             Main.processArgs("here", "1");
             fail();
@@ -147,6 +373,65 @@ public class CommandLineFlagsTest {
         } catch (UsageException e) {
             assertThat("", e.getMessage().contains("here"));
         }
+        try {
+            Main.processArgs("here", "--window");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("here"));
+        }
+        try {
+            Main.processArgs("travel", "--window", "3");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("travel"));
+        }
+    }
+
+    @Test
+    public void firstParent() throws UsageException {
+        Main.processArgs("init", "--first-parent");
+        Main.processArgs("init", "--commit-graph", "--first-parent", "main");
+        Main.processArgs("travel", "--first-parent");
+        Main.processArgs("travel", "--first-parent", "3");
+        Main.processArgs("travel", "-b", "--first-parent", "3");
+        Main.processArgs("here", "--first-parent", "--window", "3");
+        Main.processArgs("move", "--first-parent", "start");
+
+        try {
+            Main.processArgs("init", "--first-parent", "main", "master");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("init"));
+        }
+        try {
+            Main.processArgs("move", "--first-parent");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("move"));
+        }
+        try {
+            Main.processArgs("daemon", "--first-parent");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("daemon"));
+        }
+    }
+
+    @Test
+    public void daemonCommand() throws UsageException {
+        Main.processArgs("daemon");
+        Main.processArgs("daemon", "stop");
+        try {
+            Main.processArgs("daemon", "start");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("daemon"));
+        }
+        try {
+            Main.processArgs("daemon", "stop", "now");
+            fail();
+        } catch (UsageException e) {
+            assertThat("", e.getMessage().contains("daemon"));
+        }
     }
-    
 }
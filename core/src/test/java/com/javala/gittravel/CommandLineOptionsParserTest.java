@@ -3,7 +3,15 @@ package com.javala.gittravel;
 import com.google.common.collect.ImmutableList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -50,12 +58,188 @@ public class CommandLineOptionsParserTest {
         assertEquals(CommandType.HERE, CommandLineOptionsParser.parse(Arrays.asList("here")).commandType());
     }
 
+    @Test
+    public void hereWindow() {
+        assertEquals(2, CommandLineOptionsParser.parse(Arrays.asList("here")).hereWindow());
+        assertEquals(5, CommandLineOptionsParser.parse(Arrays.asList("here", "--window", "5")).hereWindow());
+        assertEquals(0, CommandLineOptionsParser.parse(Arrays.asList("here", "-w", "0")).hereWindow());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hereWindowMustNotBeNegative() {
+        CommandLineOptionsParser.parse(Arrays.asList("here", "--window", "-1"));
+    }
+
     @Test
     public void travel() {
         assertEquals(CommandType.TRAVEL, CommandLineOptionsParser.parse(Arrays.asList("travel")).commandType());
         assertEquals(CommandType.TRAVEL, CommandLineOptionsParser.parse(Arrays.asList("Travel")).commandType());
     }
 
+    @Test
+    public void daemon() {
+        assertEquals(CommandType.DAEMON, CommandLineOptionsParser.parse(Arrays.asList("daemon")).commandType());
+        assertEquals(false, CommandLineOptionsParser.parse(Arrays.asList("daemon")).daemonStop());
+        assertEquals(true, CommandLineOptionsParser.parse(Arrays.asList("daemon", "stop")).daemonStop());
+        assertEquals(false, CommandLineOptionsParser.parse(Arrays.asList("here")).daemonStop());
+    }
+
+    @Test
+    public void commitGraph() {
+        assertEquals(false, CommandLineOptionsParser.parse(Arrays.asList("init")).commitGraph());
+        assertEquals(true, CommandLineOptionsParser.parse(Arrays.asList("init", "--commit-graph")).commitGraph());
+        assertEquals(Optional.of("main"),
+            CommandLineOptionsParser.parse(Arrays.asList("init", "--commit-graph", "main")).branchName());
+    }
+
+    @Test
+    public void firstParent() {
+        assertEquals(false, CommandLineOptionsParser.parse(Arrays.asList("travel")).firstParent());
+        for (String command : new String[] { "init", "travel", "here", "move" }) {
+            assertEquals(true, CommandLineOptionsParser.parse(Arrays.asList(command, "--first-parent")).firstParent());
+        }
+        assertEquals(3, CommandLineOptionsParser.parse(Arrays.asList("travel", "--first-parent", "3")).travelCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void firstParentRequiresCommand() {
+        CommandLineOptionsParser.parse(Arrays.asList("daemon", "--first-parent"));
+    }
+
+    @Test
+    public void dagNavigation() {
+        CommandLineOptions options = CommandLineOptionsParser.parse(Arrays.asList("travel", "--parent", "2"));
+        assertEquals(Optional.of(2), options.travelParent());
+        assertEquals(Optional.empty(), options.travelChild());
+        assertEquals(Optional.of(0), CommandLineOptionsParser.parse(Arrays.asList("travel", "--child")).travelChild());
+        assertEquals(Optional.of(3), CommandLineOptionsParser.parse(Arrays.asList("travel", "--child", "3")).travelChild());
+        assertEquals(true, CommandLineOptionsParser.parse(Arrays.asList("move", "--next-merge")).moveNextMerge());
+        assertEquals(true, CommandLineOptionsParser.parse(Arrays.asList("move", "--prev-merge")).movePrevMerge());
+        assertEquals(false, CommandLineOptionsParser.parse(Arrays.asList("move", "start")).moveNextMerge());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parentInTravelOnly() {
+        CommandLineOptionsParser.parse(Arrays.asList("move", "--parent", "1"));
+    }
+
+    @Test
+    public void timeTravel() {
+        assertEquals(Optional.of(Duration.ofDays(1)),
+            CommandLineOptionsParser.parse(Arrays.asList("travel", "--by", "1d")).travelBy());
+        assertEquals(Optional.of(Duration.ofDays(14).plusHours(12)),
+            CommandLineOptionsParser.parse(Arrays.asList("travel", "-b", "--by", "2W12h")).travelBy());
+        assertEquals(Optional.of(Instant.parse("2024-05-14T05:00:00Z")),
+            CommandLineOptionsParser.parse(Arrays.asList("move", "--date", "2024-05-14T14:00+09:00")).moveDate());
+        assertEquals(Optional.of(LocalDate.of(2024, 5, 14).atStartOfDay(ZoneId.systemDefault()).toInstant()),
+            CommandLineOptionsParser.parse(Arrays.asList("move", "--date", "2024-05-14")).moveDate());
+        assertEquals(Optional.of(LocalDateTime.of(2024, 5, 14, 14, 0).atZone(ZoneId.systemDefault()).toInstant()),
+            CommandLineOptionsParser.parse(Arrays.asList("move", "--date", "2024-05-14 14:00")).moveDate());
+
+        for (String duration : new String[] { "1", "d", "0d", "1y", "1d2", "-1d" }) {
+            try {
+                CommandLineOptionsParser.parse(Arrays.asList("travel", "--by", duration));
+                fail(duration);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDate() {
+        CommandLineOptionsParser.parse(Arrays.asList("move", "--date", "last tuesday"));
+    }
+
+    @Test
+    public void tags() {
+        assertEquals(Optional.of(1), CommandLineOptionsParser.parse(Arrays.asList("travel", "--tags")).travelTags());
+        assertEquals(Optional.of(3), CommandLineOptionsParser.parse(Arrays.asList("travel", "-b", "--tags", "3")).travelTags());
+        assertEquals(Optional.of("v1.2.3"), CommandLineOptionsParser.parse(Arrays.asList("move", "--tag", "v1.2.3")).moveTag());
+        assertEquals(Optional.empty(), CommandLineOptionsParser.parse(Arrays.asList("move", "v1.2.3")).moveTag());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tagInMoveOnly() {
+        CommandLineOptionsParser.parse(Arrays.asList("travel", "--tag", "v1"));
+    }
+
+    @Test
+    public void paths() {
+        assertEquals(Optional.of("src/foo"), CommandLineOptionsParser.parse(Arrays.asList("travel", "--path", "src/foo/")).path());
+        assertEquals(Optional.of("src/foo"), CommandLineOptionsParser.parse(Arrays.asList("here", "--path", "./src/foo")).path());
+        assertEquals(Optional.of("a.txt"), CommandLineOptionsParser.parse(Arrays.asList("move", "--next-touching", "/a.txt")).moveNextTouching());
+        assertEquals(Optional.empty(), CommandLineOptionsParser.parse(Arrays.asList("travel", "2")).path());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPath() {
+        CommandLineOptionsParser.parse(Arrays.asList("travel", "--path", "./"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pathNotInMove() {
+        CommandLineOptionsParser.parse(Arrays.asList("move", "--path", "src"));
+    }
+
+    @Test
+    public void queries() {
+        CommandLineOptions options = CommandLineOptionsParser.parse(
+            Arrays.asList("travel", "--grep", "JIRA-1234 OR hotfix", "--author", "alice"));
+        assertEquals(Optional.of("JIRA-1234 OR hotfix"), options.grep());
+        assertEquals(Optional.of("alice"), options.author());
+        assertEquals(Optional.empty(), options.committer());
+        assertEquals(Optional.of("bob"), CommandLineOptionsParser.parse(Arrays.asList("move", "--committer", "bob")).committer());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyQuery() {
+        CommandLineOptionsParser.parse(Arrays.asList("move", "--grep", "fix OR --"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queryNotInHere() {
+        CommandLineOptionsParser.parse(Arrays.asList("here", "--author", "alice"));
+    }
+
+    @Test
+    public void noCheckout() {
+        assertTrue(CommandLineOptionsParser.parse(Arrays.asList("travel", "--no-checkout", "2")).noCheckout());
+        assertTrue(CommandLineOptionsParser.parse(Arrays.asList("move", "start", "--no-checkout")).noCheckout());
+        assertFalse(CommandLineOptionsParser.parse(Arrays.asList("travel", "2")).noCheckout());
+        assertEquals(CommandType.MATERIALIZE, CommandLineOptionsParser.parse(Arrays.asList("materialize")).commandType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noCheckoutNotInHere() {
+        CommandLineOptionsParser.parse(Arrays.asList("here", "--no-checkout"));
+    }
+
+    @Test
+    public void each() {
+        CommandLineOptions options = CommandLineOptionsParser.parse(Arrays.asList(
+            "travel", "--each", "end~9..end", "-j", "4", "--", "./test.sh", "--first-parent", "-b", "--"));
+        assertEquals(Optional.of("end~9..end"), options.travelEach());
+        assertEquals(Optional.of(4), options.eachJobs());
+        assertEquals(Arrays.asList("./test.sh", "--first-parent", "-b", "--"), options.eachCommand());
+        assertFalse(options.firstParent());
+        assertFalse(options.travelBack());
+        assertTrue(CommandLineOptionsParser.parse(Arrays.asList("travel", "2")).eachCommand().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void eachRequiresRange() {
+        CommandLineOptionsParser.parse(Arrays.asList("travel", "--each", "end", "--", "true"));
+    }
+
+    @Test
+    public void batch() {
+        CommandLineOptions options = CommandLineOptionsParser.parse(Arrays.asList("batch", "commands.txt"));
+        assertEquals(CommandType.BATCH, options.commandType());
+        assertEquals(Optional.of("commands.txt"), options.batchFile());
+        assertEquals(Optional.empty(), CommandLineOptionsParser.parse(Arrays.asList("batch")).batchFile());
+    }
+
     @Test
     public void setBranchNameInitOnly() {
         assertEquals(Optional.empty(), CommandLineOptionsParser.parse(Arrays.asList("init")).branchName());
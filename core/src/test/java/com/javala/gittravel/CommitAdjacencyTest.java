@@ -0,0 +1,106 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/** {@link CommitAdjacency} Test */
+public class CommitAdjacencyTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 0 <- 1 <- 2 <- 4 (merge 2, 3)
+    //       \-- 3 -/
+    // 5는 로그에 없는 부모와 4를 부모로 가진다.
+    private static final int[] PARENT_OFFSETS = { 0, 0, 1, 2, 3, 5, 7 };
+    private static final int[] PARENTS = { 0, 1, 1, 2, 3, -1, 4 };
+
+    private static void assertAdjacency(CommitAdjacency adjacency) {
+        assertEquals(6, adjacency.size());
+        assertEquals(0, adjacency.parentCount(0));
+        assertEquals(2, adjacency.parentCount(4));
+        assertEquals(2, adjacency.parent(4, 0));
+        assertEquals(3, adjacency.parent(4, 1));
+        assertEquals(2, adjacency.parentCount(5));
+        assertEquals(-1, adjacency.parent(5, 0));
+
+        assertEquals(1, adjacency.childCount(0));
+        assertEquals(2, adjacency.childCount(1));
+        assertEquals(2, adjacency.child(1, 0));
+        assertEquals(3, adjacency.child(1, 1));
+        assertEquals(4, adjacency.child(3, 0));
+        assertEquals(0, adjacency.childCount(5));
+    }
+
+    @Test
+    public void childrenAreBuiltFromParents() {
+        assertAdjacency(CommitAdjacency.of(RandomCommits.timeline(6, 1), PARENT_OFFSETS, PARENTS));
+    }
+
+    @Test
+    public void readWrittenAdjacency() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("adjacency");
+        CommitTimeline timeline = RandomCommits.timeline(6, 1);
+        CommitAdjacency.build(file, timeline, PARENT_OFFSETS, PARENTS);
+
+        CommitAdjacency adjacency = CommitAdjacency.open(file, timeline);
+        assertNotNull(adjacency);
+        assertAdjacency(adjacency);
+        assertNull(CommitAdjacency.open(file, RandomCommits.timeline(6, 2)));
+        assertNull(CommitAdjacency.open(file.resolveSibling("missing"), timeline));
+    }
+
+    @Test
+    public void writeMappedAdjacency() throws IOException {
+        Path file = folder.newFolder().toPath().resolve("adjacency");
+        CommitTimeline timeline = RandomCommits.timeline(6, 1);
+        try (CommitAdjacency.Writer writer = new CommitAdjacency.Writer(file, timeline, PARENTS.length, 6)) {
+            for (int position = 5; position >= 0; --position) {
+                writer.add(Arrays.copyOfRange(PARENTS, PARENT_OFFSETS[position], PARENT_OFFSETS[position + 1]));
+            }
+            assertAdjacency(writer.commit());
+        }
+        assertAdjacency(CommitAdjacency.open(file, timeline));
+        assertFalse(Files.exists(file.resolveSibling("adjacency.tmp")));
+    }
+
+    @Test
+    public void uncommittedWriterLeavesNoFile() throws IOException {
+        Path file = folder.newFolder().toPath().resolve("adjacency");
+        try (CommitAdjacency.Writer writer =
+                new CommitAdjacency.Writer(file, RandomCommits.timeline(6, 1), PARENTS.length, 6)) {
+            writer.add(new int[] { -1, 4 });
+        }
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(file.resolveSibling("adjacency.tmp")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writerRequiresEveryCommit() throws IOException {
+        Path file = folder.newFolder().toPath().resolve("adjacency");
+        try (CommitAdjacency.Writer writer =
+                new CommitAdjacency.Writer(file, RandomCommits.timeline(6, 1), PARENTS.length, 6)) {
+            writer.add(new int[] { -1, 4 });
+            writer.commit();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parentsMustBeInTimeline() {
+        CommitAdjacency.of(RandomCommits.timeline(2, 1), new int[] { 0, 0, 1 }, new int[] { 2 });
+    }
+}
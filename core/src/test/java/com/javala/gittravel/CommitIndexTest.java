@@ -0,0 +1,64 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/** {@link CommitIndex} Test */
+public class CommitIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void positionOf() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        assertPositionOf(Files.createDirectories(memoryFileSystem.getPath("/branch")));
+    }
+
+    @Test
+    public void positionOfMappedIndex() throws IOException {
+        // mmap을 지원하는 파일 시스템에서는 인덱스를 파일에서 바로 채운다.
+        assertPositionOf(folder.newFolder().toPath());
+    }
+
+    private static void assertPositionOf(Path dir) throws IOException {
+        List<ObjectId> commits = RandomCommits.list(5000, 1);
+        CommitTimeline.write(dir.resolve("commits"), commits);
+        CommitTimeline timeline = CommitTimeline.open(dir.resolve("commits"));
+
+        CommitIndex built = CommitIndex.build(dir.resolve("index"), timeline);
+        CommitIndex opened = CommitIndex.open(dir.resolve("index"), timeline);
+        assertNotNull(opened);
+        for (int position = 0; position < commits.size(); ++position) {
+            assertEquals(position, built.positionOf(commits.get(position)));
+            assertEquals(position, opened.positionOf(commits.get(position)));
+        }
+        for (ObjectId missing : RandomCommits.list(100, 2)) {
+            assertEquals(-1, opened.positionOf(missing));
+        }
+    }
+
+    @Test
+    public void staleIndexIsNotOpened() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        CommitTimeline.write(dir.resolve("commits"), RandomCommits.list(10, 1));
+        CommitIndex.build(dir.resolve("index"), CommitTimeline.open(dir.resolve("commits")));
+
+        CommitTimeline.write(dir.resolve("commits"), RandomCommits.list(10, 3));
+        assertNull(CommitIndex.open(dir.resolve("index"), CommitTimeline.open(dir.resolve("commits"))));
+    }
+}
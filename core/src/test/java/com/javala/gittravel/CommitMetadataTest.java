@@ -0,0 +1,125 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/** {@link CommitMetadata} Test */
+public class CommitMetadataTest {
+    private static final String[] AUTHORS = {
+        "Alice <alice@example.com>", "밥 <bob@example.com>", "Carol <carol@example.com>"
+    };
+
+    private static CommitMetadata.Entry entry(int position) {
+        return new CommitMetadata.Entry(1_600_000_000 + position, AUTHORS[position % AUTHORS.length],
+            (position % 7 == 0) ? "" : "커밋 " + position);
+    }
+
+    private static CommitTimeline writeTimeline(Path dir, List<ObjectId> commits) throws IOException {
+        CommitTimeline.write(dir.resolve("commits"), commits);
+        return CommitTimeline.open(dir.resolve("commits"));
+    }
+
+    private static void writeMetadata(Path dir, CommitTimeline timeline) throws IOException {
+        try (CommitMetadata.Writer writer = new CommitMetadata.Writer(dir.resolve("metadata"))) {
+            for (int position = 0; position < timeline.size(); ++position) {
+                writer.add(entry(position));
+            }
+            writer.commit(timeline);
+        }
+    }
+
+    @Test
+    public void readWrittenMetadata() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        CommitTimeline timeline = writeTimeline(dir, RandomCommits.list(10000, 1));
+        writeMetadata(dir, timeline);
+
+        CommitMetadata metadata = CommitMetadata.open(dir.resolve("metadata"), timeline);
+        assertNotNull(metadata);
+        assertEquals(timeline.size(), metadata.size());
+        for (int position = 0; position < timeline.size(); ++position) {
+            CommitMetadata.Entry expected = entry(position);
+            assertEquals(expected.commitTime(), metadata.commitTime(position));
+            assertEquals(expected.author(), metadata.author(position));
+            assertEquals(expected.subject(), metadata.subject(position));
+        }
+
+        // 같은 author는 string table에 한 번만 기록된다.
+        long expectedSize = CommitMetadata.HEADER_SIZE + (long) timeline.size() * CommitMetadata.RECORD_SIZE
+            + 4 * (AUTHORS.length + 1);
+        for (int position = 0; position < timeline.size(); ++position) {
+            expectedSize += entry(position).subject().getBytes(StandardCharsets.UTF_8).length;
+        }
+        for (String author : AUTHORS) {
+            expectedSize += author.getBytes(StandardCharsets.UTF_8).length;
+        }
+        assertEquals(expectedSize, Files.size(dir.resolve("metadata")));
+        assertFalse(Files.exists(dir.resolve("metadata.subjects.tmp")));
+    }
+
+    @Test
+    public void staleMetadataIsNotOpened() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        writeMetadata(dir, writeTimeline(dir, RandomCommits.list(10, 1)));
+
+        assertNull(CommitMetadata.open(dir.resolve("metadata"), writeTimeline(dir, RandomCommits.list(10, 3))));
+        assertNull(CommitMetadata.open(dir.resolve("missing"), writeTimeline(dir, RandomCommits.list(10, 3))));
+    }
+
+    @Test
+    public void addAllCopiesRanges() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        List<ObjectId> commits = RandomCommits.list(100, 1);
+        CommitTimeline timeline = writeTimeline(dir, commits);
+        writeMetadata(dir, timeline);
+        CommitMetadata source = CommitMetadata.open(dir.resolve("metadata"), timeline);
+
+        Path copyDir = Files.createDirectories(memoryFileSystem.getPath("/copy"));
+        List<ObjectId> kept = new ArrayList<>(commits.subList(0, 40));
+        kept.addAll(commits.subList(60, 100));
+        CommitTimeline copyTimeline = writeTimeline(copyDir, kept);
+        try (CommitMetadata.Writer writer = new CommitMetadata.Writer(copyDir.resolve("metadata"))) {
+            writer.addAll(source, 0, 40);
+            writer.addAll(source, 60, 100);
+            writer.commit(copyTimeline);
+        }
+
+        CommitMetadata copy = CommitMetadata.open(copyDir.resolve("metadata"), copyTimeline);
+        assertNotNull(copy);
+        for (int position = 0; position < kept.size(); ++position) {
+            int sourcePosition = (position < 40) ? position : position + 20;
+            assertEquals(source.commitTime(sourcePosition), copy.commitTime(position));
+            assertEquals(source.author(sourcePosition), copy.author(position));
+            assertEquals(source.subject(sourcePosition), copy.subject(position));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void commitRequiresTimelineSize() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        CommitTimeline timeline = writeTimeline(dir, RandomCommits.list(10, 1));
+        try (CommitMetadata.Writer writer = new CommitMetadata.Writer(dir.resolve("metadata"))) {
+            writer.add(entry(0));
+            writer.commit(timeline);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/** {@link CommitPrefixIndex} Test */
+public class CommitPrefixIndexTest {
+    @Test
+    public void lookupMatchesEveryPrefixLength() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        List<ObjectId> commits = RandomCommits.list(5000, 1);
+        CommitTimeline.write(dir.resolve("commits"), commits);
+        CommitTimeline timeline = CommitTimeline.open(dir.resolve("commits"));
+
+        CommitPrefixIndex.build(dir.resolve("prefixes"), timeline);
+        CommitPrefixIndex index = CommitPrefixIndex.open(dir.resolve("prefixes"), timeline);
+        assertNotNull(index);
+        for (int position = 0; position < commits.size(); position += 7) {
+            String name = commits.get(position).name();
+            for (int length = CommitPrefixIndex.MIN_PREFIX_LENGTH; length <= name.length(); ++length) {
+                String prefix = name.substring(0, length);
+                int[] expected = commits.stream()
+                    .filter(commit -> commit.name().startsWith(prefix))
+                    .sorted()
+                    .mapToInt(commits::indexOf)
+                    .toArray();
+                assertArrayEquals(prefix, expected, index.lookup(prefix));
+            }
+        }
+        assertEquals(0, index.lookup("0000000000").length);
+    }
+
+    @Test
+    public void ambiguousPrefixReturnsCandidatesInHashOrder() {
+        List<ObjectId> commits = Arrays.asList(
+            ObjectId.fromString("abcd900000000000000000000000000000000000"),
+            ObjectId.fromString("abcd000000000000000000000000000000000001"),
+            ObjectId.fromString("abce000000000000000000000000000000000000"),
+            ObjectId.fromString("abcd000000000000000000000000000000000000"));
+        CommitPrefixIndex index = CommitPrefixIndex.of(CommitTimeline.of(commits));
+
+        assertArrayEquals(new int[] { 3, 1, 0 }, index.lookup("abcd"));
+        assertArrayEquals(new int[] { 3, 1 }, index.lookup("ABCD0"));
+        assertArrayEquals(new int[] { 0 }, index.lookup("abcd9"));
+        assertArrayEquals(new int[] { 2 }, index.lookup("abce"));
+        assertArrayEquals(new int[0], index.lookup("abcf"));
+    }
+
+    @Test
+    public void isPrefix() {
+        assertTrue(CommitPrefixIndex.isPrefix("abcd"));
+        assertTrue(CommitPrefixIndex.isPrefix("ABCDEF0123"));
+        assertFalse(CommitPrefixIndex.isPrefix("abc"));
+        assertFalse(CommitPrefixIndex.isPrefix("main"));
+        assertFalse(CommitPrefixIndex.isPrefix("abcd000000000000000000000000000000000000a"));
+    }
+
+    @Test
+    public void staleIndexIsNotOpened() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        CommitTimeline.write(dir.resolve("commits"), RandomCommits.list(10, 1));
+        CommitPrefixIndex.build(dir.resolve("prefixes"), CommitTimeline.open(dir.resolve("commits")));
+
+        CommitTimeline.write(dir.resolve("commits"), RandomCommits.list(10, 3));
+        assertNull(CommitPrefixIndex.open(dir.resolve("prefixes"), CommitTimeline.open(dir.resolve("commits"))));
+    }
+}
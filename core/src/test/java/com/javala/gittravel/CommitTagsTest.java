@@ -0,0 +1,65 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** {@link CommitTags} Test */
+public class CommitTagsTest {
+    private static final List<CommitTags.Entry> TAGS = Arrays.asList(
+        new CommitTags.Entry("v2.0", 40),
+        new CommitTags.Entry("v1.1-rc", 20),
+        new CommitTags.Entry("v1.0", 10),
+        new CommitTags.Entry("v1.1", 20),
+        new CommitTags.Entry("릴리스", 45));
+
+    private static void assertTags(CommitTags tags) {
+        assertEquals(5, tags.size());
+        assertEquals("v1.0", tags.name(0));
+        assertEquals("v1.1", tags.name(1));
+        assertEquals("v1.1-rc", tags.name(2));
+        assertEquals("릴리스", tags.name(4));
+        assertEquals(20, tags.find("v1.1-rc"));
+        assertEquals(-1, tags.find("v3.0"));
+
+        assertEquals(0, tags.ceiling(0));
+        assertEquals(0, tags.ceiling(10));
+        assertEquals(1, tags.ceiling(11));
+        assertEquals(3, tags.ceiling(21));
+        assertEquals(5, tags.ceiling(46));
+    }
+
+    @Test
+    public void tagsAreSortedByPosition() {
+        assertTags(CommitTags.of(RandomCommits.timeline(50, 1), TAGS));
+        assertEquals(0, CommitTags.of(RandomCommits.timeline(50, 1), Collections.emptyList()).size());
+    }
+
+    @Test
+    public void readWrittenTags() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("tags");
+        CommitTimeline timeline = RandomCommits.timeline(50, 1);
+        CommitTags.build(file, timeline, TAGS);
+
+        CommitTags tags = CommitTags.open(file, timeline);
+        assertNotNull(tags);
+        assertTags(tags);
+        assertNull(CommitTags.open(file, RandomCommits.timeline(50, 2)));
+
+        CommitTags.build(file, timeline, Collections.emptyList());
+        assertEquals(0, CommitTags.open(file, timeline).size());
+    }
+}
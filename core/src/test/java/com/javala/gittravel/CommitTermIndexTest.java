@@ -0,0 +1,143 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** {@link CommitTermIndex} Test */
+public class CommitTermIndexTest {
+    private static final PersonIdent ALICE = new PersonIdent("Alice Kim", "alice@example.com");
+    private static final PersonIdent BOB = new PersonIdent("Bob", "bob@example.com");
+
+    private static CommitTermIndex.Builder builder() throws IOException {
+        return addCommits(new CommitTermIndex.Builder());
+    }
+
+    private static CommitTermIndex.Builder addCommits(CommitTermIndex.Builder builder) throws IOException {
+        builder.addCommit(0, "Initial commit", ALICE, ALICE);
+        builder.addCommit(1, "Fix JIRA-1234 crash\n\nThe crash happened on startup.", BOB, ALICE);
+        builder.addCommit(2, "Hotfix for login\n\nRefs JIRA-1234", ALICE, BOB);
+        builder.addCommit(3, "Refactor parser", BOB, BOB);
+        return builder;
+    }
+
+    @Test
+    public void tokenize() {
+        assertEquals(Arrays.asList("fix", "jira", "1234", "crash"), CommitTermIndex.tokenize("Fix JIRA-1234: crash!"));
+        assertEquals(Arrays.asList("한글", "커밋"), CommitTermIndex.tokenize("한글 커밋"));
+        assertEquals(Arrays.asList("a"), CommitTermIndex.tokenize("a " + new String(new char[65]).replace('\0', 'x')));
+        assertTrue(CommitTermIndex.tokenize(" -- ").isEmpty());
+
+        assertTrue(CommitTermIndex.isQuery("JIRA-1234 OR hotfix"));
+        assertFalse(CommitTermIndex.isQuery("fix OR"));
+        assertFalse(CommitTermIndex.isQuery("--"));
+    }
+
+    @Test
+    public void matchWordsAndAlternatives() throws IOException {
+        CommitTermIndex index = CommitTermIndex.of(RandomCommits.timeline(4, 1), builder());
+
+        assertArrayEquals(new int[] { 1, 2 }, index.match(CommitTermIndex.Field.MESSAGE, "jira-1234"));
+        assertArrayEquals(new int[] { 1 }, index.match(CommitTermIndex.Field.MESSAGE, "crash JIRA"));
+        assertArrayEquals(new int[] { 1, 3 }, index.match(CommitTermIndex.Field.MESSAGE, "crash OR parser"));
+        assertArrayEquals(new int[] {}, index.match(CommitTermIndex.Field.MESSAGE, "alice"));
+        assertArrayEquals(new int[] { 0, 2 }, index.match(CommitTermIndex.Field.AUTHOR, "alice"));
+        assertArrayEquals(new int[] { 0, 1 }, index.match(CommitTermIndex.Field.COMMITTER, "alice@example.com"));
+
+        CommitTermIndex.Query query = new CommitTermIndex.Query("jira", "alice", null);
+        assertArrayEquals(new int[] { 2 }, query.match(index));
+        assertEquals("--grep 'jira' --author 'alice'", query.toString());
+    }
+
+    @Test
+    public void matchJoinedWordsOnlyWhereJoined() throws IOException {
+        CommitTermIndex.Builder builder = addCommits(new CommitTermIndex.Builder());
+        builder.addCommit(4, "JIRA-77: trim 1234 bytes", ALICE, ALICE);
+        builder.addCommit(5, "Revert fix(jira_1234)", BOB, BOB);
+        CommitTermIndex index = CommitTermIndex.of(RandomCommits.timeline(6, 1), builder);
+
+        assertArrayEquals(new int[] { 1, 2, 5 }, index.match(CommitTermIndex.Field.MESSAGE, "JIRA-1234"));
+        assertArrayEquals(new int[] { 1, 2, 4, 5 }, index.match(CommitTermIndex.Field.MESSAGE, "JIRA 1234"));
+        assertArrayEquals(new int[] { 5 }, index.match(CommitTermIndex.Field.MESSAGE, "fix(JIRA-1234)"));
+        assertArrayEquals(new int[] {}, index.match(CommitTermIndex.Field.MESSAGE, "77-trim"));
+        assertArrayEquals(new int[] { 0, 2, 4 }, index.match(CommitTermIndex.Field.AUTHOR, "alice@example.com"));
+    }
+
+    @Test
+    public void mapReversedPositions() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("terms");
+        CommitTimeline timeline = RandomCommits.timeline(4, 1);
+        CommitTermIndex expected = CommitTermIndex.of(timeline, builder());
+
+        // 로그를 기록하는 순서와 같이 가장 최근 커밋부터 받는다.
+        CommitTermIndex index;
+        try (CommitTermIndex.Builder builder = new CommitTermIndex.Builder(file, 5, true)) {
+            builder.addCommit(0, "Refactor parser", BOB, BOB);
+            builder.addCommit(1, "Hotfix for login\n\nRefs JIRA-1234", ALICE, BOB);
+            builder.addCommit(2, "Fix JIRA-1234 crash\n\nThe crash happened on startup.", BOB, ALICE);
+            builder.addCommit(3, "Initial commit", ALICE, ALICE);
+            index = CommitTermIndex.build(file, timeline, builder);
+        }
+        assertEquals(expected.size(), index.size());
+        for (CommitTermIndex.Field field : CommitTermIndex.Field.values()) {
+            for (String query : Arrays.asList("jira-1234", "crash OR parser", "alice", "bob@example.com")) {
+                assertArrayEquals(field + " " + query, expected.match(field, query), index.match(field, query));
+            }
+        }
+    }
+
+    @Test
+    public void readWrittenIndex() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("terms");
+        CommitTimeline timeline = RandomCommits.timeline(4, 1);
+        CommitTermIndex written = CommitTermIndex.build(file, timeline, builder());
+
+        CommitTermIndex index = CommitTermIndex.open(file, timeline);
+        assertNotNull(index);
+        assertEquals(written.size(), index.size());
+        assertArrayEquals(new int[] { 1, 2 }, index.lookup(CommitTermIndex.Field.MESSAGE, "1234"));
+        assertArrayEquals(new int[] { 1, 3 }, index.lookup(CommitTermIndex.Field.AUTHOR, "bob"));
+        assertArrayEquals(new int[] {}, index.lookup(CommitTermIndex.Field.AUTHOR, "carol"));
+        assertNull(CommitTermIndex.open(file, RandomCommits.timeline(4, 2)));
+    }
+
+    @Test
+    public void mergeSpilledRuns() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path file = Files.createDirectories(memoryFileSystem.getPath("/branch")).resolve("terms");
+        CommitTimeline timeline = RandomCommits.timeline(4, 1);
+        CommitTermIndex expected = CommitTermIndex.of(timeline, builder());
+
+        CommitTermIndex index;
+        try (CommitTermIndex.Builder builder = addCommits(new CommitTermIndex.Builder(file, 5))) {
+            index = CommitTermIndex.build(file, timeline, builder);
+        }
+        assertEquals(expected.size(), index.size());
+        for (CommitTermIndex.Field field : CommitTermIndex.Field.values()) {
+            for (String query : Arrays.asList("jira", "crash OR parser", "alice", "bob@example.com", "carol")) {
+                assertArrayEquals(field + " " + query, expected.match(field, query), index.match(field, query));
+            }
+        }
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(Arrays.asList(file), files.collect(Collectors.toList()));
+        }
+    }
+}
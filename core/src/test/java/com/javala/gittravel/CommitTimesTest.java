@@ -0,0 +1,59 @@
+package com.javala.gittravel;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** {@link CommitTimes} Test */
+public class CommitTimesTest {
+    @Test
+    public void floorToleratesUnorderedTimes() {
+        // position 2는 merge된 오래된 커밋, position 4는 시계가 앞선 커밋이다.
+        CommitTimes times = CommitTimes.of(RandomCommits.timeline(6, 1), new long[] { 100, 200, 150, 300, 900, 400 });
+
+        assertEquals(150, times.time(2));
+        assertEquals(400, times.time(5));
+        assertEquals(-1, times.floor(99));
+        assertEquals(0, times.floor(100));
+        assertEquals(0, times.floor(149));
+        assertEquals(2, times.floor(150));
+        assertEquals(2, times.floor(299));
+        assertEquals(3, times.floor(399));
+        assertEquals(5, times.floor(400));
+        assertEquals(5, times.floor(Long.MAX_VALUE));
+
+        assertEquals(3, times.floor(400, 5));
+        assertEquals(2, times.floor(199, 4));
+        assertEquals(-1, times.floor(99, 3));
+        assertEquals(-1, times.floor(Long.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void readWrittenTimes() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dir = Files.createDirectories(memoryFileSystem.getPath("/branch"));
+        CommitTimeline timeline = RandomCommits.timeline(3, 1);
+        try (CommitMetadata.Writer writer = new CommitMetadata.Writer(dir.resolve("metadata"))) {
+            writer.add(new CommitMetadata.Entry(30, "a <a@localhost>", "first"));
+            writer.add(new CommitMetadata.Entry(10, "a <a@localhost>", "second"));
+            writer.add(new CommitMetadata.Entry(40, "a <a@localhost>", "third"));
+            writer.commit(timeline);
+        }
+        CommitTimes.build(dir.resolve("times"), timeline, CommitMetadata.open(dir.resolve("metadata"), timeline));
+
+        CommitTimes times = CommitTimes.open(dir.resolve("times"), timeline);
+        assertNotNull(times);
+        assertEquals(10, times.time(1));
+        assertEquals(1, times.floor(39));
+        assertNull(CommitTimes.open(dir.resolve("times"), RandomCommits.timeline(3, 2)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>travel --parent</em>, <em>travel --child</em>, <em>move --next-merge</em>, <em>move --prev-merge</em> Test */
+public class DagNavigationTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder,
+            SyntheticRepository.builder().commits(120).branches(2, 4).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void travelToParentsAndBackToChild() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "--prev-merge").exitCode);
+        RevCommit merge = head();
+        assertEquals(2, merge.getParentCount());
+
+        assertEquals(0, fixture.run("travel", "--parent", "2").exitCode);
+        assertEquals(merge.getParent(1), head());
+        // 곁가지의 끝 커밋은 merge 커밋만 자식으로 가진다.
+        assertEquals(0, fixture.run("travel", "--child").exitCode);
+        assertEquals(merge, head());
+
+        assertEquals(0, fixture.run("travel", "--parent", "1").exitCode);
+        assertEquals(merge.getParent(0), head());
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        CommitAdjacency adjacency = fixture.travelLogs().openAdjacency(SyntheticRepository.BRANCH, timeline);
+        int parentPosition = fixture.travelLogs().openIndex(SyntheticRepository.BRANCH, timeline).positionOf(head());
+        int child = 0;
+        while (!timeline.get(adjacency.child(parentPosition, child)).equals(merge)) {
+            ++child;
+        }
+        assertEquals(0, fixture.run("travel", "--child", String.valueOf(child + 1)).exitCode);
+        assertEquals(merge, head());
+
+        assertEquals(1, fixture.run("travel", "--parent", "3").exitCode);
+    }
+
+    @Test
+    public void moveToMergesInLogOrder() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        assertEquals(1, fixture.run("move", "--prev-merge").exitCode);
+
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        int first = 0;
+        try (Repository git = fixture.repository().open(); RevWalk walk = new RevWalk(git)) {
+            while (walk.parseCommit(timeline.get(first)).getParentCount() < 2) {
+                ++first;
+            }
+        }
+        assertEquals(0, fixture.run("move", "--next-merge").exitCode);
+        assertEquals(timeline.get(first), head());
+        assertEquals(first, fixture.headPosition());
+        assertTrue(fixture.run("move", "--next-merge").out.startsWith("Move to : "));
+    }
+
+    private RevCommit head() throws IOException {
+        try (Repository git = fixture.repository().open(); RevWalk walk = new RevWalk(git)) {
+            ObjectId head = git.resolve(Constants.HEAD);
+            return walk.parseCommit(head);
+        }
+    }
+}
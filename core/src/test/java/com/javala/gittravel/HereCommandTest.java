@@ -0,0 +1,57 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link HereCommand} Test */
+public class HereCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(40).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void hereShowsWindowAroundHead() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("travel", "-b", "20").exitCode);
+
+        String[] lines = fixture.run("here", "--window", "3").lines();
+        assertEquals(7, lines.length);
+        assertTrue(lines[3].startsWith(ConsoleColors.RED));
+        for (int i = 0; i < lines.length; ++i) {
+            assertEquals(i == 3, lines[i].contains(ConsoleColors.RED));
+        }
+    }
+
+    @Test
+    public void hereClampsWindowAtTimelineEnds() throws IOException, GitAPIException {
+        String[] lines = fixture.run("here").lines();
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith(ConsoleColors.RED));
+
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        lines = fixture.run("here", "-w", "100").lines();
+        assertEquals(fixture.repository().commits(), lines.length);
+        assertTrue(lines[lines.length - 1].startsWith(ConsoleColors.RED));
+    }
+
+    @Test
+    public void hereFirstParentRequiresInit() throws IOException, GitAPIException {
+        assertEquals(1, fixture.run("here", "--first-parent").exitCode);
+        assertEquals(0, fixture.run("init", "--first-parent").exitCode);
+        assertEquals(3, fixture.run("here", "--first-parent").lines().length);
+    }
+}
@@ -0,0 +1,226 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link InitCommand} Test */
+public class InitCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void initRecordsEveryReachableCommit() throws IOException, GitAPIException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(500).branches(2, 5).workTree(true).cacheDir(folder.newFolder().toPath()).build();
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        try (TravelSession session = TravelSession.open(repository.directory(), travelLogs, discard, discard)) {
+            assertEquals(0, new InitCommand().exec(session, CommandLineOptionsParser.parse(Arrays.asList("init"))));
+        }
+
+        CommitTimeline timeline = travelLogs.openTimeline(SyntheticRepository.BRANCH);
+        assertEquals(repository.commits(), timeline.size());
+        assertEquals(repository.tip(), timeline.get(timeline.size() - 1));
+        assertEquals(SyntheticRepository.BRANCH, travelLogs.readCurrentBranch());
+
+        CommitMetadata metadata = travelLogs.openMetadata(SyntheticRepository.BRANCH, timeline);
+        assertNotNull(metadata);
+        try (Repository git = repository.open(); RevWalk walk = new RevWalk(git)) {
+            for (int position : new int[] { 0, timeline.size() / 2, timeline.size() - 1 }) {
+                RevCommit commit = walk.parseCommit(timeline.get(position));
+                assertEquals(commit.getShortMessage(), metadata.subject(position));
+                assertEquals(commit.getCommitTime(), metadata.commitTime(position));
+                assertEquals(CommitMetadata.Entry.of(commit).author(), metadata.author(position));
+            }
+        }
+    }
+
+    @Test
+    public void initWritesCommitGraph() throws IOException, GitAPIException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(200).branches(2, 5).workTree(true).cacheDir(folder.newFolder().toPath()).build();
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        try (TravelSession session = TravelSession.open(
+                repository.directory(), travelLogs, new PrintStream(out, true), discard)) {
+            CommandLineOptions options = CommandLineOptionsParser.parse(Arrays.asList("init", "--commit-graph"));
+            assertEquals(0, new InitCommand().exec(session, options));
+            assertEquals(0, new InitCommand().exec(session, options));
+
+            try (ObjectReader reader = session.repository().newObjectReader()) {
+                CommitGraph graph = reader.getCommitGraph().get();
+                assertEquals(repository.commits(), graph.getCommitCnt());
+                assertTrue(graph.findGraphPosition(repository.tip()) >= 0);
+            }
+        }
+        assertArrayEquals(new String[] { "Wrote commit-graph.", "commit-graph is up to date." },
+            out.toString().split(System.lineSeparator()));
+        assertEquals(repository.commits(), travelLogs.openTimeline(SyntheticRepository.BRANCH).size());
+    }
+
+    @Test
+    public void initFirstParentRecordsMainline() throws IOException, GitAPIException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(300).branches(3, 5).workTree(true).cacheDir(folder.newFolder().toPath()).build();
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        String log = TravelLogs.firstParentLog(SyntheticRepository.BRANCH);
+        try (TravelSession session = TravelSession.open(repository.directory(), travelLogs, discard, discard)) {
+            CommandLineOptions options = CommandLineOptionsParser.parse(Arrays.asList("init", "--first-parent"));
+            assertEquals(0, new InitCommand().exec(session, options));
+            assertEquals(firstParentChain(session.repository(), repository.tip()), travelLogs.readCommits(log));
+            assertEquals(repository.commits(), travelLogs.openTimeline(SyntheticRepository.BRANCH).size());
+
+            RevCommit added;
+            try (Git git = session.git()) {
+                added = git.commit().setAllowEmpty(true).setSign(false).setMessage("New commit").call();
+            }
+            assertEquals(0, new InitCommand().exec(session, options));
+            List<String> chain = firstParentChain(session.repository(), added);
+            assertEquals(chain, travelLogs.readCommits(log));
+            CommitTimeline timeline = travelLogs.openTimeline(log);
+            assertEquals("New commit", travelLogs.openMetadata(log, timeline).subject(timeline.size() - 1));
+
+            options = CommandLineOptionsParser.parse(Arrays.asList("travel", "--first-parent", "-b", "3"));
+            assertEquals(0, new TravelCommand().exec(session, options));
+            try (Git git = session.git()) {
+                assertEquals(chain.get(3), GitTravels.getHeadCommitHash(git).get());
+            }
+            assertEquals(chain.get(3), travelLogs.readHead(log));
+            assertEquals(repository.tip().name(), travelLogs.readHead(SyntheticRepository.BRANCH));
+        }
+    }
+
+    /** {@code tip}에서 첫 번째 부모만 따라간 커밋, 최신 순 */
+    private static List<String> firstParentChain(Repository repository, ObjectId tip) throws IOException {
+        List<String> chain = new ArrayList<String>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(tip);
+            chain.add(commit.name());
+            while (0 < commit.getParentCount()) {
+                commit = walk.parseCommit(commit.getParent(0));
+                chain.add(commit.name());
+            }
+        }
+        return chain;
+    }
+
+    @Test
+    public void reinitAppendsMetadataOfNewCommits() throws IOException, GitAPIException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(50).workTree(true).cacheDir(folder.newFolder().toPath()).build();
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        try (TravelSession session = TravelSession.open(repository.directory(), travelLogs, discard, discard)) {
+            assertEquals(0, new InitCommand().exec(session, CommandLineOptionsParser.parse(Arrays.asList("init"))));
+            try (Git git = session.git()) {
+                git.commit().setAllowEmpty(true).setSign(false).setMessage("New commit\n\nbody").call();
+            }
+            assertEquals(0, new InitCommand().exec(session, CommandLineOptionsParser.parse(Arrays.asList("init"))));
+        }
+
+        CommitTimeline timeline = travelLogs.openTimeline(SyntheticRepository.BRANCH);
+        CommitMetadata metadata = travelLogs.openMetadata(SyntheticRepository.BRANCH, timeline);
+        assertEquals(repository.commits() + 1, timeline.size());
+        assertNotNull(metadata);
+        assertEquals("New commit", metadata.subject(timeline.size() - 1));
+        try (Repository git = repository.open(); RevWalk walk = new RevWalk(git)) {
+            assertEquals(walk.parseCommit(timeline.get(10)).getShortMessage(), metadata.subject(10));
+            CommitAdjacency adjacency = travelLogs.openAdjacency(SyntheticRepository.BRANCH, timeline);
+            assertNotNull(adjacency);
+            for (int position = 1; position < timeline.size(); ++position) {
+                RevCommit commit = walk.parseCommit(timeline.get(position));
+                assertEquals(commit.getParentCount(), adjacency.parentCount(position));
+                assertEquals(commit.getParent(0), timeline.get(adjacency.parent(position, 0)));
+                assertEquals(1, adjacency.childCount(position - 1));
+            }
+        }
+    }
+
+    @Test
+    public void reinitAfterOldMergeMatchesFreshInit() throws IOException, GitAPIException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(50).workTree(true).cacheDir(folder.newFolder().toPath()).build();
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        TravelLogs freshLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        CommandLineOptions init = CommandLineOptionsParser.parse(Arrays.asList("init"));
+        try (TravelSession session = TravelSession.open(repository.directory(), travelLogs, discard, discard)) {
+            assertEquals(0, new InitCommand().exec(session, init));
+            CommitTimeline timeline = travelLogs.openTimeline(SyntheticRepository.BRANCH);
+            CommitMetadata metadata = travelLogs.openMetadata(SyntheticRepository.BRANCH, timeline);
+
+            // position 10에서 갈라진 곁가지의 커밋은 position 20과 같은 시간에 만들어졌다.
+            Repository git = session.repository();
+            ObjectId side = insertCommit(git, "Side commit", metadata.commitTime(20), timeline.get(10));
+            ObjectId merge = insertCommit(git, "Merge side", metadata.commitTime(49) + 1, repository.tip(), side);
+            RefUpdate update = git.updateRef("refs/heads/" + SyntheticRepository.BRANCH);
+            update.setNewObjectId(merge);
+            assertEquals(RefUpdate.Result.FORCED, update.forceUpdate());
+
+            assertEquals(0, new InitCommand().exec(session, init));
+        }
+        try (TravelSession session = TravelSession.open(repository.directory(), freshLogs, discard, discard)) {
+            assertEquals(0, new InitCommand().exec(session, init));
+        }
+
+        List<String> commits = travelLogs.readCommits(SyntheticRepository.BRANCH);
+        assertEquals(freshLogs.readCommits(SyntheticRepository.BRANCH), commits);
+        assertEquals(repository.commits() + 2, commits.size());
+        // 다시 기록해도 head는 보고 있던 이전 끝 커밋에 남고, position은 새로 기록한 로그를 따른다.
+        CommitTimeline timeline = travelLogs.openTimeline(SyntheticRepository.BRANCH);
+        assertEquals(repository.tip().name(), travelLogs.readHead(SyntheticRepository.BRANCH));
+        assertEquals(commits.size() - 1 - commits.indexOf(repository.tip().name()),
+            travelLogs.readHeadPosition(SyntheticRepository.BRANCH));
+        CommitMetadata metadata = travelLogs.openMetadata(SyntheticRepository.BRANCH, timeline);
+        int sidePosition = timeline.size() - 1;
+        while (!"Side commit".equals(metadata.subject(sidePosition))) {
+            --sidePosition;
+        }
+        assertTrue(sidePosition < timeline.size() - 2);
+    }
+
+    private static ObjectId insertCommit(Repository repository, String message, int seconds, ObjectId... parents)
+            throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter(); RevWalk walk = new RevWalk(repository)) {
+            PersonIdent ident = new PersonIdent("git-travel", "git-travel@localhost", seconds * 1000L, 0);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(walk.parseCommit(parents[0]).getTree());
+            commit.setParentIds(parents);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message);
+            ObjectId id = inserter.insert(commit);
+            inserter.flush();
+            return id;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>travel --no-checkout</em>과 {@link MaterializeCommand} Test */
+public class MaterializeCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+    private CommitTimeline timeline;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(60).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+    }
+
+    @Test
+    public void materializeLastTargetOnce() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("travel", "--no-checkout", "3").exitCode);
+        assertEquals(0, fixture.run("travel", "2", "--no-checkout").exitCode);
+        assertEquals(5, fixture.headPosition());
+        assertEquals(0, fixture.run("move", "--no-checkout", timeline.get(8).name()).exitCode);
+        assertEquals(0, fixture.run("travel", "-b", "--no-checkout").exitCode);
+        int target = 7;
+        assertEquals(target, fixture.headPosition());
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+
+        String[] lines = fixture.run("here", "-w", "0").lines();
+        assertTrue(lines[0].startsWith(ConsoleColors.RED + timeline.get(target).name().substring(0, 6)));
+        assertEquals(String.format("Working tree is at %s. Run 'materialize' to check out HEAD.",
+            timeline.get(0).name().substring(0, 6)), lines[lines.length - 1]);
+
+        TravelFixture.Result result = fixture.run("materialize");
+        assertEquals(0, result.exitCode);
+        CommitMetadata metadata = fixture.travelLogs().openMetadata(SyntheticRepository.BRANCH, timeline);
+        assertEquals("Materialize : " + timeline.get(target).name().substring(0, 6) + ' ' + metadata.subject(target),
+            result.lines()[0]);
+        assertEquals(timeline.get(target).name(), fixture.workTreeHead());
+        assertNull(fixture.travelLogs().readPendingCheckout());
+
+        result = fixture.run("materialize");
+        assertEquals(0, result.exitCode);
+        assertEquals("Working tree is up to date.", result.out.trim());
+    }
+
+    @Test
+    public void manualCheckoutDropsPendingCheckout() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("travel", "--no-checkout", "5").exitCode);
+        try (Git git = Git.open(fixture.repository().directory())) {
+            git.checkout().setName(timeline.get(10).name()).call();
+        }
+
+        assertEquals(0, fixture.run("travel").exitCode);
+        assertEquals(timeline.get(11).name(), fixture.workTreeHead());
+        assertNull(fixture.travelLogs().readPendingCheckout());
+        assertEquals("Working tree is up to date.", fixture.run("materialize").out.trim());
+    }
+
+    @Test
+    public void failedCheckoutDropsPendingCheckout() throws IOException, GitAPIException {
+        int target = 5;
+        assertEquals(0, fixture.run("travel", "--no-checkout", String.valueOf(target)).exitCode);
+        fixture.editChangedFile(timeline.get(0).name(), timeline.get(target).name());
+
+        TravelFixture.Result result = fixture.run("materialize");
+        assertEquals(1, result.exitCode);
+        assertTrue(result.err.startsWith(String.format("Failed to check out %s, working tree stays at %s",
+            timeline.get(target).name().substring(0, 6), timeline.get(0).name().substring(0, 6))));
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+        assertNull(fixture.travelLogs().readPendingCheckout());
+
+        String[] lines = fixture.run("here", "-w", "0").lines();
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].startsWith(ConsoleColors.RED + timeline.get(0).name().substring(0, 6)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link MoveCommand} Test */
+public class MoveCommandTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(60).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void moveToAbbreviatedHash() throws IOException, GitAPIException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        ObjectId target = timeline.get(17);
+
+        TravelFixture.Result result = fixture.run("move", target.name().substring(0, 8).toUpperCase());
+        assertEquals(0, result.exitCode);
+        assertTrue(result.out.startsWith("Move to : " + target.name().substring(0, 6)));
+        assertEquals(target.name(), fixture.workTreeHead());
+        assertEquals(17, fixture.headPosition());
+    }
+
+    @Test
+    public void moveOutsideLogDoesNotCheckout() throws IOException, GitAPIException {
+        RevCommit outside;
+        try (Git git = Git.open(fixture.repository().directory())) {
+            git.checkout().setCreateBranch(true).setName("outside").call();
+            outside = git.commit().setAllowEmpty(true).setSign(false).setMessage("outside").call();
+            git.checkout().setName(SyntheticRepository.BRANCH).call();
+        }
+        String before = fixture.workTreeHead();
+
+        for (String destination : new String[] { outside.name(), outside.name().substring(0, 7), "outside",
+                "ffffffffff", "no-such-ref" }) {
+            TravelFixture.Result result = fixture.run("move", destination);
+            assertEquals(destination, 1, result.exitCode);
+            assertEquals(String.format("'%s' is not a commit in the log.", destination), result.err.trim());
+            assertEquals(before, fixture.workTreeHead());
+        }
+    }
+}
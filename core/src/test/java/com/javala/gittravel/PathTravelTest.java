@@ -0,0 +1,137 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>travel --path</em>, <em>here --path</em>, <em>move --next-touching</em> Test */
+public class PathTravelTest {
+    private static final String PATH = "d0/d1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder,
+            SyntheticRepository.builder().commits(120).branches(2, 4).tree(4, 2).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void travelByPath() throws IOException, GitAPIException {
+        List<Integer> touching = touching(PATH);
+        assertTrue(touching.toString(), 4 < touching.size());
+
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        assertEquals(0, fixture.run("travel", "--path", "./" + PATH + "/").exitCode);
+        int first = (0 == touching.get(0)) ? 1 : 0;
+        assertEquals((int) touching.get(first), fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "--path", PATH, "2").exitCode);
+        assertEquals((int) touching.get(first + 2), fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--path", PATH).exitCode);
+        assertEquals((int) touching.get(first + 1), fixture.headPosition());
+
+        assertEquals(0, fixture.run("move", "--next-touching", PATH).exitCode);
+        assertEquals((int) touching.get(first + 2), fixture.headPosition());
+
+        assertEquals(0, fixture.run("travel", "--path", PATH, "1000").exitCode);
+        assertEquals((int) touching.get(touching.size() - 1), fixture.headPosition());
+        TravelFixture.Result result = fixture.run("move", "--next-touching", PATH);
+        assertEquals(1, result.exitCode);
+        assertEquals("No commit touching 'd0/d1' after HEAD.", result.err.trim());
+    }
+
+    @Test
+    public void hereShowsTouchingCommits() throws IOException, GitAPIException {
+        List<Integer> touching = touching(PATH);
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        int middle = touching.size() / 2;
+        assertEquals(0, fixture.run("move", timeline.get(touching.get(middle)).name()).exitCode);
+
+        String[] lines = fixture.run("here", "--path", PATH, "-w", "1").lines();
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith(timeline.get(touching.get(middle + 1)).name().substring(0, 6)));
+        assertTrue(lines[1].startsWith(ConsoleColors.RED + timeline.get(touching.get(middle)).name().substring(0, 6)));
+        assertTrue(lines[2].startsWith(timeline.get(touching.get(middle - 1)).name().substring(0, 6)));
+    }
+
+    @Test
+    public void initReusesFiltersOfRecordedCommits() throws IOException, GitAPIException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        ChangedPathFilters filters = fixture.travelLogs().openPathFilters(SyntheticRepository.BRANCH, timeline);
+        assertNotNull(filters);
+        for (int position : touching(PATH)) {
+            assertTrue(filters.mightContain(position, ChangedPathFilters.key(PATH)));
+        }
+        List<byte[]> recorded = new ArrayList<>();
+        for (int position = 0; position < timeline.size(); ++position) {
+            recorded.add(filters.filter(position));
+        }
+
+        try (Git git = Git.open(fixture.repository().directory())) {
+            Files.createDirectories(fixture.repository().directory().toPath().resolve("new"));
+            Files.writeString(fixture.repository().directory().toPath().resolve("new/file.txt"), "new");
+            git.add().addFilepattern("new/file.txt").call();
+            git.commit().setSign(false).setMessage("Add new file").call();
+        }
+        assertEquals(0, fixture.run("init").exitCode);
+
+        timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        filters = fixture.travelLogs().openPathFilters(SyntheticRepository.BRANCH, timeline);
+        assertEquals(recorded.size() + 1, filters.size());
+        for (int position = 0; position < recorded.size(); ++position) {
+            assertArrayEquals(recorded.get(position), filters.filter(position));
+        }
+        assertTrue(filters.mightContain(recorded.size(), ChangedPathFilters.key("new")));
+        assertTrue(filters.mightContain(recorded.size(), ChangedPathFilters.key("new/file.txt")));
+    }
+
+    /** 첫 번째 부모와 비교해 {@code path}를 바꾼 커밋의 position을 filter 없이 모두 찾습니다. */
+    private List<Integer> touching(String path) throws IOException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        List<Integer> positions = new ArrayList<>();
+        try (Git git = Git.open(fixture.repository().directory());
+             RevWalk walk = new RevWalk(git.getRepository());
+             TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            for (int position = 0; position < timeline.size(); ++position) {
+                RevCommit commit = walk.parseCommit(timeline.get(position));
+                treeWalk.reset();
+                treeWalk.setRecursive(true);
+                treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+                if (0 == commit.getParentCount()) {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                } else {
+                    treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+                }
+                treeWalk.addTree(commit.getTree());
+                if (treeWalk.next()) {
+                    positions.add(position);
+                }
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,95 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>travel --grep</em>, <em>move --author</em> 등 메시지와 author로 이동하는 커맨드 Test */
+public class QueryTravelTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+    private ObjectId fix;
+    private ObjectId nearMiss;
+    private ObjectId refactor;
+    private ObjectId hotfix;
+    private ObjectId docs;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(60).branches(2, 4).workTree(true));
+        fix = commit("Fix JIRA-1234 crash", "alice");
+        nearMiss = commit("JIRA-77: trim 1234 bytes", "carol");
+        refactor = commit("Refactor parser", "bob");
+        hotfix = commit("Hotfix for login\n\nRefs JIRA-1234", "alice");
+        docs = commit("Update docs", "carol");
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void travelByMessageAndAuthor() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        assertEquals(0, fixture.run("travel", "--grep", "jira-1234").exitCode);
+        assertEquals(position(fix), fixture.headPosition());
+        assertEquals(0, fixture.run("move", "--grep", "JIRA-1234").exitCode);
+        assertEquals(position(hotfix), fixture.headPosition());
+        // JIRA-1234는 두 단어가 이어진 커밋만, JIRA 1234는 두 단어가 있는 커밋과 일치한다.
+        assertEquals(0, fixture.run("travel", "-b", "--grep", "JIRA-1234").exitCode);
+        assertEquals(position(fix), fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "--grep", "JIRA 1234").exitCode);
+        assertEquals(position(nearMiss), fixture.headPosition());
+
+        assertEquals(0, fixture.run("travel", "--author", "alice", "--grep", "login").exitCode);
+        assertEquals(position(hotfix), fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--author", "alice@localhost OR bob").exitCode);
+        assertEquals(position(refactor), fixture.headPosition());
+
+        assertEquals(0, fixture.run("travel", "--grep", "parser OR docs", "5").exitCode);
+        assertEquals(position(docs), fixture.headPosition());
+        TravelFixture.Result result = fixture.run("move", "--grep", "parser OR docs");
+        assertEquals(1, result.exitCode);
+        assertEquals("No commit matching --grep 'parser OR docs' after HEAD.", result.err.trim());
+    }
+
+    @Test
+    public void initReusesTermsOfRecordedCommits() throws IOException, GitAPIException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        CommitTermIndex terms = fixture.travelLogs().openTermIndex(SyntheticRepository.BRANCH, timeline);
+        assertNotNull(terms);
+        int[] topics = terms.lookup(CommitTermIndex.Field.MESSAGE, "topic");
+        int[] alice = terms.lookup(CommitTermIndex.Field.AUTHOR, "alice");
+
+        ObjectId added = commit("Add feature", "dave");
+        assertEquals(0, fixture.run("init").exitCode);
+
+        timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        terms = fixture.travelLogs().openTermIndex(SyntheticRepository.BRANCH, timeline);
+        assertArrayEquals(topics, terms.lookup(CommitTermIndex.Field.MESSAGE, "topic"));
+        assertArrayEquals(alice, terms.lookup(CommitTermIndex.Field.AUTHOR, "alice"));
+        assertArrayEquals(new int[] { position(added) }, terms.lookup(CommitTermIndex.Field.AUTHOR, "dave"));
+        assertArrayEquals(new int[] { position(added) }, terms.lookup(CommitTermIndex.Field.COMMITTER, "dave"));
+    }
+
+    private ObjectId commit(String message, String author) throws IOException, GitAPIException {
+        try (Git git = Git.open(fixture.repository().directory())) {
+            return git.commit().setSign(false).setAllowEmpty(true).setMessage(message)
+                .setAuthor(author, author + "@localhost").setCommitter(author, author + "@localhost").call();
+        }
+    }
+
+    private int position(ObjectId commit) throws IOException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        return fixture.travelLogs().openIndex(SyntheticRepository.BRANCH, timeline).positionOf(commit);
+    }
+}
@@ -0,0 +1,40 @@
+package com.javala.gittravel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * {@code RandomCommits}는 저장소 없이 로그 파일을 테스트할 때 사용하는 임의의 커밋 해시를 만듭니다.
+ *
+ * <p>
+ * 같은 {@code seed}로 만든 해시는 항상 같습니다. 실제 커밋이 필요하면 {@link SyntheticRepository}를 사용합니다.
+ */
+final class RandomCommits {
+    private RandomCommits() {}
+
+    /**
+     * {@code seed}로 만든 임의의 커밋 해시 {@code count}개를 반환합니다.
+     *
+     * @param count 해시 수
+     * @param seed  {@link Random}의 seed
+     * @return      커밋 해시 목록
+     */
+    static List<ObjectId> list(int count, long seed) {
+        Random random = new Random(seed);
+        List<ObjectId> commits = new ArrayList<>(count);
+        byte[] raw = new byte[20];
+        for (int i = 0; i < count; ++i) {
+            random.nextBytes(raw);
+            commits.add(ObjectId.fromRaw(raw));
+        }
+        return commits;
+    }
+
+    /** {@link #list}의 해시로 만든 메모리 위의 로그를 반환합니다. */
+    static CommitTimeline timeline(int count, long seed) {
+        return CommitTimeline.of(list(count, seed));
+    }
+}
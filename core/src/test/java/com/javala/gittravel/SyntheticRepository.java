@@ -0,0 +1,433 @@
+package com.javala.gittravel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.PackInserter;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.util.FileUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+
+/**
+ * {@code SyntheticRepository}는 테스트와 벤치마크에서 사용하는 합성 git 저장소를 생성합니다.
+ *
+ * <p>
+ * 커밋 수, 브랜치와 merge 구조, tree의 너비와 깊이, 파일 크기 분포를 {@link Builder}로 지정하며
+ * 같은 설정과 seed로 생성한 저장소는 항상 같은 커밋 해시를 가집니다. 객체는 {@link ObjectInserter}로
+ * pack 하나에 직접 기록하기 때문에 loose object를 만들지 않고, 백만 커밋 저장소도 몇 분 안에 생성됩니다.
+ *
+ * <p>
+ * 생성한 저장소는 설정마다 캐시 디렉토리({@value #CACHE_DIR_PROPERTY}, 기본 {@code target/synthetic-repositories})에
+ * 두고, 같은 설정으로 다시 요청하면 생성하지 않고 그대로 사용합니다.
+ *
+ * <pre>
+ * SyntheticRepository repository = SyntheticRepository.builder()
+ *     .commits(100_000).seed(7).branches(2, 5).tree(16, 2).build();
+ * </pre>
+ */
+final class SyntheticRepository {
+    static final String CACHE_DIR_PROPERTY = "gittravel.synthetic.dir";
+    static final String BRANCH = "master";
+    /** 생성 방식이 바뀌면 올려 이전에 캐시된 저장소를 다시 생성하도록 합니다. */
+    private static final int GENERATOR_VERSION = 2;
+
+    private static final String COMPLETE_FILENAME = ".complete";
+    private static final long EPOCH_SECONDS = 1_600_000_000L;
+
+    private final Path directory;
+    private final ObjectId tip;
+    private final int commits;
+
+    private SyntheticRepository(Path directory, ObjectId tip, int commits) {
+        this.directory = directory;
+        this.tip = tip;
+        this.commits = commits;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** 저장소 디렉토리, 작업 디렉토리를 만든 경우 작업 디렉토리이고 아니면 <em>.git</em> 디렉토리 */
+    File directory() {
+        return directory.toFile();
+    }
+
+    /** 저장소를 엽니다. 호출한 쪽에서 닫아야 합니다. */
+    FileRepository open() throws IOException {
+        File gitDir = directory.resolve(Constants.DOT_GIT).toFile();
+        return new FileRepository(gitDir.isDirectory() ? gitDir : directory.toFile());
+    }
+
+    /** {@value #BRANCH} 브랜치의 끝 커밋 */
+    ObjectId tip() {
+        return tip;
+    }
+
+    /** {@value #BRANCH} 브랜치에서 도달할 수 있는 커밋 수 */
+    int commits() {
+        return commits;
+    }
+
+    /** 파일 크기 분포 */
+    interface FileSizes {
+        /** 다음 파일 크기(byte) */
+        int next(Random random);
+
+        /** 항상 {@code size} byte */
+        static FileSizes fixed(int size) {
+            Preconditions.checkArgument(0 <= size, "size cannot be negative.");
+            return named(random -> size, "fixed(" + size + ")");
+        }
+
+        /** {@code min} 이상 {@code max} 이하 균등 분포 */
+        static FileSizes uniform(int min, int max) {
+            Preconditions.checkArgument(0 <= min && min <= max, "min must be in [0, max].");
+            return named(random -> min + random.nextInt(max - min + 1), "uniform(" + min + "," + max + ")");
+        }
+
+        /** 중앙값이 {@code median}인 로그 정규 분포, 실제 저장소처럼 작은 파일이 많고 큰 파일이 드뭅니다. */
+        static FileSizes logNormal(int median, double sigma, int max) {
+            Preconditions.checkArgument(0 < median && median <= max, "median must be in (0, max].");
+            return named(
+                random -> (int) Math.min(max, Math.round(median * Math.exp(sigma * random.nextGaussian()))),
+                "logNormal(" + median + "," + sigma + "," + max + ")");
+        }
+
+        private static FileSizes named(FileSizes sizes, String name) {
+            return new FileSizes() {
+                @Override
+                public int next(Random random) {
+                    return sizes.next(random);
+                }
+
+                @Override
+                public String toString() {
+                    return name;
+                }
+            };
+        }
+    }
+
+    /** {@link SyntheticRepository} 설정 */
+    static final class Builder {
+        /** {@link #skewedCommit}의 커밋을 옮기는 시간, 약 10년 */
+        static final long SKEW_SECONDS = 10L * 365 * 24 * 60 * 60;
+
+        private int commits = 100;
+        private long seed = 0;
+        private int branches = 0;
+        private int branchLength = 3;
+        private int treeWidth = 8;
+        private int treeDepth = 0;
+        private int changesPerCommit = 1;
+        private FileSizes fileSizes = FileSizes.uniform(16, 256);
+        private boolean workTree = false;
+        private int skewedCommit = -1;
+        private Path cacheDir;
+
+        private Builder() {}
+
+        /** {@value SyntheticRepository#BRANCH}에서 도달할 수 있는 커밋 수, merge 커밋을 포함합니다. */
+        Builder commits(int commits) {
+            Preconditions.checkArgument(0 < commits, "commits must be positive.");
+            this.commits = commits;
+            return this;
+        }
+
+        /** 생성에 사용하는 난수 seed */
+        Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * 동시에 열려 있는 곁가지 브랜치 수와 각 곁가지의 커밋 수를 지정합니다. 곁가지는 {@code length}개의 커밋 후
+         * {@value SyntheticRepository#BRANCH}로 merge됩니다. {@code branches}가 0이면 모든 커밋의 부모가 하나입니다.
+         */
+        Builder branches(int branches, int length) {
+            Preconditions.checkArgument(0 <= branches, "branches cannot be negative.");
+            Preconditions.checkArgument(0 < length, "length must be positive.");
+            this.branches = branches;
+            this.branchLength = length;
+            return this;
+        }
+
+        /**
+         * tree 모양을 지정합니다. 디렉토리마다 {@code width}개의 파일이 있고 {@code depth} 단계까지 하위 디렉토리가
+         * 2개씩 있습니다. {@code depth}가 0이면 최상위 디렉토리에만 파일이 있습니다.
+         */
+        Builder tree(int width, int depth) {
+            Preconditions.checkArgument(0 < width, "width must be positive.");
+            Preconditions.checkArgument(0 <= depth && depth <= 16, "depth must be in [0, 16].");
+            this.treeWidth = width;
+            this.treeDepth = depth;
+            return this;
+        }
+
+        /** 커밋마다 내용을 바꾸는 파일 수 */
+        Builder changesPerCommit(int changes) {
+            Preconditions.checkArgument(0 < changes, "changes must be positive.");
+            this.changesPerCommit = changes;
+            return this;
+        }
+
+        /** 파일 크기 분포 */
+        Builder fileSizes(FileSizes fileSizes) {
+            this.fileSizes = Preconditions.checkNotNull(fileSizes, "fileSizes cannot be null.");
+            return this;
+        }
+
+        /** true이면 {@value SyntheticRepository#BRANCH}를 checkout한 작업 디렉토리를 만들고, 아니면 bare 저장소를 만듭니다. */
+        Builder workTree(boolean workTree) {
+            this.workTree = workTree;
+            return this;
+        }
+
+        /**
+         * {@code commit}번째로 만드는 커밋(0부터)의 시각을 시계가 틀린 것처럼 {@value #SKEW_SECONDS}초 뒤로 둡니다.
+         * 다른 커밋의 시각은 그대로입니다.
+         */
+        Builder skewedCommit(int commit) {
+            Preconditions.checkArgument(0 <= commit, "commit cannot be negative.");
+            this.skewedCommit = commit;
+            return this;
+        }
+
+        /** 저장소를 캐시하는 디렉토리 */
+        Builder cacheDir(Path cacheDir) {
+            this.cacheDir = Preconditions.checkNotNull(cacheDir, "cacheDir cannot be null.");
+            return this;
+        }
+
+        /**
+         * 저장소를 생성합니다. 같은 설정으로 이미 생성한 저장소가 캐시되어 있으면 그대로 반환합니다.
+         *
+         * @return 생성되거나 캐시된 저장소
+         * @throws IOException 저장소를 기록하지 못했을 때
+         */
+        SyntheticRepository build() throws IOException {
+            String key = key();
+            Path base = null != cacheDir
+                ? cacheDir
+                : Paths.get(System.getProperty(CACHE_DIR_PROPERTY, "target/synthetic-repositories"));
+            Path directory = base.toAbsolutePath().resolve(
+                Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString().substring(0, 16));
+            Path complete = directory.resolve(COMPLETE_FILENAME);
+
+            synchronized (SyntheticRepository.class) {
+                if (Files.isRegularFile(complete)) {
+                    List<String> lines = Files.readAllLines(complete, StandardCharsets.UTF_8);
+                    if (lines.size() == 2 && key.equals(lines.get(0))) {
+                        return new SyntheticRepository(directory, ObjectId.fromString(lines.get(1)), commits);
+                    }
+                }
+
+                FileUtils.delete(directory.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+                ObjectId tip = new Generator(this).generate(directory);
+                Files.write(complete, (key + "\n" + tip.name() + "\n").getBytes(StandardCharsets.UTF_8));
+                return new SyntheticRepository(directory, tip, commits);
+            }
+        }
+
+        private String key() {
+            return String.join(" ",
+                "generator=" + GENERATOR_VERSION, "commits=" + commits, "seed=" + seed, "branches=" + branches, "length=" + branchLength,
+                "width=" + treeWidth, "depth=" + treeDepth, "changes=" + changesPerCommit,
+                "sizes=" + fileSizes, "workTree=" + workTree, "skewed=" + skewedCommit);
+        }
+    }
+
+    /** 설정에 따라 객체를 pack에 기록합니다. */
+    private static final class Generator {
+        private final Builder config;
+        private final Random random;
+        private final List<Directory> directories = new ArrayList<>();
+        private Directory root;
+        private ObjectId emptyTree;
+        private int time;
+
+        private Generator(Builder config) {
+            this.config = config;
+            this.random = new Random(config.seed);
+        }
+
+        private ObjectId generate(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            File gitDir = config.workTree ? directory.resolve(Constants.DOT_GIT).toFile() : directory.toFile();
+            try (FileRepository repository = new FileRepository(gitDir)) {
+                repository.create(!config.workTree);
+                repository.updateRef(Constants.HEAD).link(Constants.R_HEADS + BRANCH);
+
+                ObjectId tip;
+                try (PackInserter inserter = repository.getObjectDatabase().newPackInserter()) {
+                    inserter.checkExisting(false);
+                    tip = insertHistory(inserter);
+                    inserter.flush();
+                }
+
+                RefUpdate update = repository.updateRef(Constants.R_HEADS + BRANCH);
+                update.setNewObjectId(tip);
+                update.setForceUpdate(true);
+                update.update();
+
+                if (config.workTree) {
+                    try (Git git = Git.wrap(repository)) {
+                        git.reset().setMode(ResetType.HARD).setRef(BRANCH).call();
+                    } catch (GitAPIException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return tip;
+            }
+        }
+
+        /**
+         * 커밋 히스토리를 기록하고 {@value SyntheticRepository#BRANCH}의 끝 커밋을 반환합니다.
+         *
+         * <p>
+         * 곁가지는 {@value SyntheticRepository#BRANCH}의 끝에서 갈라지며 tree는 모든 브랜치가 공유합니다.
+         * 남은 커밋 수가 열린 곁가지 수와 같아지면 곁가지를 모두 merge해 정확히 {@code commits}개가 되도록 합니다.
+         */
+        private ObjectId insertHistory(ObjectInserter inserter) throws IOException {
+            root = new Directory(0, null);
+            ObjectId main = insertCommit(inserter, "initial commit");
+            int produced = 1;
+
+            List<ObjectId> sides = new ArrayList<>();
+            List<Integer> lengths = new ArrayList<>();
+            while (produced < config.commits) {
+                int remaining = config.commits - produced;
+                int lane = random.nextInt(sides.size() + 1);
+                if (remaining <= sides.size()) {
+                    lane = sides.size() - 1;
+                } else if (lane == sides.size() && sides.size() < config.branches && remaining > sides.size() + 1
+                        && random.nextBoolean()) {
+                    // 새 곁가지도 merge해야 하므로 곁가지 수보다 2개 이상 남았을 때만 연다.
+                    sides.add(insertCommit(inserter, "topic " + produced, main));
+                    lengths.add(1);
+                    ++produced;
+                    continue;
+                }
+
+                if (lane < sides.size() && (remaining <= sides.size() || lengths.get(lane) >= config.branchLength)) {
+                    main = insertCommit(inserter, "merge topic into " + BRANCH, main, sides.remove(lane));
+                    lengths.remove(lane);
+                } else if (lane < sides.size()) {
+                    sides.set(lane, insertCommit(inserter, "topic " + produced, sides.get(lane)));
+                    lengths.set(lane, lengths.get(lane) + 1);
+                } else {
+                    main = insertCommit(inserter, "commit " + produced, main);
+                }
+                ++produced;
+            }
+            return main;
+        }
+
+        private ObjectId insertCommit(ObjectInserter inserter, String message, ObjectId... parents)
+                throws IOException {
+            for (int i = 0; i < config.changesPerCommit; ++i) {
+                Directory directory = directories.get(random.nextInt(directories.size()));
+                String file = directory.fileName(random.nextInt(config.treeWidth));
+                directory.files.put(file, insertBlob(inserter));
+                directory.markDirty();
+            }
+
+            long seconds = EPOCH_SECONDS + time;
+            if (time++ == config.skewedCommit) {
+                seconds += Builder.SKEW_SECONDS;
+            }
+            PersonIdent ident = new PersonIdent("git-travel", "git-travel@localhost", seconds * 1000L, 0);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(root.insert(inserter));
+            commit.setParentIds(parents);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message + "\n");
+            return inserter.insert(commit);
+        }
+
+        private ObjectId emptyTree(ObjectInserter inserter) throws IOException {
+            if (null == emptyTree) {
+                emptyTree = inserter.insert(new TreeFormatter());
+            }
+            return emptyTree;
+        }
+
+        private ObjectId insertBlob(ObjectInserter inserter) throws IOException {
+            byte[] content = new byte[config.fileSizes.next(random)];
+            for (int i = 0; i < content.length; ++i) {
+                content[i] = (byte) ((i % 64 == 63) ? '\n' : 'a' + random.nextInt(26));
+            }
+            return inserter.insert(Constants.OBJ_BLOB, content);
+        }
+
+        /** 메모리에 있는 디렉토리, 바뀐 디렉토리만 tree를 다시 기록합니다. */
+        private final class Directory {
+            private final Directory parent;
+            private final TreeMap<String, ObjectId> files = new TreeMap<>();
+            private final List<Directory> children = new ArrayList<>();
+            private ObjectId tree;
+
+            private Directory(int depth, Directory parent) {
+                this.parent = parent;
+                directories.add(this);
+                if (depth < config.treeDepth) {
+                    children.add(new Directory(depth + 1, this));
+                    children.add(new Directory(depth + 1, this));
+                }
+            }
+
+            private String fileName(int index) {
+                return String.format("f%05d.txt", index);
+            }
+
+            private void markDirty() {
+                for (Directory directory = this; null != directory; directory = directory.parent) {
+                    directory.tree = null;
+                }
+            }
+
+            /** 디렉토리의 tree를 기록합니다. 하위 디렉토리 이름(d0, d1)은 파일 이름(f...)보다 앞에 정렬됩니다. */
+            private ObjectId insert(ObjectInserter inserter) throws IOException {
+                if (null != tree) {
+                    return tree;
+                }
+                TreeFormatter formatter = new TreeFormatter();
+                for (int i = 0; i < children.size(); ++i) {
+                    ObjectId child = children.get(i).insert(inserter);
+                    if (!child.equals(emptyTree(inserter))) {
+                        formatter.append("d" + i, FileMode.TREE, child);
+                    }
+                }
+                for (Map.Entry<String, ObjectId> file : files.entrySet()) {
+                    formatter.append(file.getKey(), FileMode.REGULAR_FILE, file.getValue());
+                }
+                tree = inserter.insert(formatter);
+                return tree;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link SyntheticRepository} Test */
+public class SyntheticRepositoryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void linearHistory() throws IOException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(50).cacheDir(folder.getRoot().toPath()).build();
+
+        try (FileRepository db = repository.open(); RevWalk walk = new RevWalk(db)) {
+            walk.markStart(walk.parseCommit(db.resolve(SyntheticRepository.BRANCH)));
+            int commits = 0;
+            for (RevCommit commit : walk) {
+                assertTrue(commit.getParentCount() <= 1);
+                ++commits;
+            }
+            assertEquals(50, commits);
+            assertEquals(repository.tip(), db.resolve(SyntheticRepository.BRANCH));
+        }
+    }
+
+    @Test
+    public void mergeHistory() throws IOException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(300).branches(3, 4).cacheDir(folder.getRoot().toPath()).build();
+
+        try (FileRepository db = repository.open(); RevWalk walk = new RevWalk(db)) {
+            walk.markStart(walk.parseCommit(repository.tip()));
+            int commits = 0;
+            int merges = 0;
+            for (RevCommit commit : walk) {
+                merges += commit.getParentCount() > 1 ? 1 : 0;
+                ++commits;
+            }
+            assertEquals(300, commits);
+            assertTrue(merges > 10);
+        }
+    }
+
+    @Test
+    public void sameSeedSameHistory() throws IOException {
+        SyntheticRepository.Builder builder = SyntheticRepository.builder().commits(100).branches(2, 3).seed(7);
+        SyntheticRepository first = builder.cacheDir(folder.newFolder().toPath()).build();
+        SyntheticRepository second = builder.cacheDir(folder.newFolder().toPath()).build();
+        SyntheticRepository other = builder.seed(8).build();
+
+        assertNotEquals(first.directory(), second.directory());
+        assertEquals(first.tip(), second.tip());
+        assertNotEquals(first.tip(), other.tip());
+    }
+
+    @Test
+    public void cachedPerSettings() throws IOException {
+        Path cacheDir = folder.getRoot().toPath();
+        SyntheticRepository generated = SyntheticRepository.builder().commits(20).seed(1).cacheDir(cacheDir).build();
+        Path complete = generated.directory().toPath().resolve(".complete");
+        long modified = Files.getLastModifiedTime(complete).toMillis();
+
+        SyntheticRepository cached = SyntheticRepository.builder().commits(20).seed(1).cacheDir(cacheDir).build();
+        assertEquals(generated.directory(), cached.directory());
+        assertEquals(generated.tip(), cached.tip());
+        assertEquals(modified, Files.getLastModifiedTime(complete).toMillis());
+    }
+
+    @Test
+    public void treeShape() throws IOException {
+        SyntheticRepository repository = SyntheticRepository.builder()
+            .commits(200).tree(4, 2).changesPerCommit(3)
+            .fileSizes(SyntheticRepository.FileSizes.fixed(100))
+            .workTree(true).cacheDir(folder.getRoot().toPath()).build();
+
+        try (FileRepository db = repository.open(); RevWalk walk = new RevWalk(db);
+                TreeWalk treeWalk = new TreeWalk(db)) {
+            treeWalk.addTree(walk.parseCommit(repository.tip()).getTree());
+            treeWalk.setRecursive(true);
+            int files = 0;
+            while (treeWalk.next()) {
+                assertTrue(treeWalk.getDepth() <= 2);
+                assertEquals(100, Files.size(repository.directory().toPath().resolve(treeWalk.getPathString())));
+                ++files;
+            }
+            // 디렉토리 7개에 파일이 4개씩 있습니다.
+            assertTrue(files > 7 && files <= 28);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>move --tag</em>, <em>travel --tags</em>, <em>here</em>의 tag 표시 Test */
+public class TagTravelTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(60).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        tag("v1.0", 10, false);
+        tag("v1.1", 20, true);
+        tag("v1.1-rc", 20, false);
+        tag("v2.0", 40, true);
+        // tag는 커밋이 없어도 다시 init하면 반영된다.
+        assertEquals(0, fixture.run("init").exitCode);
+    }
+
+    @Test
+    public void moveAndTravelByTags() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "--tag", "v1.1").exitCode);
+        assertEquals(20, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "--tags").exitCode);
+        assertEquals(40, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--tags", "2").exitCode);
+        assertEquals(10, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "--tags", "5").exitCode);
+        assertEquals(40, fixture.headPosition());
+        assertEquals(1, fixture.run("travel", "--tags").exitCode);
+        assertEquals(40, fixture.headPosition());
+
+        TravelFixture.Result result = fixture.run("move", "--tag", "v9");
+        assertEquals(1, result.exitCode);
+        assertEquals("No tag named 'v9'.", result.err.trim());
+    }
+
+    @Test
+    public void moveToTagCreatedAfterInit() throws IOException, GitAPIException {
+        tag("v3.0", 50, true);
+        assertEquals(0, fixture.run("move", "--tag", "v3.0").exitCode);
+        assertEquals(50, fixture.headPosition());
+
+        // 마지막 init 이후의 커밋을 가리키는 tag는 로그에 없다.
+        try (Git git = Git.open(fixture.repository().directory())) {
+            git.checkout().setName(SyntheticRepository.BRANCH).call();
+            git.tag().setName("v4.0").setObjectId(
+                git.commit().setSign(false).setAllowEmpty(true).setMessage("Release 4.0").call()).call();
+        }
+        TravelFixture.Result result = fixture.run("move", "--tag", "v4.0");
+        assertEquals(1, result.exitCode);
+        assertEquals("Tag 'v4.0' is not in the log. If the branch has moved since the last init, run init again.",
+            result.err.trim());
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, fixture.run("move", "--tag", "v4.0").exitCode);
+        assertEquals(60, fixture.headPosition());
+    }
+
+    @Test
+    public void hereShowsTags() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "--tag", "v1.1").exitCode);
+        String[] lines = fixture.run("here", "-w", "1").lines();
+        assertEquals(4, lines.length);
+        assertTrue(lines[1], lines[1].endsWith(" (tag: v1.1, tag: v1.1-rc)" + ConsoleColors.RESET));
+        assertEquals("Nearest tags : v1.1-rc (HEAD), v2.0 (20 commits after)", lines[3]);
+
+        assertEquals(0, fixture.run("travel", "3").exitCode);
+        lines = fixture.run("here", "-w", "1").lines();
+        assertEquals("Nearest tags : v1.1-rc (3 commits before), v2.0 (17 commits after)", lines[3]);
+    }
+
+    private void tag(String name, int position, boolean annotated) throws IOException, GitAPIException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        try (Git git = Git.open(fixture.repository().directory()); RevWalk walk = new RevWalk(git.getRepository())) {
+            git.tag().setName(name).setObjectId(walk.parseCommit(timeline.get(position)))
+                .setAnnotated(annotated).setSigned(false).setMessage(annotated ? name : null).call();
+        }
+    }
+}
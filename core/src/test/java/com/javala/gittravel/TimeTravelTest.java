@@ -0,0 +1,83 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>move --date</em>, <em>travel --by</em> Test */
+public class TimeTravelTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+    private CommitMetadata metadata;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(60).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        metadata = fixture.travelLogs().openMetadata(SyntheticRepository.BRANCH, timeline);
+    }
+
+    @Test
+    public void moveToDate() throws IOException, GitAPIException {
+        // SyntheticRepository의 커밋은 1초 간격으로 만들어진다.
+        assertEquals(0, fixture.run("move", "--date", iso(metadata.commitTime(20))).exitCode);
+        assertEquals(20, fixture.headPosition());
+        assertEquals(0, fixture.run("move", "--date", iso(metadata.commitTime(30) + 0.5)).exitCode);
+        assertEquals(30, fixture.headPosition());
+
+        assertEquals(1, fixture.run("move", "--date", iso(metadata.commitTime(0) - 1)).exitCode);
+        assertEquals(30, fixture.headPosition());
+    }
+
+    @Test
+    public void travelByDuration() throws IOException, GitAPIException {
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        assertEquals(0, fixture.run("travel", "--by", "10s").exitCode);
+        assertEquals(10, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--by", "3s").exitCode);
+        assertEquals(7, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--by", "1d").exitCode);
+        assertEquals(0, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "--by", "1w").exitCode);
+        assertEquals(fixture.repository().commits() - 1, fixture.headPosition());
+    }
+
+    @Test
+    public void travelPastFutureDatedCommit() throws IOException, GitAPIException {
+        // position 20의 커밋은 시계가 틀려 10년 뒤의 시각을 가진다.
+        fixture = TravelFixture.create(folder,
+            SyntheticRepository.builder().commits(60).skewedCommit(20).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        metadata = fixture.travelLogs().openMetadata(SyntheticRepository.BRANCH, timeline);
+
+        assertEquals(0, fixture.run("move", "--date", iso(metadata.commitTime(19))).exitCode);
+        assertEquals(19, fixture.headPosition());
+        assertEquals(0, fixture.run("move", "--date", iso(metadata.commitTime(40))).exitCode);
+        assertEquals(40, fixture.headPosition());
+
+        assertEquals(0, fixture.run("travel", "--by", "5s").exitCode);
+        assertEquals(45, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--by", "10s").exitCode);
+        assertEquals(35, fixture.headPosition());
+        assertEquals(0, fixture.run("travel", "-b", "--by", "16s").exitCode);
+        assertEquals(19, fixture.headPosition());
+
+        assertEquals(0, fixture.run("move", "--date", iso(metadata.commitTime(20))).exitCode);
+        assertEquals(59, fixture.headPosition());
+    }
+
+    private static String iso(double epochSeconds) {
+        return Instant.ofEpochMilli((long) (epochSeconds * 1000)).toString();
+    }
+}
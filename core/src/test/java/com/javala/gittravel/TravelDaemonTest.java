@@ -0,0 +1,283 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link TravelDaemon} Test */
+public class TravelDaemonTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+    private TravelFixture other;
+    private final Map<File, AtomicInteger> opened = new ConcurrentHashMap<>();
+    private Path socketPath;
+    private TravelDaemon daemon;
+    private Thread serving;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(30).workTree(true));
+        other = TravelFixture.create(folder, SyntheticRepository.builder().commits(20).seed(7).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, other.run("init").exitCode);
+
+        socketPath = folder.newFolder().toPath().resolve("run").resolve("daemon.sock");
+        File fixtureRoot = fixture.repository().directory().getCanonicalFile();
+        daemon = TravelDaemon.bind(socketPath, root -> {
+            opened.computeIfAbsent(root, dir -> new AtomicInteger()).incrementAndGet();
+            TravelFixture owner = root.equals(fixtureRoot) ? fixture : other;
+            return TravelSession.open(root, owner.travelLogs(), System.out, System.err);
+        });
+        serving = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serving.start();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        daemon.stop();
+        serving.join();
+    }
+
+    @Test
+    public void answerWithFrames() throws IOException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        List<Frame> frames = send(request(fixture.repository().directory(), "here", "-w", "0"));
+        Frame exit = frames.get(frames.size() - 1);
+        assertEquals('x', exit.type);
+        assertEquals(0, exit.exitCode());
+        assertTrue(text(frames, 'o').startsWith(ConsoleColors.RED + timeline.get(timeline.size() - 1).name()
+            .substring(0, 6)));
+        assertEquals("", text(frames, 'e'));
+
+        frames = send(request(fixture.repository().directory(), "move", "unknown-ref"));
+        assertEquals(1, frames.get(frames.size() - 1).exitCode());
+        assertFalse(text(frames, 'e').isEmpty());
+        for (Frame frame : frames.subList(0, frames.size() - 1)) {
+            assertTrue(frame.type == 'o' || frame.type == 'e');
+        }
+    }
+
+    @Test
+    public void restrictSocketToOwner() throws IOException {
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath)));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath.getParent())));
+        assertEquals(0, forward(fixture.repository().directory(), "here").exitCode);
+    }
+
+    @Test
+    public void answerMalformedRequestsWithError() throws IOException {
+        String dir = fixture.repository().directory().getCanonicalPath();
+        String field = dir.getBytes(StandardCharsets.UTF_8).length + "\n" + dir + "\n";
+        String[][] requests = {
+            { "git-travel/1\n1\n" + field + "4\nhere\n", "Unsupported git-travel daemon protocol : git-travel/1" },
+            { "git-travel/2\none\n" + field, "Invalid git-travel daemon argument count : one" },
+            { "git-travel/2\n-1\n" + field, "Invalid git-travel daemon argument count : -1" },
+            { "git-travel/2\n2147483647\n", "Invalid git-travel daemon argument count : 2147483647" },
+            { "git-travel/2\n1\n" + field + "x\nhere\n", "Invalid git-travel daemon argument length : x" },
+            { "git-travel/2\n1\n" + field + "2097152\n", "Invalid git-travel daemon argument length : 2097152" },
+            { "git-travel/2\n1\n" + field + "2\nhere\n", "git-travel daemon argument is longer than its length : 2" },
+            { "git-travel/2\n" + "1".repeat(100) + "\n", "git-travel daemon request line is too long." },
+        };
+        for (String[] request : requests) {
+            List<Frame> frames = send(request[0]);
+            assertEquals(2, frames.size());
+            assertEquals(request[1], text(frames, 'e').trim());
+            assertEquals(1, frames.get(1).exitCode());
+        }
+        assertEquals(0, forward(fixture.repository().directory(), "here").exitCode);
+    }
+
+    @Test
+    public void passArgumentsWithNewlines() throws IOException {
+        File root = fixture.repository().directory();
+        Reply reply = forward(root, "move", "--grep", "no such\nmessage");
+        assertEquals(1, reply.exitCode);
+        assertEquals("No commit matching --grep 'no such\nmessage' after HEAD.", reply.err.trim());
+
+        List<Frame> frames = send(request(root, "move", "--grep", "no such\nmessage"));
+        assertEquals(1, frames.get(frames.size() - 1).exitCode());
+        assertEquals(reply.err, text(frames, 'e'));
+    }
+
+    @Test
+    public void shareSessionPerProject() throws IOException {
+        File root = fixture.repository().directory();
+        File subdirectory = new File(root, "sub");
+        assertTrue(subdirectory.mkdir());
+        assertEquals(0, forward(root, "here").exitCode);
+        assertEquals(0, forward(subdirectory, "travel", "2").exitCode);
+        assertEquals(0, forward(other.repository().directory(), "here").exitCode);
+
+        assertEquals(2, opened.size());
+        assertEquals(1, opened.get(root.getCanonicalFile()).get());
+        assertEquals(1, opened.get(other.repository().directory().getCanonicalFile()).get());
+
+        Reply reply = forward(folder.newFolder(), "here");
+        assertEquals(1, reply.exitCode);
+        assertEquals("Project is not a git directory.", reply.err.trim());
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void refuseBatchAndEach() throws IOException {
+        File root = fixture.repository().directory();
+        Reply reply = forward(root, "batch");
+        assertEquals(1, reply.exitCode);
+        assertEquals("'batch' cannot run in the git-travel daemon.", reply.err.trim());
+
+        reply = forward(root, "travel", "--each", "end~2..end", "--", "true");
+        assertEquals(1, reply.exitCode);
+        assertEquals("'travel --each' cannot run in the git-travel daemon.", reply.err.trim());
+
+        reply = forward(root, "daemon");
+        assertEquals(1, reply.exitCode);
+        assertEquals("git-travel daemon is already running : " + socketPath, reply.err.trim());
+        assertTrue(opened.isEmpty());
+    }
+
+    @Test
+    public void stopOnRequest() throws IOException, InterruptedException {
+        assertTrue(TravelDaemon.isRunning(socketPath));
+        Reply reply = forward(fixture.repository().directory(), "daemon", "stop");
+        assertEquals(0, reply.exitCode);
+        assertEquals("Stopping git-travel daemon.", reply.out.trim());
+
+        serving.join(10_000);
+        assertFalse(serving.isAlive());
+        assertFalse(Files.exists(socketPath));
+        assertFalse(TravelDaemon.isRunning(socketPath));
+    }
+
+    @Test
+    public void reportFailedCheckoutToNextRequest() throws IOException, GitAPIException, InterruptedException {
+        CommitTimeline timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        fixture.editChangedFile(timeline.get(0).name(), timeline.get(3).name());
+
+        File root = fixture.repository().directory();
+        assertEquals(0, forward(root, "travel", "3").exitCode);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (null != fixture.travelLogs().readPendingCheckout() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Reply reply = forward(root, "here");
+        assertEquals(1, reply.exitCode);
+        assertTrue(reply.err.startsWith("Failed to check out " + timeline.get(3).name().substring(0, 6)));
+        assertEquals("", reply.out);
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+
+        reply = forward(root, "here", "-w", "0");
+        assertEquals(0, reply.exitCode);
+        assertTrue(reply.out.startsWith(ConsoleColors.RED + timeline.get(0).name().substring(0, 6)));
+    }
+
+    private Reply forward(File workingDir, String... args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try (PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8);
+             PrintStream printErr = new PrintStream(err, true, StandardCharsets.UTF_8)) {
+            int exitCode = TravelDaemon.forward(socketPath, workingDir, args, print, printErr);
+            return new Reply(exitCode, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String request(File workingDir, String... args) throws IOException {
+        return new String(TravelDaemon.encodeRequest(workingDir.getCanonicalPath(), args), StandardCharsets.UTF_8);
+    }
+
+    /** {@code request}를 그대로 보내고 {@code x} frame까지 받은 frame을 반환합니다. */
+    private List<Frame> send(String request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write(request.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            List<Frame> frames = new ArrayList<>();
+            Frame frame;
+            do {
+                byte type = in.readByte();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                frame = new Frame((char) type, payload);
+                frames.add(frame);
+            } while ('x' != frame.type);
+            return frames;
+        }
+    }
+
+    private static String text(List<Frame> frames, char type) {
+        StringBuilder text = new StringBuilder();
+        for (Frame frame : frames) {
+            if (type == frame.type) {
+                text.append(new String(frame.payload, StandardCharsets.UTF_8));
+            }
+        }
+        return text.toString();
+    }
+
+    private static final class Frame {
+        final char type;
+        final byte[] payload;
+
+        Frame(char type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        int exitCode() {
+            assertEquals('x', type);
+            assertEquals(4, payload.length);
+            return ((payload[0] & 0xff) << 24) | ((payload[1] & 0xff) << 16) | ((payload[2] & 0xff) << 8)
+                | (payload[3] & 0xff);
+        }
+    }
+
+    private static final class Reply {
+        final int exitCode;
+        final String out;
+        final String err;
+
+        Reply(int exitCode, String out, String err) {
+            this.exitCode = exitCode;
+            this.out = out;
+            this.err = err;
+        }
+    }
+}
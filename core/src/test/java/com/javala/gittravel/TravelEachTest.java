@@ -0,0 +1,110 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** <em>travel --each</em> Test */
+public class TravelEachTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TravelFixture fixture;
+    private CommitTimeline timeline;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(30).workTree(true));
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        timeline = fixture.travelLogs().openTimeline(SyntheticRepository.BRANCH);
+    }
+
+    @Test
+    public void runAtEveryCommitInLogOrder() throws IOException, GitAPIException {
+        TravelFixture.Result result = fixture.run("travel", "--each", "end..end~5", "--jobs", "2", "--", "sh", "-c",
+            "echo $GIT_TRAVEL_COMMIT; find . -path ./.git -prune -o -type f -print | LC_ALL=C sort;"
+                + " exit $((GIT_TRAVEL_POSITION % 3 == 0))");
+        assertEquals(1, result.exitCode);
+
+        String[] lines = result.lines();
+        Path logDir;
+        try (Repository git = fixture.repository().open()) {
+            logDir = fixture.travelLogs().worktreePoolDir(git).resolve("each").resolve("logs").toAbsolutePath();
+        }
+        assertEquals("Logs : " + logDir, lines[0]);
+        for (int position = 24; position < 30; ++position) {
+            String line = lines[position - 23];
+            String hash = timeline.get(position).name();
+            assertTrue(line, line.startsWith("Each : " + hash.substring(0, 6) + " "));
+            assertTrue(line, line.contains((0 == position % 3) ? " : exit 1 (" : " : exit 0 ("));
+
+            List<String> expected = new ArrayList<>();
+            expected.add(hash);
+            expected.addAll(files(timeline.get(position)));
+            assertEquals(expected, Files.readAllLines(
+                logDir.resolve(String.format("%d-%s.log", position, hash.substring(0, 6)))));
+        }
+        assertEquals("Each : 6 commits, 2 failed", lines[7]);
+
+        // 작업 트리와 git-travel의 head는 그대로입니다.
+        assertEquals(0, fixture.headPosition());
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+
+        result = fixture.run("travel", "--each", "HEAD~3..HEAD~1", "--", "true");
+        assertEquals(0, result.exitCode);
+        assertTrue(result.out.endsWith("Each : 1 commits, 0 failed" + System.lineSeparator()));
+        assertEquals(1, fixture.run("travel", "--each", "start..unknown-ref", "--", "true").exitCode);
+    }
+
+    @Test
+    public void discardEditsOfTrackedFilesBetweenRuns() throws IOException, GitAPIException {
+        // 앞선 커맨드가 남긴 표시가 있는 파일을 출력하고, 모든 파일에 표시를 덧붙입니다.
+        String[] command = {"travel", "--each", "end..end~7", "--", "sh", "-c",
+            "found=$(find . -path ./.git -prune -o -type f -exec grep -l git-travel-each-edit {} +);"
+                + " find . -path ./.git -prune -o -type f -exec sh -c"
+                + " 'for f; do echo git-travel-each-edit >> \"$f\"; done' sh {} +;"
+                + " echo \"$found\"; test -z \"$found\""};
+        for (int run = 0; run < 2; ++run) {
+            TravelFixture.Result result = fixture.run(command);
+            assertEquals(result.out, 0, result.exitCode);
+            assertTrue(result.out, result.out.endsWith("Each : 8 commits, 0 failed" + System.lineSeparator()));
+        }
+    }
+
+    /** {@code commit} tree의 파일을 find 출력처럼 정렬해 반환합니다. */
+    private List<String> files(ObjectId commit) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (Git git = Git.open(fixture.repository().directory());
+             RevWalk walk = new RevWalk(git.getRepository());
+             TreeWalk tree = new TreeWalk(git.getRepository())) {
+            tree.addTree(walk.parseCommit(commit).getTree());
+            tree.setRecursive(true);
+            while (tree.next()) {
+                files.add("./" + tree.getPathString());
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+}
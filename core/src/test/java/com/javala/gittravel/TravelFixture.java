@@ -0,0 +1,135 @@
+package com.javala.gittravel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@code TravelFixture}는 {@link SyntheticRepository}와 {@link TravelLogs}를 만들어 git-travel 커맨드를 수행하는
+ * 통합 테스트용 fixture입니다.
+ *
+ * <p>
+ * 커맨드는 {@link Main#travel}로 프로세스 안에서 수행하며, 표준 출력과 에러를 {@link Result}로 돌려줍니다.
+ *
+ * <pre>
+ * TravelFixture fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(40).workTree(true));
+ * assertEquals(0, fixture.run("init").exitCode);
+ * </pre>
+ */
+final class TravelFixture {
+    private final SyntheticRepository repository;
+    private final TravelLogs travelLogs;
+
+    private TravelFixture(SyntheticRepository repository, TravelLogs travelLogs) {
+        this.repository = repository;
+        this.travelLogs = travelLogs;
+    }
+
+    /**
+     * {@code folder} 안에 저장소와 상태 디렉토리를 만듭니다.
+     *
+     * @param folder  저장소 캐시와 상태 디렉토리를 만들 임시 디렉토리
+     * @param builder 저장소 설정, 캐시 디렉토리는 {@code folder} 안으로 지정합니다.
+     * @return        fixture
+     */
+    static TravelFixture create(TemporaryFolder folder, SyntheticRepository.Builder builder)
+            throws IOException, GitAPIException {
+        SyntheticRepository repository = builder.cacheDir(folder.newFolder().toPath()).build();
+        return new TravelFixture(repository, new TravelLogs(folder.newFolder().toString(), "project"));
+    }
+
+    SyntheticRepository repository() {
+        return repository;
+    }
+
+    TravelLogs travelLogs() {
+        return travelLogs;
+    }
+
+    /** 커맨드 라인 {@code args}를 {@link Main#travel}로 수행합니다. */
+    Result run(String... args) throws IOException, GitAPIException {
+        return exec(null, args);
+    }
+
+    /** {@code args}를 {@link Main#processArgs}로 파싱해 {@code command}를 직접 수행합니다. */
+    Result exec(Command command, String... args) throws IOException, GitAPIException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try (PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8.name());
+             PrintStream printErr = new PrintStream(err, true, StandardCharsets.UTF_8.name());
+             TravelSession session = TravelSession.open(repository.directory(), travelLogs, print, printErr)) {
+            int exitCode = (null == command)
+                ? new Main().travel(session, args)
+                : command.exec(session, Main.processArgs(args));
+            return new Result(exitCode, out, err);
+        } catch (UsageException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /** 작업 트리에 checkout된 커밋 해시 */
+    String workTreeHead() throws IOException {
+        try (Git git = Git.open(repository.directory())) {
+            return GitTravels.getHeadCommitHash(git).get();
+        }
+    }
+
+    /**
+     * {@code from}과 {@code to}에 모두 있고 내용이 다른 파일을 작업 트리에서 고칩니다.
+     * 고친 후에는 {@code from}에서 {@code to}로 checkout할 수 없습니다.
+     *
+     * @return 고친 파일의 저장소 기준 경로
+     */
+    String editChangedFile(String from, String to) throws IOException {
+        try (Git git = Git.open(repository.directory());
+             RevWalk walk = new RevWalk(git.getRepository());
+             TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            treeWalk.addTree(walk.parseCommit(git.getRepository().resolve(from)).getTree());
+            treeWalk.addTree(walk.parseCommit(git.getRepository().resolve(to)).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                if (FileMode.MISSING != treeWalk.getFileMode(0) && FileMode.MISSING != treeWalk.getFileMode(1)) {
+                    Files.write(repository.directory().toPath().resolve(treeWalk.getPathString()),
+                        "local change".getBytes(StandardCharsets.UTF_8));
+                    return treeWalk.getPathString();
+                }
+            }
+        }
+        throw new AssertionError("No file changed between " + from + " and " + to);
+    }
+
+    /** {@link SyntheticRepository#BRANCH}의 git-travel HEAD position */
+    int headPosition() throws IOException {
+        return travelLogs.readHeadPosition(SyntheticRepository.BRANCH);
+    }
+
+    /** 커맨드 하나의 종료 코드와 출력 */
+    static final class Result {
+        final int exitCode;
+        final String out;
+        final String err;
+
+        private Result(int exitCode, ByteArrayOutputStream out, ByteArrayOutputStream err)
+                throws UnsupportedEncodingException {
+            this.exitCode = exitCode;
+            this.out = out.toString(StandardCharsets.UTF_8.name());
+            this.err = err.toString(StandardCharsets.UTF_8.name());
+        }
+
+        String[] lines() {
+            return out.split(System.lineSeparator());
+        }
+    }
+}
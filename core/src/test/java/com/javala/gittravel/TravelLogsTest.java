@@ -1,25 +1,38 @@
 package com.javala.gittravel;
 
+import com.google.common.base.Strings;
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertArrayEquals;
 
 import java.io.IOException;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class TravelLogsTest {
+    private static final String COMMIT_A = Strings.repeat("a", 40);
+    private static final String COMMIT_B = Strings.repeat("b", 40);
+    private static final String COMMIT_C = Strings.repeat("c", 40);
+    private static final String COMMIT_D = Strings.repeat("d", 40);
+    private static final String COMMIT_E = Strings.repeat("e", 40);
+    private static final String COMMIT_F = Strings.repeat("f", 40);
+
     @Test
     public void initializeBranch() {
         FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
 
         TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
-        List<String> commits = Arrays.asList("commitA", "commitB", "commitC");
+        List<String> commits = Arrays.asList(COMMIT_A, COMMIT_B, COMMIT_C);
         assertEquals(false, travelLogs.isInitialized("branch-A"));
         try {
             travelLogs.writeCommits("branch-A", commits);
@@ -33,7 +46,7 @@ public class TravelLogsTest {
     public void writeReadCommits() {
         FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
         TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
-        List<String> commits = Arrays.asList("commitA", "commitB", "commitC", "commitD", "commitE");
+        List<String> commits = Arrays.asList(COMMIT_A, COMMIT_B, COMMIT_C, COMMIT_D, COMMIT_E);
         try {
             travelLogs.writeCommits("branch-A", commits);
             List<String> readCommits = travelLogs.readCommits("branch-A");
@@ -50,30 +63,30 @@ public class TravelLogsTest {
             head = travelLogs.readHead("branch-A");
             assertEquals(commits.get(0), head);
 
-            travelLogs.writeHeadToCommit("commitB");
+            travelLogs.writeHeadToCommit(COMMIT_B);
             head = travelLogs.readHead("branch-A");
-            assertEquals("commitB", head);
+            assertEquals(COMMIT_B, head);
 
-            travelLogs.writeHeadToCommit("commitC");
+            travelLogs.writeHeadToCommit(COMMIT_C);
             travelLogs.writeHeadToCount(2);
             head = travelLogs.readHead("branch-A");
-            assertEquals("commitA", head);
+            assertEquals(COMMIT_A, head);
 
-            travelLogs.writeHeadToCommit("commitC");
+            travelLogs.writeHeadToCommit(COMMIT_C);
             travelLogs.writeHeadBackToCount(2);
             head = travelLogs.readHead("branch-A");
-            assertEquals("commitE", head);
+            assertEquals(COMMIT_E, head);
 
             // Over-count travel
-            travelLogs.writeHeadToCommit("commitC");
+            travelLogs.writeHeadToCommit(COMMIT_C);
             travelLogs.writeHeadToCount(31);
             head = travelLogs.readHead("branch-A");
-            assertEquals("commitA", head);
+            assertEquals(COMMIT_A, head);
 
-            travelLogs.writeHeadToCommit("commitC");
+            travelLogs.writeHeadToCommit(COMMIT_C);
             travelLogs.writeHeadBackToCount(31);
             head = travelLogs.readHead("branch-A");
-            assertEquals("commitE", head);
+            assertEquals(COMMIT_E, head);
         } catch (IOException exception) {
             fail("Test failed due to " + exception);
         }
@@ -83,8 +96,8 @@ public class TravelLogsTest {
     public void writeReadBranch() {
         FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
         TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
-        List<String> branchACommits = Arrays.asList("commitA", "commitB", "commitC");
-        List<String> branchBCommits = Arrays.asList("commitD", "commitE", "commitF");
+        List<String> branchACommits = Arrays.asList(COMMIT_A, COMMIT_B, COMMIT_C);
+        List<String> branchBCommits = Arrays.asList(COMMIT_D, COMMIT_E, COMMIT_F);
         try {
             travelLogs.writeCommits("branch-A", branchACommits);
             travelLogs.writeCommits("branch-B", branchBCommits);
@@ -97,4 +110,189 @@ public class TravelLogsTest {
             fail("Test failed due to " + exception);
         }
     }
+
+    @Test
+    public void migrateLegacyCommits() {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
+        List<String> commits = Arrays.asList(COMMIT_A, COMMIT_B, COMMIT_C);
+        try {
+            travelLogs.writeCommits("branch-A", commits);
+            Path commitsFile = memoryFileSystem.getPath("/data", "git-travel-data", "project", "branch-A", "commits");
+            Files.write(commitsFile, commits);
+            assertEquals(false, CommitTimeline.isTimelineFile(commitsFile));
+
+            assertArrayEquals(commits.toArray(), travelLogs.readCommits("branch-A").toArray());
+            assertEquals(true, CommitTimeline.isTimelineFile(commitsFile));
+            assertEquals(true, travelLogs.openTimeline("branch-A").verify());
+            assertEquals(true, travelLogs.isValidCommit("branch-A", COMMIT_B));
+            assertEquals(false, travelLogs.isValidCommit("branch-A", COMMIT_D));
+        } catch (IOException exception) {
+            fail("Test failed due to " + exception);
+        }
+    }
+
+    @Test
+    public void headPosition() {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
+        try {
+            travelLogs.writeCommits("branch-A", Arrays.asList(COMMIT_A, COMMIT_B, COMMIT_C));
+            assertEquals(2, travelLogs.readHeadPosition("branch-A"));
+
+            travelLogs.writeHeadBackToCount(1);
+            assertEquals(1, travelLogs.readHeadPosition("branch-A"));
+            assertEquals(COMMIT_B, travelLogs.readHead("branch-A"));
+
+            // Refreshed log moves COMMIT_B to another position.
+            travelLogs.writeCommits("branch-A", Arrays.asList(COMMIT_D, COMMIT_A, COMMIT_B, COMMIT_C));
+            assertEquals(COMMIT_B, travelLogs.readHead("branch-A"));
+            assertEquals(1, travelLogs.readHeadPosition("branch-A"));
+
+            // Head file disagreeing with the log heals by its hash.
+            Path headFile = memoryFileSystem.getPath("/data", "git-travel-data", "project", "branch-A", "head");
+            Files.writeString(headFile, "3 " + COMMIT_C + System.lineSeparator());
+            assertEquals(0, travelLogs.readHeadPosition("branch-A"));
+            assertEquals("0 " + COMMIT_C, Files.readAllLines(headFile).get(0));
+
+            // Legacy head file holds only the hash.
+            Files.writeString(headFile, COMMIT_A + System.lineSeparator());
+            travelLogs.writeHeadToCount(1);
+            assertEquals(COMMIT_D, travelLogs.readHead("branch-A"));
+            assertEquals(3, travelLogs.readHeadPosition("branch-A"));
+        } catch (IOException exception) {
+            fail("Test failed due to " + exception);
+        }
+    }
+
+    @Test
+    public void updateCommits() {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
+        try {
+            travelLogs.writeCommits("branch-A", Arrays.asList(COMMIT_C, COMMIT_B, COMMIT_A));
+            travelLogs.writeHeadToCommit(COMMIT_B);
+
+            // Fast-forward appends new commits only.
+            travelLogs.updateCommits("branch-A", Arrays.asList(), Arrays.asList(
+                ObjectId.fromString(COMMIT_D), ObjectId.fromString(COMMIT_E)));
+            assertArrayEquals(new Object[] { COMMIT_E, COMMIT_D, COMMIT_C, COMMIT_B, COMMIT_A },
+                travelLogs.readCommits("branch-A").toArray());
+            assertEquals(COMMIT_E, travelLogs.readTip("branch-A").name());
+            assertEquals(COMMIT_B, travelLogs.readHead("branch-A"));
+            assertEquals(1, travelLogs.readHeadPosition("branch-A"));
+
+            // Rewritten history drops the diverged suffix and keeps head where it still exists.
+            travelLogs.updateCommits("branch-A",
+                Arrays.asList(ObjectId.fromString(COMMIT_D), ObjectId.fromString(COMMIT_E)),
+                Arrays.asList(ObjectId.fromString(COMMIT_F)));
+            assertArrayEquals(new Object[] { COMMIT_F, COMMIT_C, COMMIT_B, COMMIT_A },
+                travelLogs.readCommits("branch-A").toArray());
+            assertEquals(COMMIT_B, travelLogs.readHead("branch-A"));
+
+            // Head on a dropped commit moves to the new tip.
+            travelLogs.writeHeadToEnd();
+            travelLogs.updateCommits("branch-A",
+                Arrays.asList(ObjectId.fromString(COMMIT_F)), Arrays.asList(ObjectId.fromString(COMMIT_D)));
+            assertEquals(COMMIT_D, travelLogs.readHead("branch-A"));
+            assertEquals(3, travelLogs.readHeadPosition("branch-A"));
+            assertEquals(true, travelLogs.isValidCommit("branch-A", COMMIT_D));
+            assertEquals(false, travelLogs.isValidCommit("branch-A", COMMIT_F));
+        } catch (IOException exception) {
+            fail("Test failed due to " + exception);
+        }
+    }
+
+    @Test
+    public void rejectCorruptTimelineEntries() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path commitsFile = memoryFileSystem.getPath("/commits");
+        CommitTimeline.write(commitsFile, Arrays.asList(
+            ObjectId.fromString(COMMIT_A), ObjectId.fromString(COMMIT_B), ObjectId.fromString(COMMIT_C)));
+        assertEquals(3, CommitTimeline.openVerified(commitsFile).size());
+
+        byte[] bytes = Files.readAllBytes(commitsFile);
+        bytes[CommitTimeline.HEADER_SIZE + CommitTimeline.ENTRY_SIZE] ^= 1;
+        Files.write(commitsFile, bytes);
+        assertEquals(3, CommitTimeline.open(commitsFile).size());
+        try {
+            CommitTimeline.openVerified(commitsFile);
+            fail("Corrupt entries were not detected.");
+        } catch (IOException exception) {
+            assertEquals("Corrupt commit timeline file : /commits", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void logWriterStreamsNewestFirst() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
+        // spool 버퍼 여러 개에 걸치는 길이
+        int count = 20000;
+        try (TravelLogs.LogWriter writer = travelLogs.newLogWriter("branch-A", true)) {
+            for (int i = count - 1; i >= 0; --i) {
+                writer.add(commitOf(i), new CommitMetadata.Entry(i, "author " + (i % 3), "commit " + i));
+            }
+            writer.commit();
+        }
+
+        CommitTimeline timeline = travelLogs.openTimeline("branch-A");
+        CommitMetadata metadata = travelLogs.openMetadata("branch-A", timeline);
+        assertEquals(count, timeline.size());
+        assertEquals(true, timeline.verify());
+        for (int position = 0; position < count; ++position) {
+            assertEquals(commitOf(position), timeline.get(position));
+            assertEquals("commit " + position, metadata.subject(position));
+            assertEquals(position, metadata.commitTime(position));
+        }
+        assertEquals(count - 1, travelLogs.readHeadPosition("branch-A"));
+        assertEquals("branch-A", travelLogs.readCurrentBranch());
+        try (Stream<Path> files = Files.list(memoryFileSystem.getPath("/data/git-travel-data/project"))) {
+            assertEquals(2, files.count());
+        }
+        try (Stream<Path> files = Files.list(memoryFileSystem.getPath("/data/git-travel-data/project/branch-A"))) {
+            assertEquals(false, files.anyMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void uncommittedLogWriterLeavesBranchUninitialized() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs travelLogs = new TravelLogs("/data", "project", memoryFileSystem);
+        try (TravelLogs.LogWriter writer = travelLogs.newLogWriter("branch-A", false)) {
+            writer.add(ObjectId.fromString(COMMIT_A), null);
+        }
+        assertEquals(false, travelLogs.isInitialized("branch-A"));
+        assertEquals(false, travelLogs.existsCurrentBranch());
+
+        travelLogs.writeCommits("branch-A", Arrays.asList(COMMIT_B, COMMIT_A));
+        try (TravelLogs.LogWriter writer = travelLogs.newLogWriter("branch-A", false)) {
+            writer.add(ObjectId.fromString(COMMIT_C), null);
+        }
+        assertArrayEquals(new Object[] { COMMIT_B, COMMIT_A }, travelLogs.readCommits("branch-A").toArray());
+        assertEquals(COMMIT_B, travelLogs.readHead("branch-A"));
+    }
+
+    @Test
+    public void reopenSidecarRewrittenByAnotherProcess() throws IOException {
+        FileSystem memoryFileSystem = Jimfs.newFileSystem(Configuration.unix());
+        TravelLogs daemon = new TravelLogs("/data", "project", memoryFileSystem);
+        TravelLogs other = new TravelLogs("/data", "project", memoryFileSystem);
+        daemon.writeCommits("branch-A", Arrays.asList(COMMIT_C, COMMIT_B, COMMIT_A));
+        daemon.writeTags("branch-A", Arrays.asList(new CommitTags.Entry("v1.0", 0)));
+        CommitTimeline timeline = daemon.openTimeline("branch-A");
+        assertEquals(1, daemon.openTags("branch-A", timeline).size());
+
+        // commits 파일은 그대로이고 tag만 바뀐 init
+        other.writeTags("branch-A", Arrays.asList(new CommitTags.Entry("v1.0", 0), new CommitTags.Entry("v1.1", 2)));
+        assertSame(timeline, daemon.openTimeline("branch-A"));
+        CommitTags tags = daemon.openTags("branch-A", timeline);
+        assertEquals(2, tags.size());
+        assertEquals(2, tags.find("v1.1"));
+        assertSame(tags, daemon.openTags("branch-A", timeline));
+    }
+
+    private static ObjectId commitOf(int i) {
+        return ObjectId.fromString(Strings.padStart(Integer.toHexString(i), 40, '0'));
+    }
 }
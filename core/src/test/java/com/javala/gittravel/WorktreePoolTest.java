@@ -0,0 +1,179 @@
+package com.javala.gittravel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** {@link WorktreePool}과 <em>worktrees</em> 커맨드 Test */
+public class WorktreePoolTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reuseClosestAndReclaimLeastRecentlyUsed() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(folder.newFolder()).setInitialBranch("main").call()) {
+            Repository repository = git.getRepository();
+            RevCommit a = commit(git, "a", 10, "a");
+            RevCommit b = commit(git, "b", 10, "b");
+            commit(git, "a", 10, "a again");
+            Files.writeString(repository.getWorkTree().toPath().resolve("a0"), "changed");
+            RevCommit a2 = commit(git, "a", 0, "a2");
+            RevCommit c = commit(git, "c", 10, "c");
+            String head = GitTravels.getHeadCommitHash(git).get();
+
+            Path poolDir = folder.getRoot().toPath().resolve("pool");
+            WorktreePool pool = WorktreePool.create(poolDir, repository, 2);
+            Path first = pool.checkout(repository, a);
+            assertEquals("git-travel-1", first.getFileName().toString());
+            assertCheckedOut(repository, first, a);
+            Path second = pool.checkout(repository, b);
+            assertEquals("git-travel-2", second.getFileName().toString());
+            assertCheckedOut(repository, second, b);
+
+            assertEquals(first, pool.checkout(repository, a2));
+            assertCheckedOut(repository, first, a2);
+            assertEquals(a2, WorktreePool.open(poolDir, repository).checkedOut(repository));
+
+            // 두 worktree 모두 새로 checkout하는 편이 더 적게 쓰므로 오래 사용하지 않은 worktree를 비웁니다.
+            pool = WorktreePool.open(poolDir, repository);
+            assertEquals(second, pool.checkout(repository, c));
+            assertCheckedOut(repository, second, c);
+            assertCheckedOut(repository, first, a2);
+            assertEquals(head, GitTravels.getHeadCommitHash(git).get());
+            assertEquals(c.name(), Files.readString(repository.getDirectory().toPath()
+                .resolve("worktrees").resolve("git-travel-2").resolve("HEAD")).trim());
+
+            pool = WorktreePool.create(poolDir, repository, 1);
+            assertEquals(1, pool.members().size());
+            assertEquals(c, pool.checkedOut(repository));
+            assertFalse(Files.exists(first));
+            assertFalse(Files.exists(repository.getDirectory().toPath().resolve("worktrees").resolve("git-travel-1")));
+
+            pool.remove();
+            assertNull(WorktreePool.open(poolDir, repository));
+            assertFalse(Files.exists(second));
+            assertFalse(Files.exists(repository.getDirectory().toPath().resolve("worktrees").resolve("git-travel-2")));
+        }
+    }
+
+    @Test
+    public void travelIntoPool() throws IOException, GitAPIException {
+        TravelFixture fixture = TravelFixture.create(folder, SyntheticRepository.builder().commits(30).workTree(true));
+        TravelLogs travelLogs = fixture.travelLogs();
+        assertEquals(0, fixture.run("init").exitCode);
+        assertEquals(0, fixture.run("move", "start").exitCode);
+        CommitTimeline timeline = travelLogs.openTimeline(SyntheticRepository.BRANCH);
+
+        assertEquals("Worktree pool is off. Run 'worktrees <size>' to turn it on.",
+            fixture.run("worktrees").out.trim());
+        assertEquals("Worktree pool : 0/2 worktrees", fixture.run("worktrees", "2").out.trim());
+        assertFalse(travelLogs.isInitialized("worktrees"));
+
+        TravelFixture.Result result = fixture.run("travel", "3");
+        assertEquals(0, result.exitCode);
+        Path workTree;
+        try (Repository git = fixture.repository().open()) {
+            workTree = travelLogs.worktreePoolDir(git).resolve("git-travel-1").toAbsolutePath();
+        }
+        assertTrue(result.out.endsWith("Worktree : " + workTree + System.lineSeparator()));
+        assertEquals(0, fixture.run("travel", "-b", "--no-checkout").exitCode);
+        assertEquals(0, fixture.run("travel", "--no-checkout", "2").exitCode);
+        assertEquals(0, fixture.run("materialize").exitCode);
+        assertEquals(4, fixture.headPosition());
+
+        assertEquals(timeline.get(0).name(), fixture.workTreeHead());
+        try (Repository git = fixture.repository().open()) {
+            assertCheckedOut(git, workTree, timeline.get(4));
+        }
+        String[] lines = fixture.run("worktrees").lines();
+        assertEquals("Worktree pool : 1/2 worktrees", lines[0]);
+        assertTrue(lines[1].startsWith("* " + workTree + " " + timeline.get(4).name().substring(0, 6)));
+
+        assertEquals("Worktree pool is off.", fixture.run("worktrees", "off").out.trim());
+        assertFalse(Files.exists(workTree));
+        assertEquals(0, fixture.run("travel").exitCode);
+        assertEquals(1, fixture.headPosition());
+    }
+
+    @Test
+    public void separatePoolsOfSameNamedProjects() throws IOException, GitAPIException {
+        TravelLogs travelLogs = new TravelLogs(folder.newFolder().toString(), "project");
+        try (Git first = Git.init().setDirectory(new File(folder.newFolder(), "project")).call();
+             Git second = Git.init().setDirectory(new File(folder.newFolder(), "project")).call()) {
+            RevCommit a = commit(first, "a", 2, "a");
+            RevCommit b = commit(second, "b", 2, "b");
+            Path firstPoolDir = travelLogs.worktreePoolDir(first.getRepository());
+            Path secondPoolDir = travelLogs.worktreePoolDir(second.getRepository());
+            assertFalse(firstPoolDir.equals(secondPoolDir));
+            assertEquals(firstPoolDir, travelLogs.worktreePoolDir(first.getRepository()));
+
+            Path workTree = WorktreePool.create(firstPoolDir, first.getRepository(), 1)
+                .checkout(first.getRepository(), a);
+            WorktreePool.create(secondPoolDir, second.getRepository(), 1).checkout(second.getRepository(), b);
+            WorktreePool.create(secondPoolDir, second.getRepository(), 1).remove();
+
+            assertTrue(Files.exists(workTree));
+            assertEquals(a, WorktreePool.open(firstPoolDir, first.getRepository()).checkedOut(first.getRepository()));
+        }
+    }
+
+    private static RevCommit commit(Git git, String prefix, int files, String message)
+            throws IOException, GitAPIException {
+        Path workTree = git.getRepository().getWorkTree().toPath();
+        try (Stream<Path> paths = Files.list(workTree)) {
+            for (Path path : paths.filter(path -> !path.getFileName().toString().equals(".git")
+                    && !path.getFileName().toString().startsWith(prefix)).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        for (int i = 0; i < files; ++i) {
+            Files.writeString(workTree.resolve(prefix + i), prefix + " " + i);
+        }
+        git.add().addFilepattern(".").setUpdate(false).call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        return git.commit().setSign(false).setMessage(message).call();
+    }
+
+    /** {@code workTree}의 파일이 {@code commit}의 tree와 같은지 확인합니다. */
+    private static void assertCheckedOut(Repository repository, Path workTree, ObjectId commit) throws IOException {
+        Set<String> expected = new HashSet<>();
+        try (RevWalk walk = new RevWalk(repository); TreeWalk tree = new TreeWalk(repository)) {
+            tree.addTree(walk.parseCommit(commit).getTree());
+            tree.setRecursive(true);
+            while (tree.next()) {
+                expected.add(tree.getPathString());
+                assertArrayEquals(tree.getPathString(), repository.open(tree.getObjectId(0)).getBytes(),
+                    Files.readAllBytes(workTree.resolve(tree.getPathString())));
+            }
+        }
+        try (Stream<Path> files = Files.walk(workTree)) {
+            Set<String> actual = files.filter(Files::isRegularFile)
+                .map(path -> workTree.relativize(path).toString().replace('\\', '/'))
+                .filter(path -> !path.equals(".git"))
+                .collect(Collectors.toSet());
+            assertEquals(expected, actual);
+        }
+    }
+}